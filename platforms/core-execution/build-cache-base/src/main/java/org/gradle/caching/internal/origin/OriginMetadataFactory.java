@@ -55,6 +55,10 @@ public OriginWriter createWriter(String identity, Class<?> workType, HashCode bu
         };
     }
 
+    public OriginMetadata createMetadata(HashCode buildCacheKey, Duration elapsedTime) {
+        return new OriginMetadata(currentBuildInvocationId, buildCacheKey, elapsedTime);
+    }
+
     public OriginReader createReader() {
         return inputStream -> {
             Properties properties = new Properties();
@@ -84,6 +84,7 @@
 import org.gradle.internal.operations.OperationProgressEvent;
 import org.gradle.internal.operations.OperationStartEvent;
 import org.gradle.internal.snapshot.SnapshotHierarchy;
+import org.gradle.internal.snapshot.impl.ConcurrentHashingPool;
 import org.gradle.internal.snapshot.impl.DirectorySnapshotterStatistics;
 import org.gradle.internal.time.Clock;
 import org.gradle.internal.time.Time;
@@ -131,7 +132,8 @@ BuildCacheController createBuildCacheController(
         TemporaryFileFactory temporaryFileProvider,
         BuildCacheEntryPacker buildCacheEntryPacker,
         OriginMetadataFactory originMetadataFactory,
-        Interner<String> stringInterner
+        Interner<String> stringInterner,
+        ExecutorFactory executorFactory
     ) {
         return new DefaultBuildCacheController(
             buildCacheServicesConfig,
@@ -142,7 +144,8 @@ BuildCacheController createBuildCacheController(
             true,
             buildCacheEntryPacker,
             originMetadataFactory,
-            stringInterner
+            stringInterner,
+            executorFactory
         );
     }
 
@@ -505,7 +508,8 @@ FileSystemAccess createFileSystemAccess(
             stat,
             virtualFileSystem,
             locations -> locations.forEach(System.out::println),
-            statisticsCollector
+            statisticsCollector,
+            ConcurrentHashingPool.SEQUENTIAL
         );
     }
 }
@@ -13,6 +13,7 @@ dependencies {
     api(libs.jspecify)
 
     api(projects.baseServices)
+    api(projects.buildCache)
     api(projects.buildCacheSpi)
     api(projects.coreApi)
     api(projects.resourcesHttp)
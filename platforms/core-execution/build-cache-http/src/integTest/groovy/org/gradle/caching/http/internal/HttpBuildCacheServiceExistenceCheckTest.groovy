@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.http.internal
+
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.caching.BuildCacheServiceFactory
+import org.gradle.caching.http.HttpBuildCache
+import org.gradle.caching.internal.SimpleBuildCacheKey
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.resource.transport.http.DefaultSslContextFactory
+import org.gradle.internal.resource.transport.http.HttpClientHelper
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.fixtures.server.http.HttpBuildCacheServer
+import org.gradle.util.TestUtil
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.servlet.http.HttpServletRequest
+import javax.servlet.http.HttpServletResponse
+
+class HttpBuildCacheServiceExistenceCheckTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tempDir = new TestNameTestDirectoryProvider(getClass())
+    @Rule
+    HttpBuildCacheServer server = new HttpBuildCacheServer(tempDir)
+
+    def keys = (1..500).collect { new SimpleBuildCacheKey(TestHashCodes.hashCodeFrom(it)) }
+    def requests = []
+
+    def setup() {
+        server.addResponder { HttpServletRequest request, HttpServletResponse response ->
+            requests << request.method
+            return true
+        }
+    }
+
+    HttpBuildCacheService createCache() {
+        def config = TestUtil.newInstance(HttpBuildCache.class)
+        config.url = server.uri
+        new DefaultHttpBuildCacheServiceFactory(TestUtil.objectFactory(), new DefaultSslContextFactory(), {}, HttpClientHelper.Factory.createFactory(new DocumentationRegistry()))
+            .createBuildCacheService(config, new NoopBuildCacheDescriber()) as HttpBuildCacheService
+    }
+
+    def "checks existence of many entries in a single request"() {
+        server.withLatency(40).withReferenceStorage()
+        server.start()
+        keys.findAll { it.hashCodeInternal.hashCode() % 3 == 0 }.each {
+            server.cacheDir.file(it.hashCode).text = "entry"
+        }
+        def cache = createCache()
+
+        when:
+        def existing = cache.findExisting(keys)
+
+        then:
+        existing.get() == keys.findAll { it.hashCodeInternal.hashCode() % 3 == 0 } as Set
+        requests == ["OPTIONS", "POST"]
+
+        when:
+        requests.clear()
+        existing = cache.findExisting(keys.take(1))
+
+        then:
+        existing.present
+        requests == ["POST"]
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "falls back when server does not support checking existence of entries"() {
+        server.start()
+        def cache = createCache()
+
+        when:
+        def first = cache.findExisting(keys)
+        def second = cache.findExisting(keys)
+
+        then:
+        !first.present
+        !second.present
+        requests == ["OPTIONS"]
+
+        cleanup:
+        cache?.close()
+    }
+
+    def "asks for capabilities again after a transient failure"() {
+        def failedProbes = 0
+        server.addResponder { HttpServletRequest request, HttpServletResponse response ->
+            if (request.method == "OPTIONS" && failedProbes == 0) {
+                failedProbes++
+                response.status = HttpServletResponse.SC_SERVICE_UNAVAILABLE
+                return false
+            }
+            return true
+        }
+        server.withReferenceStorage()
+        server.start()
+        def cache = createCache()
+
+        when:
+        def first = cache.findExisting(keys)
+
+        then:
+        !first.present
+        requests == ["OPTIONS"]
+
+        when:
+        requests.clear()
+        def second = cache.findExisting(keys)
+
+        then:
+        second.get().empty
+        requests == ["OPTIONS", "POST"]
+
+        cleanup:
+        cache?.close()
+    }
+
+    private static class NoopBuildCacheDescriber implements BuildCacheServiceFactory.Describer {
+
+        @Override
+        BuildCacheServiceFactory.Describer type(String type) { this }
+
+        @Override
+        BuildCacheServiceFactory.Describer config(String name, String value) { this }
+
+    }
+}
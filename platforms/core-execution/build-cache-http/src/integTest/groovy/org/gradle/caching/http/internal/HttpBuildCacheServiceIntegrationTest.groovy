@@ -73,6 +73,24 @@ class HttpBuildCacheServiceIntegrationTest extends HttpBuildCacheFixture {
         skipped ":compileJava"
     }
 
+    def "outputs are loaded from the storage of the reference build cache server"() {
+        httpBuildCacheServer.withReferenceStorage()
+
+        when:
+        withBuildCache().run "jar"
+        then:
+        noneSkipped()
+        !httpBuildCacheServer.listCacheFiles().empty
+
+        expect:
+        withBuildCache().run "clean"
+
+        when:
+        withBuildCache().run "jar"
+        then:
+        skipped ":compileJava"
+    }
+
     def "outputs are correctly loaded from cache"() {
         buildFile << """
             apply plugin: "application"
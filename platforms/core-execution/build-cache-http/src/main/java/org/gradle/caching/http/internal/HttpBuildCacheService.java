@@ -16,40 +16,70 @@
 
 package org.gradle.caching.http.internal;
 
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableSet;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpOptions;
+import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.protocol.HTTP;
 import org.gradle.caching.BuildCacheEntryReader;
 import org.gradle.caching.BuildCacheEntryWriter;
 import org.gradle.caching.BuildCacheException;
 import org.gradle.caching.BuildCacheKey;
-import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.BatchingBuildCacheService;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.resource.transport.http.HttpClientHelper;
 import org.gradle.internal.resource.transport.http.HttpClientResponse;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 /**
  * Build cache implementation that delegates to a service accessible via HTTP.
+ *
+ * <p>Servers can optionally support checking for the existence of many entries in a single request.
+ * Such servers list {@value #CONTAINS_CAPABILITY} in the {@value #CAPABILITIES_HEADER} header of their response to an {@code OPTIONS} request for the cache root.
+ * The keys to check are then {@code POST}ed to {@code <root>/}{@value #CONTAINS_PATH} as a {@value #BUILD_CACHE_KEYS_CONTENT_TYPE} body with one key per line,
+ * and the server responds with the keys it has an entry for in the same format.</p>
  */
-public class HttpBuildCacheService implements BuildCacheService {
+public class HttpBuildCacheService implements BatchingBuildCacheService {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpBuildCacheService.class);
     static final String BUILD_CACHE_CONTENT_TYPE = "application/vnd.gradle.build-cache-artifact.v2";
+    static final String BUILD_CACHE_KEYS_CONTENT_TYPE = "application/vnd.gradle.build-cache-keys.v1";
+    static final String CAPABILITIES_HEADER = "X-Gradle-Build-Cache-Capabilities";
+    static final String CONTAINS_CAPABILITY = "contains";
+    static final String CONTAINS_PATH = "contains";
+
+    private static final Set<Integer> UNSUPPORTED_EXTENSION_HTTP_CODES = ImmutableSet.of(
+        HttpStatus.SC_NOT_FOUND,
+        HttpStatus.SC_METHOD_NOT_ALLOWED,
+        HttpStatus.SC_NOT_IMPLEMENTED
+    );
 
     private static final Set<Integer> FATAL_HTTP_ERROR_CODES = ImmutableSet.of(
         HttpStatus.SC_USE_PROXY,
@@ -66,6 +96,8 @@ public class HttpBuildCacheService implements BuildCacheService {
     private final HttpClientHelper httpClientHelper;
     private final HttpBuildCacheRequestCustomizer requestCustomizer;
     private final boolean useExpectContinue;
+    @Nullable
+    private volatile Boolean supportsContains;
 
     public HttpBuildCacheService(HttpClientHelper httpClientHelper, URI url, HttpBuildCacheRequestCustomizer requestCustomizer, boolean useExpectContinue) {
         this.requestCustomizer = requestCustomizer;
@@ -154,6 +186,94 @@ public boolean isStreaming() {
         }
     }
 
+    @Override
+    public Optional<Set<BuildCacheKey>> findExisting(Collection<BuildCacheKey> keys) throws BuildCacheException {
+        if (keys.isEmpty()) {
+            return Optional.of(Collections.emptySet());
+        }
+        if (!supportsContains()) {
+            return Optional.empty();
+        }
+        Map<String, BuildCacheKey> keysByHashCode = new HashMap<>();
+        keys.forEach(key -> keysByHashCode.put(key.getHashCode(), key));
+
+        URI uri = root.resolve("./" + CONTAINS_PATH);
+        HttpPost httpPost = new HttpPost(uri);
+        httpPost.addHeader(HttpHeaders.ACCEPT, BUILD_CACHE_KEYS_CONTENT_TYPE);
+        httpPost.setEntity(new StringEntity(String.join("\n", keysByHashCode.keySet()), ContentType.create(BUILD_CACHE_KEYS_CONTENT_TYPE, StandardCharsets.UTF_8)));
+        requestCustomizer.customize(httpPost);
+
+        try (HttpClientResponse response = httpClientHelper.performHttpRequest(httpPost)) {
+            StatusLine statusLine = response.getStatusLine();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Response for POST {}: {}", safeUri(uri), statusLine);
+            }
+            int statusCode = statusLine.getStatusCode();
+            if (isHttpSuccess(statusCode)) {
+                Set<BuildCacheKey> existing = new HashSet<>();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getContent(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        BuildCacheKey key = keysByHashCode.get(line.trim());
+                        if (key != null) {
+                            existing.add(key);
+                        }
+                    }
+                }
+                return Optional.of(existing);
+            } else if (UNSUPPORTED_EXTENSION_HTTP_CODES.contains(statusCode)) {
+                supportsContains = false;
+                return Optional.empty();
+            } else {
+                String defaultMessage = String.format("Checking entries at '%s' response status %d: %s", safeUri(uri), statusCode, statusLine.getReasonPhrase());
+                throwHttpStatusCodeException(statusCode, defaultMessage);
+                return Optional.empty();
+            }
+        } catch (IOException e) {
+            throw wrap(e);
+        }
+    }
+
+    /**
+     * Asks the server whether it supports checking for entries in bulk, until it gives a definitive answer.
+     */
+    private boolean supportsContains() {
+        Boolean supported = supportsContains;
+        if (supported == null) {
+            supported = probeContainsCapability();
+            if (supported == null) {
+                // Transient failure, ask again next time
+                return false;
+            }
+            supportsContains = supported;
+        }
+        return supported;
+    }
+
+    /**
+     * Returns whether the server supports checking for entries in bulk, or {@code null} if it could not be determined.
+     */
+    @Nullable
+    private Boolean probeContainsCapability() {
+        HttpOptions httpOptions = new HttpOptions(root);
+        requestCustomizer.customize(httpOptions);
+        try (HttpClientResponse response = httpClientHelper.performHttpRequest(httpOptions)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (isHttpSuccess(statusCode)) {
+                String capabilities = response.getHeader(CAPABILITIES_HEADER);
+                return capabilities != null && Splitter.on(',').trimResults().splitToList(capabilities).contains(CONTAINS_CAPABILITY);
+            }
+            if (UNSUPPORTED_EXTENSION_HTTP_CODES.contains(statusCode)) {
+                return false;
+            }
+            LOGGER.debug("Could not determine capabilities of build cache at '{}', response status {}", safeUri(root), statusCode);
+            return null;
+        } catch (IOException e) {
+            LOGGER.debug("Could not determine capabilities of build cache at '{}'", safeUri(root), e);
+            return null;
+        }
+    }
+
     private static BuildCacheException wrap(Throwable e) {
         if (e instanceof Error) {
             throw (Error) e;
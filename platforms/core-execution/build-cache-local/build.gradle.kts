@@ -8,11 +8,14 @@ description = "Local build cache implementation"
 
 dependencies {
     api(projects.buildCache)
+    api(projects.buildCacheBase)
+    api(projects.buildCachePackaging)
     api(projects.buildCacheSpi)
     api(projects.files)
     api(projects.functional)
     api(projects.hashing)
     api(projects.persistentCache)
+    api(projects.snapshots)
 
     api(libs.jspecify)
 
@@ -20,6 +23,7 @@ dependencies {
 
     implementation(libs.commonsIo)
     implementation(libs.guava)
+    implementation(libs.slf4jApi)
 
     testImplementation(projects.modelCore)
     testImplementation(projects.fileCollections)
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.gradle.caching.internal.controller.CacheManifest;
+import org.gradle.caching.internal.origin.OriginMetadata;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.hash.HashCode;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary format of the {@link CacheManifest} files stored by {@link ContentAddressedBuildCache}.
+ */
+class CacheManifestSerializer {
+    private static final int FORMAT_VERSION = 1;
+    private static final FileType[] FILE_TYPES = FileType.values();
+
+    private CacheManifestSerializer() {
+    }
+
+    public static void write(CacheManifest manifest, OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(FORMAT_VERSION);
+
+        OriginMetadata originMetadata = manifest.getOriginMetadata();
+        output.writeUTF(originMetadata.getBuildInvocationId());
+        writeHashCode(originMetadata.getBuildCacheKey(), output);
+        output.writeLong(originMetadata.getExecutionTime().toMillis());
+
+        output.writeUTF(manifest.getWorkType());
+        output.writeUTF(manifest.getIdentity());
+
+        Map<String, List<CacheManifest.ManifestEntry>> propertyManifests = manifest.getPropertyManifests();
+        output.writeInt(propertyManifests.size());
+        for (Map.Entry<String, List<CacheManifest.ManifestEntry>> property : propertyManifests.entrySet()) {
+            output.writeUTF(property.getKey());
+            List<CacheManifest.ManifestEntry> entries = property.getValue();
+            output.writeInt(entries.size());
+            for (CacheManifest.ManifestEntry entry : entries) {
+                output.writeByte(entry.getType().ordinal());
+                output.writeUTF(entry.getRelativePath());
+                writeHashCode(entry.getContentHash(), output);
+                output.writeLong(entry.getLength());
+                output.writeInt(entry.getUnixMode());
+            }
+        }
+        output.flush();
+    }
+
+    public static CacheManifest read(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        int version = input.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("Cached entry format error, unsupported manifest version: " + version);
+        }
+
+        String buildInvocationId = input.readUTF();
+        HashCode buildCacheKey = readHashCode(input);
+        Duration executionTime = Duration.ofMillis(input.readLong());
+        OriginMetadata originMetadata = new OriginMetadata(buildInvocationId, buildCacheKey, executionTime);
+
+        String workType = input.readUTF();
+        String identity = input.readUTF();
+
+        int propertyCount = input.readInt();
+        ImmutableMap.Builder<String, List<CacheManifest.ManifestEntry>> propertyManifests = ImmutableMap.builderWithExpectedSize(propertyCount);
+        for (int propertyIndex = 0; propertyIndex < propertyCount; propertyIndex++) {
+            String propertyName = input.readUTF();
+            int entryCount = input.readInt();
+            ImmutableList.Builder<CacheManifest.ManifestEntry> entries = ImmutableList.builderWithExpectedSize(entryCount);
+            for (int entryIndex = 0; entryIndex < entryCount; entryIndex++) {
+                FileType type = FILE_TYPES[input.readUnsignedByte()];
+                String relativePath = input.readUTF();
+                HashCode contentHash = readHashCode(input);
+                long length = input.readLong();
+                int unixMode = input.readInt();
+                entries.add(new CacheManifest.ManifestEntry(type, relativePath, contentHash, length, unixMode));
+            }
+            propertyManifests.put(propertyName, entries.build());
+        }
+        return new CacheManifest(originMetadata, workType, identity, propertyManifests.build());
+    }
+
+    private static void writeHashCode(HashCode hashCode, DataOutputStream output) throws IOException {
+        byte[] bytes = hashCode.toByteArray();
+        output.writeByte(bytes.length);
+        output.write(bytes);
+    }
+
+    private static HashCode readHashCode(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readUnsignedByte()];
+        input.readFully(bytes);
+        return HashCode.fromBytes(bytes);
+    }
+}
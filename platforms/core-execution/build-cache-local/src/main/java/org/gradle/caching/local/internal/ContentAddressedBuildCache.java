@@ -0,0 +1,243 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.cache.PersistentCache;
+import org.gradle.caching.internal.controller.CacheManifest;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.file.FileAccessTracker;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.hash.HashCode;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * Stores build cache entries as a {@link CacheManifest} per cache key, plus the contents of the files
+ * referenced by the manifests, stored only once per content hash.
+ *
+ * <p>Manifests and contents are stored next to each other in the root of the cache directory,
+ * so the usual least recently used cleanup of the directory cache applies to both.
+ * Whenever a manifest is stored or loaded, all the contents it references are marked as accessed too,
+ * so contents are never considered older than the manifests referencing them.</p>
+ */
+@NullMarked
+public class ContentAddressedBuildCache {
+    private static final String MANIFEST_SUFFIX = ".manifest";
+    private static final String CONTENT_SUFFIX = ".content";
+
+    private final PersistentCache persistentCache;
+    private final FileAccessTracker fileAccessTracker;
+    private final String failedFileSuffix;
+    private final ReadWriteLock lock;
+    @Nullable
+    private final DirectoryBuildCacheEviction eviction;
+
+    public ContentAddressedBuildCache(PersistentCache persistentCache, FileAccessTracker fileAccessTracker, String failedFileSuffix) {
+        this(persistentCache, fileAccessTracker, failedFileSuffix, new ReentrantReadWriteLock(), null);
+    }
+
+    /**
+     * Creates a cache that shares the given lock with other caches stored in the same directory, and optionally evicts entries when it grows too large.
+     */
+    public ContentAddressedBuildCache(PersistentCache persistentCache, FileAccessTracker fileAccessTracker, String failedFileSuffix, ReadWriteLock lock, @Nullable DirectoryBuildCacheEviction eviction) {
+        this.persistentCache = persistentCache;
+        this.lock = lock;
+        this.eviction = eviction;
+        this.fileAccessTracker = fileAccessTracker;
+        this.failedFileSuffix = failedFileSuffix;
+    }
+
+    /**
+     * Loads the manifest stored for the given key, and runs the given action while the referenced contents are guaranteed to be present.
+     *
+     * @return the result of the action, or {@link Optional#empty()} if there is no manifest for the key or some of its contents have been removed.
+     */
+    public <T> Optional<T> load(HashCode key, BiFunction<CacheManifest, ContentStore, T> action) {
+        // We need to lock other processes out here because garbage collection can be under way in another process
+        return persistentCache.withFileLock(() -> {
+            lock.readLock().lock();
+            try {
+                return loadInsideLock(key, action);
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    private <T> Optional<T> loadInsideLock(HashCode key, BiFunction<CacheManifest, ContentStore, T> action) {
+        File manifestFile = getManifestFile(key);
+        if (!manifestFile.exists()) {
+            return Optional.empty();
+        }
+
+        CacheManifest manifest;
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(manifestFile.toPath()))) {
+            manifest = CacheManifestSerializer.read(input);
+        } catch (Exception e) {
+            moveOutOfTheWay(manifestFile);
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+
+        for (List<CacheManifest.ManifestEntry> entries : manifest.getPropertyManifests().values()) {
+            for (CacheManifest.ManifestEntry entry : entries) {
+                if (entry.getType() == FileType.RegularFile && !getContentFile(entry.getContentHash()).exists()) {
+                    // Some content was removed by cleanup, the entry cannot be restored anymore
+                    FileUtils.deleteQuietly(manifestFile);
+                    return Optional.empty();
+                }
+            }
+        }
+        markAccessed(manifestFile, manifest);
+
+        return Optional.of(action.apply(manifest, (contentHash, target) -> Files.copy(getContentFile(contentHash).toPath(), target.toPath())));
+    }
+
+    /**
+     * Stores the given manifest under the given key.
+     * Contents of regular files not yet present in the cache are copied from the given source files.
+     *
+     * @return the number of bytes of content added to the cache.
+     */
+    public long store(HashCode key, CacheManifest manifest, Map<HashCode, File> contentSources) {
+        // We need to lock other processes out here because garbage collection can be under way in another process
+        return persistentCache.withFileLock(() -> {
+            lock.writeLock().lock();
+            try {
+                return storeInsideLock(key, manifest, contentSources);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private long storeInsideLock(HashCode key, CacheManifest manifest, Map<HashCode, File> contentSources) {
+        long addedBytes = 0;
+        List<File> addedFiles = new ArrayList<>();
+        try {
+            for (Map.Entry<HashCode, File> entry : contentSources.entrySet()) {
+                File contentFile = getContentFile(entry.getKey());
+                if (!contentFile.exists()) {
+                    File tempFile = createTempFile();
+                    Files.copy(entry.getValue().toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    addedBytes += tempFile.length();
+                    if (moveIntoCache(tempFile, contentFile)) {
+                        addedFiles.add(contentFile);
+                    }
+                }
+            }
+
+            File tempManifestFile = createTempFile();
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(tempManifestFile.toPath()))) {
+                CacheManifestSerializer.write(manifest, output);
+            }
+            File manifestFile = getManifestFile(key);
+            if (moveIntoCache(tempManifestFile, manifestFile)) {
+                addedFiles.add(manifestFile);
+            }
+            // Mark the existing contents as used first, so that eviction doesn't remove them
+            markAccessed(manifestFile, manifest);
+            if (eviction != null) {
+                for (File addedFile : addedFiles) {
+                    eviction.entryAdded(addedFile);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Couldn't store cache entry '%s' into local cache: %s", key, e), e);
+        }
+        return addedBytes;
+    }
+
+    private static boolean moveIntoCache(File sourceFile, File targetFile) throws IOException {
+        try {
+            Files.move(sourceFile.toPath(), targetFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (FileAlreadyExistsException ignore) {
+            // We already have the file in the build cache
+            Files.deleteIfExists(sourceFile.toPath());
+            return false;
+        }
+    }
+
+    private void markAccessed(File manifestFile, CacheManifest manifest) {
+        markAccessed(manifestFile);
+        for (List<CacheManifest.ManifestEntry> entries : manifest.getPropertyManifests().values()) {
+            for (CacheManifest.ManifestEntry entry : entries) {
+                if (entry.getType() == FileType.RegularFile) {
+                    markAccessed(getContentFile(entry.getContentHash()));
+                }
+            }
+        }
+    }
+
+    private void markAccessed(File file) {
+        fileAccessTracker.markAccessed(file);
+        if (eviction != null) {
+            eviction.entryAccessed(file);
+        }
+    }
+
+    private void moveOutOfTheWay(File file) {
+        // Don't delete, so that it can be potentially used for debugging
+        File failedFile = new File(file.getAbsolutePath() + failedFileSuffix);
+        FileUtils.deleteQuietly(failedFile);
+        //noinspection ResultOfMethodCallIgnored
+        file.renameTo(failedFile);
+    }
+
+    private File createTempFile() throws IOException {
+        // Create temporary files in the cache directory to ensure they are on the same file system,
+        // and thus can always be moved into the cache proper atomically
+        return Files.createTempFile(persistentCache.getBaseDir().toPath(), "content-", BuildCacheTempFileStore.PARTIAL_FILE_SUFFIX).toFile();
+    }
+
+    private File getManifestFile(HashCode key) {
+        return new File(persistentCache.getBaseDir(), key + MANIFEST_SUFFIX);
+    }
+
+    private File getContentFile(HashCode contentHash) {
+        return new File(persistentCache.getBaseDir(), contentHash + CONTENT_SUFFIX);
+    }
+
+    /**
+     * Gives access to the contents stored in the cache.
+     */
+    public interface ContentStore {
+        /**
+         * Copies the content with the given hash to the target file, which must not exist yet.
+         */
+        void copyTo(HashCode contentHash, File target) throws IOException;
+    }
+}
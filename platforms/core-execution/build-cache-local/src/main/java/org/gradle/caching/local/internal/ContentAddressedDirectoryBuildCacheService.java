@@ -0,0 +1,274 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import org.apache.commons.io.FileUtils;
+import org.gradle.cache.PersistentCache;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.BuildCacheKeyInternal;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.controller.CacheManifest;
+import org.gradle.caching.internal.controller.CacheManifest.ManifestEntry;
+import org.gradle.caching.internal.origin.OriginMetadata;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.FilePermissionAccess;
+import org.gradle.caching.internal.packaging.impl.TarPackerFileSystemSupport;
+import org.gradle.internal.file.FileAccessTracker;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.file.TreeType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.DirectorySnapshotBuilder;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+import org.gradle.internal.snapshot.MerkleDirectorySnapshotBuilder;
+import org.gradle.internal.snapshot.MissingFileSnapshot;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.RelativePathTracker;
+import org.gradle.internal.snapshot.SnapshotVisitResult;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.gradle.internal.file.FileMetadata.AccessType.DIRECT;
+import static org.gradle.internal.snapshot.DirectorySnapshotBuilder.EmptyDirectoryHandlingStrategy.INCLUDE_EMPTY_DIRS;
+
+/**
+ * A directory build cache that deduplicates the contents of output files across cache entries.
+ *
+ * <p>Outputs are stored as a {@link CacheManifest} per cache key, and the contents of regular files are stored once per content hash.
+ * Loading an entry copies the contents into place and reuses the hashes from the manifest, so there is no archive to decompress,
+ * and no need to hash the restored files again.</p>
+ *
+ * <p>Archives passed via {@link #storeLocally(BuildCacheKey, File)} are still stored as-is,
+ * so that entries can be loaded regardless of how they were stored.</p>
+ */
+@NullMarked
+public class ContentAddressedDirectoryBuildCacheService extends DirectoryBuildCacheService implements ContentAddressedLocalBuildCacheService {
+
+    @SuppressWarnings("OctalInteger")
+    private static final int DEFAULT_DIR_PERM = 0755;
+
+    private final ContentAddressedBuildCache contentCache;
+    private final TarPackerFileSystemSupport fileSystemSupport;
+    private final FilePermissionAccess filePermissionAccess;
+    private final Interner<String> stringInterner;
+
+    public ContentAddressedDirectoryBuildCacheService(
+        PersistentCache persistentCache,
+        FileAccessTracker fileAccessTracker,
+        String failedFileSuffix,
+        TarPackerFileSystemSupport fileSystemSupport,
+        FilePermissionAccess filePermissionAccess,
+        Interner<String> stringInterner
+    ) {
+        this(persistentCache, fileAccessTracker, failedFileSuffix, fileSystemSupport, filePermissionAccess, stringInterner, new ReentrantReadWriteLock(), null);
+    }
+
+    public ContentAddressedDirectoryBuildCacheService(
+        PersistentCache persistentCache,
+        FileAccessTracker fileAccessTracker,
+        String failedFileSuffix,
+        TarPackerFileSystemSupport fileSystemSupport,
+        FilePermissionAccess filePermissionAccess,
+        Interner<String> stringInterner,
+        ReadWriteLock lock,
+        @Nullable DirectoryBuildCacheEviction eviction
+    ) {
+        // Both layouts live in the same directory, so they share a lock to keep eviction from removing files that are being loaded
+        super(persistentCache, fileAccessTracker, failedFileSuffix, lock, eviction);
+        this.contentCache = new ContentAddressedBuildCache(persistentCache, fileAccessTracker, failedFileSuffix, lock, eviction);
+        this.fileSystemSupport = fileSystemSupport;
+        this.filePermissionAccess = filePermissionAccess;
+        this.stringInterner = stringInterner;
+    }
+
+    @Override
+    public Optional<BuildCacheEntryPacker.UnpackResult> loadOutputs(BuildCacheKey key, CacheableEntity entity) {
+        return contentCache.load(((BuildCacheKeyInternal) key).getHashCodeInternal(), (manifest, contents) -> {
+            try {
+                return restore(entity, manifest, contents);
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not restore outputs of cache entry '%s': %s", key.getHashCode(), e.getMessage()), e);
+            }
+        });
+    }
+
+    @Override
+    public boolean markAccessed(BuildCacheKey key) {
+        // The entry may have been stored either as outputs or as an archive
+        return contentCache.load(((BuildCacheKeyInternal) key).getHashCodeInternal(), (manifest, contents) -> Boolean.TRUE).isPresent()
+            || super.markAccessed(key);
+    }
+
+    @Override
+    public long storeOutputs(BuildCacheKey key, CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OriginMetadata originMetadata) {
+        Map<HashCode, File> contentSources = new HashMap<>();
+        ImmutableMap.Builder<String, List<ManifestEntry>> propertyManifests = ImmutableMap.builder();
+        entity.visitOutputTrees((treeName, type, root) -> {
+            FileSystemSnapshot treeSnapshot = snapshots.get(treeName);
+            if (treeSnapshot != null) {
+                propertyManifests.put(treeName, createTreeManifest(treeSnapshot, contentSources));
+            }
+        });
+        CacheManifest manifest = new CacheManifest(originMetadata, entity.getType().getName(), entity.getIdentity(), propertyManifests.build());
+        return contentCache.store(((BuildCacheKeyInternal) key).getHashCodeInternal(), manifest, contentSources);
+    }
+
+    private List<ManifestEntry> createTreeManifest(FileSystemSnapshot treeSnapshot, Map<HashCode, File> contentSources) {
+        ImmutableList.Builder<ManifestEntry> entries = ImmutableList.builder();
+        treeSnapshot.accept(new RelativePathTracker(), (snapshot, relativePath) -> {
+            boolean isRoot = relativePath.isRoot();
+            String path = isRoot ? "" : relativePath.toRelativePath();
+            snapshot.accept(new FileSystemLocationSnapshot.FileSystemLocationSnapshotVisitor() {
+                @Override
+                public void visitDirectory(DirectorySnapshot directorySnapshot) {
+                    int mode = isRoot ? DEFAULT_DIR_PERM : filePermissionAccess.getUnixMode(new File(directorySnapshot.getAbsolutePath()));
+                    entries.add(new ManifestEntry(FileType.Directory, path, directorySnapshot.getHash(), 0, mode));
+                }
+
+                @Override
+                public void visitRegularFile(RegularFileSnapshot fileSnapshot) {
+                    File file = new File(fileSnapshot.getAbsolutePath());
+                    int mode = filePermissionAccess.getUnixMode(file);
+                    entries.add(new ManifestEntry(FileType.RegularFile, path, fileSnapshot.getHash(), fileSnapshot.getMetadata().getLength(), mode));
+                    contentSources.putIfAbsent(fileSnapshot.getHash(), file);
+                }
+
+                @Override
+                public void visitMissing(MissingFileSnapshot missingSnapshot) {
+                    if (!isRoot) {
+                        throw new RuntimeException(String.format("Couldn't read content of file '%s'", missingSnapshot.getAbsolutePath()));
+                    }
+                    entries.add(new ManifestEntry(FileType.Missing, path, missingSnapshot.getHash(), 0, 0));
+                }
+            });
+            return SnapshotVisitResult.CONTINUE;
+        });
+        return entries.build();
+    }
+
+    private BuildCacheEntryPacker.UnpackResult restore(CacheableEntity entity, CacheManifest manifest, ContentAddressedBuildCache.ContentStore contents) throws IOException {
+        Map<String, File> treeRoots = new LinkedHashMap<>();
+        Map<String, TreeType> treeTypes = new HashMap<>();
+        entity.visitOutputTrees((treeName, type, root) -> {
+            treeRoots.put(treeName, root);
+            treeTypes.put(treeName, type);
+        });
+
+        Map<String, FileSystemLocationSnapshot> snapshots = new HashMap<>();
+        long entries = 0;
+        for (Map.Entry<String, List<ManifestEntry>> property : manifest.getPropertyManifests().entrySet()) {
+            String treeName = property.getKey();
+            File treeRoot = treeRoots.get(treeName);
+            if (treeRoot == null) {
+                throw new IllegalStateException(String.format("No tree '%s' registered", treeName));
+            }
+            List<ManifestEntry> treeEntries = property.getValue();
+            if (treeEntries.isEmpty()) {
+                continue;
+            }
+            entries += treeEntries.size();
+            FileSystemLocationSnapshot treeSnapshot = restoreTree(treeName, treeTypes.get(treeName), treeRoot, treeEntries, contents);
+            if (treeSnapshot != null) {
+                snapshots.put(treeName, treeSnapshot);
+            }
+        }
+        return new BuildCacheEntryPacker.UnpackResult(manifest.getOriginMetadata(), entries, snapshots);
+    }
+
+    @SuppressWarnings("ReturnOfNull")
+    private FileSystemLocationSnapshot restoreTree(String treeName, TreeType treeType, File treeRoot, List<ManifestEntry> treeEntries, ContentAddressedBuildCache.ContentStore contents) throws IOException {
+        ManifestEntry rootEntry = treeEntries.get(0);
+        if (!rootEntry.getRelativePath().isEmpty()) {
+            throw new IllegalStateException("Root needs to be the first entry in a tree");
+        }
+        if (rootEntry.getType() == FileType.Missing) {
+            fileSystemSupport.ensureFileIsMissing(treeRoot);
+            return null;
+        }
+
+        fileSystemSupport.ensureDirectoryForTree(treeType, treeRoot);
+        if (treeType == TreeType.FILE) {
+            if (rootEntry.getType() != FileType.RegularFile) {
+                throw new IllegalStateException("Should be a file: " + treeName);
+            }
+            return restoreFile(rootEntry, treeRoot, treeRoot.getName(), contents);
+        }
+
+        if (rootEntry.getType() != FileType.Directory) {
+            throw new IllegalStateException("Should be a directory: " + treeName);
+        }
+        filePermissionAccess.chmod(treeRoot, rootEntry.getUnixMode());
+
+        DirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.noSortingRequired();
+        builder.enterDirectory(DIRECT, stringInterner.intern(treeRoot.getAbsolutePath()), stringInterner.intern(treeRoot.getName()), INCLUDE_EMPTY_DIRS);
+        Deque<String> parentPaths = new ArrayDeque<>();
+        parentPaths.addLast("");
+        for (ManifestEntry entry : treeEntries.subList(1, treeEntries.size())) {
+            String path = entry.getRelativePath();
+            while (!isDescendant(parentPaths.getLast(), path)) {
+                builder.leaveDirectory();
+                parentPaths.removeLast();
+            }
+            File file = new File(treeRoot, path);
+            String name = path.substring(path.lastIndexOf('/') + 1);
+            if (entry.getType() == FileType.Directory) {
+                FileUtils.forceMkdir(file);
+                filePermissionAccess.chmod(file, entry.getUnixMode());
+                builder.enterDirectory(DIRECT, stringInterner.intern(file.getAbsolutePath()), stringInterner.intern(name), INCLUDE_EMPTY_DIRS);
+                parentPaths.addLast(path);
+            } else {
+                builder.visitLeafElement(restoreFile(entry, file, name, contents));
+            }
+        }
+        while (!parentPaths.isEmpty()) {
+            builder.leaveDirectory();
+            parentPaths.removeLast();
+        }
+        return builder.getResult();
+    }
+
+    private static boolean isDescendant(String parentPath, String path) {
+        return parentPath.isEmpty()
+            || (path.length() > parentPath.length() && path.startsWith(parentPath) && path.charAt(parentPath.length()) == '/');
+    }
+
+    private RegularFileSnapshot restoreFile(ManifestEntry entry, File file, String fileName, ContentAddressedBuildCache.ContentStore contents) throws IOException {
+        contents.copyTo(entry.getContentHash(), file);
+        filePermissionAccess.chmod(file, entry.getUnixMode());
+        String internedAbsolutePath = stringInterner.intern(file.getAbsolutePath());
+        String internedFileName = stringInterner.intern(fileName);
+        return new RegularFileSnapshot(internedAbsolutePath, internedFileName, entry.getContentHash(), DefaultFileMetadata.file(file.lastModified(), entry.getLength(), DIRECT));
+    }
+}
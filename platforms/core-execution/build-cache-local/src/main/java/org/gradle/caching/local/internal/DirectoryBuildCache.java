@@ -24,6 +24,7 @@
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.io.IoConsumer;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 
 import java.io.Closeable;
 import java.io.File;
@@ -48,10 +49,21 @@ public class DirectoryBuildCache implements BuildCacheTempFileStore, Closeable,
     private final BuildCacheTempFileStore tempFileStore;
     private final FileAccessTracker fileAccessTracker;
     private final String failedFileSuffix;
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReadWriteLock lock;
+    @Nullable
+    private final DirectoryBuildCacheEviction eviction;
 
     public DirectoryBuildCache(PersistentCache persistentCache, FileAccessTracker fileAccessTracker, String failedFileSuffix) {
+        this(persistentCache, fileAccessTracker, failedFileSuffix, new ReentrantReadWriteLock(), null);
+    }
+
+    /**
+     * Creates a cache that shares the given lock with other caches stored in the same directory, and optionally evicts entries when it grows too large.
+     */
+    public DirectoryBuildCache(PersistentCache persistentCache, FileAccessTracker fileAccessTracker, String failedFileSuffix, ReadWriteLock lock, @Nullable DirectoryBuildCacheEviction eviction) {
         this.persistentCache = persistentCache;
+        this.lock = lock;
+        this.eviction = eviction;
         // Create temporary files in the cache directory to ensure they are on the same file system,
         // and thus can always be moved into the cache proper atomically
         this.tempFileStore = new DefaultBuildCacheTempFileStore((prefix, suffix) -> {
@@ -106,6 +118,9 @@ private void loadInsideLock(HashCode key, Consumer<? super File> reader) {
         }
 
         fileAccessTracker.markAccessed(file);
+        if (eviction != null) {
+            eviction.entryAccessed(file);
+        }
 
         try {
             reader.accept(file);
@@ -157,8 +172,10 @@ public void storeLocally(HashCode key, File file) {
 
     private void storeInsideLock(HashCode key, File sourceFile) {
         File targetFile = getCacheEntryFile(key);
+        boolean added = false;
         try {
             Files.move(sourceFile.toPath(), targetFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            added = true;
         } catch (FileAlreadyExistsException ignore) {
             // We already have the file in the build cache
             // Note that according to the documentation of `Files.move()`, whether this exception is thrown
@@ -168,6 +185,13 @@ private void storeInsideLock(HashCode key, File sourceFile) {
             throw new UncheckedIOException(String.format("Couldn't move cache entry '%s' into local cache: %s", key, e), e);
         }
         fileAccessTracker.markAccessed(targetFile);
+        if (eviction != null) {
+            if (added) {
+                eviction.entryAdded(targetFile);
+            } else {
+                eviction.entryAccessed(targetFile);
+            }
+        }
     }
 
     @Override
@@ -175,6 +199,13 @@ public void withTempFile(HashCode key, Consumer<? super File> action) {
         persistentCache.withFileLock(() -> tempFileStore.withTempFile(key, action));
     }
 
+    /**
+     * The directory the entries are stored in.
+     */
+    public File getBaseDir() {
+        return persistentCache.getBaseDir();
+    }
+
     @Override
     public void close() {
         persistentCache.close();
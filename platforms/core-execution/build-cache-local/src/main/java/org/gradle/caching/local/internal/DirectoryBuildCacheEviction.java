@@ -0,0 +1,136 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.SizeBoundedLeastRecentlyUsedCacheCleanup;
+import org.gradle.internal.file.FileAccessTimeJournal;
+import org.jspecify.annotations.NullMarked;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a directory build cache below a size limit while entries are stored, by evicting the least recently used entries.
+ *
+ * <p>The cache directory is listed once, the first time an entry is added. From then on, the size and the order of use of the entries
+ * are tracked in memory as entries are added, accessed and evicted. When the limit is exceeded, the least recently used entries are deleted
+ * until the cache is at {@value #LOW_WATERMARK_PERCENT}% of the limit.
+ * Entries stored by other processes are not tracked, the periodic size-bounded cleanup takes care of those.</p>
+ *
+ * <p>Callers must have exclusive access to the cache directory from other processes when adding entries.</p>
+ */
+@NullMarked
+public class DirectoryBuildCacheEviction {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryBuildCacheEviction.class);
+    private static final int LOW_WATERMARK_PERCENT = 90;
+
+    private final File baseDir;
+    private final Collection<File> reservedFiles;
+    private final String displayName;
+    private final SizeBoundedLeastRecentlyUsedCacheCleanup cleanup;
+    private final FileAccessTimeJournal journal;
+    private final long maxSizeInBytes;
+    // Sizes of the entries, least recently used first
+    private final Map<File, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private boolean measured;
+
+    public DirectoryBuildCacheEviction(PersistentCache persistentCache, SizeBoundedLeastRecentlyUsedCacheCleanup cleanup, FileAccessTimeJournal journal, long maxSizeInBytes) {
+        this.baseDir = persistentCache.getBaseDir();
+        this.reservedFiles = persistentCache.getReservedCacheFiles();
+        this.displayName = persistentCache.getDisplayName();
+        this.cleanup = cleanup;
+        this.journal = journal;
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    /**
+     * Whether this eviction can be used for a cache with the given settings.
+     */
+    boolean matches(FileAccessTimeJournal journal, long maxSizeInBytes) {
+        return this.journal == journal && this.maxSizeInBytes == maxSizeInBytes;
+    }
+
+    /**
+     * Called after the given file has been added to the cache.
+     */
+    public synchronized void entryAdded(File entry) {
+        if (!measured) {
+            // The newly added entry is already part of the cache
+            measure();
+        }
+        long entrySize = entry.length();
+        Long previousSize = entrySizes.put(entry, entrySize);
+        size += entrySize - (previousSize == null ? 0 : previousSize);
+        if (size > maxSizeInBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * Called after the given file has been read from the cache.
+     */
+    public synchronized void entryAccessed(File entry) {
+        // Moves the entry to the most recently used end
+        entrySizes.get(entry);
+    }
+
+    /**
+     * The size of the cache as tracked in memory.
+     */
+    synchronized long getSize() {
+        return size;
+    }
+
+    private void measure() {
+        List<SizeBoundedLeastRecentlyUsedCacheCleanup.Entry> entries = cleanup.findEntries(baseDir, file -> !reservedFiles.contains(file) && !file.getName().endsWith(BuildCacheTempFileStore.PARTIAL_FILE_SUFFIX));
+        entries.sort(Comparator.comparingLong(SizeBoundedLeastRecentlyUsedCacheCleanup.Entry::getLastAccessTime));
+        for (SizeBoundedLeastRecentlyUsedCacheCleanup.Entry entry : entries) {
+            entrySizes.put(entry.getFile(), entry.getSize());
+        }
+        size = SizeBoundedLeastRecentlyUsedCacheCleanup.totalSize(entries);
+        measured = true;
+    }
+
+    private void evict() {
+        long targetSize = maxSizeInBytes / 100 * LOW_WATERMARK_PERCENT;
+        long deletedBytes = 0;
+        Iterator<Map.Entry<File, Long>> iterator = entrySizes.entrySet().iterator();
+        while (size > targetSize && iterator.hasNext()) {
+            Map.Entry<File, Long> entry = iterator.next();
+            File file = entry.getKey();
+            long entrySize = entry.getValue();
+            iterator.remove();
+            // Entries already removed by the periodic cleanup only need to be forgotten
+            size -= entrySize;
+            if (FileUtils.deleteQuietly(file)) {
+                journal.deleteLastAccessTime(file);
+                deletedBytes += entrySize;
+            }
+        }
+        LOGGER.debug("{} exceeded {} bytes, evicted {} bytes of least recently used entries.", displayName, maxSizeInBytes, deletedBytes);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.local.internal;
+
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.SizeBoundedLeastRecentlyUsedCacheCleanup;
+import org.gradle.internal.file.FileAccessTimeJournal;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.jspecify.annotations.NullMarked;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides the eviction for size-bounded directory build caches, which is shared by all builds running in the same process,
+ * so that each cache directory is only measured once.
+ */
+@NullMarked
+@ServiceScope(Scope.Global.class)
+public class DirectoryBuildCacheEvictionProvider {
+    private final Map<File, DirectoryBuildCacheEviction> evictions = new HashMap<>();
+
+    /**
+     * Returns the eviction for the given cache.
+     *
+     * <p>The eviction is kept between builds, unless a build requests a different maximum size for the same directory.</p>
+     */
+    public synchronized DirectoryBuildCacheEviction getEviction(PersistentCache persistentCache, SizeBoundedLeastRecentlyUsedCacheCleanup cleanup, FileAccessTimeJournal journal, long maxSizeInBytes) {
+        File baseDir = persistentCache.getBaseDir();
+        DirectoryBuildCacheEviction eviction = evictions.get(baseDir);
+        if (eviction == null || !eviction.matches(journal, maxSizeInBytes)) {
+            eviction = new DirectoryBuildCacheEviction(persistentCache, cleanup, journal, maxSizeInBytes);
+            evictions.put(baseDir, eviction);
+        }
+        return eviction;
+    }
+}
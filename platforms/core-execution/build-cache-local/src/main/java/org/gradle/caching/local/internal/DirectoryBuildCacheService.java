@@ -26,9 +26,12 @@
 import org.gradle.internal.file.FileAccessTracker;
 import org.gradle.internal.hash.HashCode;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 
 @NullMarked
@@ -37,7 +40,11 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
     private final DirectoryBuildCache cache;
 
     public DirectoryBuildCacheService(PersistentCache persistentCache, FileAccessTracker fileAccessTracker, String failedFileSuffix) {
-        this.cache = new DirectoryBuildCache(persistentCache, fileAccessTracker, failedFileSuffix);
+        this(persistentCache, fileAccessTracker, failedFileSuffix, new ReentrantReadWriteLock(), null);
+    }
+
+    public DirectoryBuildCacheService(PersistentCache persistentCache, FileAccessTracker fileAccessTracker, String failedFileSuffix, ReadWriteLock lock, @Nullable DirectoryBuildCacheEviction eviction) {
+        this.cache = new DirectoryBuildCache(persistentCache, fileAccessTracker, failedFileSuffix, lock, eviction);
     }
 
     @Override
@@ -65,6 +72,13 @@ public void withTempFile(HashCode key, Consumer<? super File> action) {
         cache.withTempFile(key, action);
     }
 
+    /**
+     * The directory the entries are stored in.
+     */
+    public File getBaseDir() {
+        return cache.getBaseDir();
+    }
+
     @Override
     public void close() throws IOException {
         cache.close();
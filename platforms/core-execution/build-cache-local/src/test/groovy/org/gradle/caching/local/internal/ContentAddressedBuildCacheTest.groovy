@@ -0,0 +1,126 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal
+
+import org.gradle.cache.PersistentCache
+import org.gradle.caching.internal.controller.CacheManifest
+import org.gradle.caching.internal.origin.OriginMetadata
+import org.gradle.internal.file.FileAccessTracker
+import org.gradle.internal.file.FileType
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.function.Supplier
+
+@UsesNativeServices
+@CleanupTestDirectory
+class ContentAddressedBuildCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+    def cacheDir = temporaryFolder.createDir("cache")
+    def persistentCache = Mock(PersistentCache) {
+        getBaseDir() >> cacheDir
+        withFileLock(_ as Supplier) >> { Supplier s -> s.get() }
+    }
+    def fileAccessTracker = Mock(FileAccessTracker)
+    def cache = new ContentAddressedBuildCache(persistentCache, fileAccessTracker, ".failed")
+    def contentHash = TestHashCodes.hashCodeFrom(1111)
+
+    def "stores identical contents only once"() {
+        def source = temporaryFolder.createFile("source")
+        source.text = "content"
+
+        when:
+        def firstAdded = cache.store(TestHashCodes.hashCodeFrom(1), manifest(contentHash), [(contentHash): source])
+        def secondAdded = cache.store(TestHashCodes.hashCodeFrom(2), manifest(contentHash), [(contentHash): source])
+
+        then:
+        firstAdded == 7
+        secondAdded == 0
+        cacheDir.listFiles().findAll { it.name.endsWith(".content") }.size() == 1
+        cacheDir.listFiles().findAll { it.name.endsWith(".manifest") }.size() == 2
+    }
+
+    def "can load stored manifest and contents"() {
+        def key = TestHashCodes.hashCodeFrom(1)
+        def source = temporaryFolder.createFile("source")
+        source.text = "content"
+        def target = temporaryFolder.file("target")
+        def stored = manifest(contentHash)
+        cache.store(key, stored, [(contentHash): source])
+
+        when:
+        def loaded = cache.load(key) { CacheManifest loadedManifest, ContentAddressedBuildCache.ContentStore contents ->
+            contents.copyTo(loadedManifest.propertyManifests["output"][1].contentHash, target)
+            loadedManifest
+        }
+
+        then:
+        loaded.present
+        loaded.get().originMetadata.buildInvocationId == stored.originMetadata.buildInvocationId
+        loaded.get().originMetadata.executionTime == stored.originMetadata.executionTime
+        loaded.get().workType == stored.workType
+        loaded.get().identity == stored.identity
+        loaded.get().propertyManifests["output"].collect { [it.type, it.relativePath, it.contentHash, it.length, it.unixMode] } ==
+            stored.propertyManifests["output"].collect { [it.type, it.relativePath, it.contentHash, it.length, it.unixMode] }
+        target.text == "content"
+        // The manifest and the content it references
+        2 * fileAccessTracker.markAccessed(_)
+    }
+
+    def "treats entry with missing content as a miss"() {
+        def key = TestHashCodes.hashCodeFrom(1)
+        def source = temporaryFolder.createFile("source")
+        source.text = "content"
+        cache.store(key, manifest(contentHash), [(contentHash): source])
+        new File(cacheDir, "${contentHash}.content").delete()
+
+        when:
+        def loaded = cache.load(key) { manifest, contents -> throw new AssertionError("Should not be called") }
+
+        then:
+        !loaded.present
+        !new File(cacheDir, "${key}.manifest").exists()
+    }
+
+    def "moves corrupt manifest out of the way"() {
+        def key = TestHashCodes.hashCodeFrom(1)
+        new File(cacheDir, "${key}.manifest").text = "corrupt"
+
+        when:
+        cache.load(key) { manifest, contents -> throw new AssertionError("Should not be called") }
+
+        then:
+        thrown Exception
+        !new File(cacheDir, "${key}.manifest").exists()
+        new File(cacheDir, "${key}.manifest.failed").exists()
+    }
+
+    private static CacheManifest manifest(HashCode contentHash) {
+        def entries = [
+            new CacheManifest.ManifestEntry(FileType.Directory, "", TestHashCodes.hashCodeFrom(2222), 0, 0755),
+            new CacheManifest.ManifestEntry(FileType.RegularFile, "file.txt", contentHash, 7, 0644)
+        ]
+        new CacheManifest(new OriginMetadata("invocation-id", TestHashCodes.hashCodeFrom(3333), Duration.ofMillis(1234)), "task", ":compile", [output: entries])
+    }
+}
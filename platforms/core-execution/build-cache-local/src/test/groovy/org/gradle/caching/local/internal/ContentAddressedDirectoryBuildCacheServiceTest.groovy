@@ -0,0 +1,202 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.local.internal
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.cache.PersistentCache
+import org.gradle.cache.internal.SingleDepthFilesFinder
+import org.gradle.cache.internal.SizeBoundedLeastRecentlyUsedCacheCleanup
+import org.gradle.caching.internal.CacheableEntity
+import org.gradle.caching.internal.SimpleBuildCacheKey
+import org.gradle.caching.internal.origin.OriginMetadata
+import org.gradle.caching.internal.packaging.impl.FilePermissionAccess
+import org.gradle.caching.internal.packaging.impl.TarPackerFileSystemSupport
+import org.gradle.internal.file.FileAccessTimeJournal
+import org.gradle.internal.file.FileAccessTracker
+import org.gradle.internal.file.TreeType
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.locks.ReentrantReadWriteLock
+import java.util.function.Supplier
+
+@UsesNativeServices
+@CleanupTestDirectory
+class ContentAddressedDirectoryBuildCacheServiceTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+    def cacheDir = temporaryFolder.createDir("cache")
+    def persistentCache = Mock(PersistentCache) {
+        getBaseDir() >> cacheDir
+        getReservedCacheFiles() >> []
+        withFileLock(_ as Supplier) >> { Supplier s -> s.get() }
+    }
+    Map<File, Long> accessTimes = [:]
+    long clock = 0
+    def fileAccessTracker = Stub(FileAccessTracker) {
+        markAccessed(_) >> { File file -> accessTimes[file] = clock++ }
+    }
+    def fileAccessTimeJournal = Stub(FileAccessTimeJournal) {
+        getLastAccessTime(_) >> { File file -> accessTimes[file] ?: 0L }
+    }
+    def fileSystemSupport = Stub(TarPackerFileSystemSupport) {
+        ensureDirectoryForTree(_, _) >> { TreeType type, File root ->
+            (type == TreeType.DIRECTORY ? root : root.parentFile).mkdirs()
+        }
+    }
+    def filePermissionAccess = Stub(FilePermissionAccess) {
+        getUnixMode(_) >> 0644
+    }
+    def originMetadata = new OriginMetadata("invocation-id", TestHashCodes.hashCodeFrom(3333), Duration.ofMillis(1234))
+    def service = createService(null)
+
+    def "entries with identical outputs share contents"() {
+        def firstKey = new SimpleBuildCacheKey(TestHashCodes.hashCodeFrom(1))
+        def secondKey = new SimpleBuildCacheKey(TestHashCodes.hashCodeFrom(2))
+        def firstOutput = createOutput("first")
+        def secondOutput = createOutput("second")
+
+        when:
+        def firstAdded = service.storeOutputs(firstKey, entity(firstOutput), [output: snapshot(firstOutput)], originMetadata)
+        def secondAdded = service.storeOutputs(secondKey, entity(secondOutput), [output: snapshot(secondOutput)], originMetadata)
+
+        then:
+        firstAdded == "content".length() + "other".length()
+        secondAdded == 0
+        cacheDir.listFiles().findAll { it.name.endsWith(".content") }.size() == 2
+        cacheDir.listFiles().findAll { it.name.endsWith(".manifest") }.size() == 2
+    }
+
+    def "restores stored outputs with their snapshots"() {
+        def key = new SimpleBuildCacheKey(TestHashCodes.hashCodeFrom(1))
+        def output = createOutput("output")
+        def outputSnapshot = snapshot(output)
+        def target = temporaryFolder.file("target")
+        service.storeOutputs(key, entity(output), [output: outputSnapshot], originMetadata)
+
+        when:
+        def result = service.loadOutputs(key, entity(target))
+
+        then:
+        result.present
+        result.get().entries == 5
+        result.get().originMetadata.buildInvocationId == originMetadata.buildInvocationId
+        result.get().snapshots["output"].hash == outputSnapshot.hash
+        result.get().snapshots["output"].absolutePath == target.absolutePath
+        target.file("a.txt").text == "content"
+        target.file("sub/b.txt").text == "content"
+        target.file("c.txt").text == "other"
+    }
+
+    def "treats entry with missing contents as a miss"() {
+        def key = new SimpleBuildCacheKey(TestHashCodes.hashCodeFrom(1))
+        def output = createOutput("output")
+        service.storeOutputs(key, entity(output), [output: snapshot(output)], originMetadata)
+        cacheDir.listFiles().find { it.name.endsWith(".content") }.delete()
+        def target = temporaryFolder.file("target")
+
+        when:
+        def result = service.loadOutputs(key, entity(target))
+
+        then:
+        !result.present
+        !target.exists()
+        !new File(cacheDir, "${key.hashCode}.manifest").exists()
+    }
+
+    def "eviction removes contents only referenced by least recently used entries"() {
+        def service = createService(new DirectoryBuildCacheEviction(persistentCache,
+            new SizeBoundedLeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(1), fileAccessTimeJournal, { 25_000L }), fileAccessTimeJournal, 25_000L))
+        def usedKey = new SimpleBuildCacheKey(TestHashCodes.hashCodeFrom(1))
+        def unusedKey = new SimpleBuildCacheKey(TestHashCodes.hashCodeFrom(2))
+        def newKey = new SimpleBuildCacheKey(TestHashCodes.hashCodeFrom(3))
+        def usedOutput = createFileOutput("used", "a" * 10_000)
+        def unusedOutput = createFileOutput("unused", "b" * 10_000)
+        def newOutput = createFileOutput("new", "c" * 10_000)
+        def unusedSnapshot = snapshot(unusedOutput)
+
+        when:
+        service.storeOutputs(usedKey, fileEntity(usedOutput), [output: snapshot(usedOutput)], originMetadata)
+        service.storeOutputs(unusedKey, fileEntity(unusedOutput), [output: unusedSnapshot], originMetadata)
+        usedOutput.delete()
+        service.loadOutputs(usedKey, fileEntity(usedOutput))
+        service.storeOutputs(newKey, fileEntity(newOutput), [output: snapshot(newOutput)], originMetadata)
+
+        then:
+        !new File(cacheDir, "${unusedSnapshot.hash}.content").exists()
+        cacheDir.listFiles().findAll { it.name.endsWith(".content") }.size() == 2
+
+        when:
+        usedOutput.delete()
+        def usedResult = service.loadOutputs(usedKey, fileEntity(usedOutput))
+        def unusedResult = service.loadOutputs(unusedKey, fileEntity(unusedOutput))
+
+        then:
+        usedResult.present
+        usedOutput.text == "a" * 10_000
+        !unusedResult.present
+        !new File(cacheDir, "${unusedKey.hashCode}.manifest").exists()
+    }
+
+    private ContentAddressedDirectoryBuildCacheService createService(DirectoryBuildCacheEviction eviction) {
+        new ContentAddressedDirectoryBuildCacheService(persistentCache, fileAccessTracker, ".failed", fileSystemSupport, filePermissionAccess, new StringInterner(),
+            new ReentrantReadWriteLock(), eviction)
+    }
+
+    private TestFile createOutput(String name) {
+        def output = temporaryFolder.createDir(name)
+        output.file("a.txt").text = "content"
+        output.file("sub/b.txt").text = "content"
+        output.file("c.txt").text = "other"
+        output
+    }
+
+    private TestFile createFileOutput(String name, String content) {
+        def output = temporaryFolder.file(name)
+        output.text = content
+        output
+    }
+
+    private static FileSystemLocationSnapshot snapshot(File root) {
+        TestFiles.fileSystemAccess().read(root.absolutePath)
+    }
+
+    private CacheableEntity entity(File root) {
+        entity(TreeType.DIRECTORY, root)
+    }
+
+    private CacheableEntity fileEntity(File root) {
+        entity(TreeType.FILE, root)
+    }
+
+    private CacheableEntity entity(TreeType type, File root) {
+        Stub(CacheableEntity) {
+            getIdentity() >> ":task"
+            getType() >> CacheableEntity
+            visitOutputTrees(_) >> { CacheableEntity.CacheableTreeVisitor visitor -> visitor.visitOutputTree("output", type, root) }
+        }
+    }
+}
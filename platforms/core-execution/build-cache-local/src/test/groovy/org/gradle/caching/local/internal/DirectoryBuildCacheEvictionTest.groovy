@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.caching.local.internal
+
+import org.gradle.cache.PersistentCache
+import org.gradle.cache.internal.SizeBoundedLeastRecentlyUsedCacheCleanup
+import org.gradle.internal.file.FileAccessTimeJournal
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+@CleanupTestDirectory
+class DirectoryBuildCacheEvictionTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+    def cacheDir = temporaryFolder.createDir("cache")
+    def persistentCache = Stub(PersistentCache) {
+        getBaseDir() >> cacheDir
+        getReservedCacheFiles() >> []
+        getDisplayName() >> "Build cache"
+    }
+    def cleanup = Mock(SizeBoundedLeastRecentlyUsedCacheCleanup)
+    def journal = Mock(FileAccessTimeJournal)
+    def eviction = new DirectoryBuildCacheEviction(persistentCache, cleanup, journal, 1000)
+
+    def "measures the cache directory only once"() {
+        def existing = entry("existing", 100)
+        def first = entry("first", 100)
+
+        when:
+        eviction.entryAdded(first)
+
+        then:
+        1 * cleanup.findEntries(cacheDir, _) >> [
+            new SizeBoundedLeastRecentlyUsedCacheCleanup.Entry(existing, 100, 1),
+            new SizeBoundedLeastRecentlyUsedCacheCleanup.Entry(first, 100, 2)
+        ]
+        eviction.size == 200
+
+        when:
+        eviction.entryAdded(entry("second", 300))
+
+        then:
+        0 * cleanup._
+        eviction.size == 500
+    }
+
+    def "evicts least recently used entries without listing the cache directory again"() {
+        def oldest = entry("oldest", 400)
+        def accessed = entry("accessed", 400)
+        1 * cleanup.findEntries(cacheDir, _) >> [
+            new SizeBoundedLeastRecentlyUsedCacheCleanup.Entry(accessed, 400, 1),
+            new SizeBoundedLeastRecentlyUsedCacheCleanup.Entry(oldest, 400, 2)
+        ]
+        eviction.entryAdded(oldest)
+        eviction.entryAccessed(accessed)
+
+        when:
+        eviction.entryAdded(entry("new", 400))
+
+        then:
+        0 * cleanup._
+        1 * journal.deleteLastAccessTime(oldest)
+        !oldest.exists()
+        accessed.exists()
+        eviction.size == 800
+    }
+
+    def "forgets entries removed by other means when evicting"() {
+        def removed = entry("removed", 400)
+        def remaining = entry("remaining", 400)
+        1 * cleanup.findEntries(cacheDir, _) >> [
+            new SizeBoundedLeastRecentlyUsedCacheCleanup.Entry(removed, 400, 1),
+            new SizeBoundedLeastRecentlyUsedCacheCleanup.Entry(remaining, 400, 2)
+        ]
+        eviction.entryAdded(remaining)
+        removed.delete()
+
+        when:
+        eviction.entryAdded(entry("new", 400))
+
+        then:
+        0 * journal.deleteLastAccessTime(_)
+        remaining.exists()
+        eviction.size == 800
+    }
+
+    private File entry(String name, int size) {
+        def file = new File(cacheDir, name)
+        file.bytes = new byte[size]
+        file
+    }
+}
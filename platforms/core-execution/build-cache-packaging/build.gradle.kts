@@ -8,6 +8,7 @@ description = "Package build cache results"
 dependencies {
 
     api(projects.buildCacheBase)
+    api(projects.concurrent)
     api(projects.files)
     api(projects.hashing)
     api(projects.snapshots)
@@ -15,6 +16,7 @@ dependencies {
 
     api(libs.guava)
 
+    implementation(libs.aircompressor)
     implementation(libs.commonsCompress)
     implementation(libs.commonsIo)
     implementation(libs.jspecify)
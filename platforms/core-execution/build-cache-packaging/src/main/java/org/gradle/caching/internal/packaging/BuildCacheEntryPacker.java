@@ -48,6 +48,21 @@ public long getEntries() {
 
     UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException;
 
+    /**
+     * Returns the uncompressed archive of a packed entry, as accepted by {@link #unpackUncompressed(CacheableEntity, InputStream, OriginReader)}.
+     * Packers that do not compress entries return the input as-is.
+     */
+    default InputStream decompress(InputStream input) throws IOException {
+        return input;
+    }
+
+    /**
+     * Unpacks an entry from its uncompressed archive, as returned by {@link #decompress(InputStream)}.
+     */
+    default UnpackResult unpackUncompressed(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
+        return unpack(entity, input, readOrigin);
+    }
+
     class UnpackResult {
         private final OriginMetadata originMetadata;
         private final long entries;
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import io.airlift.compress.zstd.ZstdInputStream;
+import io.airlift.compress.zstd.ZstdOutputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression codecs supported for build cache entries.
+ *
+ * <p>Each codec writes a self-describing stream starting with a well-known magic number,
+ * so the codec used to store an entry can be detected when the entry is loaded.
+ * This allows entries compressed with different codecs to coexist in the same cache.</p>
+ */
+public enum BuildCacheEntryCompression {
+    GZIP(0x1f, 0x8b) {
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException {
+            return new GZIPOutputStream(output);
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) throws IOException {
+            return new GZIPInputStream(input);
+        }
+    },
+    ZSTD(0x28, 0xb5, 0x2f, 0xfd) {
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException {
+            return new ZstdOutputStream(output);
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) {
+            return new ZstdInputStream(input);
+        }
+    },
+    LZ4(0x04, 0x22, 0x4d, 0x18) {
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException {
+            return new FramedLZ4CompressorOutputStream(output);
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) throws IOException {
+            return new FramedLZ4CompressorInputStream(input);
+        }
+    };
+
+    /**
+     * The maximum number of bytes needed to detect the codec of a stream.
+     */
+    public static final int MAX_MAGIC_LENGTH = 4;
+
+    private final byte[] magic;
+
+    BuildCacheEntryCompression(int... magic) {
+        this.magic = new byte[magic.length];
+        for (int i = 0; i < magic.length; i++) {
+            this.magic[i] = (byte) magic[i];
+        }
+    }
+
+    public abstract OutputStream compress(OutputStream output) throws IOException;
+
+    public abstract InputStream decompress(InputStream input) throws IOException;
+
+    private boolean matches(byte[] header, int length) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Detects the codec from the first bytes of a compressed entry.
+     *
+     * @return the detected codec, or {@code null} if the header does not match any known codec.
+     */
+    @Nullable
+    public static BuildCacheEntryCompression detect(byte[] header, int length) {
+        for (BuildCacheEntryCompression compression : values()) {
+            if (compression.matches(header, length)) {
+                return compression;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a codec name as accepted by the {@code org.gradle.internal.build-cache.compression} option.
+     */
+    public static BuildCacheEntryCompression fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Unsupported build cache compression '%s', supported values are: gzip, zstd, lz4", name), e);
+        }
+    }
+}
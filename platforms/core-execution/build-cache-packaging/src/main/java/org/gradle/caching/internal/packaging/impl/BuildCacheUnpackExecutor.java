@@ -0,0 +1,58 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Bounded pool of threads writing the files of build cache entries being unpacked.
+ *
+ * <p>The threads are started when first needed, and are stopped together with the executor.</p>
+ */
+public class BuildCacheUnpackExecutor implements Executor, Stoppable {
+    private final int parallelism;
+    private final ManagedExecutor executor;
+
+    public BuildCacheUnpackExecutor(ExecutorFactory executorFactory, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Build cache unpack parallelism must be positive, but was " + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.executor = executorFactory.create("Build cache unpack", parallelism);
+    }
+
+    /**
+     * The maximum number of files written concurrently.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    @Override
+    public void stop() {
+        executor.stop();
+    }
+}
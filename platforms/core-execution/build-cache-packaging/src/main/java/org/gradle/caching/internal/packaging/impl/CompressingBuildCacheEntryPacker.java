@@ -0,0 +1,84 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.origin.OriginReader;
+import org.gradle.caching.internal.origin.OriginWriter;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Compresses build cache entries with a configurable {@link BuildCacheEntryCompression}.
+ *
+ * <p>Entries are always written with the configured codec, but when unpacking the codec
+ * is detected from the magic number at the start of the entry. This way entries stored with
+ * a different codec, like the gzip compressed entries produced by earlier Gradle versions, can still be loaded.</p>
+ */
+public class CompressingBuildCacheEntryPacker implements BuildCacheEntryPacker {
+    private final BuildCacheEntryCompression compression;
+    private final BuildCacheEntryPacker delegate;
+
+    public CompressingBuildCacheEntryPacker(BuildCacheEntryCompression compression, BuildCacheEntryPacker delegate) {
+        this.compression = compression;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException {
+        try (OutputStream compressedOutput = compression.compress(output)) {
+            return delegate.pack(entity, snapshots, compressedOutput, writeOrigin);
+        }
+    }
+
+    @Override
+    public UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
+        try (InputStream decompressedInput = decompress(input)) {
+            return delegate.unpack(entity, decompressedInput, readOrigin);
+        }
+    }
+
+    @Override
+    public InputStream decompress(InputStream input) throws IOException {
+        BufferedInputStream bufferedInput = new BufferedInputStream(input);
+        return detectCompression(bufferedInput).decompress(bufferedInput);
+    }
+
+    @Override
+    public UnpackResult unpackUncompressed(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
+        return delegate.unpack(entity, input, readOrigin);
+    }
+
+    private static BuildCacheEntryCompression detectCompression(BufferedInputStream input) throws IOException {
+        byte[] header = new byte[BuildCacheEntryCompression.MAX_MAGIC_LENGTH];
+        input.mark(header.length);
+        int length = IOUtils.read(input, header);
+        input.reset();
+        BuildCacheEntryCompression detectedCompression = BuildCacheEntryCompression.detect(header, length);
+        if (detectedCompression == null) {
+            throw new IllegalStateException("Cached entry format error, unknown compression format.");
+        }
+        return detectedCompression;
+    }
+}
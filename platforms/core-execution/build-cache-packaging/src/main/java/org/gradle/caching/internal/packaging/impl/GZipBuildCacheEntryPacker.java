@@ -49,4 +49,14 @@ public UnpackResult unpack(CacheableEntity entity, InputStream input, OriginRead
             return delegate.unpack(entity, gzipInput, readOrigin);
         }
     }
+
+    @Override
+    public InputStream decompress(InputStream input) throws IOException {
+        return new GZIPInputStream(input);
+    }
+
+    @Override
+    public UnpackResult unpackUncompressed(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
+        return delegate.unpack(entity, input, readOrigin);
+    }
 }
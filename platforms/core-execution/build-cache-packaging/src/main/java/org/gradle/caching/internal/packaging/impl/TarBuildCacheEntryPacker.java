@@ -54,6 +54,7 @@
 import org.jspecify.annotations.Nullable;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -61,14 +62,23 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -77,6 +87,11 @@
 
 /**
  * Packages build cache entries to a POSIX TAR file.
+ *
+ * <p>When an executor for writing files is given, unpacking reads and decompresses the archive on the calling thread,
+ * while the files of output directories are written and hashed concurrently on the executor.
+ * Larger files are still streamed directly to disk from the calling thread, so that they don't need to be buffered in memory.
+ * The resulting snapshots are the same as when unpacking sequentially.</p>
  */
 public class TarBuildCacheEntryPacker implements BuildCacheEntryPacker {
 
@@ -93,11 +108,22 @@ private interface UnixPermissions {
     private static final String METADATA_PATH = "METADATA";
     private static final Pattern TREE_PATH = Pattern.compile("(missing-)?tree-([^/]+)(?:/(.*))?");
 
+    /**
+     * Files larger than this are written directly from the archive stream.
+     */
+    private static final int MAX_CONCURRENTLY_WRITTEN_FILE_SIZE = 1024 * 1024;
+    /**
+     * Limits the memory used by the contents of files read from the archive that are waiting to be written.
+     */
+    private static final int MAX_BUFFERED_BYTES = 16 * 1024 * 1024;
+
     private final TarPackerFileSystemSupport fileSystemSupport;
     private final FilePermissionAccess filePermissionAccess;
     private final StreamHasher streamHasher;
     private final Interner<String> stringInterner;
     private final BufferProvider bufferProvider;
+    @Nullable
+    private final Executor fileWriteExecutor;
 
     public TarBuildCacheEntryPacker(
         TarPackerFileSystemSupport fileSystemSupport,
@@ -105,12 +131,27 @@ public TarBuildCacheEntryPacker(
         StreamHasher streamHasher,
         Interner<String> stringInterner,
         BufferProvider bufferProvider
+    ) {
+        this(fileSystemSupport, filePermissionAccess, streamHasher, stringInterner, bufferProvider, null);
+    }
+
+    /**
+     * Creates a packer that writes unpacked files on the given executor, or on the calling thread when no executor is given.
+     */
+    public TarBuildCacheEntryPacker(
+        TarPackerFileSystemSupport fileSystemSupport,
+        FilePermissionAccess filePermissionAccess,
+        StreamHasher streamHasher,
+        Interner<String> stringInterner,
+        BufferProvider bufferProvider,
+        @Nullable Executor fileWriteExecutor
     ) {
         this.fileSystemSupport = fileSystemSupport;
         this.filePermissionAccess = filePermissionAccess;
         this.streamHasher = streamHasher;
         this.stringInterner = stringInterner;
         this.bufferProvider = bufferProvider;
+        this.fileWriteExecutor = fileWriteExecutor;
     }
 
     @Override
@@ -253,7 +294,7 @@ private TarArchiveEntry unpackTree(String treeName, TreeType treeType, File tree
             if (isDirEntry) {
                 throw new IllegalStateException("Should be a file: " + treeName);
             }
-            RegularFileSnapshot fileSnapshot = unpackFile(input, rootEntry, treeRoot, treeRoot.getName());
+            RegularFileSnapshot fileSnapshot = unpackFile(input, rootEntry.getMode(), treeRoot, treeRoot.getName());
             snapshots.put(treeName, fileSnapshot);
             return input.getNextEntry();
         }
@@ -266,10 +307,10 @@ private TarArchiveEntry unpackTree(String treeName, TreeType treeType, File tree
         return unpackDirectoryTree(input, rootEntry, snapshots, entries, treeRoot, treeName);
     }
 
-    private RegularFileSnapshot unpackFile(TarArchiveInputStream input, TarArchiveEntry entry, File file, String fileName) throws IOException {
+    private RegularFileSnapshot unpackFile(InputStream input, int mode, File file, String fileName) throws IOException {
         try (CountingOutputStream output = new CountingOutputStream(new FileOutputStream(file))) {
             HashCode hash = streamHasher.hashCopy(input, output);
-            chmodUnpackedFile(entry, file);
+            chmodUnpackedFile(mode, file);
             String internedAbsolutePath = stringInterner.intern(file.getAbsolutePath());
             String internedFileName = stringInterner.intern(fileName);
             return new RegularFileSnapshot(internedAbsolutePath, internedFileName, hash, DefaultFileMetadata.file(output.getCount(), file.lastModified(), DIRECT));
@@ -278,6 +319,9 @@ private RegularFileSnapshot unpackFile(TarArchiveInputStream input, TarArchiveEn
 
     @Nullable
     private TarArchiveEntry unpackDirectoryTree(TarArchiveInputStream input, TarArchiveEntry rootEntry, Map<String, FileSystemLocationSnapshot> snapshots, AtomicLong entries, File treeRoot, String treeName) throws IOException {
+        if (fileWriteExecutor != null) {
+            return unpackDirectoryTreeConcurrently(input, rootEntry, snapshots, entries, treeRoot, treeName, fileWriteExecutor);
+        }
         RelativePathParser parser = new RelativePathParser(safeEntryName(rootEntry));
 
         DirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.noSortingRequired();
@@ -301,7 +345,7 @@ private TarArchiveEntry unpackDirectoryTree(TarArchiveInputStream input, TarArch
                 String internedName = stringInterner.intern(parser.getName());
                 builder.enterDirectory(DIRECT, internedAbsolutePath, internedName, INCLUDE_EMPTY_DIRS);
             } else {
-                RegularFileSnapshot fileSnapshot = unpackFile(input, entry, file, parser.getName());
+                RegularFileSnapshot fileSnapshot = unpackFile(input, entry.getMode(), file, parser.getName());
                 builder.visitLeafElement(fileSnapshot);
             }
         }
@@ -313,6 +357,60 @@ private TarArchiveEntry unpackDirectoryTree(TarArchiveInputStream input, TarArch
         return entry;
     }
 
+    /**
+     * Unpacks a directory tree while writing the files on the given executor.
+     *
+     * Directories are created on the calling thread before any of their children are written.
+     * The snapshot of the tree is only built once all files have been written,
+     * by replaying the directory structure read from the archive.
+     */
+    @Nullable
+    private TarArchiveEntry unpackDirectoryTreeConcurrently(TarArchiveInputStream input, TarArchiveEntry rootEntry, Map<String, FileSystemLocationSnapshot> snapshots, AtomicLong entries, File treeRoot, String treeName, Executor executor) throws IOException {
+        RelativePathParser parser = new RelativePathParser(safeEntryName(rootEntry));
+        ConcurrentFileWriter writer = new ConcurrentFileWriter(executor);
+
+        List<Consumer<DirectorySnapshotBuilder>> builderActions = new ArrayList<>();
+        String internedRootPath = stringInterner.intern(treeRoot.getAbsolutePath());
+        String internedRootName = stringInterner.intern(treeRoot.getName());
+        builderActions.add(builder -> builder.enterDirectory(DIRECT, internedRootPath, internedRootName, INCLUDE_EMPTY_DIRS));
+
+        TarArchiveEntry entry;
+        try {
+            while ((entry = input.getNextEntry()) != null) {
+                boolean isDir = entry.isDirectory();
+                boolean outsideOfRoot = parser.nextPath(safeEntryName(entry), isDir, () -> builderActions.add(DirectorySnapshotBuilder::leaveDirectory));
+                if (outsideOfRoot) {
+                    break;
+                }
+                entries.incrementAndGet();
+
+                File file = new File(treeRoot, parser.getRelativePath());
+                if (isDir) {
+                    FileUtils.forceMkdir(file);
+                    chmodUnpackedFile(entry, file);
+                    String internedAbsolutePath = stringInterner.intern(file.getAbsolutePath());
+                    String internedName = stringInterner.intern(parser.getName());
+                    builderActions.add(builder -> builder.enterDirectory(DIRECT, internedAbsolutePath, internedName, INCLUDE_EMPTY_DIRS));
+                } else {
+                    Supplier<RegularFileSnapshot> fileSnapshot = writer.write(input, entry, file, parser.getName());
+                    builderActions.add(builder -> builder.visitLeafElement(fileSnapshot.get()));
+                }
+            }
+        } catch (Throwable t) {
+            writer.awaitQuietly();
+            throw t;
+        }
+        writer.awaitCompletion();
+
+        DirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.noSortingRequired();
+        builderActions.forEach(action -> action.accept(builder));
+        parser.exitToRoot(builder::leaveDirectory);
+        builder.leaveDirectory();
+
+        snapshots.put(treeName, builder.getResult());
+        return entry;
+    }
+
     /**
      * Returns a safe name for the name of a tar archive entry.
      *
@@ -323,7 +421,11 @@ private static String safeEntryName(TarArchiveEntry tarEntry) {
     }
 
     private void chmodUnpackedFile(TarArchiveEntry entry, File file) {
-        filePermissionAccess.chmod(file, entry.getMode() & UnixPermissions.PERM_MASK);
+        chmodUnpackedFile(entry.getMode(), file);
+    }
+
+    private void chmodUnpackedFile(int mode, File file) {
+        filePermissionAccess.chmod(file, mode & UnixPermissions.PERM_MASK);
     }
 
     private static String escape(String name) {
@@ -342,6 +444,81 @@ private static String unescape(String name) {
         }
     }
 
+    /**
+     * Writes the files of a single tree on an executor, reading their contents from the archive on the calling thread.
+     */
+    private class ConcurrentFileWriter {
+        private final Executor executor;
+        private final Semaphore bufferedBytes = new Semaphore(MAX_BUFFERED_BYTES);
+        private final List<CompletableFuture<RegularFileSnapshot>> pendingWrites = new ArrayList<>();
+
+        public ConcurrentFileWriter(Executor executor) {
+            this.executor = executor;
+        }
+
+        public Supplier<RegularFileSnapshot> write(TarArchiveInputStream input, TarArchiveEntry entry, File file, String fileName) throws IOException {
+            int mode = entry.getMode();
+            long size = entry.getSize();
+            if (size > MAX_CONCURRENTLY_WRITTEN_FILE_SIZE) {
+                RegularFileSnapshot fileSnapshot = unpackFile(input, mode, file, fileName);
+                return () -> fileSnapshot;
+            }
+
+            int bufferSize = (int) size;
+            // Blocks reading from the archive while too much content is waiting to be written
+            bufferedBytes.acquireUninterruptibly(bufferSize);
+            byte[] content;
+            try {
+                content = IOUtils.toByteArray(input, bufferSize);
+            } catch (Throwable t) {
+                bufferedBytes.release(bufferSize);
+                throw t;
+            }
+            CompletableFuture<RegularFileSnapshot> pendingWrite = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return unpackFile(new ByteArrayInputStream(content), mode, file, fileName);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    bufferedBytes.release(bufferSize);
+                }
+            }, executor);
+            pendingWrites.add(pendingWrite);
+            return pendingWrite::join;
+        }
+
+        /**
+         * Waits for all files to be written, and rethrows the first failure if any of the writes failed.
+         */
+        public void awaitCompletion() throws IOException {
+            Throwable failure = awaitQuietly();
+            if (failure instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) failure).getCause();
+            }
+            if (failure != null) {
+                throw UncheckedException.throwAsUncheckedException(failure);
+            }
+        }
+
+        /**
+         * Waits for all files to be written, so that no writes are running once unpacking finishes.
+         */
+        @Nullable
+        public Throwable awaitQuietly() {
+            Throwable failure = null;
+            for (CompletableFuture<RegularFileSnapshot> pendingWrite : pendingWrites) {
+                try {
+                    pendingWrite.join();
+                } catch (CompletionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+            return failure;
+        }
+    }
+
     private class PackingVisitor implements RelativePathTrackingFileSystemSnapshotHierarchyVisitor {
         private final TarArchiveOutputStream tarOutput;
         private final String treePath;
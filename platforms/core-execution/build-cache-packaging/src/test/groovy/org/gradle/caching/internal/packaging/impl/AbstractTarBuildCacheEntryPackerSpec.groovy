@@ -44,14 +44,23 @@ abstract class AbstractTarBuildCacheEntryPackerSpec extends Specification {
     def fileSystemSupport = new DefaultTarPackerFileSystemSupport(deleter)
     def streamHasher = new DefaultStreamHasher()
     def stringInterner = new StringInterner()
+    def unpackExecutor = createUnpackExecutor()
     def packer = new TarBuildCacheEntryPacker(fileSystemSupport, filePermissionAccess, streamHasher, stringInterner, Stub(BufferProvider) {
         getBuffer() >> new byte[4096]
-    })
+    }, unpackExecutor)
     def fileSystemAccess = TestFiles.fileSystemAccess()
 
     abstract protected FilePermissionAccess createFilePermissionAccess()
     abstract protected Deleter createDeleter()
 
+    protected BuildCacheUnpackExecutor createUnpackExecutor() {
+        null
+    }
+
+    def cleanup() {
+        unpackExecutor?.stop()
+    }
+
     def pack(OutputStream output, OriginWriter writeOrigin = this.writeOrigin, TreeDefinition... treeDefs) {
         Map<String, FileSystemSnapshot> snapshots = treeDefs.collectEntries { treeDef ->
             FileSystemSnapshot result = FileSystemSnapshot.EMPTY
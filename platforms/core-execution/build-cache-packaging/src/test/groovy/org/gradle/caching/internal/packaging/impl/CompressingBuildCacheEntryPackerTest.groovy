@@ -0,0 +1,149 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import org.gradle.caching.internal.CacheableEntity
+import org.gradle.caching.internal.origin.OriginReader
+import org.gradle.caching.internal.origin.OriginWriter
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
+import org.gradle.internal.snapshot.FileSystemSnapshot
+import spock.lang.Specification
+
+class CompressingBuildCacheEntryPackerTest extends Specification {
+    def entity = Stub(CacheableEntity)
+    def content = ("some cache entry content " * 100).bytes
+    def delegate = new RecordingPacker(content)
+
+    def "can unpack entry compressed with #compression"() {
+        def output = new ByteArrayOutputStream()
+        def packer = new CompressingBuildCacheEntryPacker(compression, delegate)
+
+        when:
+        packer.pack(entity, [:], output, Stub(OriginWriter))
+
+        then:
+        BuildCacheEntryCompression.detect(output.toByteArray(), output.size()) == compression
+
+        when:
+        packer.unpack(entity, new ByteArrayInputStream(output.toByteArray()), Stub(OriginReader))
+
+        then:
+        delegate.unpacked == content
+
+        where:
+        compression << BuildCacheEntryCompression.values()
+    }
+
+    def "can unpack #stored entry when configured to store #configured"() {
+        def output = new ByteArrayOutputStream()
+        new CompressingBuildCacheEntryPacker(stored, delegate).pack(entity, [:], output, Stub(OriginWriter))
+
+        when:
+        new CompressingBuildCacheEntryPacker(configured, delegate).unpack(entity, new ByteArrayInputStream(output.toByteArray()), Stub(OriginReader))
+
+        then:
+        delegate.unpacked == content
+
+        where:
+        [stored, configured] << [BuildCacheEntryCompression.values(), BuildCacheEntryCompression.values()].combinations()
+    }
+
+    def "can unpack entry written by gzip packer"() {
+        def output = new ByteArrayOutputStream()
+        new GZipBuildCacheEntryPacker(delegate).pack(entity, [:], output, Stub(OriginWriter))
+
+        when:
+        new CompressingBuildCacheEntryPacker(BuildCacheEntryCompression.ZSTD, delegate).unpack(entity, new ByteArrayInputStream(output.toByteArray()), Stub(OriginReader))
+
+        then:
+        delegate.unpacked == content
+    }
+
+    def "can unpack decompressed entry compressed with #compression"() {
+        def output = new ByteArrayOutputStream()
+        def packer = new CompressingBuildCacheEntryPacker(compression, delegate)
+        packer.pack(entity, [:], output, Stub(OriginWriter))
+
+        when:
+        def uncompressed = packer.decompress(new ByteArrayInputStream(output.toByteArray())).bytes
+
+        then:
+        uncompressed == content
+
+        when:
+        packer.unpackUncompressed(entity, new ByteArrayInputStream(uncompressed), Stub(OriginReader))
+
+        then:
+        delegate.unpacked == content
+
+        where:
+        compression << BuildCacheEntryCompression.values()
+    }
+
+    def "fails on unknown compression format"() {
+        def packer = new CompressingBuildCacheEntryPacker(BuildCacheEntryCompression.GZIP, delegate)
+
+        when:
+        packer.unpack(entity, new ByteArrayInputStream("not compressed".bytes), Stub(OriginReader))
+
+        then:
+        def ex = thrown IllegalStateException
+        ex.message == "Cached entry format error, unknown compression format."
+    }
+
+    def "parses compression name '#name'"() {
+        expect:
+        BuildCacheEntryCompression.fromName(name) == expected
+
+        where:
+        name    | expected
+        "gzip"  | BuildCacheEntryCompression.GZIP
+        "zstd"  | BuildCacheEntryCompression.ZSTD
+        "LZ4"   | BuildCacheEntryCompression.LZ4
+        " lz4 " | BuildCacheEntryCompression.LZ4
+    }
+
+    def "fails on unknown compression name"() {
+        when:
+        BuildCacheEntryCompression.fromName("brotli")
+
+        then:
+        def ex = thrown IllegalArgumentException
+        ex.message == "Unsupported build cache compression 'brotli', supported values are: gzip, zstd, lz4"
+    }
+
+    private static class RecordingPacker implements BuildCacheEntryPacker {
+        private final byte[] content
+        byte[] unpacked
+
+        RecordingPacker(byte[] content) {
+            this.content = content
+        }
+
+        @Override
+        PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException {
+            output.write(content)
+            return new PackResult(1)
+        }
+
+        @Override
+        UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
+            unpacked = input.bytes
+            return new UnpackResult(null, 1, [:])
+        }
+    }
+}
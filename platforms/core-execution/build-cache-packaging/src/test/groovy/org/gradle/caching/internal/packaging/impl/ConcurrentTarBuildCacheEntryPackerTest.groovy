@@ -0,0 +1,68 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.file.BufferProvider
+import org.gradle.internal.snapshot.SnapshotVisitorUtil
+
+import static org.gradle.internal.file.TreeType.DIRECTORY
+
+class ConcurrentTarBuildCacheEntryPackerTest extends TarBuildCacheEntryPackerTest {
+    @Override
+    protected BuildCacheUnpackExecutor createUnpackExecutor() {
+        new BuildCacheUnpackExecutor(new DefaultExecutorFactory(), 4)
+    }
+
+    def "produces the same snapshot as unpacking sequentially"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        def random = new Random(1234L)
+        10.times { dirIdx ->
+            def dir = sourceOutputDir.file("dir-$dirIdx").createDir()
+            dir.file("nested").createDir().file("nested.txt") << "nested-$dirIdx"
+            dir.file("empty").createDir()
+            50.times { fileIdx ->
+                dir.file("file-${fileIdx}.txt") << "content-$dirIdx-$fileIdx"
+            }
+        }
+        byte[] largeContent = new byte[2 * 1024 * 1024]
+        random.nextBytes(largeContent)
+        sourceOutputDir.file("dir-3/large.bin").bytes = largeContent
+        def output = new ByteArrayOutputStream()
+        pack output, prop(DIRECTORY, sourceOutputDir)
+
+        def sequentialPacker = new TarBuildCacheEntryPacker(fileSystemSupport, filePermissionAccess, streamHasher, stringInterner, Stub(BufferProvider) {
+            getBuffer() >> new byte[4096]
+        })
+        def sequentialOutputDir = temporaryFolder.file("sequential")
+        def sequentialResult = sequentialPacker.unpack(entity(prop(DIRECTORY, sequentialOutputDir)), new ByteArrayInputStream(output.toByteArray()), readOrigin)
+
+        when:
+        def concurrentOutputDir = temporaryFolder.file("concurrent")
+        def concurrentResult = unpack new ByteArrayInputStream(output.toByteArray()), prop(DIRECTORY, concurrentOutputDir)
+
+        then:
+        concurrentResult.entries == sequentialResult.entries
+        def concurrentSnapshot = concurrentResult.snapshots["test"]
+        def sequentialSnapshot = sequentialResult.snapshots["test"]
+        concurrentSnapshot.hash == sequentialSnapshot.hash
+        SnapshotVisitorUtil.getRelativePaths(concurrentSnapshot) == SnapshotVisitorUtil.getRelativePaths(sequentialSnapshot)
+        concurrentOutputDir.file("dir-3/large.bin").bytes == largeContent
+        concurrentOutputDir.file("dir-7/file-42.txt").text == "content-7-42"
+        concurrentOutputDir.file("dir-9/empty").directory
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+plugins {
+    id("gradlebuild.internal.java")
+    id("application")
+}
+
+description = "Reference implementation of an HTTP build cache server with disk storage, LRU eviction and metrics"
+
+dependencies {
+    implementation(libs.jspecify)
+    implementation(libs.slf4jApi)
+}
+
+application {
+    mainClass = "org.gradle.caching.server.BuildCacheServerApplication"
+}
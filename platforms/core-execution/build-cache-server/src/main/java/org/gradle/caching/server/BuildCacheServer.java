@@ -0,0 +1,262 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An embeddable HTTP build cache server, speaking the protocol used by the HTTP build cache of Gradle.
+ *
+ * <ul>
+ *     <li>{@code GET <root>/<key>} loads an entry, responding with {@code 404} when there is no such entry.</li>
+ *     <li>{@code PUT <root>/<key>} stores an entry, responding with {@code 413} when it is larger than the maximum entry size.</li>
+ *     <li>{@code OPTIONS <root>/} lists the supported extensions of the protocol in the {@value #CAPABILITIES_HEADER} header.</li>
+ *     <li>{@code POST <root>/contains} checks for the existence of many entries, with one key per line in both the request and the response.</li>
+ *     <li>{@code GET /metrics} responds with metrics in the Prometheus text exposition format.</li>
+ * </ul>
+ *
+ * <p>Connections are multiplexed by the non-blocking, selector based HTTP server of the JDK,
+ * and requests are handled by a fixed number of threads.
+ * Entries are streamed between the network and the disk without buffering them in memory.</p>
+ *
+ * <p>The server can bind to an ephemeral port, which makes it usable as a stand-in remote cache in tests and benchmarks.</p>
+ */
+public class BuildCacheServer implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildCacheServer.class);
+
+    static final String BUILD_CACHE_CONTENT_TYPE = "application/vnd.gradle.build-cache-artifact.v2";
+    static final String BUILD_CACHE_KEYS_CONTENT_TYPE = "application/vnd.gradle.build-cache-keys.v1";
+    static final String CAPABILITIES_HEADER = "X-Gradle-Build-Cache-Capabilities";
+    static final String CONTAINS_CAPABILITY = "contains";
+    static final String CONTAINS_PATH = "contains";
+    static final String METRICS_PATH = "/metrics";
+
+    private static final int MAX_CONTAINS_KEYS = 10_000;
+    private static final int BACKLOG = 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String cachePath;
+    private final BuildCacheServerStorage storage;
+    private final BuildCacheServerMetrics metrics;
+    private final long maxEntrySizeInBytes;
+
+    /**
+     * Creates a server serving the cache below {@code cachePath}. The server does not accept connections until it is {@link #start() started}.
+     */
+    public BuildCacheServer(InetSocketAddress address, String cachePath, BuildCacheServerStorage storage, BuildCacheServerMetrics metrics, long maxEntrySizeInBytes, int threads) throws IOException {
+        this.cachePath = normalizeCachePath(cachePath);
+        this.storage = storage;
+        this.metrics = metrics;
+        this.maxEntrySizeInBytes = maxEntrySizeInBytes;
+        this.server = HttpServer.create(address, BACKLOG);
+        this.executor = Executors.newFixedThreadPool(threads, new ServerThreadFactory());
+        server.setExecutor(executor);
+        server.createContext(this.cachePath, this::handleCacheRequest);
+        server.createContext(METRICS_PATH, this::handleMetricsRequest);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * The URI of the cache root, as configured for the HTTP build cache.
+     */
+    public URI getCacheUri() {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort() + cachePath);
+    }
+
+    public BuildCacheServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void handleCacheRequest(HttpExchange exchange) {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String relativePath = path.substring(Math.min(path.length(), cachePath.length()));
+            String method = exchange.getRequestMethod();
+            if (relativePath.isEmpty()) {
+                if ("OPTIONS".equals(method)) {
+                    exchange.getResponseHeaders().set(CAPABILITIES_HEADER, CONTAINS_CAPABILITY);
+                    exchange.getResponseHeaders().set("Allow", "GET, HEAD, PUT, POST, OPTIONS");
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    exchange.sendResponseHeaders(405, -1);
+                }
+            } else if (relativePath.equals(CONTAINS_PATH)) {
+                if ("POST".equals(method)) {
+                    handleContains(exchange);
+                } else {
+                    exchange.sendResponseHeaders(405, -1);
+                }
+            } else if (!BuildCacheServerStorage.isValidKey(relativePath)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if ("GET".equals(method) || "HEAD".equals(method)) {
+                handleLoad(exchange, relativePath, "HEAD".equals(method));
+            } else if ("PUT".equals(method)) {
+                handleStore(exchange, relativePath);
+            } else {
+                exchange.sendResponseHeaders(405, -1);
+            }
+        } catch (IOException | RuntimeException e) {
+            metrics.error();
+            LOGGER.debug("Could not handle {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            trySendError(exchange);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleLoad(HttpExchange exchange, String key, boolean headOnly) throws IOException {
+        try (FileChannel entry = storage.open(key)) {
+            if (entry == null) {
+                metrics.miss();
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            long size = entry.size();
+            exchange.getResponseHeaders().set("Content-Type", BUILD_CACHE_CONTENT_TYPE);
+            if (headOnly) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            // A length of 0 would mean a chunked response
+            exchange.sendResponseHeaders(200, size == 0 ? -1 : size);
+            try (OutputStream body = exchange.getResponseBody()) {
+                WritableByteChannel target = Channels.newChannel(body);
+                long position = 0;
+                while (position < size) {
+                    position += entry.transferTo(position, size - position, target);
+                }
+            }
+            metrics.hit(size);
+        }
+    }
+
+    private void handleStore(HttpExchange exchange, String key) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null && Long.parseLong(contentLength) > maxEntrySizeInBytes) {
+            metrics.rejectedStore();
+            exchange.sendResponseHeaders(413, -1);
+            return;
+        }
+        long storedSize = storage.store(key, exchange.getRequestBody(), maxEntrySizeInBytes);
+        if (storedSize < 0) {
+            metrics.rejectedStore();
+            exchange.sendResponseHeaders(413, -1);
+            return;
+        }
+        metrics.stored(storedSize);
+        exchange.sendResponseHeaders(201, -1);
+    }
+
+    private void handleContains(HttpExchange exchange) throws IOException {
+        List<String> existing = new ArrayList<>();
+        int checked = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null && checked < MAX_CONTAINS_KEYS) {
+                String key = line.trim();
+                if (key.isEmpty()) {
+                    continue;
+                }
+                checked++;
+                if (BuildCacheServerStorage.isValidKey(key) && storage.contains(key)) {
+                    existing.add(key);
+                }
+            }
+        }
+        metrics.checkedContains(checked);
+        sendText(exchange, BUILD_CACHE_KEYS_CONTENT_TYPE, String.join("\n", existing));
+    }
+
+    private void handleMetricsRequest(HttpExchange exchange) {
+        try {
+            if ("GET".equals(exchange.getRequestMethod())) {
+                sendText(exchange, "text/plain; version=0.0.4; charset=utf-8", metrics.render(storage.getEntryCount(), storage.getSizeInBytes(), storage.getMaxSizeInBytes()));
+            } else {
+                exchange.sendResponseHeaders(405, -1);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not send metrics", e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, String contentType, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    private static void trySendError(HttpExchange exchange) {
+        try {
+            exchange.sendResponseHeaders(500, -1);
+        } catch (IOException | RuntimeException ignored) {
+            // The response has already been started, or the connection is gone
+        }
+    }
+
+    private static String normalizeCachePath(String cachePath) {
+        String path = cachePath.startsWith("/") ? cachePath : "/" + cachePath;
+        return path.endsWith("/") ? path : path + "/";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static class ServerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "build-cache-server-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
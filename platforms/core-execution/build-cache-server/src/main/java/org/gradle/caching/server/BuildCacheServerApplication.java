@@ -0,0 +1,70 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs a {@link BuildCacheServer} from the command line.
+ *
+ * <pre>
+ * --port &lt;port&gt;                 port to listen on, defaults to 5071
+ * --directory &lt;path&gt;            directory to store entries in, defaults to build-cache
+ * --max-size-mb &lt;megabytes&gt;     size above which least recently used entries are evicted, defaults to 10240
+ * --max-entry-size-mb &lt;megabytes&gt; size above which entries are rejected, defaults to 100
+ * --threads &lt;count&gt;             number of threads handling requests, defaults to twice the number of processors
+ * --path &lt;path&gt;                 path of the cache root, defaults to /cache/
+ * </pre>
+ */
+public class BuildCacheServerApplication {
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = parseOptions(args);
+        int port = Integer.parseInt(options.getOrDefault("port", "5071"));
+        Path directory = Paths.get(options.getOrDefault("directory", "build-cache"));
+        long maxSize = Long.parseLong(options.getOrDefault("max-size-mb", "10240")) * MEGABYTE;
+        long maxEntrySize = Long.parseLong(options.getOrDefault("max-entry-size-mb", "100")) * MEGABYTE;
+        int threads = Integer.parseInt(options.getOrDefault("threads", Integer.toString(2 * Runtime.getRuntime().availableProcessors())));
+        String path = options.getOrDefault("path", "/cache/");
+
+        BuildCacheServerMetrics metrics = new BuildCacheServerMetrics();
+        BuildCacheServerStorage storage = new BuildCacheServerStorage(directory, maxSize, metrics);
+        BuildCacheServer server = new BuildCacheServer(new InetSocketAddress(port), path, storage, metrics, maxEntrySize, threads);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        System.out.println("Build cache server listening at " + server.getCacheUri() + ", storing entries in " + directory.toAbsolutePath());
+        Thread.currentThread().join();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected an option of the form --<name> <value>, but got '" + arg + "'");
+            }
+            options.put(arg.substring(2), args[++i]);
+        }
+        return options;
+    }
+}
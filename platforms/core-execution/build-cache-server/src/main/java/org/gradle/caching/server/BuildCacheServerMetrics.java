@@ -0,0 +1,127 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the requests handled by a {@link BuildCacheServer}.
+ *
+ * <p>The metrics are exposed in the Prometheus text exposition format, so they can be scraped by common monitoring tools.</p>
+ */
+public class BuildCacheServerMetrics {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder hitBytes = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+    private final LongAdder rejectedStores = new LongAdder();
+    private final LongAdder containsChecks = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder evictedBytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    void hit(long size) {
+        hits.increment();
+        hitBytes.add(size);
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    void stored(long size) {
+        stores.increment();
+        storedBytes.add(size);
+    }
+
+    void rejectedStore() {
+        rejectedStores.increment();
+    }
+
+    void checkedContains(int keyCount) {
+        containsChecks.add(keyCount);
+    }
+
+    void evicted(long size) {
+        evictions.increment();
+        evictedBytes.add(size);
+    }
+
+    void error() {
+        errors.increment();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getStoreCount() {
+        return stores.sum();
+    }
+
+    public long getRejectedStoreCount() {
+        return rejectedStores.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    /**
+     * Renders the metrics, together with the current state of the storage, in the Prometheus text exposition format.
+     */
+    public String render(long entryCount, long sizeInBytes, long maxSizeInBytes) {
+        StringBuilder builder = new StringBuilder();
+        counter(builder, "gradle_build_cache_hits_total", "Number of entries loaded from the cache.", hits.sum());
+        counter(builder, "gradle_build_cache_hit_bytes_total", "Number of bytes loaded from the cache.", hitBytes.sum());
+        counter(builder, "gradle_build_cache_misses_total", "Number of entries requested but not found in the cache.", misses.sum());
+        counter(builder, "gradle_build_cache_stores_total", "Number of entries stored in the cache.", stores.sum());
+        counter(builder, "gradle_build_cache_stored_bytes_total", "Number of bytes stored in the cache.", storedBytes.sum());
+        counter(builder, "gradle_build_cache_rejected_stores_total", "Number of entries rejected because they were too large.", rejectedStores.sum());
+        counter(builder, "gradle_build_cache_contains_checks_total", "Number of entries checked for existence in bulk.", containsChecks.sum());
+        counter(builder, "gradle_build_cache_evictions_total", "Number of entries evicted from the cache.", evictions.sum());
+        counter(builder, "gradle_build_cache_evicted_bytes_total", "Number of bytes evicted from the cache.", evictedBytes.sum());
+        counter(builder, "gradle_build_cache_errors_total", "Number of requests that failed with an error.", errors.sum());
+        gauge(builder, "gradle_build_cache_entries", "Number of entries in the cache.", entryCount);
+        gauge(builder, "gradle_build_cache_size_bytes", "Number of bytes in the cache.", sizeInBytes);
+        gauge(builder, "gradle_build_cache_max_size_bytes", "Maximum number of bytes in the cache.", maxSizeInBytes);
+        return builder.toString();
+    }
+
+    private static void counter(StringBuilder builder, String name, String help, long value) {
+        metric(builder, name, help, "counter", value);
+    }
+
+    private static void gauge(StringBuilder builder, String name, String help, long value) {
+        metric(builder, name, help, "gauge", value);
+    }
+
+    private static void metric(StringBuilder builder, String name, String help, String type, long value) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        builder.append(name).append(' ').append(value).append('\n');
+    }
+}
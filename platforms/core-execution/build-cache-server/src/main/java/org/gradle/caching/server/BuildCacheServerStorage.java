@@ -0,0 +1,221 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.server;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Stores build cache entries as files in a directory, evicting the least recently used entries when the directory grows beyond a maximum size.
+ *
+ * <p>The entries are indexed in memory, ordered by their last access.
+ * When the storage is opened, the index is rebuilt from the directory, ordered by the time the entries were stored.
+ * Accesses are not recorded on disk, to keep loads free of writes.
+ * Entries are written to a temporary file first and then moved into place, so readers never see partially written entries.</p>
+ *
+ * <p>Loading an entry only holds the lock of the storage while opening the file.
+ * An entry that is evicted while it is being read can still be read to the end.</p>
+ */
+public class BuildCacheServerStorage {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildCacheServerStorage.class);
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{1,128}");
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long maxSizeInBytes;
+    private final BuildCacheServerMetrics metrics;
+    // Access ordered, so the least recently used entry comes first
+    private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeInBytes;
+
+    public BuildCacheServerStorage(Path directory, long maxSizeInBytes, BuildCacheServerMetrics metrics) throws IOException {
+        this.directory = directory;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.metrics = metrics;
+        Files.createDirectories(directory);
+        loadIndex();
+    }
+
+    /**
+     * Whether the given string is a valid cache key.
+     */
+    public static boolean isValidKey(String key) {
+        return KEY_PATTERN.matcher(key).matches();
+    }
+
+    /**
+     * Opens the entry with the given key for reading, or returns {@code null} if there is no such entry.
+     */
+    @Nullable
+    public synchronized FileChannel open(String key) throws IOException {
+        if (entrySizes.get(key) == null) {
+            return null;
+        }
+        Path file = directory.resolve(key);
+        try {
+            return FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // Deleted behind our back
+            remove(key);
+            return null;
+        }
+    }
+
+    public synchronized boolean contains(String key) {
+        // Does not count as an access, since the entry is not used
+        return entrySizes.containsKey(key);
+    }
+
+    /**
+     * Stores the content as the entry with the given key, replacing any existing entry.
+     *
+     * @return the size of the stored entry, or -1 if the entry has not been stored because it is larger than {@code maxEntrySizeInBytes}.
+     */
+    public long store(String key, InputStream content, long maxEntrySizeInBytes) throws IOException {
+        Path tempFile = Files.createTempFile(directory, key + "-", TEMP_FILE_SUFFIX);
+        try {
+            long size = copy(content, tempFile, maxEntrySizeInBytes);
+            if (size < 0) {
+                return -1;
+            }
+            synchronized (this) {
+                Files.move(tempFile, directory.resolve(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                Long previousSize = entrySizes.put(key, size);
+                sizeInBytes += size - (previousSize == null ? 0 : previousSize);
+                evict();
+            }
+            return size;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entrySizes.size();
+    }
+
+    public long getMaxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    /**
+     * Copies the content to the file, returning the number of bytes copied, or -1 if the content is larger than the given maximum.
+     */
+    private static long copy(InputStream content, Path file, long maxSizeInBytes) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long size = 0;
+        try (OutputStream output = Files.newOutputStream(file)) {
+            int read;
+            while ((read = content.read(buffer)) >= 0) {
+                size += read;
+                if (size > maxSizeInBytes) {
+                    return -1;
+                }
+                output.write(buffer, 0, read);
+            }
+        }
+        return size;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entrySizes.entrySet().iterator();
+        // Always keep the most recently stored entry
+        while (sizeInBytes > maxSizeInBytes && entrySizes.size() > 1 && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            try {
+                Files.deleteIfExists(directory.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                LOGGER.warn("Could not evict build cache entry {}", eldest.getKey(), e);
+                continue;
+            }
+            iterator.remove();
+            sizeInBytes -= eldest.getValue();
+            metrics.evicted(eldest.getValue());
+        }
+    }
+
+    private void remove(String key) {
+        Long size = entrySizes.remove(key);
+        if (size != null) {
+            sizeInBytes -= size;
+        }
+    }
+
+    private synchronized void loadIndex() throws IOException {
+        List<IndexedFile> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_FILE_SUFFIX)) {
+                    // Left behind by a store that did not complete
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                if (!isValidKey(name)) {
+                    continue;
+                }
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    files.add(new IndexedFile(name, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(file -> file.lastModified));
+        for (IndexedFile file : files) {
+            entrySizes.put(file.key, file.size);
+            sizeInBytes += file.size;
+        }
+        evict();
+    }
+
+    private static class IndexedFile {
+        private final String key;
+        private final long size;
+        private final long lastModified;
+
+        IndexedFile(String key, long size, long lastModified) {
+            this.key = key;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+}
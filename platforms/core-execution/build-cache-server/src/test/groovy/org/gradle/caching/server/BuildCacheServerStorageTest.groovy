@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.server
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class BuildCacheServerStorageTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def directory = temporaryFolder.file("cache")
+    def metrics = new BuildCacheServerMetrics()
+
+    def "evicts least recently used entries when larger than the maximum size"() {
+        def storage = new BuildCacheServerStorage(directory.toPath(), 300, metrics)
+
+        when:
+        store(storage, "a1", 100)
+        store(storage, "a2", 100)
+        store(storage, "a3", 100)
+        storage.open("a1").close()
+        store(storage, "a4", 100)
+
+        then:
+        storage.contains("a1")
+        !storage.contains("a2")
+        storage.contains("a3")
+        storage.contains("a4")
+        !directory.file("a2").exists()
+        storage.sizeInBytes == 300
+        metrics.evictionCount == 1
+    }
+
+    def "does not store entries larger than the maximum entry size"() {
+        def storage = new BuildCacheServerStorage(directory.toPath(), 300, metrics)
+
+        expect:
+        storage.store("a1", new ByteArrayInputStream(new byte[101]), 100) == -1
+        !storage.contains("a1")
+        directory.list() as List == []
+    }
+
+    def "rebuilds index from directory"() {
+        def storage = new BuildCacheServerStorage(directory.toPath(), 1000, metrics)
+        store(storage, "a1", 100)
+        store(storage, "a2", 200)
+        directory.file("a3.tmp").text = "partial"
+
+        when:
+        def reopened = new BuildCacheServerStorage(directory.toPath(), 1000, metrics)
+
+        then:
+        reopened.contains("a1")
+        reopened.contains("a2")
+        reopened.entryCount == 2
+        reopened.sizeInBytes == 300
+        !directory.file("a3.tmp").exists()
+    }
+
+    def "forgets entries deleted behind its back"() {
+        def storage = new BuildCacheServerStorage(directory.toPath(), 1000, metrics)
+        store(storage, "a1", 100)
+        directory.file("a1").delete()
+
+        expect:
+        storage.open("a1") == null
+        !storage.contains("a1")
+        storage.sizeInBytes == 0
+    }
+
+    private static void store(BuildCacheServerStorage storage, String key, int size) {
+        assert storage.store(key, new ByteArrayInputStream(new byte[size]), Long.MAX_VALUE) == size
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.server
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class BuildCacheServerTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def metrics = new BuildCacheServerMetrics()
+    def storage = new BuildCacheServerStorage(temporaryFolder.file("cache").toPath(), 1024 * 1024, metrics)
+    def server = new BuildCacheServer(new InetSocketAddress("127.0.0.1", 0), "/cache/", storage, metrics, 1024, 4)
+
+    def setup() {
+        server.start()
+    }
+
+    def cleanup() {
+        server.close()
+    }
+
+    def "stores and loads entries"() {
+        when:
+        def stored = request("PUT", "abc123", "content".bytes)
+
+        then:
+        stored.responseCode == 201
+
+        when:
+        def loaded = request("GET", "abc123")
+
+        then:
+        loaded.responseCode == 200
+        loaded.contentType == BuildCacheServer.BUILD_CACHE_CONTENT_TYPE
+        loaded.inputStream.text == "content"
+        metrics.storeCount == 1
+        metrics.hitCount == 1
+    }
+
+    def "responds with not found for missing entries"() {
+        when:
+        def loaded = request("GET", "abc123")
+
+        then:
+        loaded.responseCode == 404
+        metrics.missCount == 1
+    }
+
+    def "rejects entries larger than the maximum entry size"() {
+        when:
+        def stored = request("PUT", "abc123", new byte[1025])
+
+        then:
+        stored.responseCode == 413
+        metrics.rejectedStoreCount == 1
+        request("GET", "abc123").responseCode == 404
+    }
+
+    def "advertises support for checking the existence of many entries"() {
+        when:
+        def options = request("OPTIONS", "")
+
+        then:
+        options.responseCode == 200
+        options.getHeaderField(BuildCacheServer.CAPABILITIES_HEADER) == BuildCacheServer.CONTAINS_CAPABILITY
+    }
+
+    def "checks the existence of many entries in a single request"() {
+        given:
+        request("PUT", "abc1", "one".bytes).responseCode
+        request("PUT", "abc3", "three".bytes).responseCode
+
+        when:
+        def contains = request("POST", BuildCacheServer.CONTAINS_PATH, "abc1\nabc2\nabc3\n".bytes)
+
+        then:
+        contains.responseCode == 200
+        contains.contentType == BuildCacheServer.BUILD_CACHE_KEYS_CONTENT_TYPE
+        contains.inputStream.text.readLines() as Set == ["abc1", "abc3"] as Set
+    }
+
+    def "responds with not found for paths that are not cache keys"() {
+        expect:
+        request("GET", "../etc/passwd").responseCode == 404
+        request("GET", "not-a-key").responseCode == 404
+    }
+
+    def "exposes metrics"() {
+        given:
+        request("PUT", "abc123", "content".bytes).responseCode
+        request("GET", "abc123").inputStream.text
+
+        when:
+        def connection = (HttpURLConnection) server.cacheUri.resolve("/metrics").toURL().openConnection()
+        def text = connection.inputStream.text
+
+        then:
+        connection.responseCode == 200
+        text.contains("gradle_build_cache_hits_total 1")
+        text.contains("gradle_build_cache_stores_total 1")
+        text.contains("gradle_build_cache_entries 1")
+        text.contains("gradle_build_cache_size_bytes 7")
+    }
+
+    private HttpURLConnection request(String method, String path, byte[] body = null) {
+        def connection = (HttpURLConnection) server.cacheUri.resolve(path).toURL().openConnection()
+        connection.requestMethod = method
+        if (body != null) {
+            connection.doOutput = true
+            connection.setFixedLengthStreamingMode(body.length)
+            connection.outputStream.withStream { it.write(body) }
+        }
+        connection
+    }
+}
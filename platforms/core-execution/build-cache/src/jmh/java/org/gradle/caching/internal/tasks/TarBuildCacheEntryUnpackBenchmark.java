@@ -0,0 +1,206 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.origin.OriginMetadata;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.BuildCacheUnpackExecutor;
+import org.gradle.caching.internal.packaging.impl.FilePermissionAccess;
+import org.gradle.caching.internal.packaging.impl.TarBuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.TarPackerFileSystemSupport;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.file.ThreadLocalBufferProvider;
+import org.gradle.internal.file.TreeType;
+import org.gradle.internal.hash.DefaultStreamHasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.internal.nativeintegration.services.FileSystems;
+import org.gradle.internal.nativeintegration.services.NativeServices;
+import org.gradle.internal.nativeintegration.services.NativeServices.NativeServicesMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures unpacking a build cache entry with many files into an output directory,
+ * comparing sequential unpacking with writing files concurrently.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 7)
+@State(Scope.Benchmark)
+@SuppressWarnings("OctalInteger")
+public class TarBuildCacheEntryUnpackBenchmark {
+    private static final int FILES_PER_DIRECTORY = 100;
+
+    @Param({"1", "4", "8"})
+    int parallelism;
+
+    @Param({"20000"})
+    int fileCount;
+
+    @Param({"4096"})
+    int maxFileSize;
+
+    Path tempDir;
+    byte[] entry;
+    BuildCacheUnpackExecutor unpackExecutor;
+    TarBuildCacheEntryPacker packer;
+    AtomicInteger iteration = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        this.tempDir = Files.createTempDirectory("tar-unpack-benchmark-");
+        NativeServices.initializeOnDaemon(tempDir.toFile(), NativeServicesMode.fromSystemProperties());
+        FileSystem fileSystem = FileSystems.getDefault();
+        this.unpackExecutor = new BuildCacheUnpackExecutor(new DefaultExecutorFactory(), parallelism);
+        this.packer = new TarBuildCacheEntryPacker(
+            new BenchmarkFileSystemSupport(),
+            new FilePermissionAccess() {
+                @Override
+                public int getUnixMode(File f) {
+                    return fileSystem.getUnixMode(f);
+                }
+
+                @Override
+                public void chmod(File file, int mode) {
+                    fileSystem.chmod(file, mode);
+                }
+            },
+            new DefaultStreamHasher(),
+            new StringInterner(),
+            new ThreadLocalBufferProvider(64 * 1024),
+            parallelism > 1 ? unpackExecutor : null
+        );
+        this.entry = createEntry(fileCount, maxFileSize);
+        System.out.printf(">>> Entry with %d files is %d bytes long%n", fileCount, entry.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        unpackExecutor.stop();
+        FileUtils.forceDelete(tempDir.toFile());
+    }
+
+    @Benchmark
+    public BuildCacheEntryPacker.UnpackResult unpack() throws IOException {
+        File outputDir = tempDir.resolve("output-" + iteration.incrementAndGet()).toFile();
+        return packer.unpack(new OutputDirectoryEntity(outputDir), new ByteArrayInputStream(entry), input -> new OriginMetadata("benchmark", Hashing.hashString("benchmark"), Duration.ZERO));
+    }
+
+    /**
+     * Creates an entry in the format produced by {@link TarBuildCacheEntryPacker} with a single output directory.
+     */
+    private static byte[] createEntry(int fileCount, int maxFileSize) throws IOException {
+        Random random = new Random(1234L);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tarOutput = new TarArchiveOutputStream(output, StandardCharsets.UTF_8.name())) {
+            tarOutput.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            putEntry(tarOutput, "METADATA", 0100644, new byte[0]);
+            putEntry(tarOutput, "tree-output/", 040755, null);
+            for (int idx = 0; idx < fileCount; idx++) {
+                String dirPath = "tree-output/dir-" + (idx / FILES_PER_DIRECTORY) + "/";
+                if (idx % FILES_PER_DIRECTORY == 0) {
+                    putEntry(tarOutput, dirPath, 040755, null);
+                }
+                byte[] content = new byte[1 + random.nextInt(maxFileSize)];
+                random.nextBytes(content);
+                putEntry(tarOutput, dirPath + "file-" + idx + ".bin", 0100644, content);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    private static void putEntry(TarArchiveOutputStream tarOutput, String path, int mode, byte[] content) throws IOException {
+        TarArchiveEntry tarEntry = new TarArchiveEntry(path, true);
+        tarEntry.setSize(content == null ? 0 : content.length);
+        tarEntry.setMode(mode);
+        tarOutput.putArchiveEntry(tarEntry);
+        if (content != null) {
+            tarOutput.write(content);
+        }
+        tarOutput.closeArchiveEntry();
+    }
+
+    private static class OutputDirectoryEntity implements CacheableEntity {
+        private final File outputDir;
+
+        public OutputDirectoryEntity(File outputDir) {
+            this.outputDir = outputDir;
+        }
+
+        @Override
+        public String getIdentity() {
+            return ":benchmark";
+        }
+
+        @Override
+        public Class<?> getType() {
+            return getClass();
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "benchmark";
+        }
+
+        @Override
+        public void visitOutputTrees(CacheableTreeVisitor visitor) {
+            visitor.visitOutputTree("output", TreeType.DIRECTORY, outputDir);
+        }
+    }
+
+    private static class BenchmarkFileSystemSupport implements TarPackerFileSystemSupport {
+        @Override
+        public void ensureFileIsMissing(File entry) throws IOException {
+            FileUtils.forceMkdirParent(entry);
+            FileUtils.deleteQuietly(entry);
+        }
+
+        @Override
+        public void ensureDirectoryForTree(TreeType type, File root) throws IOException {
+            if (type == TreeType.DIRECTORY) {
+                FileUtils.forceMkdir(root);
+            } else {
+                ensureFileIsMissing(root);
+            }
+        }
+    }
+}
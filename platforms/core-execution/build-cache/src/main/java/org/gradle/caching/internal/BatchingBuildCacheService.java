@@ -0,0 +1,37 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.caching.internal;
+
+import org.gradle.caching.BuildCacheException;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.BuildCacheService;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A build cache service that can check for the existence of many entries in a single request.
+ */
+public interface BatchingBuildCacheService extends BuildCacheService {
+    /**
+     * Returns the subset of the given keys that have an entry in the cache.
+     *
+     * @param keys the cache keys to check.
+     * @return the keys with an entry, or {@link Optional#empty()} if the cache does not support checking for entries in bulk.
+     */
+    Optional<Set<BuildCacheKey>> findExisting(Collection<BuildCacheKey> keys) throws BuildCacheException;
+}
@@ -41,4 +41,12 @@ public interface BuildCacheController extends Closeable {
     Optional<BuildCacheLoadResult> load(BuildCacheKey cacheKey, CacheableEntity cacheableEntity);
 
     void store(BuildCacheKey cacheKey, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime);
+
+    /**
+     * Called when a work graph is about to be executed, so that entries it is likely to load can be downloaded ahead of time.
+     *
+     * @param workGraphIdentity identifies the work graph across builds, for example by the requested tasks.
+     */
+    default void prefetch(String workGraphIdentity) {
+    }
 }
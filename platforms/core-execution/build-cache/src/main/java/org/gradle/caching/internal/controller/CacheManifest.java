@@ -57,12 +57,14 @@ public static class ManifestEntry {
         private final String relativePath;
         private final HashCode contentHash;
         private final long length;
+        private final int unixMode;
 
-        public ManifestEntry(FileType type, String relativePath, HashCode contentHash, long length) {
+        public ManifestEntry(FileType type, String relativePath, HashCode contentHash, long length, int unixMode) {
             this.type = type;
             this.relativePath = relativePath;
             this.contentHash = contentHash;
             this.length = length;
+            this.unixMode = unixMode;
         }
 
         public FileType getType() {
@@ -80,5 +82,9 @@ public HashCode getContentHash() {
         public long getLength() {
             return length;
         }
+
+        public int getUnixMode() {
+            return unixMode;
+        }
     }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Keeps a copy of the bytes read from a stream, as long as there are not more of them than a given limit.
+ *
+ * <p>The rest of the stream is read when it is closed, so that the copy is complete even if the reader stops early.</p>
+ */
+class CapturingInputStream extends FilterInputStream {
+    private final long maxSize;
+    @Nullable
+    private ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    private boolean endReached;
+
+    CapturingInputStream(InputStream delegate, long maxSize) {
+        super(delegate);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b < 0) {
+            endReached = true;
+        } else if (captured != null) {
+            captured.write(b);
+            checkSize();
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read < 0) {
+            endReached = true;
+        } else if (captured != null) {
+            captured.write(b, off, read);
+            checkSize();
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes need to be captured as well
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        int read = read(buffer, 0, buffer.length);
+        return Math.max(read, 0);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            byte[] buffer = new byte[8192];
+            while (captured != null && !endReached) {
+                read(buffer, 0, buffer.length);
+            }
+        } finally {
+            super.close();
+        }
+    }
+
+    private void checkSize() {
+        if (captured != null && captured.size() > maxSize) {
+            captured = null;
+        }
+    }
+
+    /**
+     * Returns all bytes of the stream, or {@code null} if there were too many of them or the stream was not read to the end.
+     */
+    @Nullable
+    public byte[] getCaptured() {
+        return captured != null && endReached ? captured.toByteArray() : null;
+    }
+}
@@ -31,6 +31,7 @@
 import org.gradle.caching.internal.controller.service.BuildCacheLoadResult;
 import org.gradle.caching.internal.controller.service.BuildCacheServiceRole;
 import org.gradle.caching.internal.controller.service.BuildCacheServicesConfiguration;
+import org.gradle.caching.internal.controller.service.InMemoryBuildCacheTier;
 import org.gradle.caching.internal.controller.service.LocalBuildCacheServiceHandle;
 import org.gradle.caching.internal.controller.service.NullLocalBuildCacheServiceHandle;
 import org.gradle.caching.internal.controller.service.NullRemoteBuildCacheServiceHandle;
@@ -45,6 +46,7 @@
 import org.gradle.caching.local.internal.DefaultBuildCacheTempFileStore;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
 import org.gradle.caching.local.internal.TemporaryFileFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.file.FileMetadata;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.file.TreeType;
@@ -60,6 +62,7 @@
 import org.gradle.internal.snapshot.MissingFileSnapshot;
 import org.jspecify.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -69,6 +72,7 @@
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class DefaultBuildCacheController implements BuildCacheController {
 
@@ -80,6 +84,10 @@ public class DefaultBuildCacheController implements BuildCacheController {
 
     private final BuildCacheTempFileStore tmp;
     private final PackOperationExecutor packExecutor;
+    @Nullable
+    private final WriteBehindRemoteStoreQueue remoteStoreQueue;
+    @Nullable
+    private final RemoteBuildCachePrefetcher prefetcher;
 
     private boolean closed;
 
@@ -92,11 +100,48 @@ public DefaultBuildCacheController(
         boolean disableRemoteOnError,
         BuildCacheEntryPacker packer,
         OriginMetadataFactory originMetadataFactory,
-        Interner<String> stringInterner
+        Interner<String> stringInterner,
+        ExecutorFactory executorFactory
     ) {
-        this.local = toLocalHandle(config.getLocal(), config.isLocalPush(), buildOperationRunner);
+        this(config, buildOperationRunner, buildOperationProgressEventEmitter, temporaryFileFactory, logStackTraces, disableRemoteOnError, packer, originMetadataFactory, stringInterner, executorFactory, 0, 0, 0, 0, null);
+    }
+
+    /**
+     * Creates a controller that stores entries in the remote cache in the background when {@code maxConcurrentRemoteStores} is positive.
+     * At most {@code maxPendingRemoteStores} entries wait to be stored before storing more entries blocks.
+     * The background work runs on executors created by the given {@code executorFactory}, which are stopped when the controller is closed.
+     *
+     * <p>When {@code maxConcurrentPrefetches} is positive, entries used by a previous execution of the same work graph are downloaded from the remote cache
+     * into the local cache ahead of time, until {@code prefetchByteBudget} bytes have been downloaded.</p>
+     *
+     * <p>When {@code inMemoryTier} is not {@code null}, recently loaded entries of the local cache are held in memory.</p>
+     */
+    public DefaultBuildCacheController(
+        BuildCacheServicesConfiguration config,
+        BuildOperationRunner buildOperationRunner,
+        BuildOperationProgressEventEmitter buildOperationProgressEventEmitter,
+        TemporaryFileFactory temporaryFileFactory,
+        boolean logStackTraces,
+        boolean disableRemoteOnError,
+        BuildCacheEntryPacker packer,
+        OriginMetadataFactory originMetadataFactory,
+        Interner<String> stringInterner,
+        ExecutorFactory executorFactory,
+        int maxConcurrentRemoteStores,
+        int maxPendingRemoteStores,
+        int maxConcurrentPrefetches,
+        long prefetchByteBudget,
+        @Nullable InMemoryBuildCacheTier inMemoryTier
+    ) {
+        this.local = toLocalHandle(config.getLocal(), config.isLocalPush(), inMemoryTier, buildOperationRunner);
         this.remote = toRemoteHandle(config.getBuildPath(), config.getRemote(), config.isRemotePush(), buildOperationRunner, buildOperationProgressEventEmitter, logStackTraces, disableRemoteOnError);
         this.tmp = toTempFileStore(config.getLocal(), temporaryFileFactory);
+        this.remoteStoreQueue = maxConcurrentRemoteStores > 0 && remote.canStore()
+            ? new WriteBehindRemoteStoreQueue(remote, temporaryFileFactory, buildOperationRunner, executorFactory, maxConcurrentRemoteStores, Math.max(1, maxPendingRemoteStores))
+            : null;
+        this.prefetcher = maxConcurrentPrefetches > 0 && prefetchByteBudget > 0 && remote.canLoad() && local.canStore()
+            ? new RemoteBuildCachePrefetcher(remote, local, tmp, temporaryFileFactory, buildOperationRunner, executorFactory, maxConcurrentPrefetches, prefetchByteBudget)
+            : null;
         this.packExecutor = new PackOperationExecutor(
             buildOperationRunner,
             packer,
@@ -112,8 +157,14 @@ public boolean isEnabled() {
 
     @Override
     public Optional<BuildCacheLoadResult> load(BuildCacheKey key, CacheableEntity entity) {
+        if (prefetcher != null) {
+            prefetcher.beforeLoad(key);
+        }
         Optional<BuildCacheLoadResult> result = loadLocal(key, entity);
         if (result.isPresent()) {
+            if (prefetcher != null) {
+                prefetcher.loadedLocally(key);
+            }
             return result;
         }
         return loadRemoteAndStoreResultLocally(key, entity);
@@ -121,7 +172,11 @@ public Optional<BuildCacheLoadResult> load(BuildCacheKey key, CacheableEntity en
 
     private Optional<BuildCacheLoadResult> loadLocal(BuildCacheKey key, CacheableEntity entity) {
         try {
-            return local.maybeLoad(key, file -> packExecutor.unpack(key, entity, file));
+            Optional<BuildCacheLoadResult> restored = local.maybeLoadOutputs(key, entity, unpackResult -> packExecutor.toLoadResult(entity, unpackResult), archive -> packExecutor.unpackUncompressed(key, entity, archive));
+            if (restored.isPresent()) {
+                return restored;
+            }
+            return local.maybeLoad(key, file -> unpack(key, entity, file, archive -> local.holdInMemory(key, archive)), archive -> packExecutor.unpackUncompressed(key, entity, archive));
         } catch (Exception e) {
             throw new BuildCacheOperationException("Could not load from local cache: " + e.getMessage(), e);
         }
@@ -132,33 +187,79 @@ private Optional<BuildCacheLoadResult> loadRemoteAndStoreResultLocally(BuildCach
             return Optional.empty();
         }
         AtomicReference<Optional<BuildCacheLoadResult>> result = new AtomicReference<>(Optional.empty());
+        AtomicReference<byte[]> uncompressedArchive = new AtomicReference<>();
         tmp.withTempFile(((BuildCacheKeyInternal) key).getHashCodeInternal(), file -> {
             Optional<BuildCacheLoadResult> remoteResult;
             try {
-                remoteResult = remote.maybeLoad(key, file, f -> packExecutor.unpack(key, entity, f));
+                remoteResult = remote.maybeLoad(key, file, f -> unpack(key, entity, f, uncompressedArchive::set));
             } catch (Exception e) {
                 throw new BuildCacheOperationException("Could not load from remote cache: " + e.getMessage(), e);
             }
             if (remoteResult.isPresent()) {
-                local.maybeStore(key, file);
+                BuildCacheLoadResult loadResult = remoteResult.get();
+                boolean storedLocally;
+                if (local.canStoreOutputs()) {
+                    storedLocally = local.maybeStoreOutputs(key, entity, loadResult.getResultingSnapshots(), loadResult.getOriginMetadata());
+                } else {
+                    storedLocally = local.maybeStore(key, file);
+                }
+                if (storedLocally && uncompressedArchive.get() != null) {
+                    local.holdInMemory(key, uncompressedArchive.get());
+                }
                 result.set(remoteResult);
             }
         });
         return result.get();
     }
 
+    /**
+     * Unpacks an archive, keeping a copy of the uncompressed archive when the local cache can hold it in memory.
+     */
+    private BuildCacheLoadResult unpack(BuildCacheKey key, CacheableEntity entity, File file, Consumer<byte[]> uncompressedArchiveConsumer) {
+        long maxInMemoryArchiveSize = local.getMaxInMemoryArchiveSize();
+        if (maxInMemoryArchiveSize <= 0) {
+            return packExecutor.unpack(key, entity, file);
+        }
+        return packExecutor.unpack(key, entity, file, maxInMemoryArchiveSize, uncompressedArchiveConsumer);
+    }
+
     @Override
     public void store(BuildCacheKey key, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime) {
         if (!local.canStore() && !remote.canStore()) {
             return;
         }
+        if (prefetcher != null) {
+            prefetcher.stored(key);
+        }
+        boolean storeOutputsLocally = local.canStoreOutputs();
+        if (storeOutputsLocally) {
+            HashCode cacheKey = ((BuildCacheKeyInternal) key).getHashCodeInternal();
+            local.maybeStoreOutputs(key, entity, snapshots, packExecutor.createOriginMetadata(cacheKey, executionTime));
+            if (!remote.canStore()) {
+                return;
+            }
+        }
         tmp.withTempFile(((BuildCacheKeyInternal) key).getHashCodeInternal(), file -> {
             packExecutor.pack(file, key, entity, snapshots, executionTime);
-            remote.maybeStore(key, file);
-            local.maybeStore(key, file);
+            boolean storeArchiveLocally = !storeOutputsLocally && local.canStore();
+            if (remoteStoreQueue != null && remote.canStore()) {
+                remoteStoreQueue.submit(key, file, !storeArchiveLocally);
+            } else {
+                remote.maybeStore(key, file);
+            }
+            if (storeArchiveLocally) {
+                local.maybeStore(key, file);
+            }
         });
     }
 
+    @Override
+    public void prefetch(String workGraphIdentity) {
+        if (prefetcher != null) {
+            prefetcher.start(workGraphIdentity);
+        }
+    }
+
     @Override
     public void close() throws IOException {
         if (!closed) {
@@ -166,6 +267,13 @@ public void close() throws IOException {
             Closer closer = Closer.create();
             closer.register(local);
             closer.register(remote);
+            // Closed in reverse order, so pending stores are flushed and prefetching stops before the remote cache is closed
+            if (prefetcher != null) {
+                closer.register(prefetcher);
+            }
+            if (remoteStoreQueue != null) {
+                closer.register(remoteStoreQueue);
+            }
             closer.close();
         }
     }
@@ -186,12 +294,40 @@ static class PackOperationExecutor {
 
         @VisibleForTesting
         BuildCacheLoadResult unpack(BuildCacheKey key, CacheableEntity entity, File file) {
+            //noinspection IOStreamConstructor
+            return unpack(key, entity, file.length(), () -> new FileInputStream(file), input -> doUnpack(entity, input));
+        }
+
+        /**
+         * Unpacks the archive stored in the file, and passes the uncompressed archive to {@code uncompressedArchiveConsumer} unless it is larger than {@code maxUncompressedSize}.
+         */
+        BuildCacheLoadResult unpack(BuildCacheKey key, CacheableEntity entity, File file, long maxUncompressedSize, Consumer<byte[]> uncompressedArchiveConsumer) {
+            //noinspection IOStreamConstructor
+            return unpack(key, entity, file.length(), () -> new FileInputStream(file), input -> {
+                CapturingInputStream uncompressedInput = new CapturingInputStream(packer.decompress(input), maxUncompressedSize);
+                BuildCacheLoadResult result;
+                try (InputStream ignored = uncompressedInput) {
+                    result = toLoadResult(entity, packer.unpackUncompressed(entity, uncompressedInput, originMetadataFactory.createReader()));
+                }
+                byte[] uncompressedArchive = uncompressedInput.getCaptured();
+                if (uncompressedArchive != null) {
+                    uncompressedArchiveConsumer.accept(uncompressedArchive);
+                }
+                return result;
+            });
+        }
+
+        BuildCacheLoadResult unpackUncompressed(BuildCacheKey key, CacheableEntity entity, byte[] uncompressedArchive) {
+            return unpack(key, entity, uncompressedArchive.length, () -> new ByteArrayInputStream(uncompressedArchive),
+                input -> toLoadResult(entity, packer.unpackUncompressed(entity, input, originMetadataFactory.createReader())));
+        }
+
+        private BuildCacheLoadResult unpack(BuildCacheKey key, CacheableEntity entity, long archiveSize, ArchiveSource archive, ArchiveUnpacker unpacker) {
             return buildOperationRunner.call(new CallableBuildOperation<BuildCacheLoadResult>() {
                 @Override
                 public BuildCacheLoadResult call(BuildOperationContext context) throws IOException {
-                    //noinspection IOStreamConstructor
-                    try (InputStream input = new FileInputStream(file)) {
-                        BuildCacheLoadResult metadata = doUnpack(entity, input);
+                    try (InputStream input = archive.open()) {
+                        BuildCacheLoadResult metadata = unpacker.unpack(input);
                         context.setResult(new UnpackOperationResult(metadata.getArtifactEntryCount()));
                         return metadata;
                     }
@@ -200,7 +336,7 @@ public BuildCacheLoadResult call(BuildOperationContext context) throws IOExcepti
                 @Override
                 public BuildOperationDescriptor.Builder description() {
                     return BuildOperationDescriptor.displayName("Unpack build cache entry " + key.getHashCode())
-                        .details(new UnpackOperationDetails(key, file.length()))
+                        .details(new UnpackOperationDetails(key, archiveSize))
                         .progressDisplayName("Unpacking build cache entry");
                 }
             });
@@ -208,6 +344,14 @@ public BuildOperationDescriptor.Builder description() {
 
         private BuildCacheLoadResult doUnpack(CacheableEntity entity, InputStream input) throws IOException {
             BuildCacheEntryPacker.UnpackResult unpackResult = packer.unpack(entity, input, originMetadataFactory.createReader());
+            return toLoadResult(entity, unpackResult);
+        }
+
+        OriginMetadata createOriginMetadata(HashCode cacheKey, Duration executionTime) {
+            return originMetadataFactory.createMetadata(cacheKey, executionTime);
+        }
+
+        BuildCacheLoadResult toLoadResult(CacheableEntity entity, BuildCacheEntryPacker.UnpackResult unpackResult) {
             // TODO: Update the snapshots from the action
             ImmutableSortedMap<String, FileSystemSnapshot> resultingSnapshots = snapshotUnpackedData(entity, unpackResult.getSnapshots());
             return new BuildCacheLoadResult() {
@@ -245,6 +389,14 @@ private ImmutableSortedMap<String, FileSystemSnapshot> snapshotUnpackedData(Cach
             return builder.build();
         }
 
+        private interface ArchiveSource {
+            InputStream open() throws IOException;
+        }
+
+        private interface ArchiveUnpacker {
+            BuildCacheLoadResult unpack(InputStream input) throws IOException;
+        }
+
         @VisibleForTesting
         void pack(File file, BuildCacheKey key, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime) {
             buildOperationRunner.run(new RunnableBuildOperation() {
@@ -275,10 +427,10 @@ private static RemoteBuildCacheServiceHandle toRemoteHandle(String buildPath, @N
             : new OpFiringRemoteBuildCacheServiceHandle(buildPath, service, push, BuildCacheServiceRole.REMOTE, buildOperationRunner, buildOperationProgressEventEmitter, logStackTraces, disableOnError);
     }
 
-    private static LocalBuildCacheServiceHandle toLocalHandle(@Nullable LocalBuildCacheService local, boolean localPush, BuildOperationRunner buildOperationRunner) {
+    private static LocalBuildCacheServiceHandle toLocalHandle(@Nullable LocalBuildCacheService local, boolean localPush, @Nullable InMemoryBuildCacheTier inMemoryTier, BuildOperationRunner buildOperationRunner) {
         return local == null
             ? NullLocalBuildCacheServiceHandle.INSTANCE
-            : new OpFiringLocalBuildCacheServiceHandle(local, localPush, buildOperationRunner);
+            : new OpFiringLocalBuildCacheServiceHandle(local, localPush, inMemoryTier, buildOperationRunner);
     }
 
     private static BuildCacheTempFileStore toTempFileStore(@Nullable LocalBuildCacheService local, TemporaryFileFactory temporaryFileFactory) {
@@ -0,0 +1,451 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.io.FileUtils;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.BuildCacheKeyInternal;
+import org.gradle.caching.internal.SimpleBuildCacheKey;
+import org.gradle.caching.internal.controller.operations.PrefetchOperationDetails;
+import org.gradle.caching.internal.controller.operations.PrefetchOperationResult;
+import org.gradle.caching.internal.controller.service.LocalBuildCacheServiceHandle;
+import org.gradle.caching.internal.controller.service.RemoteBuildCacheServiceHandle;
+import org.gradle.caching.local.internal.BuildCacheTempFileStore;
+import org.gradle.caching.local.internal.TemporaryFileFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationRunner;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Speculatively downloads entries from the remote build cache into the local build cache before the work that needs them executes.
+ *
+ * <p>The keys of the entries used by a work graph are not known before the work executes, as computing them requires fingerprinting the inputs of the work.
+ * Instead, the keys loaded and stored while executing a work graph are recorded in a journal, which is stored in the remote build cache under a key derived from the identity of the work graph.
+ * When the same work graph is executed again, for example on a fresh CI agent, the journal is fetched first and the entries it lists are downloaded in the order they were used,
+ * until the byte budget is exhausted. When the remote cache can check for entries in bulk, entries it no longer has are skipped up front.</p>
+ *
+ * <p>The bytes of downloads in progress count against the byte budget, so that no new download starts once the prefetched and in-flight entries fill it.
+ * A finished download is only kept if its size still fits in the budget.</p>
+ *
+ * <p>Loading an entry that is still waiting to be prefetched claims it, so that the entry is downloaded only once.
+ * Loading an entry that is being prefetched waits for the download to finish.</p>
+ */
+class RemoteBuildCachePrefetcher implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RemoteBuildCachePrefetcher.class);
+    private static final int JOURNAL_FORMAT_VERSION = 1;
+    private static final int MAX_JOURNAL_ENTRIES = 10_000;
+    private static final int EXISTENCE_CHECK_BATCH_SIZE = 500;
+
+    private final RemoteBuildCacheServiceHandle remote;
+    private final LocalBuildCacheServiceHandle local;
+    private final BuildCacheTempFileStore tmp;
+    private final TemporaryFileFactory temporaryFileFactory;
+    private final BuildOperationRunner buildOperationRunner;
+    private final long byteBudget;
+    private final ManagedExecutor executor;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    @Nullable
+    private volatile BuildCacheKey journalKey;
+    private final Set<HashCode> usedKeys = Collections.synchronizedSet(new LinkedHashSet<>());
+
+    private final Map<HashCode, PendingPrefetch> pending = new ConcurrentHashMap<>();
+    private final Map<HashCode, Long> prefetched = new ConcurrentHashMap<>();
+    private final Set<File> downloadsInFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong reservedSize = new AtomicLong();
+    private final AtomicLong prefetchedSize = new AtomicLong();
+    private final AtomicInteger prefetchedCount = new AtomicInteger();
+    private final AtomicLong hitSize = new AtomicLong();
+    private final AtomicInteger hitCount = new AtomicInteger();
+
+    RemoteBuildCachePrefetcher(
+        RemoteBuildCacheServiceHandle remote,
+        LocalBuildCacheServiceHandle local,
+        BuildCacheTempFileStore tmp,
+        TemporaryFileFactory temporaryFileFactory,
+        BuildOperationRunner buildOperationRunner,
+        ExecutorFactory executorFactory,
+        int maxConcurrentPrefetches,
+        long byteBudget
+    ) {
+        this.remote = remote;
+        this.local = local;
+        this.tmp = tmp;
+        this.temporaryFileFactory = temporaryFileFactory;
+        this.buildOperationRunner = buildOperationRunner;
+        this.byteBudget = byteBudget;
+        this.executor = executorFactory.create("Remote build cache prefetch", maxConcurrentPrefetches);
+    }
+
+    /**
+     * Starts prefetching the entries used by the previous execution of the given work graph.
+     * Only the first work graph of the build is considered.
+     */
+    public void start(String workGraphIdentity) {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        BuildCacheKey key = journalKeyFor(workGraphIdentity);
+        journalKey = key;
+        executor.execute(() -> {
+            List<HashCode> keys = withoutMissingEntries(loadJournal(key));
+            LOGGER.debug("Prefetching up to {} entries from remote build cache", keys.size());
+            for (HashCode entryKey : keys) {
+                PendingPrefetch prefetch = new PendingPrefetch();
+                if (pending.putIfAbsent(entryKey, prefetch) == null) {
+                    try {
+                        executor.execute(() -> prefetch(new SimpleBuildCacheKey(entryKey), prefetch));
+                    } catch (RejectedExecutionException e) {
+                        // The build has finished
+                        break;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops the keys the remote cache has no entry for, when the cache can check for entries in bulk.
+     */
+    private List<HashCode> withoutMissingEntries(List<HashCode> keys) {
+        List<HashCode> existingKeys = new ArrayList<>(keys.size());
+        for (List<HashCode> batch : Lists.partition(keys, EXISTENCE_CHECK_BATCH_SIZE)) {
+            List<BuildCacheKey> batchKeys = new ArrayList<>(batch.size());
+            batch.forEach(hashCode -> batchKeys.add(new SimpleBuildCacheKey(hashCode)));
+            Optional<Set<BuildCacheKey>> existing = remote.maybeFindExisting(batchKeys);
+            if (existing.isPresent()) {
+                batchKeys.stream()
+                    .filter(existing.get()::contains)
+                    .forEach(batchKey -> existingKeys.add(((BuildCacheKeyInternal) batchKey).getHashCodeInternal()));
+            } else {
+                existingKeys.addAll(batch);
+            }
+        }
+        return existingKeys;
+    }
+
+    private void prefetch(BuildCacheKey key, PendingPrefetch prefetch) {
+        if (!prefetch.claim()) {
+            return;
+        }
+        File downloadedFile = null;
+        try {
+            if (budgetUsed() >= byteBudget || !remote.canLoad() || !local.canStore()) {
+                return;
+            }
+            downloadedFile = createTemporaryFile(key);
+            if (downloadedFile == null) {
+                return;
+            }
+            long size;
+            boolean reserved;
+            downloadsInFlight.add(downloadedFile);
+            try {
+                if (!download(key, downloadedFile)) {
+                    return;
+                }
+                size = downloadedFile.length();
+                reserved = reserveBudget(size);
+            } finally {
+                downloadsInFlight.remove(downloadedFile);
+            }
+            if (!reserved) {
+                LOGGER.debug("Not prefetching entry {} from remote build cache as it does not fit in the remaining budget", key.getHashCode());
+                return;
+            }
+            storeLocally(key, downloadedFile, size);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not prefetch entry {} from remote build cache", key.getHashCode(), e);
+        } finally {
+            if (downloadedFile != null) {
+                FileUtils.deleteQuietly(downloadedFile);
+            }
+            prefetch.done();
+        }
+    }
+
+    /**
+     * The bytes of the entries prefetched so far and of the downloads in progress.
+     */
+    private long budgetUsed() {
+        long used = reservedSize.get();
+        for (File file : downloadsInFlight) {
+            used += file.length();
+        }
+        return used;
+    }
+
+    private boolean reserveBudget(long size) {
+        while (true) {
+            long reserved = reservedSize.get();
+            if (reserved + size > byteBudget) {
+                return false;
+            }
+            if (reservedSize.compareAndSet(reserved, reserved + size)) {
+                return true;
+            }
+        }
+    }
+
+    private void storeLocally(BuildCacheKey key, File downloadedFile, long size) {
+        HashCode hashCode = ((BuildCacheKeyInternal) key).getHashCodeInternal();
+        AtomicBoolean stored = new AtomicBoolean();
+        try {
+            // Only move the downloaded entry into the local cache's temporary location while holding its lock
+            tmp.withTempFile(hashCode, file -> {
+                try {
+                    Files.move(downloadedFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (local.maybeStore(key, file)) {
+                    stored.set(true);
+                    prefetched.put(hashCode, size);
+                    prefetchedCount.incrementAndGet();
+                    prefetchedSize.addAndGet(size);
+                }
+            });
+        } finally {
+            if (!stored.get()) {
+                reservedSize.addAndGet(-size);
+            }
+        }
+    }
+
+    @Nullable
+    private File createTemporaryFile(BuildCacheKey key) {
+        try {
+            return temporaryFileFactory.createTemporaryFile(key.getHashCode() + "-", BuildCacheTempFileStore.PARTIAL_FILE_SUFFIX);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not create temporary file to download entry {} from remote build cache", key.getHashCode(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Loads the given entry from the remote cache into the given file, returning whether the remote cache has the entry.
+     */
+    private boolean download(BuildCacheKey key, File file) {
+        AtomicBoolean loaded = new AtomicBoolean();
+        remote.maybeLoad(key, file, f -> {
+            loaded.set(true);
+            return null;
+        });
+        return loaded.get();
+    }
+
+    /**
+     * Called before the given entry is loaded from the local cache.
+     * Waits for the entry to be prefetched when its download has already started, otherwise makes sure it is not prefetched anymore.
+     */
+    public void beforeLoad(BuildCacheKey key) {
+        HashCode hashCode = ((BuildCacheKeyInternal) key).getHashCodeInternal();
+        recordUsed(hashCode);
+        PendingPrefetch prefetch = pending.get(hashCode);
+        if (prefetch != null && !prefetch.cancel()) {
+            prefetch.awaitDone();
+        }
+    }
+
+    /**
+     * Called when the given entry has been loaded from the local cache.
+     */
+    public void loadedLocally(BuildCacheKey key) {
+        Long size = prefetched.remove(((BuildCacheKeyInternal) key).getHashCodeInternal());
+        if (size != null) {
+            hitCount.incrementAndGet();
+            hitSize.addAndGet(size);
+        }
+    }
+
+    /**
+     * Called when the given entry has been stored.
+     */
+    public void stored(BuildCacheKey key) {
+        recordUsed(((BuildCacheKeyInternal) key).getHashCodeInternal());
+    }
+
+    private void recordUsed(HashCode hashCode) {
+        if (started.get() && usedKeys.size() < MAX_JOURNAL_ENTRIES) {
+            usedKeys.add(hashCode);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.requestStop();
+        // Stop downloading entries that are no longer useful
+        pending.values().forEach(PendingPrefetch::cancel);
+        executor.stop();
+        BuildCacheKey key = journalKey;
+        if (key != null) {
+            storeJournal(key);
+            reportPrefetchedEntries();
+        }
+    }
+
+    private void reportPrefetchedEntries() {
+        buildOperationRunner.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                context.setResult(new PrefetchOperationResult(prefetchedCount.get(), prefetchedSize.get(), hitCount.get(), hitSize.get()));
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Prefetch entries from remote build cache")
+                    .details(new PrefetchOperationDetails(byteBudget));
+            }
+        });
+    }
+
+    private List<HashCode> loadJournal(BuildCacheKey key) {
+        List<HashCode> keys = new ArrayList<>();
+        File file = createTemporaryFile(key);
+        if (file == null) {
+            return keys;
+        }
+        try {
+            if (!download(key, file)) {
+                return keys;
+            }
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+                if (input.readInt() != JOURNAL_FORMAT_VERSION) {
+                    return keys;
+                }
+                int count = Math.min(input.readInt(), MAX_JOURNAL_ENTRIES);
+                for (int i = 0; i < count; i++) {
+                    byte[] bytes = new byte[input.readUnsignedByte()];
+                    input.readFully(bytes);
+                    keys.add(HashCode.fromBytes(bytes));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Could not read prefetch journal {} from remote build cache", key.getHashCode(), e);
+        } finally {
+            FileUtils.deleteQuietly(file);
+        }
+        return keys;
+    }
+
+    private void storeJournal(BuildCacheKey key) {
+        List<HashCode> keys;
+        synchronized (usedKeys) {
+            keys = new ArrayList<>(usedKeys);
+        }
+        if (keys.isEmpty() || !remote.canStore()) {
+            return;
+        }
+        File file = null;
+        try {
+            file = temporaryFileFactory.createTemporaryFile(key.getHashCode() + "-", BuildCacheTempFileStore.PARTIAL_FILE_SUFFIX);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+                output.writeInt(JOURNAL_FORMAT_VERSION);
+                output.writeInt(keys.size());
+                for (HashCode hashCode : keys) {
+                    byte[] bytes = hashCode.toByteArray();
+                    output.writeByte(bytes.length);
+                    output.write(bytes);
+                }
+            }
+            remote.maybeStore(key, file);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Could not store prefetch journal {} in remote build cache", key.getHashCode(), e);
+        } finally {
+            if (file != null) {
+                FileUtils.deleteQuietly(file);
+            }
+        }
+    }
+
+    private static BuildCacheKey journalKeyFor(String workGraphIdentity) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(RemoteBuildCachePrefetcher.class.getName());
+        hasher.putInt(JOURNAL_FORMAT_VERSION);
+        hasher.putString(workGraphIdentity);
+        return new SimpleBuildCacheKey(hasher.hash());
+    }
+
+    /**
+     * An entry waiting to be prefetched. Either the prefetcher or a load of the entry claims it, but not both.
+     */
+    private static class PendingPrefetch {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * Claims the entry so that it is not prefetched anymore, returning whether it was claimed.
+         */
+        boolean cancel() {
+            if (claim()) {
+                done.countDown();
+                return true;
+            }
+            return false;
+        }
+
+        void done() {
+            done.countDown();
+        }
+
+        void awaitDone() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
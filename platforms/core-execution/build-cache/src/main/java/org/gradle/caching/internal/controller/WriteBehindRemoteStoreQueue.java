@@ -0,0 +1,142 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.controller.service.RemoteBuildCacheServiceHandle;
+import org.gradle.caching.local.internal.BuildCacheTempFileStore;
+import org.gradle.caching.local.internal.TemporaryFileFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationRunner;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Uploads packed build cache entries to the remote build cache in the background.
+ *
+ * <p>Entries are handed over as files which the queue takes a copy of, so that the caller can release the worker thread as soon as the entry is packed.
+ * At most a given number of entries are waiting to be uploaded at a time; submitting more entries blocks until an upload finishes.
+ * Each upload still runs as a regular remote store build operation, and {@link #flush()} waits for all pending uploads to finish.</p>
+ */
+class WriteBehindRemoteStoreQueue implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindRemoteStoreQueue.class);
+
+    private final RemoteBuildCacheServiceHandle remote;
+    private final TemporaryFileFactory temporaryFileFactory;
+    private final BuildOperationRunner buildOperationRunner;
+    private final int maxPendingStores;
+    private final Semaphore pendingStores;
+    private final ManagedExecutor executor;
+
+    WriteBehindRemoteStoreQueue(
+        RemoteBuildCacheServiceHandle remote,
+        TemporaryFileFactory temporaryFileFactory,
+        BuildOperationRunner buildOperationRunner,
+        ExecutorFactory executorFactory,
+        int maxConcurrentStores,
+        int maxPendingStores
+    ) {
+        this.remote = remote;
+        this.temporaryFileFactory = temporaryFileFactory;
+        this.buildOperationRunner = buildOperationRunner;
+        this.maxPendingStores = maxPendingStores;
+        this.pendingStores = new Semaphore(maxPendingStores);
+        this.executor = executorFactory.create("Remote build cache upload", maxConcurrentStores);
+    }
+
+    /**
+     * Schedules the given packed entry to be stored in the remote cache.
+     *
+     * @param moveFile whether the file can be moved, or needs to be copied because the caller still uses it afterwards.
+     */
+    public void submit(BuildCacheKey key, File file, boolean moveFile) {
+        // Applies backpressure when the remote cache cannot keep up
+        pendingStores.acquireUninterruptibly();
+        File pendingFile;
+        try {
+            pendingFile = temporaryFileFactory.createTemporaryFile(key.getHashCode() + "-", BuildCacheTempFileStore.PARTIAL_FILE_SUFFIX);
+            if (moveFile) {
+                Files.move(file.toPath(), pendingFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.copy(file.toPath(), pendingFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            pendingStores.release();
+            LOGGER.debug("Could not schedule storing entry {} in remote build cache, storing it immediately", key.getHashCode(), e);
+            remote.maybeStore(key, file);
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    remote.maybeStore(key, pendingFile);
+                } finally {
+                    FileUtils.deleteQuietly(pendingFile);
+                    pendingStores.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            FileUtils.deleteQuietly(pendingFile);
+            pendingStores.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for all scheduled entries to be stored.
+     */
+    public void flush() {
+        if (pendingStores.availablePermits() == maxPendingStores) {
+            return;
+        }
+        buildOperationRunner.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                pendingStores.acquireUninterruptibly(maxPendingStores);
+                pendingStores.release(maxPendingStores);
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Wait for pending remote build cache stores")
+                    .progressDisplayName("Uploading to remote build cache");
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            executor.stop();
+        }
+    }
+}
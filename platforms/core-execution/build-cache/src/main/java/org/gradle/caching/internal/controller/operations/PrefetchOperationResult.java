@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.caching.internal.controller.operations;
+
+import org.gradle.caching.internal.operations.BuildCacheRemotePrefetchBuildOperationType;
+
+public class PrefetchOperationResult implements BuildCacheRemotePrefetchBuildOperationType.Result {
+
+    private final int prefetchedCount;
+    private final long prefetchedSize;
+    private final int hitCount;
+    private final long hitSize;
+
+    public PrefetchOperationResult(int prefetchedCount, long prefetchedSize, int hitCount, long hitSize) {
+        this.prefetchedCount = prefetchedCount;
+        this.prefetchedSize = prefetchedSize;
+        this.hitCount = hitCount;
+        this.hitSize = hitSize;
+    }
+
+    @Override
+    public int getPrefetchedCount() {
+        return prefetchedCount;
+    }
+
+    @Override
+    public long getPrefetchedSize() {
+        return prefetchedSize;
+    }
+
+    @Override
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    @Override
+    public long getHitSize() {
+        return hitSize;
+    }
+
+    @Override
+    public int getWastedCount() {
+        return prefetchedCount - hitCount;
+    }
+
+    @Override
+    public long getWastedSize() {
+        return prefetchedSize - hitSize;
+    }
+
+}
@@ -17,11 +17,17 @@
 package org.gradle.caching.internal.controller.service;
 
 import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.origin.OriginMetadata;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.local.internal.ContentAddressedLocalBuildCacheService;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.jspecify.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -30,10 +36,17 @@ public class BaseLocalBuildCacheServiceHandle implements LocalBuildCacheServiceH
 
     private final LocalBuildCacheService service;
     private final boolean pushEnabled;
+    @Nullable
+    private final InMemoryBuildCacheTier inMemoryTier;
 
     public BaseLocalBuildCacheServiceHandle(LocalBuildCacheService service, boolean pushEnabled) {
+        this(service, pushEnabled, null);
+    }
+
+    public BaseLocalBuildCacheServiceHandle(LocalBuildCacheService service, boolean pushEnabled, @Nullable InMemoryBuildCacheTier inMemoryTier) {
         this.service = service;
         this.pushEnabled = pushEnabled;
+        this.inMemoryTier = inMemoryTier;
     }
 
     @Nullable
@@ -44,11 +57,46 @@ public LocalBuildCacheService getService() {
 
     @Override
     public Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, Function<File, BuildCacheLoadResult> unpackFunction) {
+        return loadFromDisk(key, unpackFunction);
+    }
+
+    private Optional<BuildCacheLoadResult> loadFromDisk(BuildCacheKey key, Function<File, BuildCacheLoadResult> unpackFunction) {
         AtomicReference<Optional<BuildCacheLoadResult>> result = new AtomicReference<>(Optional.empty());
         service.loadLocally(key, file -> result.set(Optional.ofNullable(unpackFunction.apply(file))));
         return result.get();
     }
 
+    @Override
+    public Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, Function<File, BuildCacheLoadResult> unpackFunction, Function<byte[], BuildCacheLoadResult> inMemoryUnpackFunction) {
+        Optional<BuildCacheLoadResult> result = loadFromMemory(key, inMemoryUnpackFunction);
+        if (result.isPresent()) {
+            return result;
+        }
+        return loadFromDisk(key, unpackFunction);
+    }
+
+    private Optional<BuildCacheLoadResult> loadFromMemory(BuildCacheKey key, Function<byte[], BuildCacheLoadResult> inMemoryUnpackFunction) {
+        if (inMemoryTier == null) {
+            return Optional.empty();
+        }
+        byte[] archive = inMemoryTier.get(key);
+        if (archive == null) {
+            return Optional.empty();
+        }
+        // Keep the entry from being cleaned up from disk while it is used from memory, and don't use it once it has been
+        if (!service.markAccessed(key)) {
+            inMemoryTier.invalidate(key);
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(inMemoryUnpackFunction.apply(archive));
+        } catch (RuntimeException e) {
+            // Load the entry from disk next time
+            inMemoryTier.invalidate(key);
+            throw e;
+        }
+    }
+
     @Override
     public boolean canStore() {
         return pushEnabled;
@@ -67,6 +115,52 @@ protected void storeInner(BuildCacheKey key, File file) {
         service.storeLocally(key, file);
     }
 
+    @Override
+    public Optional<BuildCacheLoadResult> maybeLoadOutputs(BuildCacheKey key, CacheableEntity entity, Function<BuildCacheEntryPacker.UnpackResult, BuildCacheLoadResult> resultFunction, Function<byte[], BuildCacheLoadResult> inMemoryUnpackFunction) {
+        if (!isContentAddressed()) {
+            return Optional.empty();
+        }
+        Optional<BuildCacheLoadResult> result = loadFromMemory(key, inMemoryUnpackFunction);
+        if (result.isPresent()) {
+            return result;
+        }
+        return ((ContentAddressedLocalBuildCacheService) service).loadOutputs(key, entity).map(resultFunction);
+    }
+
+    @Override
+    public boolean canStoreOutputs() {
+        return pushEnabled && isContentAddressed();
+    }
+
+    @Override
+    public boolean maybeStoreOutputs(BuildCacheKey key, CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OriginMetadata originMetadata) {
+        if (canStoreOutputs()) {
+            storeOutputsInner(key, entity, snapshots, originMetadata);
+            return true;
+        }
+        return false;
+    }
+
+    protected long storeOutputsInner(BuildCacheKey key, CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OriginMetadata originMetadata) {
+        return ((ContentAddressedLocalBuildCacheService) service).storeOutputs(key, entity, snapshots, originMetadata);
+    }
+
+    @Override
+    public long getMaxInMemoryArchiveSize() {
+        return inMemoryTier != null ? inMemoryTier.getMaxEntrySizeInBytes() : 0;
+    }
+
+    @Override
+    public void holdInMemory(BuildCacheKey key, byte[] archive) {
+        if (inMemoryTier != null) {
+            inMemoryTier.put(key, archive);
+        }
+    }
+
+    protected boolean isContentAddressed() {
+        return service instanceof ContentAddressedLocalBuildCacheService;
+    }
+
     @Override
     public void close() throws IOException {
         service.close();
@@ -19,13 +19,16 @@
 import org.gradle.caching.BuildCacheEntryReader;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.BatchingBuildCacheService;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 public class BaseRemoteBuildCacheServiceHandle implements RemoteBuildCacheServiceHandle {
@@ -62,7 +65,7 @@ public String describeFailure(BuildCacheKey key, BuildCacheServiceRole role) {
     private final boolean logStackTraces;
     private final boolean disableOnError;
 
-    private boolean disabled;
+    private volatile boolean disabled;
 
     public BaseRemoteBuildCacheServiceHandle(
         BuildCacheService service,
@@ -120,6 +123,20 @@ private static Optional<BuildCacheLoadResult> maybeUnpack(LoadTarget loadTarget,
         return Optional.empty();
     }
 
+    @Override
+    public Optional<Set<BuildCacheKey>> maybeFindExisting(Collection<BuildCacheKey> keys) {
+        if (!canLoad() || !(service instanceof BatchingBuildCacheService)) {
+            return Optional.empty();
+        }
+        try {
+            return ((BatchingBuildCacheService) service).findExisting(keys);
+        } catch (Exception e) {
+            // Callers fall back to loading entries one by one, which reports failures
+            LOGGER.debug("Could not check for entries in {} build cache", role.getDisplayName(), e);
+            return Optional.empty();
+        }
+    }
+
     @Override
     public boolean canStore() {
         return pushEnabled && !disabled;
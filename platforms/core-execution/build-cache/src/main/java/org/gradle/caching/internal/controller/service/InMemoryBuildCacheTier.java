@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.BuildCacheKeyInternal;
+import org.gradle.internal.hash.HashCode;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Holds the archives of recently loaded local build cache entries in memory, so that loading them again does not read them from disk.
+ *
+ * <p>The tier is bounded by the total size of the archives it holds, and evicts the least recently used archives first.
+ * Archives larger than a fraction of the maximum size are never held, so that a single large entry cannot evict all the others.</p>
+ *
+ * <p>The archives are held uncompressed, so that loading an entry from memory does not decompress it again.</p>
+ */
+public class InMemoryBuildCacheTier {
+    private static final int MAX_ENTRY_SIZE_DIVISOR = 8;
+
+    private final long maxSizeInBytes;
+    private final long maxEntrySizeInBytes;
+    private final Cache<HashCode, byte[]> archives;
+
+    public InMemoryBuildCacheTier(long maxSizeInBytes) {
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.maxEntrySizeInBytes = Math.min(Integer.MAX_VALUE - 8, maxSizeInBytes / MAX_ENTRY_SIZE_DIVISOR);
+        this.archives = CacheBuilder.newBuilder()
+            .maximumWeight(maxSizeInBytes)
+            .weigher((HashCode key, byte[] archive) -> archive.length)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Returns the archive of the entry if it is held in memory.
+     */
+    @Nullable
+    public byte[] get(BuildCacheKey key) {
+        return archives.getIfPresent(hashOf(key));
+    }
+
+    /**
+     * Holds the given uncompressed archive of the entry in memory, unless it is too large.
+     */
+    public void put(BuildCacheKey key, byte[] archive) {
+        if (archive.length > maxEntrySizeInBytes) {
+            return;
+        }
+        archives.put(hashOf(key), archive);
+    }
+
+    /**
+     * Removes the entry, for example when its archive could not be unpacked.
+     */
+    public void invalidate(BuildCacheKey key) {
+        archives.invalidate(hashOf(key));
+    }
+
+    /**
+     * The size of the largest uncompressed archive held in memory.
+     */
+    public long getMaxEntrySizeInBytes() {
+        return maxEntrySizeInBytes;
+    }
+
+    public long getMaxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    public long getSizeInBytes() {
+        long size = 0;
+        for (byte[] archive : archives.asMap().values()) {
+            size += archive.length;
+        }
+        return size;
+    }
+
+    public long getEvictionCount() {
+        return archives.stats().evictionCount();
+    }
+
+    private static HashCode hashOf(BuildCacheKey key) {
+        return ((BuildCacheKeyInternal) key).getHashCodeInternal();
+    }
+}
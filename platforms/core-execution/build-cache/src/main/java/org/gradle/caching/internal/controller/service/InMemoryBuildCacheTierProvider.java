@@ -0,0 +1,53 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.service;
+
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.jspecify.annotations.Nullable;
+
+import java.io.File;
+import java.util.Objects;
+
+/**
+ * Provides the in-memory tier of the local build cache, which is shared by all builds running in the same process.
+ */
+@ServiceScope(Scope.Global.class)
+public class InMemoryBuildCacheTierProvider {
+    @Nullable
+    private InMemoryBuildCacheTier tier;
+    @Nullable
+    private File tierDirectory;
+
+    /**
+     * Returns the in-memory tier with the given maximum size for the local build cache in the given directory,
+     * or {@code null} if the in-memory tier is disabled.
+     *
+     * <p>The tier is kept between builds, unless a build requests a different maximum size or uses a different local build cache directory.</p>
+     */
+    @Nullable
+    public synchronized InMemoryBuildCacheTier getTier(long maxSizeInBytes, @Nullable File localCacheDirectory) {
+        if (maxSizeInBytes <= 0) {
+            tier = null;
+            tierDirectory = null;
+        } else if (tier == null || tier.getMaxSizeInBytes() != maxSizeInBytes || !Objects.equals(localCacheDirectory, tierDirectory)) {
+            tier = new InMemoryBuildCacheTier(maxSizeInBytes);
+            tierDirectory = localCacheDirectory;
+        }
+        return tier;
+    }
+}
@@ -18,11 +18,16 @@
 
 import com.google.common.annotations.VisibleForTesting;
 import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.origin.OriginMetadata;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.jspecify.annotations.Nullable;
 
 import java.io.Closeable;
 import java.io.File;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -35,6 +40,16 @@ public interface LocalBuildCacheServiceHandle extends Closeable {
     // TODO: what if this errors?
     Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, Function<File, BuildCacheLoadResult> unpackFunction);
 
+    /**
+     * Loads the archive of the entry from the local cache.
+     *
+     * If the uncompressed archive of the entry is held by the in-memory tier of the local cache, it is unpacked from memory with {@code inMemoryUnpackFunction},
+     * without reading it from disk. Otherwise it is unpacked from disk with {@code unpackFunction}.
+     *
+     * @see InMemoryBuildCacheTier
+     */
+    Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, Function<File, BuildCacheLoadResult> unpackFunction, Function<byte[], BuildCacheLoadResult> inMemoryUnpackFunction);
+
     boolean canStore();
 
     /**
@@ -46,4 +61,41 @@ public interface LocalBuildCacheServiceHandle extends Closeable {
      */
     boolean maybeStore(BuildCacheKey key, File file);
 
+    /**
+     * Restores the outputs of the entity directly from the local cache, without unpacking an archive.
+     *
+     * If the uncompressed archive of the entry is held by the in-memory tier of the local cache, it is unpacked from memory with {@code inMemoryUnpackFunction} instead.
+     *
+     * Returns {@link Optional#empty()} if the local cache is not content-addressed, or if it has no entry for the key.
+     *
+     * @see org.gradle.caching.local.internal.ContentAddressedLocalBuildCacheService
+     */
+    Optional<BuildCacheLoadResult> maybeLoadOutputs(BuildCacheKey key, CacheableEntity entity, Function<BuildCacheEntryPacker.UnpackResult, BuildCacheLoadResult> resultFunction, Function<byte[], BuildCacheLoadResult> inMemoryUnpackFunction);
+
+    /**
+     * Whether outputs can be stored in the local cache directly, without packing an archive first.
+     */
+    boolean canStoreOutputs();
+
+    /**
+     * Stores the outputs of the entity in the local cache directly.
+     *
+     * If canStoreOutputs() returns false, then this method will do nothing and will return false.
+     *
+     * Returns true if store was completed.
+     */
+    boolean maybeStoreOutputs(BuildCacheKey key, CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OriginMetadata originMetadata);
+
+    /**
+     * The size of the largest uncompressed archive held by {@link #holdInMemory(BuildCacheKey, byte[])}, or 0 if the local cache has no in-memory tier.
+     */
+    long getMaxInMemoryArchiveSize();
+
+    /**
+     * Holds the uncompressed archive of an entry stored in the local cache in its in-memory tier, if it has one.
+     *
+     * @see InMemoryBuildCacheTier
+     */
+    void holdInMemory(BuildCacheKey key, byte[] archive);
+
 }
@@ -17,10 +17,15 @@
 package org.gradle.caching.internal.controller.service;
 
 import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.origin.OriginMetadata;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.jspecify.annotations.Nullable;
 
 import java.io.File;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -42,6 +47,11 @@ public Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, Function<File
         return Optional.empty();
     }
 
+    @Override
+    public Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, Function<File, BuildCacheLoadResult> unpackFunction, Function<byte[], BuildCacheLoadResult> inMemoryUnpackFunction) {
+        return Optional.empty();
+    }
+
     @Override
     public boolean canStore() {
         return false;
@@ -52,6 +62,30 @@ public boolean maybeStore(BuildCacheKey key, File file) {
         return false;
     }
 
+    @Override
+    public Optional<BuildCacheLoadResult> maybeLoadOutputs(BuildCacheKey key, CacheableEntity entity, Function<BuildCacheEntryPacker.UnpackResult, BuildCacheLoadResult> resultFunction, Function<byte[], BuildCacheLoadResult> inMemoryUnpackFunction) {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean canStoreOutputs() {
+        return false;
+    }
+
+    @Override
+    public boolean maybeStoreOutputs(BuildCacheKey key, CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OriginMetadata originMetadata) {
+        return false;
+    }
+
+    @Override
+    public long getMaxInMemoryArchiveSize() {
+        return 0;
+    }
+
+    @Override
+    public void holdInMemory(BuildCacheKey key, byte[] archive) {
+    }
+
     @Override
     public void close() {
 
@@ -17,18 +17,29 @@
 package org.gradle.caching.internal.controller.service;
 
 import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.operations.BuildCacheLocalInMemoryTierBuildOperationType;
 import org.gradle.caching.internal.operations.BuildCacheLocalLoadBuildOperationType;
 import org.gradle.caching.internal.operations.BuildCacheLocalStoreBuildOperationType;
+import org.gradle.caching.internal.origin.OriginMetadata;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.operations.CallableBuildOperation;
 import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+import org.jspecify.annotations.Nullable;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 public class OpFiringLocalBuildCacheServiceHandle extends BaseLocalBuildCacheServiceHandle {
@@ -40,23 +51,59 @@ public boolean isStored() {
     };
 
     private final BuildOperationRunner buildOperationRunner;
+    @Nullable
+    private final InMemoryBuildCacheTier inMemoryTier;
+    private final long initialEvictionCount;
+    private final AtomicInteger inMemoryHitCount = new AtomicInteger();
+    private final AtomicInteger diskHitCount = new AtomicInteger();
+    private final AtomicInteger missCount = new AtomicInteger();
 
     public OpFiringLocalBuildCacheServiceHandle(LocalBuildCacheService service, boolean pushEnabled, BuildOperationRunner buildOperationRunner) {
-        super(service, pushEnabled);
+        this(service, pushEnabled, null, buildOperationRunner);
+    }
+
+    public OpFiringLocalBuildCacheServiceHandle(LocalBuildCacheService service, boolean pushEnabled, @Nullable InMemoryBuildCacheTier inMemoryTier, BuildOperationRunner buildOperationRunner) {
+        super(service, pushEnabled, inMemoryTier);
         this.buildOperationRunner = buildOperationRunner;
+        this.inMemoryTier = inMemoryTier;
+        this.initialEvictionCount = inMemoryTier != null ? inMemoryTier.getEvictionCount() : 0;
     }
 
     @Override
     public Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, Function<File, BuildCacheLoadResult> unpackFunction) {
+        return fireLoadOperation(key, (archiveSize, inMemory) -> OpFiringLocalBuildCacheServiceHandle.super.maybeLoad(key, file -> {
+            archiveSize.set(file.length());
+            return unpackFunction.apply(file);
+        }));
+    }
+
+    @Override
+    public Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, Function<File, BuildCacheLoadResult> unpackFunction, Function<byte[], BuildCacheLoadResult> inMemoryUnpackFunction) {
+        return fireLoadOperation(key, (archiveSize, inMemory) -> OpFiringLocalBuildCacheServiceHandle.super.maybeLoad(key, file -> {
+            archiveSize.set(file.length());
+            return unpackFunction.apply(file);
+        }, archive -> {
+            archiveSize.set((long) archive.length);
+            inMemory.set(true);
+            return inMemoryUnpackFunction.apply(archive);
+        }));
+    }
+
+    private Optional<BuildCacheLoadResult> fireLoadOperation(BuildCacheKey key, BiFunction<AtomicReference<Long>, AtomicBoolean, Optional<BuildCacheLoadResult>> load) {
         return buildOperationRunner.call(new CallableBuildOperation<Optional<BuildCacheLoadResult>>() {
             @Override
             public Optional<BuildCacheLoadResult> call(BuildOperationContext context) {
                 AtomicReference<Long> archiveSize = new AtomicReference<>();
-                Optional<BuildCacheLoadResult> result = OpFiringLocalBuildCacheServiceHandle.super.maybeLoad(key, file -> {
-                    archiveSize.set(file.length());
-                    return unpackFunction.apply(file);
-                });
-                context.setResult(new LocalLoadResult(result, archiveSize));
+                AtomicBoolean inMemory = new AtomicBoolean();
+                Optional<BuildCacheLoadResult> result = load.apply(archiveSize, inMemory);
+                if (!result.isPresent()) {
+                    missCount.incrementAndGet();
+                } else if (inMemory.get()) {
+                    inMemoryHitCount.incrementAndGet();
+                } else {
+                    diskHitCount.incrementAndGet();
+                }
+                context.setResult(new LocalLoadResult(result, archiveSize, inMemory.get()));
                 return result;
             }
 
@@ -85,6 +132,92 @@ public BuildOperationDescriptor.Builder description() {
         });
     }
 
+    @Override
+    public Optional<BuildCacheLoadResult> maybeLoadOutputs(BuildCacheKey key, CacheableEntity entity, Function<BuildCacheEntryPacker.UnpackResult, BuildCacheLoadResult> resultFunction, Function<byte[], BuildCacheLoadResult> inMemoryUnpackFunction) {
+        if (!isContentAddressed()) {
+            return Optional.empty();
+        }
+        return buildOperationRunner.call(new CallableBuildOperation<Optional<BuildCacheLoadResult>>() {
+            @Override
+            public Optional<BuildCacheLoadResult> call(BuildOperationContext context) {
+                // There is no archive when restoring outputs directly
+                AtomicReference<Long> archiveSize = new AtomicReference<>();
+                AtomicBoolean inMemory = new AtomicBoolean();
+                Optional<BuildCacheLoadResult> result = OpFiringLocalBuildCacheServiceHandle.super.maybeLoadOutputs(key, entity, resultFunction, archive -> {
+                    archiveSize.set((long) archive.length);
+                    inMemory.set(true);
+                    return inMemoryUnpackFunction.apply(archive);
+                });
+                // Misses are counted when falling back to loading an archive
+                if (result.isPresent()) {
+                    if (inMemory.get()) {
+                        inMemoryHitCount.incrementAndGet();
+                    } else {
+                        diskHitCount.incrementAndGet();
+                    }
+                }
+                context.setResult(new LocalLoadResult(result, archiveSize, inMemory.get()));
+                return result;
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Load entry " + key.getHashCode() + " from local build cache")
+                    .details(new LocalLoadDetails(key));
+            }
+        });
+    }
+
+    @Override
+    protected long storeOutputsInner(BuildCacheKey key, CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OriginMetadata originMetadata) {
+        return buildOperationRunner.call(new CallableBuildOperation<Long>() {
+            @Override
+            public Long call(BuildOperationContext context) {
+                long storedBytes = OpFiringLocalBuildCacheServiceHandle.super.storeOutputsInner(key, entity, snapshots, originMetadata);
+                context.setResult(LOCAL_STORE_RESULT);
+                return storedBytes;
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Store entry " + key.getHashCode() + " in local build cache")
+                    .details(new LocalStoreDetails(key, -1));
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (inMemoryTier != null) {
+                fireInMemoryTierOperation(inMemoryTier);
+            }
+        } finally {
+            super.close();
+        }
+    }
+
+    private void fireInMemoryTierOperation(InMemoryBuildCacheTier inMemoryTier) {
+        buildOperationRunner.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                context.setResult(new InMemoryTierResult(
+                    inMemoryHitCount.get(),
+                    diskHitCount.get(),
+                    missCount.get(),
+                    inMemoryTier.getEvictionCount() - initialEvictionCount,
+                    inMemoryTier.getSizeInBytes()
+                ));
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Summarize in-memory tier of local build cache")
+                    .details(new InMemoryTierDetails(inMemoryTier.getMaxSizeInBytes()));
+            }
+        });
+    }
+
     private static class LocalLoadDetails implements BuildCacheLocalLoadBuildOperationType.Details {
 
         private final BuildCacheKey key;
@@ -102,10 +235,12 @@ public String getCacheKey() {
     private static class LocalLoadResult implements BuildCacheLocalLoadBuildOperationType.Result {
         private final Optional<BuildCacheLoadResult> result;
         private final AtomicReference<Long> archiveSize;
+        private final boolean inMemoryHit;
 
-        public LocalLoadResult(Optional<BuildCacheLoadResult> result, AtomicReference<Long> archiveSize) {
+        public LocalLoadResult(Optional<BuildCacheLoadResult> result, AtomicReference<Long> archiveSize, boolean inMemoryHit) {
             this.result = result;
             this.archiveSize = archiveSize;
+            this.inMemoryHit = inMemoryHit;
         }
 
         @Override
@@ -121,6 +256,11 @@ public long getArchiveSize() {
             }
             return -1;
         }
+
+        @Override
+        public boolean isInMemoryHit() {
+            return inMemoryHit;
+        }
     }
 
     private static class LocalStoreDetails implements BuildCacheLocalStoreBuildOperationType.Details {
@@ -128,10 +268,14 @@ private static class LocalStoreDetails implements BuildCacheLocalStoreBuildOpera
         private final long archiveSize;
 
         public LocalStoreDetails(BuildCacheKey key, File file) {
-            this.key = key;
             // We need to calculate the size eagerly here, since the file will already be gone
             // (aka in the local cache), when the DV plugin queries the value.
-            this.archiveSize = file.length();
+            this(key, file.length());
+        }
+
+        public LocalStoreDetails(BuildCacheKey key, long archiveSize) {
+            this.key = key;
+            this.archiveSize = archiveSize;
         }
 
         @Override
@@ -144,4 +288,58 @@ public long getArchiveSize() {
             return archiveSize;
         }
     }
+
+    private static class InMemoryTierDetails implements BuildCacheLocalInMemoryTierBuildOperationType.Details {
+        private final long maxSize;
+
+        public InMemoryTierDetails(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public long getMaxSize() {
+            return maxSize;
+        }
+    }
+
+    private static class InMemoryTierResult implements BuildCacheLocalInMemoryTierBuildOperationType.Result {
+        private final int inMemoryHitCount;
+        private final int diskHitCount;
+        private final int missCount;
+        private final long evictionCount;
+        private final long size;
+
+        public InMemoryTierResult(int inMemoryHitCount, int diskHitCount, int missCount, long evictionCount, long size) {
+            this.inMemoryHitCount = inMemoryHitCount;
+            this.diskHitCount = diskHitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.size = size;
+        }
+
+        @Override
+        public int getInMemoryHitCount() {
+            return inMemoryHitCount;
+        }
+
+        @Override
+        public int getDiskHitCount() {
+            return diskHitCount;
+        }
+
+        @Override
+        public int getMissCount() {
+            return missCount;
+        }
+
+        @Override
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+    }
 }
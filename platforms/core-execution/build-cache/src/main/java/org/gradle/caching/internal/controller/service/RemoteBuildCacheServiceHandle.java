@@ -23,7 +23,9 @@
 
 import java.io.Closeable;
 import java.io.File;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 public interface RemoteBuildCacheServiceHandle extends Closeable {
@@ -41,6 +43,13 @@ public interface RemoteBuildCacheServiceHandle extends Closeable {
      */
     Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, File toFile, Function<File, BuildCacheLoadResult> unpackFunction);
 
+    /**
+     * Returns the subset of the given keys that have an entry in the cache, checked in a single request.
+     *
+     * Returns an empty result if canLoad() returns false, or if the cache does not support checking for entries in bulk.
+     */
+    Optional<Set<BuildCacheKey>> maybeFindExisting(Collection<BuildCacheKey> keys);
+
     boolean canStore();
 
     /**
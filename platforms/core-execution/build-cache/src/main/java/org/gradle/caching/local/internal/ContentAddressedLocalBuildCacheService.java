@@ -0,0 +1,50 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.origin.OriginMetadata;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A local build cache service that stores the contents of output files only once, addressed by their content hash,
+ * and keeps a small {@link org.gradle.caching.internal.controller.CacheManifest manifest} per cache key.
+ *
+ * <p>Outputs are restored directly from the content store, without going through
+ * an archive that needs to be decompressed and unpacked.</p>
+ */
+public interface ContentAddressedLocalBuildCacheService extends LocalBuildCacheService {
+
+    /**
+     * Restores the outputs of the given entity from the manifest stored under the given key.
+     *
+     * @return the result of restoring the outputs, or {@link Optional#empty()} if there is no complete entry for the key.
+     */
+    Optional<BuildCacheEntryPacker.UnpackResult> loadOutputs(BuildCacheKey key, CacheableEntity entity);
+
+    /**
+     * Stores the outputs of the given entity under the given key, adding the contents of files not yet present in the cache.
+     *
+     * @return the number of bytes of file content that were added to the cache.
+     */
+    long storeOutputs(BuildCacheKey key, CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OriginMetadata originMetadata);
+}
@@ -20,6 +20,7 @@
 
 import java.io.Closeable;
 import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 /**
@@ -38,4 +39,15 @@ public interface LocalBuildCacheService extends BuildCacheTempFileStore, Closeab
      * Store the given file in the local file store as a cache artifact.
      */
     void storeLocally(BuildCacheKey key, File file);
+
+    /**
+     * Marks a cache artifact as recently used without reading it, for example when it has been loaded from a copy held in memory.
+     *
+     * @return whether the artifact is still in the local file store.
+     */
+    default boolean markAccessed(BuildCacheKey key) {
+        AtomicBoolean found = new AtomicBoolean();
+        loadLocally(key, file -> found.set(true));
+        return found.get();
+    }
 }
@@ -24,10 +24,17 @@ import org.gradle.caching.BuildCacheService
 import org.gradle.caching.internal.CacheableEntity
 import org.gradle.caching.internal.SimpleBuildCacheKey
 import org.gradle.caching.internal.controller.service.BuildCacheServicesConfiguration
+import org.gradle.caching.internal.controller.service.InMemoryBuildCacheTier
+import org.gradle.caching.internal.operations.BuildCacheLocalInMemoryTierBuildOperationType
+import org.gradle.caching.internal.operations.BuildCacheLocalLoadBuildOperationType
+import org.gradle.caching.internal.operations.BuildCacheRemotePrefetchBuildOperationType
+import org.gradle.caching.internal.origin.OriginMetadata
 import org.gradle.caching.internal.origin.OriginMetadataFactory
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
+import org.gradle.caching.local.internal.ContentAddressedLocalBuildCacheService
 import org.gradle.caching.local.internal.LocalBuildCacheService
 import org.gradle.caching.local.internal.TemporaryFileFactory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.hash.TestHashCodes
 import org.gradle.internal.operations.NoOpBuildOperationProgressEventEmitter
@@ -40,6 +47,8 @@ import spock.lang.Specification
 
 import java.nio.file.Files
 import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 import java.util.function.Consumer
 
 class DefaultBuildCacheControllerTest extends Specification {
@@ -64,6 +73,7 @@ class DefaultBuildCacheControllerTest extends Specification {
     BuildCacheEntryPacker packer = Stub(BuildCacheEntryPacker)
     OriginMetadataFactory originMetadataFactory = Stub(OriginMetadataFactory)
     Interner<String> stringInterner = Stub(Interner)
+    def executorFactory = new DefaultExecutorFactory()
 
     def operations = new TestBuildOperationRunner()
     def buildOperationProgressEmitter = new NoOpBuildOperationProgressEventEmitter()
@@ -71,9 +81,15 @@ class DefaultBuildCacheControllerTest extends Specification {
     @Rule
     final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
 
+    def cleanup() {
+        executorFactory.stop()
+    }
+
     interface Local extends BuildCacheService, LocalBuildCacheService {}
 
-    BuildCacheController getController(boolean disableRemoteOnError = true) {
+    interface ContentAddressedLocal extends BuildCacheService, ContentAddressedLocalBuildCacheService {}
+
+    BuildCacheController getController(boolean disableRemoteOnError = true, int maxConcurrentRemoteStores = 0, int maxConcurrentPrefetches = 0, InMemoryBuildCacheTier inMemoryTier = null) {
         new DefaultBuildCacheController(
             new BuildCacheServicesConfiguration(
                 Path.ROOT.path,
@@ -89,7 +105,13 @@ class DefaultBuildCacheControllerTest extends Specification {
             disableRemoteOnError,
             packer,
             originMetadataFactory,
-            stringInterner
+            stringInterner,
+            executorFactory,
+            maxConcurrentRemoteStores,
+            4,
+            maxConcurrentPrefetches,
+            1024 * 1024,
+            inMemoryTier
         )
     }
 
@@ -156,6 +178,51 @@ class DefaultBuildCacheControllerTest extends Specification {
         0 * local.storeLocally(key, _)
     }
 
+    def "loads recently loaded entries from memory"() {
+        given:
+        def inMemoryTier = new InMemoryBuildCacheTier(1024 * 1024)
+        def controller = getController(true, 0, 0, inMemoryTier)
+        packer.decompress(_) >> { InputStream input -> new ByteArrayInputStream(("uncompressed " + input.text).bytes) }
+
+        when:
+        controller.load(key, cacheableEntity)
+        controller.load(key, cacheableEntity)
+        controller.close()
+
+        then:
+        1 * local.loadLocally(key, _) >> { BuildCacheKey key, Consumer<File> action ->
+            def file = tmpDir.file("file")
+            file.text = "alma"
+            action.accept(file)
+        }
+        1 * local.markAccessed(key) >> true
+        0 * remote.load(_, _)
+        inMemoryTier.get(key) == "uncompressed alma".bytes
+        operations.log.all(BuildCacheLocalLoadBuildOperationType)*.result*.inMemoryHit == [false, true]
+
+        def summary = operations.log.mostRecentResult(BuildCacheLocalInMemoryTierBuildOperationType)
+        summary.inMemoryHitCount == 1
+        summary.diskHitCount == 1
+        summary.missCount == 0
+        summary.size == 17
+    }
+
+    def "does not load entries from memory once they are removed from the local cache"() {
+        given:
+        def inMemoryTier = new InMemoryBuildCacheTier(1024 * 1024)
+        def controller = getController(true, 0, 0, inMemoryTier)
+        inMemoryTier.put(key, "alma".bytes)
+
+        when:
+        def result = controller.load(key, cacheableEntity)
+
+        then:
+        !result.present
+        1 * local.markAccessed(key) >> false
+        1 * remote.load(key, _) >> false
+        inMemoryTier.get(key) == null
+    }
+
     def "remote load also stores to local"() {
         given:
         1 * local.loadLocally(key, _) // miss
@@ -202,6 +269,121 @@ class DefaultBuildCacheControllerTest extends Specification {
         0 * local.storeLocally(key, _)
     }
 
+    def "stores outputs to content addressed local cache without packing"() {
+        given:
+        local = Mock(ContentAddressedLocal)
+        remote = null
+
+        when:
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+
+        then:
+        1 * local.storeOutputs(key, cacheableEntity, snapshots, _)
+        0 * local.withTempFile(_, _)
+        0 * local.storeLocally(_, _)
+    }
+
+    def "stores outputs to content addressed local cache and archive to remote"() {
+        given:
+        local = Mock(ContentAddressedLocal) {
+            withTempFile(_ as HashCode, _ as Consumer) >> { key, action ->
+                action.accept(tmpDir.file("file"))
+            }
+        }
+
+        when:
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+
+        then:
+        1 * local.storeOutputs(key, cacheableEntity, snapshots, _)
+        1 * remote.store(key, _)
+        0 * local.storeLocally(_, _)
+    }
+
+    def "loads outputs from content addressed local cache"() {
+        given:
+        local = Mock(ContentAddressedLocal)
+        def originMetadata = new OriginMetadata("invocation-id", TestHashCodes.hashCodeFrom(1), executionTime)
+
+        when:
+        def result = controller.load(key, cacheableEntity)
+
+        then:
+        1 * local.loadOutputs(key, cacheableEntity) >> Optional.of(new BuildCacheEntryPacker.UnpackResult(originMetadata, 1, [:]))
+        0 * local.loadLocally(_, _)
+        0 * remote.load(_, _)
+        result.present
+        result.get().originMetadata == originMetadata
+    }
+
+    def "falls back to archive when content addressed local cache misses"() {
+        given:
+        local = Mock(ContentAddressedLocal)
+
+        when:
+        controller.load(key, cacheableEntity)
+
+        then:
+        1 * local.loadOutputs(key, cacheableEntity) >> Optional.empty()
+
+        then:
+        1 * local.loadLocally(key, _) // miss
+        1 * remote.load(key, _) >> false
+    }
+
+    def "remote load stores outputs to content addressed local cache"() {
+        given:
+        local = Mock(ContentAddressedLocal)
+        def originMetadata = new OriginMetadata("invocation-id", TestHashCodes.hashCodeFrom(1), executionTime)
+        packer.unpack(_, _, _) >> new BuildCacheEntryPacker.UnpackResult(originMetadata, 1, [:])
+        1 * local.loadOutputs(key, cacheableEntity) >> Optional.empty()
+        1 * local.loadLocally(key, _) // miss
+        1 * remote.load(key, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            reader.readFrom(new ByteArrayInputStream("foo".bytes))
+            true
+        }
+
+        when:
+        controller.load(key, cacheableEntity)
+
+        then:
+        1 * local.storeOutputs(key, cacheableEntity, _, originMetadata)
+        0 * local.storeLocally(_, _)
+    }
+
+    def "loads outputs of content addressed local cache from memory after loading them from remote"() {
+        given:
+        local = Mock(ContentAddressedLocal)
+        def inMemoryTier = new InMemoryBuildCacheTier(1024 * 1024)
+        def controller = getController(true, 0, 0, inMemoryTier)
+        def originMetadata = new OriginMetadata("invocation-id", TestHashCodes.hashCodeFrom(1), executionTime)
+        packer.decompress(_) >> { InputStream input -> new ByteArrayInputStream(("uncompressed " + input.text).bytes) }
+        packer.unpackUncompressed(_, _, _) >> new BuildCacheEntryPacker.UnpackResult(originMetadata, 1, [:])
+
+        when:
+        controller.load(key, cacheableEntity)
+
+        then:
+        1 * local.loadOutputs(key, cacheableEntity) >> Optional.empty()
+        1 * local.loadLocally(key, _) // miss
+        1 * remote.load(key, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            reader.readFrom(new ByteArrayInputStream("foo".bytes))
+            true
+        }
+        1 * local.storeOutputs(key, cacheableEntity, _, originMetadata)
+        inMemoryTier.get(key) == "uncompressed foo".bytes
+
+        when:
+        def result = controller.load(key, cacheableEntity)
+
+        then:
+        1 * local.markAccessed(key) >> true
+        0 * local.loadOutputs(_, _)
+        0 * local.loadLocally(_, _)
+        0 * remote.load(_, _)
+        result.get().originMetadata == originMetadata
+    }
+
     def "stops calling through after read error"() {
         local = null
 
@@ -277,4 +459,133 @@ class DefaultBuildCacheControllerTest extends Specification {
         1 * local.close()
         1 * remote.close()
     }
+
+    def "stores to remote in the background and flushes pending stores before closing"() {
+        when:
+        def controller = getController(true, 2)
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+        controller.close()
+
+        then:
+        1 * local.storeLocally(key, _)
+        1 * remote.store(key, _)
+
+        then:
+        1 * local.close()
+        1 * remote.close()
+    }
+
+    def "does suppress exceptions from background store"() {
+        local = null
+
+        when:
+        def controller = getController(true, 2)
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+        controller.close()
+
+        then:
+        noExceptionThrown()
+        1 * remote.store(key, _) >> { throw new RuntimeException() }
+    }
+
+    def "prefetches entries used by previous execution of work graph"() {
+        def prefetched = new CountDownLatch(1)
+        remote.load(_, _) >> { BuildCacheKey loadedKey, BuildCacheEntryReader reader ->
+            if (loadedKey == key) {
+                reader.readFrom(new ByteArrayInputStream("foo".bytes))
+            } else {
+                reader.readFrom(new ByteArrayInputStream(journal(key)))
+            }
+            true
+        }
+        local.storeLocally(key, _) >> { prefetched.countDown() }
+
+        when:
+        def controller = getController(true, 0, 2)
+        controller.prefetch(":build")
+
+        then:
+        prefetched.await(10, TimeUnit.SECONDS)
+
+        when:
+        controller.load(key, cacheableEntity)
+        controller.close()
+
+        then:
+        1 * local.loadLocally(key, _) >> { BuildCacheKey key, Consumer<File> action ->
+            def file = tmpDir.file("file")
+            file.text = "foo"
+            action.accept(file)
+        }
+
+        and:
+        def result = operations.log.mostRecentResult(BuildCacheRemotePrefetchBuildOperationType)
+        result.prefetchedCount == 1
+        result.prefetchedSize == 3
+        result.hitCount == 1
+        result.wastedCount == 0
+    }
+
+    def "keeps concurrently downloaded entries within the prefetch budget"() {
+        def otherKey = new SimpleBuildCacheKey(TestHashCodes.hashCodeFrom(0x7654321))
+        def entrySize = 768 * 1024
+        def downloading = new CountDownLatch(2)
+        remote.load(_, _) >> { BuildCacheKey loadedKey, BuildCacheEntryReader reader ->
+            if (loadedKey == key || loadedKey == otherKey) {
+                // Both entries are downloaded at the same time, while neither counts against the budget yet
+                downloading.countDown()
+                downloading.await(10, TimeUnit.SECONDS)
+                reader.readFrom(new ByteArrayInputStream(new byte[entrySize]))
+            } else {
+                reader.readFrom(new ByteArrayInputStream(journal(key, otherKey)))
+            }
+            true
+        }
+
+        when:
+        def controller = getController(true, 0, 2)
+        controller.prefetch(":build")
+        downloading.await(10, TimeUnit.SECONDS)
+        controller.close()
+
+        then:
+        1 * local.storeLocally(_, _)
+
+        and:
+        def result = operations.log.mostRecentResult(BuildCacheRemotePrefetchBuildOperationType)
+        result.prefetchedCount == 1
+        result.prefetchedSize == entrySize
+    }
+
+    def "stores keys used by work graph in remote cache"() {
+        def storedJournal = null
+
+        when:
+        def controller = getController(true, 0, 2)
+        controller.prefetch(":build")
+        controller.load(key, cacheableEntity)
+        controller.close()
+
+        then:
+        1 * remote.store({ it != key }, _) >> { BuildCacheKey journalKey, BuildCacheEntryWriter writer ->
+            def output = new ByteArrayOutputStream()
+            writer.writeTo(output)
+            storedJournal = output.toByteArray()
+        }
+        storedJournal == journal(key)
+    }
+
+    private static byte[] journal(BuildCacheKey... keys) {
+        def bytes = new ByteArrayOutputStream()
+        def output = new DataOutputStream(bytes)
+        output.writeInt(1)
+        output.writeInt(keys.length)
+        keys.each {
+            def hash = it.toByteArray()
+            output.writeByte(hash.length)
+            output.write(hash)
+        }
+        output.close()
+        bytes.toByteArray()
+    }
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.service
+
+import spock.lang.Specification
+
+class InMemoryBuildCacheTierProviderTest extends Specification {
+
+    def provider = new InMemoryBuildCacheTierProvider()
+    def directory = new File("cache-dir")
+
+    def "keeps tier between builds using the same local cache"() {
+        when:
+        def tier = provider.getTier(1024, directory)
+
+        then:
+        provider.getTier(1024, new File("cache-dir")).is(tier)
+    }
+
+    def "replaces tier when the local cache directory changes"() {
+        when:
+        def tier = provider.getTier(1024, directory)
+
+        then:
+        !provider.getTier(1024, new File("other-cache-dir")).is(tier)
+    }
+
+    def "replaces tier when the size changes"() {
+        when:
+        def tier = provider.getTier(1024, directory)
+
+        then:
+        !provider.getTier(2048, directory).is(tier)
+    }
+
+    def "releases tier when it is disabled"() {
+        given:
+        def tier = provider.getTier(1024, directory)
+
+        expect:
+        provider.getTier(0, null) == null
+        !provider.getTier(1024, directory).is(tier)
+    }
+}
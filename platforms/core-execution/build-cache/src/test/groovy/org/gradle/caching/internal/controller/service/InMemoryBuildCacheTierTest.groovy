@@ -0,0 +1,78 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.service
+
+import org.gradle.caching.internal.SimpleBuildCacheKey
+import org.gradle.internal.hash.TestHashCodes
+import spock.lang.Specification
+
+class InMemoryBuildCacheTierTest extends Specification {
+
+    def tier = new InMemoryBuildCacheTier(8 * 1024)
+
+    def "holds archives of loaded entries"() {
+        def key = key(1)
+
+        when:
+        tier.put(key, archive(1024))
+
+        then:
+        tier.get(key).length == 1024
+        tier.sizeInBytes == 1024
+    }
+
+    def "does not hold archives larger than a fraction of the maximum size"() {
+        def key = key(1)
+
+        when:
+        tier.put(key, archive(1025))
+
+        then:
+        tier.get(key) == null
+        tier.sizeInBytes == 0
+    }
+
+    def "evicts archives to stay within the maximum size"() {
+        when:
+        100.times {
+            tier.put(key(it), archive(1024))
+        }
+
+        then:
+        tier.sizeInBytes <= 8 * 1024
+        tier.evictionCount > 0
+    }
+
+    def "removes invalidated archives"() {
+        def key = key(1)
+        tier.put(key, archive(512))
+
+        when:
+        tier.invalidate(key)
+
+        then:
+        tier.get(key) == null
+    }
+
+    private static SimpleBuildCacheKey key(int value) {
+        new SimpleBuildCacheKey(TestHashCodes.hashCodeFrom(value))
+    }
+
+    private static byte[] archive(int size) {
+        new byte[size]
+    }
+}
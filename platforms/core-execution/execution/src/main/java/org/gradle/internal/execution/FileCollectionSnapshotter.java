@@ -22,6 +22,10 @@
 import org.gradle.internal.service.scopes.ServiceScope;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
 /**
  * Service for snapshotting {@link FileCollection}s.
  */
@@ -40,4 +44,15 @@ default FileSystemSnapshot snapshot(FileCollection fileCollection) {
      */
     FileSystemSnapshot snapshot(FileCollection fileCollection, FileCollectionStructureVisitor visitor);
 
+    /**
+     * Visit the structure of a file collection on the calling thread, and return the snapshots of its roots to be taken later.
+     *
+     * <p>The returned suppliers only access the file system, and can be invoked concurrently from any thread.
+     * The snapshot of the whole collection is the composite of the root snapshots, in the order they are returned.</p>
+     */
+    default List<Supplier<FileSystemSnapshot>> snapshotRoots(FileCollection fileCollection, FileCollectionStructureVisitor visitor) {
+        FileSystemSnapshot snapshot = snapshot(fileCollection, visitor);
+        return Collections.singletonList(() -> snapshot);
+    }
+
 }
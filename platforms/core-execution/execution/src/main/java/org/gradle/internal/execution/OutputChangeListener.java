@@ -19,6 +19,7 @@
 import org.gradle.internal.service.scopes.EventScope;
 import org.gradle.internal.service.scopes.Scope;
 import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 
 @EventScope(Scope.Build.class)
 @ServiceScope(Scope.Build.class)
@@ -30,4 +31,13 @@ public interface OutputChangeListener {
      * @param affectedOutputPaths The files which are affected by the change.
      */
     void invalidateCachesFor(Iterable<String> affectedOutputPaths);
+
+    /**
+     * Invoked after work has been executed for outputs whose contents are byte-identical to their contents before the execution.
+     * Caches invalidated for these locations via {@link #invalidateCachesFor(Iterable)} can keep using what they knew about them before.
+     *
+     * @param unchangedOutputs The snapshots of the roots of the unchanged outputs, taken after the execution.
+     */
+    default void outputsUnchanged(Iterable<FileSystemLocationSnapshot> unchangedOutputs) {
+    }
 }
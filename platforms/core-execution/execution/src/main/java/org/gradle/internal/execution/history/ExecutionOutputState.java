@@ -16,6 +16,7 @@
 
 package org.gradle.internal.execution.history;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import org.gradle.caching.internal.origin.OriginMetadata;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
@@ -48,4 +49,14 @@ public interface ExecutionOutputState {
      * Whether the outputs come from a previous execution.
      */
     boolean isReused();
+
+    /**
+     * The output properties whose contents are byte-identical to their contents before the work was executed.
+     *
+     * Work consuming these outputs can keep using the fingerprints it took of them previously.
+     * Always empty when the outputs have been reused.
+     */
+    default ImmutableSet<String> getUnchangedOutputProperties() {
+        return ImmutableSet.of();
+    }
 }
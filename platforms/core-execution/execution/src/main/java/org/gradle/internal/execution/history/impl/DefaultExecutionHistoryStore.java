@@ -21,6 +21,7 @@
 import org.gradle.cache.CacheDecorator;
 import org.gradle.cache.IndexedCache;
 import org.gradle.cache.IndexedCacheParameters;
+import org.gradle.cache.IndexedCacheStorage;
 import org.gradle.cache.PersistentCache;
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
 import org.gradle.internal.execution.history.AfterExecutionState;
@@ -46,6 +47,16 @@ public DefaultExecutionHistoryStore(
         InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory,
         Interner<String> stringInterner,
         ClassLoaderHierarchyHasher classLoaderHasher
+    ) {
+        this(cache, inMemoryCacheDecoratorFactory, stringInterner, classLoaderHasher, IndexedCacheStorage.BTREE);
+    }
+
+    public DefaultExecutionHistoryStore(
+        Supplier<PersistentCache> cache,
+        InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory,
+        Interner<String> stringInterner,
+        ClassLoaderHierarchyHasher classLoaderHasher,
+        IndexedCacheStorage storage
     ) {
         DefaultPreviousExecutionStateSerializer serializer = new DefaultPreviousExecutionStateSerializer(
             new FileCollectionFingerprintSerializer(stringInterner),
@@ -58,6 +69,7 @@ public DefaultExecutionHistoryStore(
         this.store = cache.get().createIndexedCache(
             IndexedCacheParameters.of("executionHistory", String.class, serializer)
             .withCacheDecorator(inMemoryCacheDecorator)
+            .withStorage(storage)
         );
     }
 
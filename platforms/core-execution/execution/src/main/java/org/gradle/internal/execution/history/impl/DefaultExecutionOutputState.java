@@ -16,6 +16,7 @@
 
 package org.gradle.internal.execution.history.impl;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import org.gradle.caching.internal.origin.OriginMetadata;
 import org.gradle.internal.execution.history.ExecutionOutputState;
@@ -26,12 +27,24 @@ public class DefaultExecutionOutputState implements ExecutionOutputState {
     private final ImmutableSortedMap<String, FileSystemSnapshot> outputFilesProducedByWork;
     private final OriginMetadata originMetadata;
     private final boolean reused;
+    private final ImmutableSet<String> unchangedOutputProperties;
 
     public DefaultExecutionOutputState(boolean successful, ImmutableSortedMap<String, FileSystemSnapshot> outputFilesProducedByWork, OriginMetadata originMetadata, boolean reused) {
+        this(successful, outputFilesProducedByWork, originMetadata, reused, ImmutableSet.of());
+    }
+
+    public DefaultExecutionOutputState(
+        boolean successful,
+        ImmutableSortedMap<String, FileSystemSnapshot> outputFilesProducedByWork,
+        OriginMetadata originMetadata,
+        boolean reused,
+        ImmutableSet<String> unchangedOutputProperties
+    ) {
         this.successful = successful;
         this.outputFilesProducedByWork = outputFilesProducedByWork;
         this.originMetadata = originMetadata;
         this.reused = reused;
+        this.unchangedOutputProperties = unchangedOutputProperties;
     }
 
     @Override
@@ -53,4 +66,9 @@ public OriginMetadata getOriginMetadata() {
     public boolean isReused() {
         return reused;
     }
+
+    @Override
+    public ImmutableSet<String> getUnchangedOutputProperties() {
+        return unchangedOutputProperties;
+    }
 }
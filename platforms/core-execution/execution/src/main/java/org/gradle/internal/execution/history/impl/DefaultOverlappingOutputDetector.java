@@ -31,7 +31,10 @@
 import org.gradle.internal.snapshot.SnapshotVisitResult;
 import org.jspecify.annotations.Nullable;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.gradle.internal.snapshot.SnapshotUtil.getRootHashes;
 
@@ -57,11 +60,67 @@ public OverlappingOutputs detect(ImmutableSortedMap<String, FileSystemSnapshot>
 
     @Nullable
     private static OverlappingOutputs detect(String propertyName, FileSystemSnapshot previous, FileSystemSnapshot before) {
+        Map<String, FileSystemLocationSnapshot> previousRoots = SnapshotUtil.rootIndex(previous);
+        List<FileSystemLocationSnapshot> beforeRoots = before.roots().collect(Collectors.toList());
+        String overlappingPath;
+        if (previousRoots.size() == beforeRoots.size() && beforeRoots.stream().allMatch(beforeRoot -> previousRoots.containsKey(beforeRoot.getAbsolutePath()))) {
+            overlappingPath = null;
+            for (FileSystemLocationSnapshot beforeRoot : beforeRoots) {
+                overlappingPath = findNewContent(beforeRoot, previousRoots.get(beforeRoot.getAbsolutePath()), true);
+                if (overlappingPath != null) {
+                    break;
+                }
+            }
+        } else {
+            overlappingPath = findNewContentByRelativePath(previous, before);
+        }
+        return overlappingPath == null ? null : new OverlappingOutputs(propertyName, overlappingPath);
+    }
+
+    /**
+     * Walks the two hierarchies side by side, only descending into directories whose content changed.
+     *
+     * This keeps the check proportional to the changed parts of the outputs, even for large shared output directories.
+     */
+    @Nullable
+    private static String findNewContent(FileSystemLocationSnapshot before, @Nullable FileSystemLocationSnapshot previous, boolean root) {
+        if (before instanceof MissingFileSnapshot) {
+            // If the root has gone missing then we don't have overlaps
+            // Otherwise check for newly added broken symlinks and unreadable files
+            return root || (previous != null && before.isContentUpToDate(previous))
+                ? null
+                : before.getAbsolutePath();
+        }
+        // Created since last execution, possibly by another task, or an existing file's content has changed
+        if (previous == null || !before.isContentUpToDate(previous)) {
+            return before.getAbsolutePath();
+        }
+        if (!(before instanceof DirectorySnapshot) || before.getHash().equals(previous.getHash())) {
+            // Same directory hash means the same entries with the same content
+            return null;
+        }
+        Map<String, FileSystemLocationSnapshot> previousChildren = new HashMap<>();
+        for (FileSystemLocationSnapshot previousChild : ((DirectorySnapshot) previous).getChildren()) {
+            previousChildren.put(previousChild.getName(), previousChild);
+        }
+        for (FileSystemLocationSnapshot beforeChild : ((DirectorySnapshot) before).getChildren()) {
+            String overlappingPath = findNewContent(beforeChild, previousChildren.get(beforeChild.getName()), false);
+            if (overlappingPath != null) {
+                return overlappingPath;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Matches entries by their path relative to the output roots, used when the output roots changed since the previous execution.
+     */
+    @Nullable
+    private static String findNewContentByRelativePath(FileSystemSnapshot previous, FileSystemSnapshot before) {
         Map<String, FileSystemLocationSnapshot> previousIndex = SnapshotUtil.indexByRelativePath(previous);
         OverlappingOutputsDetectingVisitor outputsDetectingVisitor = new OverlappingOutputsDetectingVisitor(previousIndex);
         before.accept(new RelativePathTracker(), outputsDetectingVisitor);
-        String overlappingPath = outputsDetectingVisitor.getOverlappingPath();
-        return overlappingPath == null ? null : new OverlappingOutputs(propertyName, overlappingPath);
+        return outputsDetectingVisitor.getOverlappingPath();
     }
 
     private static class OverlappingOutputsDetectingVisitor implements RelativePathTrackingFileSystemSnapshotHierarchyVisitor {
@@ -20,42 +20,76 @@
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import org.gradle.api.internal.file.DelegatingFileCollectionStructureVisitor;
+import org.gradle.api.internal.file.FileCollectionInternal;
 import org.gradle.api.internal.file.FileCollectionStructureVisitor;
 import org.gradle.api.internal.file.FileTreeInternal;
 import org.gradle.api.internal.file.collections.FileSystemMirroringFileTree;
-import org.gradle.internal.MutableBoolean;
+import org.gradle.api.tasks.util.PatternSet;
 import org.gradle.internal.execution.FileCollectionFingerprinter;
 import org.gradle.internal.execution.FileCollectionFingerprinterRegistry;
 import org.gradle.internal.execution.FileCollectionSnapshotter;
 import org.gradle.internal.execution.FileNormalizationSpec;
 import org.gradle.internal.execution.InputFingerprinter;
+import org.gradle.internal.execution.OutputChangeListener;
 import org.gradle.internal.execution.UnitOfWork.InputFileValueSupplier;
 import org.gradle.internal.execution.UnitOfWork.InputVisitor;
 import org.gradle.internal.execution.UnitOfWork.ValueSupplier;
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
 import org.gradle.internal.properties.InputBehavior;
+import org.gradle.internal.snapshot.CompositeFileSystemSnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.gradle.internal.snapshot.ValueSnapshot;
 import org.gradle.internal.snapshot.ValueSnapshotter;
+import org.jspecify.annotations.Nullable;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class DefaultInputFingerprinter implements InputFingerprinter {
 
     private final FileCollectionSnapshotter snapshotter;
     private final FileCollectionFingerprinterRegistry fingerprinterRegistry;
     private final ValueSnapshotter valueSnapshotter;
+    private final InputFingerprintingExecutor executor;
+    private final UnchangedOutputSnapshots unchangedOutputs;
 
     public DefaultInputFingerprinter(
         FileCollectionSnapshotter snapshotter,
         FileCollectionFingerprinterRegistry fingerprinterRegistry,
         ValueSnapshotter valueSnapshotter
+    ) {
+        this(snapshotter, fingerprinterRegistry, valueSnapshotter, InputFingerprintingExecutor.SEQUENTIAL);
+    }
+
+    public DefaultInputFingerprinter(
+        FileCollectionSnapshotter snapshotter,
+        FileCollectionFingerprinterRegistry fingerprinterRegistry,
+        ValueSnapshotter valueSnapshotter,
+        InputFingerprintingExecutor executor
+    ) {
+        this(snapshotter, fingerprinterRegistry, valueSnapshotter, executor, new UnchangedOutputSnapshots());
+    }
+
+    /**
+     * Creates a fingerprinter which takes the snapshots of input files that are {@link OutputChangeListener#outputsUnchanged(Iterable) unchanged outputs} of other work from {@code unchangedOutputs}.
+     */
+    public DefaultInputFingerprinter(
+        FileCollectionSnapshotter snapshotter,
+        FileCollectionFingerprinterRegistry fingerprinterRegistry,
+        ValueSnapshotter valueSnapshotter,
+        InputFingerprintingExecutor executor,
+        UnchangedOutputSnapshots unchangedOutputs
     ) {
         this.snapshotter = snapshotter;
         this.fingerprinterRegistry = fingerprinterRegistry;
         this.valueSnapshotter = valueSnapshotter;
+        this.executor = executor;
+        this.unchangedOutputs = unchangedOutputs;
     }
 
     @Override
@@ -73,6 +107,8 @@ public Result fingerprintInputProperties(
             snapshotter,
             fingerprinterRegistry,
             valueSnapshotter,
+            executor,
+            unchangedOutputs,
             knownCurrentValueSnapshots,
             knownCurrentFingerprints,
             validatingVisitor);
@@ -86,6 +122,8 @@ private static class InputCollectingVisitor implements InputVisitor {
         private final FileCollectionSnapshotter snapshotter;
         private final FileCollectionFingerprinterRegistry fingerprinterRegistry;
         private final ValueSnapshotter valueSnapshotter;
+        private final InputFingerprintingExecutor executor;
+        private final UnchangedOutputSnapshots unchangedOutputs;
         private final ImmutableSortedMap<String, ValueSnapshot> knownCurrentValueSnapshots;
         private final ImmutableSortedMap<String, CurrentFileCollectionFingerprint> knownCurrentFingerprints;
         private final FileCollectionStructureVisitor validatingVisitor;
@@ -93,6 +131,7 @@ private static class InputCollectingVisitor implements InputVisitor {
         private final ImmutableSortedMap.Builder<String, ValueSnapshot> valueSnapshotsBuilder = ImmutableSortedMap.naturalOrder();
         private final ImmutableSortedMap.Builder<String, CurrentFileCollectionFingerprint> fingerprintsBuilder = ImmutableSortedMap.naturalOrder();
         private final ImmutableSet.Builder<String> propertiesRequiringIsEmptyCheck = ImmutableSet.builder();
+        private final List<PendingFileProperty> pendingFileProperties = new ArrayList<>();
 
         public InputCollectingVisitor(
             ImmutableSortedMap<String, ValueSnapshot> previousValueSnapshots,
@@ -100,6 +139,8 @@ public InputCollectingVisitor(
             FileCollectionSnapshotter snapshotter,
             FileCollectionFingerprinterRegistry fingerprinterRegistry,
             ValueSnapshotter valueSnapshotter,
+            InputFingerprintingExecutor executor,
+            UnchangedOutputSnapshots unchangedOutputs,
             ImmutableSortedMap<String, ValueSnapshot> knownCurrentValueSnapshots,
             ImmutableSortedMap<String, CurrentFileCollectionFingerprint> knownCurrentFingerprints,
             FileCollectionStructureVisitor validatingVisitor
@@ -109,6 +150,8 @@ public InputCollectingVisitor(
             this.snapshotter = snapshotter;
             this.fingerprinterRegistry = fingerprinterRegistry;
             this.valueSnapshotter = valueSnapshotter;
+            this.executor = executor;
+            this.unchangedOutputs = unchangedOutputs;
             this.knownCurrentValueSnapshots = knownCurrentValueSnapshots;
             this.knownCurrentFingerprints = knownCurrentFingerprints;
             this.validatingVisitor = validatingVisitor;
@@ -149,17 +192,28 @@ public void visitInputFileProperty(String propertyName, InputBehavior behavior,
                 value.getLineEndingNormalization());
             FileCollectionFingerprinter fingerprinter = fingerprinterRegistry.getFingerprinter(normalizationSpec);
             try {
-                MutableBoolean containsArchiveTrees = new MutableBoolean(false);
-                FileSystemSnapshot snapshot = snapshotter.snapshot(value.getFiles(), new DelegatingFileCollectionStructureVisitor(validatingVisitor) {
-                    @Override
-                    public void visitFileTreeBackedByFile(File file, FileTreeInternal fileTree, FileSystemMirroringFileTree sourceTree) {
-                        super.visitFileTreeBackedByFile(file, fileTree, sourceTree);
-                        containsArchiveTrees.set(true);
+                RootTrackingVisitor structureVisitor = new RootTrackingVisitor(validatingVisitor, unchangedOutputs);
+                if (executor.isParallel()) {
+                    // Visit the structure of the file collection here, but leave accessing the file system to the pool
+                    List<Supplier<FileSystemSnapshot>> roots = preferUnchangedOutputs(snapshotter.snapshotRoots(value.getFiles(), structureVisitor), structureVisitor);
+                    pendingFileProperties.add(new PendingFileProperty(propertyName, fingerprinter, previousFingerprint, roots));
+                } else if (unchangedOutputs.isEmpty()) {
+                    FileSystemSnapshot snapshot = snapshotter.snapshot(value.getFiles(), structureVisitor);
+                    CurrentFileCollectionFingerprint fingerprint = fingerprinter.fingerprint(snapshot, previousFingerprint);
+                    fingerprintsBuilder.put(propertyName, fingerprint);
+                } else {
+                    List<Supplier<FileSystemSnapshot>> roots = preferUnchangedOutputs(snapshotter.snapshotRoots(value.getFiles(), structureVisitor), structureVisitor);
+                    List<FileSystemSnapshot> snapshots = new ArrayList<>(roots.size());
+                    for (Supplier<FileSystemSnapshot> root : roots) {
+                        FileSystemSnapshot snapshot = root.get();
+                        if (snapshot != FileSystemSnapshot.EMPTY) {
+                            snapshots.add(snapshot);
+                        }
                     }
-                });
-                CurrentFileCollectionFingerprint fingerprint = fingerprinter.fingerprint(snapshot, previousFingerprint);
-                fingerprintsBuilder.put(propertyName, fingerprint);
-                if (containsArchiveTrees.get()) {
+                    CurrentFileCollectionFingerprint fingerprint = fingerprinter.fingerprint(CompositeFileSystemSnapshot.of(snapshots), previousFingerprint);
+                    fingerprintsBuilder.put(propertyName, fingerprint);
+                }
+                if (structureVisitor.containsArchiveTrees) {
                     propertiesRequiringIsEmptyCheck.add(propertyName);
                 }
             } catch (Exception e) {
@@ -167,7 +221,30 @@ public void visitFileTreeBackedByFile(File file, FileTreeInternal fileTree, File
             }
         }
 
+        /**
+         * Replaces the snapshots of roots which are unchanged outputs of other work with their known snapshots.
+         *
+         * <p>When the roots have the same hashes as when the property was fingerprinted the last time,
+         * the fingerprinter reuses the previous fingerprint instead of looking at the files again.</p>
+         */
+        private static List<Supplier<FileSystemSnapshot>> preferUnchangedOutputs(List<Supplier<FileSystemSnapshot>> roots, RootTrackingVisitor structureVisitor) {
+            List<Supplier<FileSystemLocationSnapshot>> unchangedRoots = structureVisitor.unchangedRoots;
+            if (unchangedRoots.size() != roots.size()) {
+                // The roots have not been snapshotted one by one as they were visited
+                return roots;
+            }
+            List<Supplier<FileSystemSnapshot>> result = new ArrayList<>(roots.size());
+            for (int i = 0; i < roots.size(); i++) {
+                FileSystemLocationSnapshot unchangedRoot = unchangedRoots.get(i).get();
+                result.add(unchangedRoot != null ? () -> unchangedRoot : roots.get(i));
+            }
+            return result;
+        }
+
         public Result complete() {
+            if (!pendingFileProperties.isEmpty()) {
+                fingerprintPendingFileProperties();
+            }
             return new InputFingerprints(
                 knownCurrentValueSnapshots,
                 valueSnapshotsBuilder.build(),
@@ -175,6 +252,114 @@ public Result complete() {
                 fingerprintsBuilder.build(),
                 propertiesRequiringIsEmptyCheck.build());
         }
+
+        /**
+         * Snapshots the roots of all pending properties, then fingerprints each property, both on the shared pool.
+         * Running the roots of all properties as a single batch keeps large collections from being snapshotted on a single thread.
+         */
+        private void fingerprintPendingFileProperties() {
+            List<Supplier<FileSystemSnapshot>> rootTasks = new ArrayList<>();
+            for (PendingFileProperty property : pendingFileProperties) {
+                for (Supplier<FileSystemSnapshot> root : property.roots) {
+                    rootTasks.add(() -> {
+                        try {
+                            return root.get();
+                        } catch (Exception e) {
+                            throw new InputFileFingerprintingException(property.propertyName, e);
+                        }
+                    });
+                }
+            }
+            List<FileSystemSnapshot> rootSnapshots = executor.invokeAll(rootTasks);
+
+            List<Supplier<CurrentFileCollectionFingerprint>> fingerprintTasks = new ArrayList<>(pendingFileProperties.size());
+            int nextRoot = 0;
+            for (PendingFileProperty property : pendingFileProperties) {
+                List<FileSystemSnapshot> snapshots = new ArrayList<>(property.roots.size());
+                for (FileSystemSnapshot rootSnapshot : rootSnapshots.subList(nextRoot, nextRoot + property.roots.size())) {
+                    if (rootSnapshot != FileSystemSnapshot.EMPTY) {
+                        snapshots.add(rootSnapshot);
+                    }
+                }
+                nextRoot += property.roots.size();
+                FileSystemSnapshot snapshot = CompositeFileSystemSnapshot.of(snapshots);
+                fingerprintTasks.add(() -> {
+                    try {
+                        return property.fingerprinter.fingerprint(snapshot, property.previousFingerprint);
+                    } catch (Exception e) {
+                        throw new InputFileFingerprintingException(property.propertyName, e);
+                    }
+                });
+            }
+            List<CurrentFileCollectionFingerprint> fingerprints = executor.invokeAll(fingerprintTasks);
+
+            // Properties are sorted by name in the result, so the order in which they complete does not matter
+            for (int i = 0; i < pendingFileProperties.size(); i++) {
+                fingerprintsBuilder.put(pendingFileProperties.get(i).propertyName, fingerprints.get(i));
+            }
+            pendingFileProperties.clear();
+        }
+    }
+
+    /**
+     * Tracks the roots of a file collection in the order the snapshotter visits them, together with how to find them among the unchanged outputs.
+     */
+    private static class RootTrackingVisitor extends DelegatingFileCollectionStructureVisitor {
+        private final UnchangedOutputSnapshots unchangedOutputs;
+        private final List<Supplier<FileSystemLocationSnapshot>> unchangedRoots = new ArrayList<>();
+        private boolean containsArchiveTrees;
+
+        public RootTrackingVisitor(FileCollectionStructureVisitor delegate, UnchangedOutputSnapshots unchangedOutputs) {
+            super(delegate);
+            this.unchangedOutputs = unchangedOutputs;
+        }
+
+        @Override
+        public void visitCollection(FileCollectionInternal.Source source, Iterable<File> contents) {
+            super.visitCollection(source, contents);
+            for (File file : contents) {
+                String path = file.getAbsolutePath();
+                unchangedRoots.add(() -> unchangedOutputs.get(path));
+            }
+        }
+
+        @Override
+        public void visitFileTree(File root, PatternSet patterns, FileTreeInternal fileTree) {
+            super.visitFileTree(root, patterns, fileTree);
+            if (patterns.isEmpty()) {
+                String path = root.getAbsolutePath();
+                unchangedRoots.add(() -> unchangedOutputs.getDirectory(path));
+            } else {
+                // The snapshot of a filtered tree is not the snapshot of the output
+                unchangedRoots.add(() -> null);
+            }
+        }
+
+        @Override
+        public void visitFileTreeBackedByFile(File file, FileTreeInternal fileTree, FileSystemMirroringFileTree sourceTree) {
+            super.visitFileTreeBackedByFile(file, fileTree, sourceTree);
+            containsArchiveTrees = true;
+            unchangedRoots.add(() -> null);
+        }
+    }
+
+    private static class PendingFileProperty {
+        private final String propertyName;
+        private final FileCollectionFingerprinter fingerprinter;
+        private final @Nullable FileCollectionFingerprint previousFingerprint;
+        private final List<Supplier<FileSystemSnapshot>> roots;
+
+        public PendingFileProperty(
+            String propertyName,
+            FileCollectionFingerprinter fingerprinter,
+            @Nullable FileCollectionFingerprint previousFingerprint,
+            List<Supplier<FileSystemSnapshot>> roots
+        ) {
+            this.propertyName = propertyName;
+            this.fingerprinter = fingerprinter;
+            this.previousFingerprint = previousFingerprint;
+            this.roots = roots;
+        }
     }
 
     @VisibleForTesting
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.cache.Cache;
+import org.gradle.internal.Deferrable;
+import org.gradle.internal.Try;
+import org.gradle.internal.execution.ExecutionEngine.IdentityCacheResult;
+import org.gradle.internal.execution.UnitOfWork;
+import org.gradle.internal.execution.UnitOfWork.Identity;
+import org.gradle.internal.execution.steps.Context;
+import org.gradle.internal.execution.steps.DeferredExecutionAwareStep;
+import org.gradle.internal.execution.steps.Result;
+import org.gradle.internal.execution.steps.Step;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationRunner;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.operations.execution.ExecutionStepTimingsBuildOperationType;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records how long the steps of the execution engine take, per type of work.
+ *
+ * Each timed step only accounts for the time spent in the step itself, the time spent in
+ * nested timed steps is subtracted. Steps that are not timed themselves are accounted to the
+ * closest enclosing timed step. When timing is disabled, steps are not wrapped at all.
+ *
+ * For deferred executions, only the part that runs when the execution is requested is timed,
+ * the deferred work itself is timed by the nested steps when it is eventually run.
+ */
+@ServiceScope(Scope.BuildTree.class)
+public class ExecutionStepTimings {
+    public static final ExecutionStepTimings DISABLED = new ExecutionStepTimings(false, JfrExecutionStepEvents.NONE);
+
+    private final boolean enabled;
+    private final JfrExecutionStepEvents jfrEvents;
+    private final ConcurrentMap<StepKey, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final ThreadLocal<Frame> currentFrame = new ThreadLocal<>();
+
+    private ExecutionStepTimings(boolean enabled, JfrExecutionStepEvents jfrEvents) {
+        this.enabled = enabled;
+        this.jfrEvents = jfrEvents;
+    }
+
+    public static ExecutionStepTimings enabled() {
+        return new ExecutionStepTimings(true, JfrExecutionStepEvents.create());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns a step that records the time spent in the given step, or the step itself if timing is disabled.
+     */
+    public <C extends Context, R extends Result> Step<C, R> timed(String stepName, Step<C, R> step) {
+        return enabled ? new TimedStep<>(stepName, step) : step;
+    }
+
+    /**
+     * Returns a step that records the time spent in the given deferred execution aware step, or the step itself if timing is disabled.
+     */
+    public <C extends Context, R extends Result> DeferredExecutionAwareStep<C, R> timedDeferred(String stepName, DeferredExecutionAwareStep<C, R> step) {
+        return enabled ? new TimedDeferredExecutionAwareStep<>(stepName, step) : step;
+    }
+
+    private <R> R time(String stepName, UnitOfWork work, TimedExecution<R> execution) {
+        Frame parent = currentFrame.get();
+        Frame frame = new Frame();
+        currentFrame.set(frame);
+        long startTime = System.nanoTime();
+        try {
+            return execution.execute();
+        } finally {
+            long totalNanos = System.nanoTime() - startTime;
+            currentFrame.set(parent);
+            if (parent != null) {
+                parent.nestedNanos += totalNanos;
+            } else {
+                currentFrame.remove();
+            }
+            long selfNanos = totalNanos - frame.nestedNanos;
+            String workType = workTypeOf(work);
+            histograms.computeIfAbsent(new StepKey(workType, stepName), key -> new LatencyHistogram()).record(selfNanos);
+            jfrEvents.emit(workType, stepName, selfNanos, totalNanos);
+        }
+    }
+
+    private static String workTypeOf(UnitOfWork work) {
+        return work.getBuildOperationWorkType().orElseGet(() -> {
+            String simpleName = work.getClass().getSimpleName();
+            return simpleName.isEmpty() ? work.getClass().getName() : simpleName;
+        });
+    }
+
+    /**
+     * Returns the timings recorded so far, ordered by work type and step name.
+     */
+    List<ExecutionStepTimingsBuildOperationType.StepTiming> getStepTimings() {
+        return histograms.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .map(entry -> new DefaultStepTiming(entry.getKey(), entry.getValue()))
+            .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Emits the timings recorded so far as a build operation, and starts recording from scratch.
+     */
+    public void emitSummary(BuildOperationRunner buildOperationRunner) {
+        if (!enabled || histograms.isEmpty()) {
+            return;
+        }
+        List<ExecutionStepTimingsBuildOperationType.StepTiming> stepTimings = getStepTimings();
+        histograms.clear();
+        buildOperationRunner.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                context.setResult((ExecutionStepTimingsBuildOperationType.Result) () -> stepTimings);
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Summarize execution step timings")
+                    .details(new ExecutionStepTimingsBuildOperationType.Details() {});
+            }
+        });
+    }
+
+    private interface TimedExecution<R> {
+        R execute();
+    }
+
+    private static class Frame {
+        long nestedNanos;
+    }
+
+    private class TimedStep<C extends Context, R extends Result> implements Step<C, R> {
+        protected final String stepName;
+        private final Step<C, R> delegate;
+
+        public TimedStep(String stepName, Step<C, R> delegate) {
+            this.stepName = stepName;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public R execute(UnitOfWork work, C context) {
+            return time(stepName, work, () -> delegate.execute(work, context));
+        }
+    }
+
+    private class TimedDeferredExecutionAwareStep<C extends Context, R extends Result> extends TimedStep<C, R> implements DeferredExecutionAwareStep<C, R> {
+        private final DeferredExecutionAwareStep<C, R> delegate;
+
+        public TimedDeferredExecutionAwareStep(String stepName, DeferredExecutionAwareStep<C, R> delegate) {
+            super(stepName, delegate);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <T> Deferrable<Try<T>> executeDeferred(UnitOfWork work, C context, Cache<Identity, IdentityCacheResult<T>> cache) {
+            return time(stepName, work, () -> delegate.executeDeferred(work, context, cache));
+        }
+    }
+
+    private static class StepKey implements Comparable<StepKey> {
+        private static final Comparator<StepKey> ORDER = Comparator.<StepKey, String>comparing(key -> key.workType).thenComparing(key -> key.step);
+
+        private final String workType;
+        private final String step;
+
+        public StepKey(String workType, String step) {
+            this.workType = workType;
+            this.step = step;
+        }
+
+        @Override
+        public int compareTo(StepKey other) {
+            return ORDER.compare(this, other);
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            StepKey stepKey = (StepKey) o;
+            return workType.equals(stepKey.workType) && step.equals(stepKey.step);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(workType, step);
+        }
+    }
+
+    private static class DefaultStepTiming implements ExecutionStepTimingsBuildOperationType.StepTiming {
+        private final String workType;
+        private final String step;
+        private final long count;
+        private final long totalNanos;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+
+        public DefaultStepTiming(StepKey key, LatencyHistogram histogram) {
+            this.workType = key.workType;
+            this.step = key.step;
+            this.count = histogram.getCount();
+            this.totalNanos = histogram.getTotalNanos();
+            this.p50Nanos = histogram.getPercentileNanos(0.5);
+            this.p90Nanos = histogram.getPercentileNanos(0.9);
+            this.p99Nanos = histogram.getPercentileNanos(0.99);
+            this.maxNanos = histogram.getMaxNanos();
+        }
+
+        @Override
+        public String getWorkType() {
+            return workType;
+        }
+
+        @Override
+        public String getStep() {
+            return step;
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        @Override
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        @Override
+        public long getP90Nanos() {
+            return p90Nanos;
+        }
+
+        @Override
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return workType + " " + step + ": count=" + count + ", total=" + totalNanos + "ns, p50<=" + p50Nanos + "ns, p99<=" + p99Nanos + "ns, max=" + maxNanos + "ns";
+        }
+    }
+}
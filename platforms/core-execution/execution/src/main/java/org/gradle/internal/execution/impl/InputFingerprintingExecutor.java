@@ -0,0 +1,147 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.impl;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool shared by all input fingerprinting in a build session.
+ *
+ * <p>The calling thread always takes part in running a batch of tasks, so a batch completes
+ * even when all threads of the pool are busy with batches of other units of work.</p>
+ */
+@ServiceScope(Scope.BuildSession.class)
+public class InputFingerprintingExecutor implements Stoppable {
+
+    public static final InputFingerprintingExecutor SEQUENTIAL = new InputFingerprintingExecutor(null, 1);
+
+    @Nullable
+    private final ManagedExecutor executor;
+    private final int parallelism;
+
+    private InputFingerprintingExecutor(@Nullable ManagedExecutor executor, int parallelism) {
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Creates an executor that runs up to {@code parallelism} tasks of a batch concurrently, including the calling thread.
+     */
+    public static InputFingerprintingExecutor create(ExecutorFactory executorFactory, int parallelism) {
+        if (parallelism <= 1) {
+            return SEQUENTIAL;
+        }
+        return new InputFingerprintingExecutor(executorFactory.create("Input fingerprinting", parallelism - 1), parallelism);
+    }
+
+    public boolean isParallel() {
+        return executor != null;
+    }
+
+    /**
+     * Runs the given tasks and returns their results in the order of the tasks.
+     *
+     * <p>All tasks are run even if some of them fail. The failure of the first failed task is rethrown.</p>
+     */
+    public <T> List<T> invokeAll(List<? extends Supplier<? extends T>> tasks) {
+        int count = tasks.size();
+        if (executor == null || count < 2) {
+            List<T> results = new ArrayList<>(count);
+            for (Supplier<? extends T> task : tasks) {
+                results.add(task.get());
+            }
+            return results;
+        }
+
+        Batch<T> batch = new Batch<>(tasks);
+        int helpers = Math.min(count, parallelism) - 1;
+        try {
+            for (int i = 0; i < helpers; i++) {
+                executor.execute(batch::runPending);
+            }
+        } catch (RejectedExecutionException e) {
+            // The session is being stopped, run the remaining tasks on the calling thread
+        }
+        batch.runPending();
+        return batch.awaitResults();
+    }
+
+    @Override
+    public void stop() {
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+
+    private static class Batch<T> {
+        private final List<? extends Supplier<? extends T>> tasks;
+        private final AtomicInteger nextTask = new AtomicInteger();
+        private final CountDownLatch remaining;
+        private final @Nullable Object[] results;
+        private final @Nullable Throwable[] failures;
+
+        Batch(List<? extends Supplier<? extends T>> tasks) {
+            this.tasks = tasks;
+            this.remaining = new CountDownLatch(tasks.size());
+            this.results = new Object[tasks.size()];
+            this.failures = new Throwable[tasks.size()];
+        }
+
+        void runPending() {
+            int index;
+            while ((index = nextTask.getAndIncrement()) < tasks.size()) {
+                try {
+                    results[index] = tasks.get(index).get();
+                } catch (Throwable t) {
+                    failures[index] = t;
+                } finally {
+                    remaining.countDown();
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> awaitResults() {
+            try {
+                remaining.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            for (Throwable failure : failures) {
+                if (failure != null) {
+                    throw UncheckedException.throwAsUncheckedException(failure);
+                }
+            }
+            return (List<T>) Arrays.asList(results);
+        }
+    }
+}
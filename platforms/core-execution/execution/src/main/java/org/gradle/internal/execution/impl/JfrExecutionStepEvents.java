@@ -0,0 +1,117 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.impl;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Emits an {@code org.gradle.ExecutionStep} JFR event for each timed execution step.
+ *
+ * The event type is defined dynamically via {@code jdk.jfr.EventFactory}, since the execution engine
+ * still needs to run on JVMs without the JFR API. If the API is not available, no events are emitted.
+ */
+class JfrExecutionStepEvents {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JfrExecutionStepEvents.class);
+
+    static final JfrExecutionStepEvents NONE = new JfrExecutionStepEvents(null, null, null, null, null);
+
+    // All null when JFR is not available
+    @Nullable
+    private final Object eventFactory;
+    @Nullable
+    private final Method newEvent;
+    @Nullable
+    private final Method isEnabled;
+    @Nullable
+    private final Method set;
+    @Nullable
+    private final Method commit;
+
+    private JfrExecutionStepEvents(@Nullable Object eventFactory, @Nullable Method newEvent, @Nullable Method isEnabled, @Nullable Method set, @Nullable Method commit) {
+        this.eventFactory = eventFactory;
+        this.newEvent = newEvent;
+        this.isEnabled = isEnabled;
+        this.set = set;
+        this.commit = commit;
+    }
+
+    static JfrExecutionStepEvents create() {
+        try {
+            Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+            Constructor<?> annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+            Class<? extends Annotation> name = Class.forName("jdk.jfr.Name").asSubclass(Annotation.class);
+            Class<? extends Annotation> label = Class.forName("jdk.jfr.Label").asSubclass(Annotation.class);
+            Class<? extends Annotation> category = Class.forName("jdk.jfr.Category").asSubclass(Annotation.class);
+            Class<? extends Annotation> timespan = Class.forName("jdk.jfr.Timespan").asSubclass(Annotation.class);
+            Constructor<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class);
+
+            List<Object> eventAnnotations = Arrays.asList(
+                annotationElement.newInstance(name, "org.gradle.ExecutionStep"),
+                annotationElement.newInstance(label, "Execution Step"),
+                annotationElement.newInstance(category, (Object) new String[]{"Gradle", "Execution"})
+            );
+            List<Object> fields = Arrays.asList(
+                valueDescriptor.newInstance(String.class, "workType", Collections.singletonList(annotationElement.newInstance(label, "Work Type"))),
+                valueDescriptor.newInstance(String.class, "step", Collections.singletonList(annotationElement.newInstance(label, "Step"))),
+                valueDescriptor.newInstance(long.class, "selfTime", Arrays.asList(annotationElement.newInstance(label, "Self Time"), annotationElement.newInstance(timespan, "NANOSECONDS"))),
+                valueDescriptor.newInstance(long.class, "totalTime", Arrays.asList(annotationElement.newInstance(label, "Total Time"), annotationElement.newInstance(timespan, "NANOSECONDS")))
+            );
+
+            Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+            Object eventFactory = eventFactoryClass.getMethod("create", List.class, List.class).invoke(null, eventAnnotations, fields);
+            Class<?> eventClass = Class.forName("jdk.jfr.Event");
+            return new JfrExecutionStepEvents(
+                eventFactory,
+                eventFactoryClass.getMethod("newEvent"),
+                eventClass.getMethod("isEnabled"),
+                eventClass.getMethod("set", int.class, Object.class),
+                eventClass.getMethod("commit")
+            );
+        } catch (Exception | LinkageError e) {
+            LOGGER.debug("JFR is not available, not emitting execution step events", e);
+            return NONE;
+        }
+    }
+
+    void emit(String workType, String step, long selfNanos, long totalNanos) {
+        if (eventFactory == null || newEvent == null || isEnabled == null || set == null || commit == null) {
+            return;
+        }
+        try {
+            Object event = newEvent.invoke(eventFactory);
+            if (!(Boolean) isEnabled.invoke(event)) {
+                return;
+            }
+            set.invoke(event, 0, workType);
+            set.invoke(event, 1, step);
+            set.invoke(event, 2, selfNanos);
+            set.invoke(event, 3, totalNanos);
+            commit.invoke(event);
+        } catch (Exception e) {
+            LOGGER.debug("Could not emit JFR event for execution step", e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.impl;
+
+import org.gradle.internal.execution.OutputChangeListener;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.jspecify.annotations.Nullable;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The snapshots of outputs which work has produced byte-identical to what they were before it was executed, as reported via {@link OutputChangeListener#outputsUnchanged(Iterable)}.
+ *
+ * <p>Input fingerprinting of downstream work takes the snapshots of these locations from here instead of from the file system.
+ * Since their root hashes are the same as when the downstream work was fingerprinted the last time, it reuses the previous fingerprints.
+ * This way, re-executed work that produces the same outputs again does not cause its consumers to look at those outputs again.</p>
+ *
+ * <p>A snapshot is forgotten as soon as its location, or a location overlapping with it, is changed again.
+ * All snapshots are forgotten when the build completes, since the files can be changed by something else than the build in between builds.</p>
+ */
+@ServiceScope(Scope.BuildSession.class)
+public class UnchangedOutputSnapshots {
+    private final Map<String, FileSystemLocationSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public void outputsUnchanged(Iterable<FileSystemLocationSnapshot> unchangedOutputs) {
+        for (FileSystemLocationSnapshot snapshot : unchangedOutputs) {
+            snapshots.put(snapshot.getAbsolutePath(), snapshot);
+        }
+    }
+
+    public void invalidate(Iterable<String> affectedPaths) {
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        for (String affectedPath : affectedPaths) {
+            snapshots.keySet().removeIf(path -> overlaps(path, affectedPath));
+        }
+    }
+
+    /**
+     * The snapshot of the unchanged output at the given location, or {@code null} if the location is not known to be unchanged.
+     */
+    @Nullable
+    public FileSystemLocationSnapshot get(String absolutePath) {
+        return snapshots.get(absolutePath);
+    }
+
+    /**
+     * The snapshot of the unchanged directory at the given location, or {@code null} if the location is not known to be an unchanged directory.
+     */
+    @Nullable
+    public FileSystemLocationSnapshot getDirectory(String absolutePath) {
+        FileSystemLocationSnapshot snapshot = snapshots.get(absolutePath);
+        return snapshot != null && snapshot.getType() == FileType.Directory ? snapshot : null;
+    }
+
+    public boolean isEmpty() {
+        return snapshots.isEmpty();
+    }
+
+    public void clear() {
+        snapshots.clear();
+    }
+
+    private static boolean overlaps(String path, String otherPath) {
+        return isAncestorOrSelf(path, otherPath) || isAncestorOrSelf(otherPath, path);
+    }
+
+    private static boolean isAncestorOrSelf(String ancestor, String path) {
+        return path.startsWith(ancestor)
+            && (path.length() == ancestor.length() || path.charAt(ancestor.length()) == File.separatorChar);
+    }
+}
@@ -64,7 +64,7 @@
  *
  * <ul>
  * <li>If an immutable workspace already exists, it is checked for consistency, and is returned
- * if found correct.</li>
+ * if found correct. Metadata already verified in this process is reused instead of loading it again.</li>
  * <li>If the workspace is inconsistent (the output hashes stored in {code metadata.bin} do not match
  * the hashes taken by snapshotting the current outputs), the workspace is moved to a temporary
  * location and we fall back to re-executing the work.</li>
@@ -130,6 +130,7 @@ private Optional<WorkspaceResult> loadImmutableWorkspaceIfExists(UnitOfWork work
                     "Immutable workspace is occupied by a file: " + immutableLocation.getAbsolutePath() + ". " +
                         "Deleting the file in question can allow the content to be recreated.");
             case Missing:
+                workspace.setVerifiedMetadata(null);
                 return Optional.empty();
             default:
                 throw new AssertionError();
@@ -142,8 +143,14 @@ private Optional<WorkspaceResult> loadImmutableWorkspaceIfConsistent(UnitOfWork
 
         // Verify output hashes
         ImmutableListMultimap<String, HashCode> outputHashes = calculateOutputHashes(outputSnapshots);
-        ImmutableWorkspaceMetadata metadata = workspaceMetadataStore.loadWorkspaceMetadata(immutableLocation);
+        // No need to load the metadata again if we have already verified the same outputs in this process
+        Optional<ImmutableWorkspaceMetadata> verifiedMetadata = workspace.getVerifiedMetadata()
+            .filter(candidate -> candidate.getOutputPropertyHashes().equals(outputHashes));
+        ImmutableWorkspaceMetadata metadata = verifiedMetadata.isPresent()
+            ? verifiedMetadata.get()
+            : workspaceMetadataStore.loadWorkspaceMetadata(immutableLocation);
         if (!metadata.getOutputPropertyHashes().equals(outputHashes)) {
+            workspace.setVerifiedMetadata(null);
             fileSystemAccess.invalidate(ImmutableList.of(immutableLocation.getAbsolutePath()));
             String actualOutputHashes = outputSnapshots.entrySet().stream()
                 .map(entry -> entry.getKey() + ":\n" + entry.getValue().roots()
@@ -158,6 +165,7 @@ private Optional<WorkspaceResult> loadImmutableWorkspaceIfConsistent(UnitOfWork
                 immutableLocation.getAbsolutePath(), actualOutputHashes));
         }
 
+        workspace.setVerifiedMetadata(metadata);
         return Optional.of(loadImmutableWorkspace(work, immutableLocation, metadata, outputSnapshots));
     }
 
@@ -197,7 +205,7 @@ private WorkspaceResult executeInTemporaryWorkspace(UnitOfWork work, C context,
                 workspaceMetadataStore.storeWorkspaceMetadata(temporaryWorkspace, metadata);
 
                 return moveTemporaryWorkspaceToImmutableLocation(workspace,
-                    new WorkspaceMoveHandler(work, workspace, temporaryWorkspace, delegateResult));
+                    new WorkspaceMoveHandler(work, workspace, temporaryWorkspace, metadata, delegateResult));
             } else {
                 // TODO Do not capture a null workspace in case of a failure
                 return new WorkspaceResult(delegateResult, null);
@@ -237,12 +245,14 @@ private class WorkspaceMoveHandler {
         private final UnitOfWork work;
         private final ImmutableWorkspace workspace;
         private final File temporaryWorkspace;
+        private final ImmutableWorkspaceMetadata metadata;
         private final CachingResult delegateResult;
 
-        public WorkspaceMoveHandler(UnitOfWork work, ImmutableWorkspace workspace, File temporaryWorkspace, CachingResult delegateResult) {
+        public WorkspaceMoveHandler(UnitOfWork work, ImmutableWorkspace workspace, File temporaryWorkspace, ImmutableWorkspaceMetadata metadata, CachingResult delegateResult) {
             this.work = work;
             this.workspace = workspace;
             this.temporaryWorkspace = temporaryWorkspace;
+            this.metadata = metadata;
             this.delegateResult = delegateResult;
         }
 
@@ -250,6 +260,7 @@ public WorkspaceResult executeMoveOr(Function<FileSystemException, WorkspaceResu
             File immutableLocation = workspace.getImmutableLocation();
             try {
                 fileSystemAccess.moveAtomically(temporaryWorkspace.getAbsolutePath(), immutableLocation.getAbsolutePath());
+                workspace.setVerifiedMetadata(metadata);
                 return new WorkspaceResult(delegateResult, immutableLocation);
             } catch (FileSystemException moveWorkspaceException) {
                 // `Files.move()` says it would throw DirectoryNotEmptyException, but it's a lie, so this is the best we can catch here
@@ -287,7 +298,7 @@ public WorkspaceMoveHandler duplicateTemporaryWorkspaceTo(File duplicateTemporar
                     String.format("Could not make copy of temporary workspace (%s) to (%s)",
                         temporaryWorkspace.getAbsolutePath(), duplicateTemporaryWorkspace.getAbsolutePath()), duplicateCopyException);
             }
-            return new WorkspaceMoveHandler(work, workspace, duplicateTemporaryWorkspace, delegateResult);
+            return new WorkspaceMoveHandler(work, workspace, duplicateTemporaryWorkspace, metadata, delegateResult);
         }
 
         private void removeTemporaryWorkspace() {
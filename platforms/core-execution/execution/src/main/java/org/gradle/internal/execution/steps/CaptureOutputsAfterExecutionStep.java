@@ -16,12 +16,17 @@
 
 package org.gradle.internal.execution.steps;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Iterables;
 import org.gradle.caching.internal.BuildCacheKeyInternal;
 import org.gradle.caching.internal.origin.OriginMetadata;
+import org.gradle.internal.execution.OutputChangeListener;
 import org.gradle.internal.execution.OutputSnapshotter;
 import org.gradle.internal.execution.UnitOfWork;
 import org.gradle.internal.execution.caching.CachingState;
+import org.gradle.internal.execution.history.BeforeExecutionState;
 import org.gradle.internal.execution.history.ExecutionOutputState;
 import org.gradle.internal.execution.history.impl.DefaultExecutionOutputState;
 import org.gradle.internal.hash.HashCode;
@@ -29,11 +34,15 @@
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.operations.BuildOperationType;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
+import org.gradle.internal.snapshot.SnapshotUtil;
 import org.gradle.internal.time.Time;
 import org.gradle.internal.time.Timer;
+import org.gradle.internal.vfs.FileSystemChangeRecorder;
 
 import java.time.Duration;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -47,6 +56,8 @@
 public class CaptureOutputsAfterExecutionStep<C extends WorkspaceContext & CachingContext> extends BuildOperationStep<C, AfterExecutionResult> {
     private final UniqueId buildInvocationScopeId;
     private final OutputSnapshotter outputSnapshotter;
+    private final FileSystemChangeRecorder changeRecorder;
+    private final OutputChangeListener outputChangeListener;
     private final AfterExecutionOutputFilter<? super C> outputFilter;
     private final Step<? super C, ? extends Result> delegate;
 
@@ -56,32 +67,83 @@ public CaptureOutputsAfterExecutionStep(
         OutputSnapshotter outputSnapshotter,
         AfterExecutionOutputFilter<? super C> outputFilter,
         Step<? super C, ? extends Result> delegate
+    ) {
+        this(buildOperationRunner, buildInvocationScopeId, outputSnapshotter, FileSystemChangeRecorder.NOT_RECORDING, affectedOutputPaths -> {}, outputFilter, delegate);
+    }
+
+    public CaptureOutputsAfterExecutionStep(
+        BuildOperationRunner buildOperationRunner,
+        UniqueId buildInvocationScopeId,
+        OutputSnapshotter outputSnapshotter,
+        FileSystemChangeRecorder changeRecorder,
+        OutputChangeListener outputChangeListener,
+        AfterExecutionOutputFilter<? super C> outputFilter,
+        Step<? super C, ? extends Result> delegate
     ) {
         super(buildOperationRunner);
         this.buildInvocationScopeId = buildInvocationScopeId;
         this.outputSnapshotter = outputSnapshotter;
+        this.changeRecorder = changeRecorder;
+        this.outputChangeListener = outputChangeListener;
         this.outputFilter = outputFilter;
         this.delegate = delegate;
     }
 
     @Override
     public AfterExecutionResult execute(UnitOfWork work, C context) {
-        Result result = delegate.execute(work, context);
-        Optional<ExecutionOutputState> afterExecutionOutputState = context.getCachingState().getCacheKeyCalculatedState()
-            .map(cacheKeyCalculatedState -> captureOutputsAfterExecution(work, context, cacheKeyCalculatedState, result));
+        Optional<CachingState.CacheKeyCalculatedState> cacheKeyCalculatedState = context.getCachingState().getCacheKeyCalculatedState();
+        FileSystemChangeRecorder.Recording outputChanges = cacheKeyCalculatedState
+            .map(state -> startRecordingOutputChanges(state.getBeforeExecutionState()))
+            .orElse(FileSystemChangeRecorder.Recording.NOT_RECORDED);
+        Result result;
+        try {
+            result = delegate.execute(work, context);
+        } catch (Throwable t) {
+            outputChanges.discard();
+            throw t;
+        }
+        Optional<ExecutionOutputState> afterExecutionOutputState = cacheKeyCalculatedState
+            .map(state -> captureOutputsAfterExecution(work, context, state, result, outputChanges));
 
         return new AfterExecutionResult(result, afterExecutionOutputState.orElse(null));
     }
 
-    private ExecutionOutputState captureOutputsAfterExecution(UnitOfWork work, C context, CachingState.CacheKeyCalculatedState cacheKeyCalculatedState, Result result) {
+    /**
+     * Records which outputs change while executing the work, so only those need to be snapshotted again afterwards.
+     */
+    private FileSystemChangeRecorder.Recording startRecordingOutputChanges(BeforeExecutionState beforeExecutionState) {
+        if (changeRecorder == FileSystemChangeRecorder.NOT_RECORDING) {
+            return FileSystemChangeRecorder.Recording.NOT_RECORDED;
+        }
+        ImmutableSortedMap<String, FileSystemSnapshot> outputSnapshotsBeforeExecution = beforeExecutionState.getOutputFileLocationSnapshots();
+        if (outputSnapshotsBeforeExecution.isEmpty()) {
+            return FileSystemChangeRecorder.Recording.NOT_RECORDED;
+        }
+        ImmutableList.Builder<FileSystemLocationSnapshot> knownSnapshots = ImmutableList.builder();
+        outputSnapshotsBeforeExecution.values().forEach(snapshot -> knownSnapshots.addAll(SnapshotUtil.rootIndex(snapshot).values()));
+        return changeRecorder.startRecording(knownSnapshots.build());
+    }
+
+    private ExecutionOutputState captureOutputsAfterExecution(UnitOfWork work, C context, CachingState.CacheKeyCalculatedState cacheKeyCalculatedState, Result result, FileSystemChangeRecorder.Recording outputChanges) {
         return operation(
             operationContext -> {
                 Timer timer = Time.startTimer();
+                // Snapshotting below only needs to look at the changed locations when the unchanged outputs have been restored
+                outputChanges.stopAndRestoreUnchanged();
                 ImmutableSortedMap<String, FileSystemSnapshot> unfilteredOutputSnapshotsAfterExecution = outputSnapshotter.snapshotOutputs(work, context.getWorkspace());
-                ImmutableSortedMap<String, FileSystemSnapshot> outputsProducedByWork = outputFilter.filterOutputs(context, cacheKeyCalculatedState.getBeforeExecutionState(), unfilteredOutputSnapshotsAfterExecution);
+                BeforeExecutionState beforeExecutionState = cacheKeyCalculatedState.getBeforeExecutionState();
+                ImmutableSortedMap<String, FileSystemSnapshot> outputsProducedByWork = outputFilter.filterOutputs(context, beforeExecutionState, unfilteredOutputSnapshotsAfterExecution);
+                boolean successful = result.getExecution().isSuccessful();
+                // Compare the unfiltered snapshots, since those are what consumers of the outputs see
+                ImmutableSet<String> unchangedOutputProperties = successful
+                    ? findUnchangedOutputProperties(beforeExecutionState.getOutputFileLocationSnapshots(), unfilteredOutputSnapshotsAfterExecution)
+                    : ImmutableSet.of();
+                if (!unchangedOutputProperties.isEmpty()) {
+                    outputChangeListener.outputsUnchanged(rootSnapshots(unchangedOutputProperties, unfilteredOutputSnapshotsAfterExecution));
+                }
                 OriginMetadata originMetadata = createOriginMetadata(cacheKeyCalculatedState, result, timer);
                 operationContext.setResult(Operation.Result.INSTANCE);
-                return new DefaultExecutionOutputState(result.getExecution().isSuccessful(), outputsProducedByWork, originMetadata, false);
+                return new DefaultExecutionOutputState(successful, outputsProducedByWork, originMetadata, false, unchangedOutputProperties);
             },
             BuildOperationDescriptor
                 .displayName("Snapshot outputs after executing " + work.getDisplayName())
@@ -89,6 +151,34 @@ private ExecutionOutputState captureOutputsAfterExecution(UnitOfWork work, C con
         );
     }
 
+    /**
+     * Finds the output properties whose roots have the same hashes as before the execution, i.e. where the work produced byte-identical outputs.
+     */
+    private static ImmutableSet<String> findUnchangedOutputProperties(
+        ImmutableSortedMap<String, FileSystemSnapshot> outputSnapshotsBeforeExecution,
+        ImmutableSortedMap<String, FileSystemSnapshot> outputSnapshotsAfterExecution
+    ) {
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        for (Map.Entry<String, FileSystemSnapshot> entry : outputSnapshotsAfterExecution.entrySet()) {
+            FileSystemSnapshot before = outputSnapshotsBeforeExecution.get(entry.getKey());
+            if (before != null && Iterables.elementsEqual(
+                SnapshotUtil.getRootHashes(before).entries(),
+                SnapshotUtil.getRootHashes(entry.getValue()).entries()
+            )) {
+                builder.add(entry.getKey());
+            }
+        }
+        return builder.build();
+    }
+
+    private static ImmutableList<FileSystemLocationSnapshot> rootSnapshots(ImmutableSet<String> propertyNames, ImmutableSortedMap<String, FileSystemSnapshot> outputSnapshots) {
+        ImmutableList.Builder<FileSystemLocationSnapshot> builder = ImmutableList.builder();
+        for (String propertyName : propertyNames) {
+            builder.addAll(SnapshotUtil.rootIndex(outputSnapshots.get(propertyName)).values());
+        }
+        return builder.build();
+    }
+
     private OriginMetadata createOriginMetadata(CachingState.CacheKeyCalculatedState cacheKeyCalculatedState, Result result, Timer timer) {
         long snapshotOutputDuration = timer.getElapsedMillis();
 
@@ -16,7 +16,11 @@
 
 package org.gradle.internal.execution.workspace;
 
+import org.gradle.internal.execution.history.ImmutableWorkspaceMetadata;
+import org.jspecify.annotations.Nullable;
+
 import java.io.File;
+import java.util.Optional;
 
 public interface ImmutableWorkspaceProvider {
     ImmutableWorkspace getWorkspace(String path);
@@ -32,6 +36,20 @@ interface ImmutableWorkspace {
          */
         <T> T withTemporaryWorkspace(TemporaryWorkspaceAction<T> action);
 
+        /**
+         * Returns the metadata of the immutable location that has already been verified against its contents in this process, if any.
+         */
+        default Optional<ImmutableWorkspaceMetadata> getVerifiedMetadata() {
+            return Optional.empty();
+        }
+
+        /**
+         * Remembers the metadata of the immutable location after it has been verified against its contents,
+         * or forgets it when {@code null} is passed.
+         */
+        default void setVerifiedMetadata(@Nullable ImmutableWorkspaceMetadata metadata) {
+        }
+
         @FunctionalInterface
         interface TemporaryWorkspaceAction<T> {
             T executeInTemporaryWorkspace(File temporaryWorkspaceLocation);
@@ -16,6 +16,7 @@
 
 package org.gradle.internal.execution.workspace.impl;
 
+import com.google.common.cache.Cache;
 import org.gradle.api.internal.cache.CacheConfigurationsInternal;
 import org.gradle.cache.CacheBuilder;
 import org.gradle.cache.CacheCleanupStrategyFactory;
@@ -24,20 +25,53 @@
 import org.gradle.cache.PersistentCache;
 import org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup;
 import org.gradle.cache.internal.SingleDepthFilesFinder;
+import org.gradle.internal.execution.history.ImmutableWorkspaceMetadata;
 import org.gradle.internal.execution.workspace.ImmutableWorkspaceProvider;
 import org.gradle.internal.file.FileAccessTimeJournal;
 import org.gradle.internal.file.impl.SingleDepthFileAccessTracker;
+import org.jspecify.annotations.Nullable;
 
 import java.io.Closeable;
 import java.io.File;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Provides immutable workspaces in a persistent cache without locking the cache.
+ *
+ * Work is executed in unique temporary workspaces which are then moved atomically to their immutable location,
+ * so concurrent producers, even in different processes, never see partial results.
+ *
+ * Recently handed out workspaces are kept in a bounded in-memory index, so repeated lookups of the same workspace
+ * don't have to write to the file access journal, which needs to lock the journal's cache, every time.
+ * Workspaces removed by cleanup are dropped from the index.
+ */
 public class CacheBasedImmutableWorkspaceProvider implements ImmutableWorkspaceProvider, Closeable {
     private static final int DEFAULT_FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP = 1;
 
+    /**
+     * How often access to the same workspace is recorded in the file access journal.
+     * This is much shorter than the retention period of the entries.
+     */
+    private static final long ACCESS_TRACKING_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * How many workspaces are kept in the in-memory index.
+     * Workspaces evicted from the index record their access again the next time they are used.
+     */
+    private static final int MAX_INDEXED_WORKSPACES = 10_000;
+
     private final SingleDepthFileAccessTracker fileAccessTracker;
     private final File baseDirectory;
     private final PersistentCache cache;
+    private final Cache<File, IndexedWorkspace> workspaces = com.google.common.cache.CacheBuilder.newBuilder()
+        .maximumSize(MAX_INDEXED_WORKSPACES)
+        .build();
+    // Unique per provider, so temporary workspaces don't clash with those of other processes
+    private final String temporaryWorkspacePrefix = UUID.randomUUID().toString();
+    private final AtomicLong temporaryWorkspaceCounter = new AtomicLong();
 
     public static CacheBasedImmutableWorkspaceProvider createWorkspaceProvider(
         CacheBuilder cacheBuilder,
@@ -90,32 +124,69 @@ private CacheBasedImmutableWorkspaceProvider(
         this.fileAccessTracker = new SingleDepthFileAccessTracker(fileAccessTimeJournal, baseDirectory, treeDepthToTrackAndCleanup);
     }
 
-    private static CleanupAction createCleanupAction(FileAccessTimeJournal fileAccessTimeJournal, int treeDepthToTrackAndCleanup, CacheConfigurationsInternal cacheConfigurations) {
+    private CleanupAction createCleanupAction(FileAccessTimeJournal fileAccessTimeJournal, int treeDepthToTrackAndCleanup, CacheConfigurationsInternal cacheConfigurations) {
         return new LeastRecentlyUsedCacheCleanup(
             new SingleDepthFilesFinder(treeDepthToTrackAndCleanup),
             fileAccessTimeJournal,
             cacheConfigurations.getCreatedResources().getEntryRetentionTimestampSupplier()
-        );
+        ) {
+            @Override
+            protected void handleDeletion(File file) {
+                super.handleDeletion(file);
+                workspaces.invalidate(file);
+            }
+        };
     }
 
     @Override
     public ImmutableWorkspace getWorkspace(String path) {
-        File immutableWorkspace = new File(baseDirectory, path);
-        fileAccessTracker.markAccessed(immutableWorkspace);
-        return new ImmutableWorkspace() {
-            @Override
-            public File getImmutableLocation() {
-                return immutableWorkspace;
-            }
+        File immutableLocation = new File(baseDirectory, path);
+        IndexedWorkspace workspace = workspaces.asMap().computeIfAbsent(immutableLocation, location -> new IndexedWorkspace(path, location));
+        workspace.markAccessed();
+        return workspace;
+    }
 
-            @Override
-            public <T> T withTemporaryWorkspace(TemporaryWorkspaceAction<T> action) {
-                // TODO Use Files.createTemporaryDirectory() instead
-                String temporaryLocation = path + "-" + UUID.randomUUID();
-                File temporaryWorkspace = new File(baseDirectory, temporaryLocation);
-                return action.executeInTemporaryWorkspace(temporaryWorkspace);
+    private class IndexedWorkspace implements ImmutableWorkspace {
+        private final String path;
+        private final File immutableLocation;
+        private final AtomicLong lastMarkedAccessed = new AtomicLong();
+        @Nullable
+        private volatile ImmutableWorkspaceMetadata verifiedMetadata;
+
+        public IndexedWorkspace(String path, File immutableLocation) {
+            this.path = path;
+            this.immutableLocation = immutableLocation;
+        }
+
+        private void markAccessed() {
+            long now = System.currentTimeMillis();
+            long lastMarked = lastMarkedAccessed.get();
+            if (now - lastMarked >= ACCESS_TRACKING_INTERVAL_MILLIS && lastMarkedAccessed.compareAndSet(lastMarked, now)) {
+                fileAccessTracker.markAccessed(immutableLocation);
             }
-        };
+        }
+
+        @Override
+        public File getImmutableLocation() {
+            return immutableLocation;
+        }
+
+        @Override
+        public <T> T withTemporaryWorkspace(TemporaryWorkspaceAction<T> action) {
+            String temporaryLocation = path + "-" + temporaryWorkspacePrefix + "-" + temporaryWorkspaceCounter.incrementAndGet();
+            File temporaryWorkspace = new File(baseDirectory, temporaryLocation);
+            return action.executeInTemporaryWorkspace(temporaryWorkspace);
+        }
+
+        @Override
+        public Optional<ImmutableWorkspaceMetadata> getVerifiedMetadata() {
+            return Optional.ofNullable(verifiedMetadata);
+        }
+
+        @Override
+        public void setVerifiedMetadata(@Nullable ImmutableWorkspaceMetadata metadata) {
+            this.verifiedMetadata = metadata;
+        }
     }
 
     @Override
@@ -21,6 +21,7 @@ import org.gradle.internal.file.FileMetadata.AccessType
 import org.gradle.internal.file.impl.DefaultFileMetadata
 import org.gradle.internal.hash.TestHashCodes
 import org.gradle.internal.snapshot.DirectorySnapshot
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
 import org.gradle.internal.snapshot.FileSystemSnapshot
 import org.gradle.internal.snapshot.MissingFileSnapshot
 import org.gradle.internal.snapshot.RegularFileSnapshot
@@ -82,4 +83,42 @@ class DefaultOverlappingOutputDetectorTest extends Specification {
         "directory"      | new DirectorySnapshot("/absolute/path", "path", AccessType.DIRECT, TestHashCodes.hashCodeFrom(123), [])
         "broken symlink" | new MissingFileSnapshot("/absolute/path", "path", AccessType.VIA_SYMLINK)
     }
+
+    def "detects overlap when a nested file changed in an output directory"() {
+        def unchangedFile = file("/absolute/dir/unchanged", 1)
+        def previousOutputFiles = ImmutableSortedMap.<String, FileSystemSnapshot> of(
+            "output", directory("/absolute", 0x10, [directory("/absolute/dir", 0x20, [file("/absolute/dir/changed", 2), unchangedFile])])
+        )
+        def outputFilesBeforeExecution = ImmutableSortedMap.<String, FileSystemSnapshot> of(
+            "output", directory("/absolute", 0x11, [directory("/absolute/dir", 0x21, [file("/absolute/dir/changed", 3), unchangedFile])])
+        )
+
+        when:
+        def overlaps = detector.detect(previousOutputFiles, outputFilesBeforeExecution)
+
+        then:
+        overlaps.propertyName == "output"
+        overlaps.overlappedFilePath == "/absolute/dir/changed"
+    }
+
+    def "detects no overlap when files have been removed from an output directory"() {
+        def unchangedFile = file("/absolute/unchanged", 1)
+        def previousOutputFiles = ImmutableSortedMap.<String, FileSystemSnapshot> of(
+            "output", directory("/absolute", 0x10, [file("/absolute/removed", 2), unchangedFile])
+        )
+        def outputFilesBeforeExecution = ImmutableSortedMap.<String, FileSystemSnapshot> of(
+            "output", directory("/absolute", 0x11, [unchangedFile])
+        )
+
+        expect:
+        detector.detect(previousOutputFiles, outputFilesBeforeExecution) == null
+    }
+
+    private static RegularFileSnapshot file(String path, int hash) {
+        new RegularFileSnapshot(path, path.substring(path.lastIndexOf('/') + 1), TestHashCodes.hashCodeFrom(hash), DefaultFileMetadata.file(0L, 0L, AccessType.DIRECT))
+    }
+
+    private static DirectorySnapshot directory(String path, int hash, List<FileSystemLocationSnapshot> children) {
+        new DirectorySnapshot(path, path.substring(path.lastIndexOf('/') + 1), AccessType.DIRECT, TestHashCodes.hashCodeFrom(hash), children)
+    }
 }
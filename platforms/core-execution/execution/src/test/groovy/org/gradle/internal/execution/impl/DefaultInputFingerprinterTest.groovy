@@ -18,9 +18,11 @@ package org.gradle.internal.execution.impl
 
 import com.google.common.collect.ImmutableSortedMap
 import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.file.FileCollectionInternal
 import org.gradle.api.internal.file.FileCollectionStructureVisitor
 import org.gradle.api.internal.file.FileTreeInternal
 import org.gradle.api.internal.file.collections.FileSystemMirroringFileTree
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.execution.FileCollectionFingerprinter
 import org.gradle.internal.execution.FileCollectionFingerprinterRegistry
 import org.gradle.internal.execution.FileCollectionSnapshotter
@@ -29,17 +31,23 @@ import org.gradle.internal.execution.InputFingerprinter
 import org.gradle.internal.execution.InputFingerprinter.Result
 import org.gradle.internal.execution.UnitOfWork.InputFileValueSupplier
 import org.gradle.internal.execution.UnitOfWork.InputVisitor
+import org.gradle.internal.file.FileMetadata
+import org.gradle.internal.file.impl.DefaultFileMetadata
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint
 import org.gradle.internal.fingerprint.DirectorySensitivity
 import org.gradle.internal.fingerprint.FileCollectionFingerprint
 import org.gradle.internal.fingerprint.FileNormalizer
 import org.gradle.internal.fingerprint.LineEndingSensitivity
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.snapshot.CompositeFileSystemSnapshot
 import org.gradle.internal.snapshot.FileSystemSnapshot
+import org.gradle.internal.snapshot.RegularFileSnapshot
 import org.gradle.internal.snapshot.ValueSnapshot
 import org.gradle.internal.snapshot.ValueSnapshotter
 import spock.lang.Specification
 
 import java.util.function.Consumer
+import java.util.function.Supplier
 
 import static org.gradle.internal.properties.InputBehavior.NON_INCREMENTAL
 
@@ -51,6 +59,7 @@ class DefaultInputFingerprinterTest extends Specification {
     }
     def valueSnapshotter = Mock(ValueSnapshotter)
     def inputFingerprinter = new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter)
+    def executor = InputFingerprintingExecutor.create(new DefaultExecutorFactory(), 4)
 
     def input = Mock(Object)
     def inputSnapshot = Mock(ValueSnapshot)
@@ -59,6 +68,10 @@ class DefaultInputFingerprinterTest extends Specification {
     def fileInputFingerprint = Mock(CurrentFileCollectionFingerprint)
     def normalizer = Mock(FileNormalizer)
 
+    def cleanup() {
+        executor.stop()
+    }
+
     def "visits properties"() {
         when:
         def result = fingerprintInputProperties { visitor ->
@@ -199,6 +212,142 @@ class DefaultInputFingerprinterTest extends Specification {
         ex.cause == failure
     }
 
+    def "fingerprints file properties and their roots on the shared pool"() {
+        inputFingerprinter = new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter, executor)
+        def otherFileInput = Mock(FileCollection)
+        def firstRoot = Mock(FileSystemSnapshot)
+        def secondRoot = Mock(FileSystemSnapshot)
+        def otherRoot = Mock(FileSystemSnapshot)
+        def otherFileInputFingerprint = Mock(CurrentFileCollectionFingerprint)
+        def callingThread = Thread.currentThread()
+
+        when:
+        def result = fingerprintInputProperties { visitor ->
+            visitor.visitInputFileProperty(
+                "file",
+                NON_INCREMENTAL,
+                new InputFileValueSupplier(fileInput, normalizer, DirectorySensitivity.DEFAULT, LineEndingSensitivity.DEFAULT, { fileInput }))
+            visitor.visitInputFileProperty(
+                "archiveTree",
+                NON_INCREMENTAL,
+                new InputFileValueSupplier(fileInput, normalizer, DirectorySensitivity.DEFAULT, LineEndingSensitivity.DEFAULT, { otherFileInput }))
+        }
+
+        then:
+        1 * snapshotter.snapshotRoots(fileInput, _) >> {
+            assert Thread.currentThread() == callingThread
+            [{ firstRoot } as Supplier, { FileSystemSnapshot.EMPTY } as Supplier, { secondRoot } as Supplier]
+        }
+        1 * snapshotter.snapshotRoots(otherFileInput, _) >> { FileCollection fileCollection, FileCollectionStructureVisitor visitor ->
+            visitor.visitFileTreeBackedByFile(Mock(File), Mock(FileTreeInternal), Mock(FileSystemMirroringFileTree))
+            [{ otherRoot } as Supplier]
+        }
+        1 * fingerprinter.fingerprint(_ as CompositeFileSystemSnapshot, null) >> fileInputFingerprint
+        1 * fingerprinter.fingerprint(otherRoot, null) >> otherFileInputFingerprint
+        0 * _
+
+        then:
+        result.fileFingerprints.keySet() as List == ["archiveTree", "file"]
+        result.fileFingerprints as Map == [
+            "file": fileInputFingerprint,
+            "archiveTree": otherFileInputFingerprint
+        ]
+        result.propertiesRequiringIsEmptyCheck == (["archiveTree"] as Set)
+    }
+
+    def "reports file snapshotting problem of first failing property when fingerprinting on the shared pool"() {
+        inputFingerprinter = new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter, executor)
+        def otherFileInput = Mock(FileCollection)
+        def failure = new UncheckedIOException(new IOException("Error"))
+
+        when:
+        fingerprintInputProperties { visitor ->
+            visitor.visitInputFileProperty(
+                "file",
+                NON_INCREMENTAL,
+                new InputFileValueSupplier(fileInput, normalizer, DirectorySensitivity.DEFAULT, LineEndingSensitivity.DEFAULT, { fileInput }))
+            visitor.visitInputFileProperty(
+                "other",
+                NON_INCREMENTAL,
+                new InputFileValueSupplier(fileInput, normalizer, DirectorySensitivity.DEFAULT, LineEndingSensitivity.DEFAULT, { otherFileInput }))
+        }
+
+        then:
+        1 * snapshotter.snapshotRoots(fileInput, _) >> [{ throw failure } as Supplier]
+        1 * snapshotter.snapshotRoots(otherFileInput, _) >> [{ throw new RuntimeException("Other error") } as Supplier]
+        0 * _
+
+        then:
+        def ex = thrown InputFingerprinter.InputFileFingerprintingException
+        ex.message == "Cannot fingerprint input file property 'file': java.io.IOException: Error"
+        ex.propertyName == "file"
+        ex.cause == failure
+    }
+
+    def "takes the snapshots of unchanged outputs of other work from the known snapshots"() {
+        def unchangedOutputs = new UnchangedOutputSnapshots()
+        inputFingerprinter = new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter, InputFingerprintingExecutor.SEQUENTIAL, unchangedOutputs)
+        def unchangedFile = new File("output/unchanged").absoluteFile
+        def otherFile = new File("input/other").absoluteFile
+        def unchangedFileSnapshot = regularFile(unchangedFile, 1)
+        def otherFileSnapshot = regularFile(otherFile, 2)
+        def previousFingerprint = Mock(FileCollectionFingerprint)
+        unchangedOutputs.outputsUnchanged([unchangedFileSnapshot])
+
+        when:
+        def result = fingerprintInputProperties(ImmutableSortedMap.of(), ImmutableSortedMap.of("file", previousFingerprint)) { visitor ->
+            visitor.visitInputFileProperty(
+                "file",
+                NON_INCREMENTAL,
+                new InputFileValueSupplier(fileInput, normalizer, DirectorySensitivity.DEFAULT, LineEndingSensitivity.DEFAULT, { fileInput }))
+        }
+
+        then:
+        1 * snapshotter.snapshotRoots(fileInput, _) >> { FileCollection fileCollection, FileCollectionStructureVisitor visitor ->
+            visitor.visitCollection(Stub(FileCollectionInternal.Source), [unchangedFile, otherFile])
+            [{ throw new IllegalStateException("Unchanged output should not be snapshotted") } as Supplier, { otherFileSnapshot } as Supplier]
+        }
+        1 * fingerprinter.fingerprint({ it.roots().toList() == [unchangedFileSnapshot, otherFileSnapshot] }, previousFingerprint) >> fileInputFingerprint
+        0 * _
+
+        then:
+        result.fileFingerprints as Map == ["file": fileInputFingerprint]
+    }
+
+    def "snapshots unchanged outputs of other work again after they have been changed"() {
+        def unchangedOutputs = new UnchangedOutputSnapshots()
+        inputFingerprinter = new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter, InputFingerprintingExecutor.SEQUENTIAL, unchangedOutputs)
+        def outputDir = new File("output").absoluteFile
+        def outputFile = new File(outputDir, "file")
+        def outputFileSnapshot = regularFile(outputFile, 1)
+        unchangedOutputs.outputsUnchanged([outputFileSnapshot, regularFile(new File("other").absoluteFile, 2)])
+        unchangedOutputs.invalidate([outputDir.absolutePath])
+
+        when:
+        def result = fingerprintInputProperties { visitor ->
+            visitor.visitInputFileProperty(
+                "file",
+                NON_INCREMENTAL,
+                new InputFileValueSupplier(fileInput, normalizer, DirectorySensitivity.DEFAULT, LineEndingSensitivity.DEFAULT, { fileInput }))
+        }
+
+        then:
+        1 * snapshotter.snapshotRoots(fileInput, _) >> { FileCollection fileCollection, FileCollectionStructureVisitor visitor ->
+            visitor.visitCollection(Stub(FileCollectionInternal.Source), [outputFile])
+            [{ fileInputSnapshot } as Supplier]
+        }
+        1 * fingerprinter.fingerprint(fileInputSnapshot, null) >> fileInputFingerprint
+        0 * _
+
+        then:
+        result.fileFingerprints as Map == ["file": fileInputFingerprint]
+        !unchangedOutputs.empty
+    }
+
+    private static RegularFileSnapshot regularFile(File file, int hash) {
+        new RegularFileSnapshot(file.absolutePath, file.name, TestHashCodes.hashCodeFrom(hash), DefaultFileMetadata.file(0, 0, FileMetadata.AccessType.DIRECT))
+    }
+
     private Result fingerprintInputProperties(
         ImmutableSortedMap<String, ValueSnapshot> previousValueSnapshots = ImmutableSortedMap.of(),
         ImmutableSortedMap<String, FileCollectionFingerprint> previousFingerprints = ImmutableSortedMap.of(),
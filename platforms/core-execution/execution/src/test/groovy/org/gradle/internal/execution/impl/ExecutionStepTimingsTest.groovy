@@ -0,0 +1,153 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.impl
+
+import org.gradle.cache.Cache
+import org.gradle.internal.Deferrable
+import org.gradle.internal.Try
+import org.gradle.internal.execution.UnitOfWork
+import org.gradle.internal.execution.steps.Context
+import org.gradle.internal.execution.steps.DeferredExecutionAwareStep
+import org.gradle.internal.execution.steps.Result
+import org.gradle.internal.execution.steps.Step
+import org.gradle.internal.operations.TestBuildOperationRunner
+import org.gradle.operations.execution.ExecutionStepTimingsBuildOperationType
+import spock.lang.Specification
+
+class ExecutionStepTimingsTest extends Specification {
+    def work = Stub(UnitOfWork) {
+        getBuildOperationWorkType() >> Optional.of("TestWork")
+    }
+    def context = Stub(Context)
+    def result = Stub(Result)
+
+    def "does not wrap steps when disabled"() {
+        def step = Mock(Step)
+
+        expect:
+        ExecutionStepTimings.DISABLED.timed("step", step).is(step)
+    }
+
+    def "does not wrap deferred execution aware steps when disabled"() {
+        def step = Mock(DeferredExecutionAwareStep)
+
+        expect:
+        ExecutionStepTimings.DISABLED.timedDeferred("step", step).is(step)
+    }
+
+    def "records time spent in each step excluding nested steps"() {
+        def timings = ExecutionStepTimings.enabled()
+        def inner = timings.timed("inner", { work, context ->
+            Thread.sleep(20)
+            result
+        } as Step<Context, Result>)
+        def outer = timings.timed("outer", { work, context ->
+            inner.execute(work, context)
+        } as Step<Context, Result>)
+
+        when:
+        def returned = outer.execute(work, context)
+        outer.execute(work, context)
+
+        then:
+        returned.is(result)
+        def stepTimings = timings.stepTimings
+        stepTimings*.step == ["inner", "outer"]
+        stepTimings*.workType == ["TestWork", "TestWork"]
+        stepTimings*.count == [2L, 2L]
+        def innerTiming = stepTimings[0]
+        def outerTiming = stepTimings[1]
+        innerTiming.totalNanos >= 40_000_000L
+        outerTiming.totalNanos < innerTiming.totalNanos
+        innerTiming.p50Nanos <= innerTiming.maxNanos
+    }
+
+    def "records time spent requesting deferred execution excluding the deferred work"() {
+        def timings = ExecutionStepTimings.enabled()
+        def inner = timings.timed("inner", { work, context -> result } as Step<Context, Result>)
+        def delegate = Mock(DeferredExecutionAwareStep)
+        def cache = Mock(Cache)
+        def step = timings.timedDeferred("outer", delegate)
+
+        when:
+        def deferrable = step.executeDeferred(work, context, cache)
+
+        then:
+        1 * delegate.executeDeferred(work, context, cache) >> Deferrable.deferred { Try.successful(inner.execute(work, context)) }
+        timings.stepTimings*.step == ["outer"]
+
+        when:
+        deferrable.completeAndGet()
+
+        then:
+        timings.stepTimings*.step == ["inner", "outer"]
+        timings.stepTimings*.count == [1L, 1L]
+    }
+
+    def "records time of failing steps"() {
+        def timings = ExecutionStepTimings.enabled()
+        def step = timings.timed("failing", { work, context ->
+            throw new RuntimeException("failure")
+        } as Step<Context, Result>)
+
+        when:
+        step.execute(work, context)
+
+        then:
+        thrown(RuntimeException)
+        timings.stepTimings*.step == ["failing"]
+        timings.stepTimings*.count == [1L]
+    }
+
+    def "emits summary build operation and starts over"() {
+        def timings = ExecutionStepTimings.enabled()
+        def buildOperationRunner = new TestBuildOperationRunner()
+        def step = timings.timed("step", { work, context -> result } as Step<Context, Result>)
+        step.execute(work, context)
+
+        when:
+        timings.emitSummary(buildOperationRunner)
+
+        then:
+        def summary = buildOperationRunner.log.mostRecentResult(ExecutionStepTimingsBuildOperationType)
+        summary.stepTimings*.step == ["step"]
+        summary.stepTimings*.count == [1L]
+        timings.stepTimings.empty
+
+        when:
+        timings.emitSummary(buildOperationRunner)
+
+        then:
+        buildOperationRunner.log.all(ExecutionStepTimingsBuildOperationType).size() == 1
+    }
+
+    def "histogram reports upper bounds of percentiles"() {
+        def histogram = new LatencyHistogram()
+
+        when:
+        (1..100).each { histogram.record(it * 1000L) }
+
+        then:
+        histogram.count == 100
+        histogram.totalNanos == 5_050_000L
+        histogram.maxNanos == 100_000L
+        histogram.getPercentileNanos(0.5) >= 50_000L
+        histogram.getPercentileNanos(0.5) < 100_000L
+        histogram.getPercentileNanos(0.99) == 100_000L
+        new LatencyHistogram().getPercentileNanos(0.5) == 0
+    }
+}
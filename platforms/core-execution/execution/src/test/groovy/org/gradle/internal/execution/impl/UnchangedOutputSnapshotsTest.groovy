@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.impl
+
+import org.gradle.internal.file.FileMetadata
+import org.gradle.internal.file.impl.DefaultFileMetadata
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.snapshot.DirectorySnapshot
+import org.gradle.internal.snapshot.RegularFileSnapshot
+import spock.lang.Specification
+
+class UnchangedOutputSnapshotsTest extends Specification {
+    def unchangedOutputs = new UnchangedOutputSnapshots()
+    def outputDir = new File("build/out").absoluteFile
+    def outputDirSnapshot = new DirectorySnapshot(outputDir.absolutePath, outputDir.name, FileMetadata.AccessType.DIRECT, TestHashCodes.hashCodeFrom(1), [])
+    def outputFile = new File("build/out.txt").absoluteFile
+    def outputFileSnapshot = new RegularFileSnapshot(outputFile.absolutePath, outputFile.name, TestHashCodes.hashCodeFrom(2), DefaultFileMetadata.file(0, 0, FileMetadata.AccessType.DIRECT))
+
+    def setup() {
+        unchangedOutputs.outputsUnchanged([outputDirSnapshot, outputFileSnapshot])
+    }
+
+    def "returns snapshots of unchanged outputs"() {
+        expect:
+        unchangedOutputs.get(outputDir.absolutePath) == outputDirSnapshot
+        unchangedOutputs.getDirectory(outputDir.absolutePath) == outputDirSnapshot
+        unchangedOutputs.get(outputFile.absolutePath) == outputFileSnapshot
+        unchangedOutputs.getDirectory(outputFile.absolutePath) == null
+        unchangedOutputs.get(new File(outputDir, "child").absolutePath) == null
+    }
+
+    def "forgets unchanged outputs overlapping with changed locations"() {
+        when:
+        unchangedOutputs.invalidate([changedPath.absolutePath])
+
+        then:
+        unchangedOutputs.get(outputDir.absolutePath) == null
+        unchangedOutputs.get(outputFile.absolutePath) == (outputFileKept ? outputFileSnapshot : null)
+
+        where:
+        changedPath                                 | outputFileKept
+        new File("build/out").absoluteFile          | true
+        new File("build/out/child").absoluteFile    | true
+        new File("build").absoluteFile              | false
+    }
+
+    def "does not forget unchanged outputs when a sibling sharing their name as a prefix changes"() {
+        when:
+        unchangedOutputs.invalidate([new File("build/out-other").absoluteFile.absolutePath])
+
+        then:
+        unchangedOutputs.get(outputDir.absolutePath) == outputDirSnapshot
+        unchangedOutputs.get(outputFile.absolutePath) == outputFileSnapshot
+    }
+
+    def "forgets all unchanged outputs when cleared"() {
+        when:
+        unchangedOutputs.clear()
+
+        then:
+        unchangedOutputs.empty
+    }
+}
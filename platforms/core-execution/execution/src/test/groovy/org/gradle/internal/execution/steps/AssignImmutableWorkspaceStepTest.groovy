@@ -114,6 +114,42 @@ class AssignImmutableWorkspaceStepTest extends StepSpec<IdentityContext> impleme
         0 * _
     }
 
+    def "reuses metadata already verified in this process"() {
+        def outputFile = immutableWorkspace.file("output.txt")
+        def outputFileSnapshot = regularFile(outputFile.absolutePath)
+
+        def delegateOriginMetadata = Mock(OriginMetadata)
+        def verifiedMetadata = new ImmutableWorkspaceMetadata(delegateOriginMetadata, ImmutableListMultimap.of("output", outputFileSnapshot.hash))
+        def verifiedWorkspace = Stub(ImmutableWorkspace) {
+            immutableLocation >> immutableWorkspace
+            getVerifiedMetadata() >> Optional.of(verifiedMetadata)
+        }
+        def existingWorkspaceSnapshot = Stub(DirectorySnapshot) {
+            type >> FileType.Directory
+        }
+        def existingOutputs = ImmutableSortedMap.<String, FileSystemLocationSnapshot> of(
+            "output", outputFileSnapshot
+        )
+        def verifiedWorkspaceProvider = Stub(ImmutableWorkspaceProvider) {
+            getWorkspace(workId) >> verifiedWorkspace
+        }
+        def work = Stub(ImmutableUnitOfWork) {
+            getWorkspaceProvider() >> verifiedWorkspaceProvider
+        }
+
+        when:
+        def result = step.execute(work, context)
+
+        then:
+        result.execution.get().outcome == UP_TO_DATE
+        result.afterExecutionOutputState.get().originMetadata == delegateOriginMetadata
+
+        1 * fileSystemAccess.read(immutableWorkspace.absolutePath) >> existingWorkspaceSnapshot
+        1 * outputSnapshotter.snapshotOutputs(work, immutableWorkspace) >> existingOutputs
+        0 * immutableWorkspaceMetadataStore.loadWorkspaceMetadata(_)
+        0 * _
+    }
+
     def "runs in temporary workspace when immutable workspace doesn't exist"() {
         def delegateExecution = Mock(ExecutionEngine.Execution)
         def delegateDuration = Duration.ofSeconds(1)
@@ -18,14 +18,22 @@ package org.gradle.internal.execution.steps
 
 import com.google.common.collect.ImmutableSortedMap
 import org.gradle.caching.internal.SimpleBuildCacheKey
+import org.gradle.internal.Try
+import org.gradle.internal.execution.ExecutionEngine.Execution
+import org.gradle.internal.execution.OutputChangeListener
 import org.gradle.internal.execution.OutputSnapshotter
 import org.gradle.internal.execution.caching.CachingDisabledReason
 import org.gradle.internal.execution.caching.CachingDisabledReasonCategory
 import org.gradle.internal.execution.caching.CachingState
 import org.gradle.internal.execution.history.BeforeExecutionState
+import org.gradle.internal.file.FileMetadata
+import org.gradle.internal.file.impl.DefaultFileMetadata
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.id.UniqueId
 import org.gradle.internal.snapshot.FileSystemSnapshot
+import org.gradle.internal.snapshot.MissingFileSnapshot
+import org.gradle.internal.snapshot.RegularFileSnapshot
+import org.gradle.internal.vfs.FileSystemChangeRecorder
 
 import java.time.Duration
 
@@ -38,6 +46,7 @@ class CaptureOutputsAfterExecutionStepTest extends StepSpec<TestCachingContext>
     def outputSnapshotter = Mock(OutputSnapshotter)
     def outputFilter = Mock(AfterExecutionOutputFilter)
     def delegateResult = Stub(Result)
+    def outputChangeListener = Mock(OutputChangeListener)
 
     def step = new CaptureOutputsAfterExecutionStep<>(buildOperationRunner, buildInvocationScopeId, outputSnapshotter, outputFilter, delegate)
 
@@ -110,6 +119,95 @@ class CaptureOutputsAfterExecutionStepTest extends StepSpec<TestCachingContext>
         0 * _
     }
 
+    def "restores unchanged outputs before snapshotting when recording changes"() {
+        def changeRecorder = Mock(FileSystemChangeRecorder)
+        def recording = Mock(FileSystemChangeRecorder.Recording)
+        def recordingStep = new CaptureOutputsAfterExecutionStep<>(buildOperationRunner, buildInvocationScopeId, outputSnapshotter, changeRecorder, outputChangeListener, outputFilter, delegate)
+        def outputDirSnapshot = new MissingFileSnapshot("/output/dir", FileMetadata.AccessType.DIRECT)
+        def outputSnapshotsBefore = ImmutableSortedMap.<String, FileSystemSnapshot>of("outputDir", outputDirSnapshot)
+        def outputSnapshotsAfter = ImmutableSortedMap.<String, FileSystemSnapshot>of("outputDir", Mock(FileSystemSnapshot))
+        delegateResult.duration >> Duration.ofMillis(123)
+
+        when:
+        def result = recordingStep.execute(work, context)
+
+        then:
+        result.afterExecutionOutputState.get().outputFilesProducedByWork == outputSnapshotsAfter
+        _ * context.cachingState >> CachingState.enabled(new SimpleBuildCacheKey(hashCodeFrom(1234)), beforeExecutionState)
+        1 * beforeExecutionState.outputFileLocationSnapshots >> outputSnapshotsBefore
+        1 * changeRecorder.startRecording([outputDirSnapshot]) >> recording
+
+        then:
+        1 * delegate.execute(work, _) >> delegateResult
+
+        then:
+        1 * recording.stopAndRestoreUnchanged() >> true
+
+        then:
+        1 * outputSnapshotter.snapshotOutputs(work, _) >> outputSnapshotsAfter
+        1 * outputFilter.filterOutputs(context, beforeExecutionState, outputSnapshotsAfter) >> outputSnapshotsAfter
+        0 * _
+    }
+
+    def "reports outputs that are byte-identical on disk to before the execution as unchanged"() {
+        def step = new CaptureOutputsAfterExecutionStep<>(buildOperationRunner, buildInvocationScopeId, outputSnapshotter, FileSystemChangeRecorder.NOT_RECORDING, outputChangeListener, outputFilter, delegate)
+        def outputSnapshotsBefore = ImmutableSortedMap.<String, FileSystemSnapshot>of(
+            "changedFile", regularFile("/output/changed", 1),
+            "unchangedFile", regularFile("/output/unchanged", 2),
+        )
+        def outputSnapshotsAfter = ImmutableSortedMap.<String, FileSystemSnapshot>of(
+            "changedFile", regularFile("/output/changed", 3),
+            "unchangedFile", regularFile("/output/unchanged", 2),
+        )
+        delegateResult.duration >> Duration.ofMillis(123)
+        delegateResult.execution >> Try.successful(Mock(Execution))
+
+        when:
+        def result = step.execute(work, context)
+
+        then:
+        result.afterExecutionOutputState.get().unchangedOutputProperties == ["unchangedFile"] as Set
+        _ * context.cachingState >> CachingState.enabled(new SimpleBuildCacheKey(hashCodeFrom(1234)), beforeExecutionState)
+        1 * delegate.execute(work, _) >> delegateResult
+
+        then:
+        1 * outputSnapshotter.snapshotOutputs(work, _) >> outputSnapshotsAfter
+        // Filtering out overlapping outputs does not matter, since consumers see all the files on disk
+        1 * outputFilter.filterOutputs(context, beforeExecutionState, outputSnapshotsAfter) >> ImmutableSortedMap.of()
+        1 * beforeExecutionState.outputFileLocationSnapshots >> outputSnapshotsBefore
+        1 * outputChangeListener.outputsUnchanged([outputSnapshotsAfter["unchangedFile"]])
+        0 * _
+    }
+
+    def "discards recorded changes when execution fails"() {
+        def changeRecorder = Mock(FileSystemChangeRecorder)
+        def recording = Mock(FileSystemChangeRecorder.Recording)
+        def recordingStep = new CaptureOutputsAfterExecutionStep<>(buildOperationRunner, buildInvocationScopeId, outputSnapshotter, changeRecorder, outputChangeListener, outputFilter, delegate)
+        def outputFileSnapshot = new MissingFileSnapshot("/output/file", FileMetadata.AccessType.DIRECT)
+        def failure = new RuntimeException("failure")
+
+        when:
+        recordingStep.execute(work, context)
+
+        then:
+        def ex = thrown RuntimeException
+        ex == failure
+        _ * context.cachingState >> CachingState.enabled(new SimpleBuildCacheKey(hashCodeFrom(1234)), beforeExecutionState)
+        1 * beforeExecutionState.outputFileLocationSnapshots >> ImmutableSortedMap.<String, FileSystemSnapshot>of("outputFile", outputFileSnapshot)
+        1 * changeRecorder.startRecording([outputFileSnapshot]) >> recording
+
+        then:
+        1 * delegate.execute(work, _) >> { throw failure }
+
+        then:
+        1 * recording.discard()
+        0 * _
+    }
+
+    private static RegularFileSnapshot regularFile(String absolutePath, int hash) {
+        new RegularFileSnapshot(absolutePath, absolutePath.substring(absolutePath.lastIndexOf('/') + 1), hashCodeFrom(hash), DefaultFileMetadata.file(0, 0, FileMetadata.AccessType.DIRECT))
+    }
+
     private void assertOperation(Throwable expectedFailure = null) {
         if (expectedFailure == null) {
             assertSuccessfulOperation(CaptureOutputsAfterExecutionStep.Operation, "Snapshot outputs after executing job ':test'", CaptureOutputsAfterExecutionStep.Operation.Result.INSTANCE)
@@ -92,6 +92,16 @@ enum Type {
     @CheckReturnValue
     SnapshotHierarchy updateVfsAfterBuildFinished(SnapshotHierarchy root);
 
+    /**
+     * Finds a directory in which changes are reported in order with changes to the given location.
+     *
+     * Once a change to a file created in that directory has been handled, all changes to the location
+     * which happened before creating the file have been handled, too.
+     *
+     * @return the directory, or empty if changes to the location are not reliably reported in order.
+     */
+    Optional<File> findEventBarrierDirectory(String location);
+
     /**
      * Get statistics about the received changes.
      */
@@ -24,6 +24,7 @@
 import java.io.File;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * <p>
@@ -114,6 +115,13 @@ public interface FileWatcherUpdater {
     @CheckReturnValue
     SnapshotHierarchy updateVfsBeforeAfterFinished(SnapshotHierarchy root);
 
+    /**
+     * Finds a directory in which changes are reported in order with changes to the given location.
+     *
+     * @see FileWatcherRegistry#findEventBarrierDirectory(String)
+     */
+    Optional<File> findEventBarrierDirectory(String location);
+
     /**
      * The files actually being watched right now.
      *
@@ -137,6 +137,11 @@ public boolean isWatchingAnyLocations() {
         return !fileWatcherUpdater.getWatchedFiles().isEmpty();
     }
 
+    @Override
+    public Optional<File> findEventBarrierDirectory(String location) {
+        return fileWatcherUpdater.findEventBarrierDirectory(location);
+    }
+
     @Override
     public void registerWatchableHierarchy(File watchableHierarchy, SnapshotHierarchy root) {
         fileWatcherUpdater.registerWatchableHierarchy(watchableHierarchy, root);
@@ -30,6 +30,9 @@
 import java.io.File;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Updater for hierarchical file watchers.
@@ -124,6 +127,27 @@ protected void updateWatchesOnChangedWatchedFiles(FileHierarchySet newWatchedFil
         LOGGER.debug("Watching {} directory hierarchies to track changes", watchedHierarchies.size());
     }
 
+    @Override
+    public Optional<File> findEventBarrierDirectory(String location) {
+        if (!watchedFiles.contains(location)) {
+            return Optional.empty();
+        }
+        // All changes in a watched hierarchy are reported in order, so we can use the probe directory of a
+        // hierarchy containing the location, as long as the hierarchy has been proven to receive events.
+        Set<File> unprovenHierarchies = probeRegistry.unprovenHierarchies().collect(Collectors.toSet());
+        return watchableHierarchies.stream()
+            .filter(watchableHierarchy -> isAncestorOrSelf(watchableHierarchy.getPath(), location))
+            .filter(watchedFiles::contains)
+            .filter(watchableHierarchy -> !unprovenHierarchies.contains(watchableHierarchy))
+            .findFirst()
+            .map(probeRegistry::getProbeDirectory);
+    }
+
+    private static boolean isAncestorOrSelf(String ancestor, String location) {
+        return location.equals(ancestor)
+            || (location.startsWith(ancestor) && location.charAt(ancestor.length()) == File.separatorChar);
+    }
+
     @Override
     protected void startWatchingProbeDirectory(File probeDirectory) {
         // We already started watching the hierarchy.
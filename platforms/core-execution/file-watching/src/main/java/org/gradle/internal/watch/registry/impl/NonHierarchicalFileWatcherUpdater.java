@@ -41,6 +41,7 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 
@@ -62,6 +63,13 @@ public NonHierarchicalFileWatcherUpdater(
         this.fileWatcher = fileWatcher;
     }
 
+    @Override
+    public Optional<File> findEventBarrierDirectory(String location) {
+        // We only watch directories which have snapshots in the VFS, so changes in new or
+        // invalidated directories are not reliably reported.
+        return Optional.empty();
+    }
+
     @Override
     protected boolean handleVirtualFileSystemContentsChanged(Collection<FileSystemLocationSnapshot> removedSnapshots, Collection<FileSystemLocationSnapshot> addedSnapshots, SnapshotHierarchy root) {
         Map<String, Integer> changedWatchedDirectories = new HashMap<>();
@@ -19,6 +19,7 @@
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.service.scopes.Scope;
 import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.internal.vfs.FileSystemChangeRecorder;
 import org.gradle.internal.vfs.VirtualFileSystem;
 import org.gradle.internal.watch.registry.WatchMode;
 
@@ -28,7 +29,7 @@
  * Controls the lifecycle and bookkeeping for file system watching.
  */
 @ServiceScope(Scope.UserHome.class)
-public interface BuildLifecycleAwareVirtualFileSystem extends VirtualFileSystem {
+public interface BuildLifecycleAwareVirtualFileSystem extends VirtualFileSystem, FileSystemChangeRecorder {
 
     /**
      * Called when the build is started.
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs;
+
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+
+import java.io.File;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the contents of the virtual file system across daemon restarts.
+ */
+public interface PersistentVirtualFileSystemState {
+    PersistentVirtualFileSystemState NONE = new PersistentVirtualFileSystemState() {
+        @Override
+        public void loadValidSnapshots(File watchableHierarchy, Consumer<FileSystemLocationSnapshot> validSnapshotConsumer) {
+        }
+
+        @Override
+        public void save(Stream<FileSystemLocationSnapshot> rootSnapshots) {
+        }
+    };
+
+    /**
+     * Passes the snapshots kept by a previous daemon inside the watchable hierarchy which still match the file system to the consumer.
+     *
+     * Snapshots which don't match the file system anymore are dropped.
+     */
+    void loadValidSnapshots(File watchableHierarchy, Consumer<FileSystemLocationSnapshot> validSnapshotConsumer);
+
+    /**
+     * Keeps the given root snapshots, replacing the kept state at their locations.
+     */
+    void save(Stream<FileSystemLocationSnapshot> rootSnapshots);
+}
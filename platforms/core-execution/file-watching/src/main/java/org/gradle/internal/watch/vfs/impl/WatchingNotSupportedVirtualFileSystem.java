@@ -20,6 +20,7 @@
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.operations.CallableBuildOperation;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.SnapshotHierarchy;
 import org.gradle.internal.vfs.VirtualFileSystem;
 import org.gradle.internal.vfs.impl.AbstractVirtualFileSystem;
@@ -32,6 +33,7 @@
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.Collection;
 
 /**
  * A {@link VirtualFileSystem} which is not able to register any watches.
@@ -78,6 +80,11 @@ public BuildOperationDescriptor.Builder description() {
     public void registerWatchableHierarchy(File rootDirectoryForWatching) {
     }
 
+    @Override
+    public Recording startRecording(Collection<FileSystemLocationSnapshot> knownSnapshots) {
+        return Recording.NOT_RECORDED;
+    }
+
     @Override
     public void beforeBuildFinished(
         WatchMode watchMode,
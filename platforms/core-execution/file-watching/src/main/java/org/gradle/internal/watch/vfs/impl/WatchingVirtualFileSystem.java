@@ -17,6 +17,7 @@
 package org.gradle.internal.watch.vfs.impl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import net.rubygrapefruit.platform.NativeException;
 import org.gradle.fileevents.internal.InotifyInstanceLimitTooLowException;
 import org.gradle.fileevents.internal.InotifyWatchesLimitTooLowException;
@@ -24,6 +25,7 @@
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.operations.CallableBuildOperation;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.FileSystemNode;
 import org.gradle.internal.snapshot.SnapshotHierarchy;
 import org.gradle.internal.vfs.impl.AbstractVirtualFileSystem;
@@ -38,6 +40,7 @@
 import org.gradle.internal.watch.vfs.BuildStartedFileSystemWatchingBuildOperationType;
 import org.gradle.internal.watch.vfs.FileChangeListeners;
 import org.gradle.internal.watch.vfs.FileSystemWatchingStatistics;
+import org.gradle.internal.watch.vfs.PersistentVirtualFileSystemState;
 import org.gradle.internal.watch.vfs.VfsLogging;
 import org.gradle.internal.watch.vfs.WatchableFileSystemDetector;
 import org.slf4j.Logger;
@@ -49,13 +52,20 @@
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem implements BuildLifecycleAwareVirtualFileSystem, Closeable {
     private static final Logger LOGGER = LoggerFactory.getLogger(WatchingVirtualFileSystem.class);
+    private static final long EVENT_BARRIER_TIMEOUT_MILLIS = 1000;
     private static final String FILE_WATCHING_ERROR_MESSAGE_DURING_BUILD = "Unable to watch the file system for changes";
     private static final String FILE_WATCHING_ERROR_MESSAGE_AT_END_OF_BUILD = "Gradle was unable to watch the file system for changes";
 
@@ -64,6 +74,7 @@ public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem impleme
     private final FileWatchingFilter locationsWrittenByCurrentBuild;
     private final WatchableFileSystemDetector watchableFileSystemDetector;
     private final FileChangeListeners fileChangeListeners;
+    private final PersistentVirtualFileSystemState persistentState;
     private final List<File> unsupportedFileSystems = new ArrayList<>();
     private Logger warningLogger = LOGGER;
 
@@ -72,7 +83,18 @@ public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem impleme
      */
     private final Set<File> watchableHierarchiesRegisteredEarly = new LinkedHashSet<>();
 
-    private FileWatcherRegistry watchRegistry;
+    /**
+     * Watchable hierarchies which have been registered with the {@link FileWatcherRegistry} and still need their persistent state restored.
+     */
+    private final List<File> watchableHierarchiesToRestore = new ArrayList<>();
+
+    /**
+     * Guards the active change recordings, and makes sure that changes are recorded and applied to the VFS atomically.
+     */
+    private final Object changeRecordingLock = new Object();
+    private final List<ChangeRecording> changeRecordings = new ArrayList<>();
+
+    private volatile FileWatcherRegistry watchRegistry;
     private Exception reasonForNotWatchingFiles;
     private boolean stateInvalidatedAtStartOfBuild;
 
@@ -82,7 +104,8 @@ public WatchingVirtualFileSystem(
         FileSystemWatchingDocumentationIndex fileSystemWatchingDocumentationIndex,
         FileWatchingFilter locationsWrittenByCurrentBuild,
         WatchableFileSystemDetector watchableFileSystemDetector,
-        FileChangeListeners fileChangeListeners
+        FileChangeListeners fileChangeListeners,
+        PersistentVirtualFileSystemState persistentState
     ) {
         super(root);
         this.watcherRegistryFactory = watcherRegistryFactory;
@@ -90,6 +113,7 @@ public WatchingVirtualFileSystem(
         this.locationsWrittenByCurrentBuild = locationsWrittenByCurrentBuild;
         this.watchableFileSystemDetector = watchableFileSystemDetector;
         this.fileChangeListeners = fileChangeListeners;
+        this.persistentState = persistentState;
     }
 
     @Override
@@ -192,6 +216,7 @@ public BuildOperationDescriptor.Builder description() {
                     .details(BuildStartedFileSystemWatchingBuildOperationType.Details.INSTANCE);
             }
         }));
+        restorePersistentState();
         return watchRegistry != null;
     }
 
@@ -204,9 +229,32 @@ public void registerWatchableHierarchy(File watchableHierarchy) {
             }
             return withWatcherChangeErrorHandling(
                 currentRoot,
-                () -> watchRegistry.registerWatchableHierarchy(watchableHierarchy, currentRoot)
+                () -> {
+                    watchRegistry.registerWatchableHierarchy(watchableHierarchy, currentRoot);
+                    watchableHierarchiesToRestore.add(watchableHierarchy);
+                }
             );
         });
+        restorePersistentState();
+    }
+
+    /**
+     * Restores the state kept by a previous daemon for the hierarchies which are now watched, so changes that happen from now on are noticed.
+     */
+    private void restorePersistentState() {
+        List<File> hierarchiesToRestore = new ArrayList<>();
+        underLock(() -> {
+            if (watchRegistry != null) {
+                hierarchiesToRestore.addAll(watchableHierarchiesToRestore);
+            }
+            watchableHierarchiesToRestore.clear();
+        });
+        for (File watchableHierarchy : hierarchiesToRestore) {
+            storeWithAction(watchableHierarchy.getAbsolutePath(), vfsStorer -> {
+                persistentState.loadValidSnapshots(watchableHierarchy, vfsStorer::store);
+                return null;
+            });
+        }
     }
 
     @Override
@@ -316,13 +364,15 @@ public void afterBuildFinished() {
     @CheckReturnValue
     private SnapshotHierarchy startWatching(SnapshotHierarchy currentRoot, WatchMode watchMode, List<File> unsupportedFileSystems) {
         try {
-            watchRegistry = watcherRegistryFactory.createFileWatcherRegistry(new FilterChangesToOutputsChangesHandler(locationsWrittenByCurrentBuild,
-                new CompositeChangeHandler(
-                    new InvalidateVfsChangeHandler(),
-                    new BroadcastingChangeHandler()
-                )));
+            watchRegistry = watcherRegistryFactory.createFileWatcherRegistry(new RecordingChangeHandler(
+                new FilterChangesToOutputsChangesHandler(locationsWrittenByCurrentBuild,
+                    new CompositeChangeHandler(
+                        new InvalidateVfsChangeHandler(),
+                        new BroadcastingChangeHandler()
+                    ))));
             SnapshotHierarchy newRoot = watchRegistry.updateVfsOnBuildStarted(currentRoot.empty(), watchMode, unsupportedFileSystems);
             watchableHierarchiesRegisteredEarly.forEach(watchableHierarchy -> watchRegistry.registerWatchableHierarchy(watchableHierarchy, newRoot));
+            watchableHierarchiesToRestore.addAll(watchableHierarchiesRegisteredEarly);
             watchableHierarchiesRegisteredEarly.clear();
             return newRoot;
         } catch (Exception ex) {
@@ -341,6 +391,187 @@ public boolean isWatchingAnyLocations() {
         return false;
     }
 
+    @Override
+    public Recording startRecording(Collection<FileSystemLocationSnapshot> knownSnapshots) {
+        FileWatcherRegistry watchRegistry = this.watchRegistry;
+        if (watchRegistry == null || knownSnapshots.isEmpty()) {
+            return Recording.NOT_RECORDED;
+        }
+        ImmutableSet.Builder<File> barrierDirectories = ImmutableSet.builder();
+        for (FileSystemLocationSnapshot knownSnapshot : knownSnapshots) {
+            Optional<File> barrierDirectory = watchRegistry.findEventBarrierDirectory(knownSnapshot.getAbsolutePath());
+            if (!barrierDirectory.isPresent()) {
+                LOGGER.debug("Not recording changes, since changes to {} are not reliably reported", knownSnapshot.getAbsolutePath());
+                return Recording.NOT_RECORDED;
+            }
+            barrierDirectories.add(barrierDirectory.get());
+        }
+        synchronized (changeRecordingLock) {
+            // No change can be handled while we hold the lock, so any change after the check will be recorded
+            for (FileSystemLocationSnapshot knownSnapshot : knownSnapshots) {
+                if (!isStoredInVfs(knownSnapshot)) {
+                    LOGGER.debug("Not recording changes, since {} changed since it was snapshotted", knownSnapshot.getAbsolutePath());
+                    return Recording.NOT_RECORDED;
+                }
+            }
+            ChangeRecording recording = new ChangeRecording(watchRegistry, ImmutableList.copyOf(knownSnapshots), barrierDirectories.build());
+            changeRecordings.add(recording);
+            return recording;
+        }
+    }
+
+    private boolean isStoredInVfs(FileSystemLocationSnapshot knownSnapshot) {
+        return root.findSnapshot(knownSnapshot.getAbsolutePath())
+            .filter(storedSnapshot -> storedSnapshot.getType() == knownSnapshot.getType() && storedSnapshot.getHash().equals(knownSnapshot.getHash()))
+            .isPresent();
+    }
+
+    private static boolean isAncestorOrSelf(String ancestor, String location) {
+        return location.equals(ancestor)
+            || (location.startsWith(ancestor) && location.charAt(ancestor.length()) == File.separatorChar);
+    }
+
+    /**
+     * Records the changes reported below some known snapshots.
+     *
+     * Changes are reported asynchronously, so when stopping the recording we create a file in a directory
+     * where changes are reported in order with the changes to the known snapshots.
+     * Once the change for that file arrives, we know that we have seen all the changes which happened before.
+     */
+    private class ChangeRecording implements Recording {
+        private final FileWatcherRegistry watchRegistry;
+        private final ImmutableList<FileSystemLocationSnapshot> knownSnapshots;
+        private final ImmutableSet<File> barrierDirectories;
+
+        // Guarded by changeRecordingLock
+        private final Set<String> changedLocations = new LinkedHashSet<>();
+        private final Set<String> barrierFiles = new HashSet<>();
+        private final Set<String> pendingBarrierFiles = new HashSet<>();
+        private CountDownLatch pendingBarriers = new CountDownLatch(0);
+        private volatile boolean failed;
+
+        public ChangeRecording(FileWatcherRegistry watchRegistry, ImmutableList<FileSystemLocationSnapshot> knownSnapshots, ImmutableSet<File> barrierDirectories) {
+            this.watchRegistry = watchRegistry;
+            this.knownSnapshots = knownSnapshots;
+            this.barrierDirectories = barrierDirectories;
+        }
+
+        private void handleChange(String location) {
+            if (barrierFiles.contains(location)) {
+                if (pendingBarrierFiles.remove(location)) {
+                    pendingBarriers.countDown();
+                }
+            } else if (affectsKnownSnapshots(location)) {
+                changedLocations.add(location);
+            }
+        }
+
+        private boolean affectsKnownSnapshots(String location) {
+            for (FileSystemLocationSnapshot knownSnapshot : knownSnapshots) {
+                String knownLocation = knownSnapshot.getAbsolutePath();
+                if (isAncestorOrSelf(knownLocation, location) || isAncestorOrSelf(location, knownLocation)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void fail() {
+            failed = true;
+            while (pendingBarriers.getCount() > 0) {
+                pendingBarriers.countDown();
+            }
+        }
+
+        @Override
+        public boolean stopAndRestoreUnchanged() {
+            List<File> barrierFilesToCreate = new ArrayList<>();
+            CountDownLatch barriers;
+            synchronized (changeRecordingLock) {
+                if (failed) {
+                    // No need to wait for the barriers when watching already stopped
+                    changeRecordings.remove(this);
+                    return false;
+                }
+                for (File barrierDirectory : barrierDirectories) {
+                    File barrierFile = new File(barrierDirectory, "barrier-" + UUID.randomUUID());
+                    barrierFiles.add(barrierFile.getAbsolutePath());
+                    pendingBarrierFiles.add(barrierFile.getAbsolutePath());
+                    barrierFilesToCreate.add(barrierFile);
+                }
+                pendingBarriers = new CountDownLatch(barrierFilesToCreate.size());
+                barriers = pendingBarriers;
+            }
+            try {
+                for (File barrierFile : barrierFilesToCreate) {
+                    if (!barrierFile.createNewFile()) {
+                        return false;
+                    }
+                }
+                if (!barriers.await(EVENT_BARRIER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    LOGGER.debug("Timed out waiting for changes to be reported in {}", barrierDirectories);
+                    return false;
+                }
+                synchronized (changeRecordingLock) {
+                    changeRecordings.remove(this);
+                    if (failed || watchRegistry != WatchingVirtualFileSystem.this.watchRegistry) {
+                        return false;
+                    }
+                    ImmutableList<String> changedLocations = ImmutableList.copyOf(this.changedLocations);
+                    LOGGER.debug("Restoring unchanged snapshots, invalidating {} changed locations", changedLocations.size());
+                    updateRootUnderLock(currentRoot -> storeAndInvalidate(currentRoot, knownSnapshots, changedLocations));
+                    return true;
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Cannot create file to wait for reported changes", e);
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                discard();
+                for (File barrierFile : barrierFilesToCreate) {
+                    //noinspection ResultOfMethodCallIgnored
+                    barrierFile.delete();
+                }
+            }
+        }
+
+        @Override
+        public void discard() {
+            synchronized (changeRecordingLock) {
+                changeRecordings.remove(this);
+            }
+        }
+    }
+
+    private class RecordingChangeHandler implements FileWatcherRegistry.ChangeHandler {
+        private final FileWatcherRegistry.ChangeHandler delegate;
+
+        public RecordingChangeHandler(FileWatcherRegistry.ChangeHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void handleChange(FileWatcherRegistry.Type type, Path path) {
+            synchronized (changeRecordingLock) {
+                if (!changeRecordings.isEmpty()) {
+                    String location = path.toString();
+                    changeRecordings.forEach(recording -> recording.handleChange(location));
+                }
+                delegate.handleChange(type, path);
+            }
+        }
+
+        @Override
+        public void stopWatchingAfterError() {
+            synchronized (changeRecordingLock) {
+                changeRecordings.forEach(ChangeRecording::fail);
+            }
+            delegate.stopWatchingAfterError();
+        }
+    }
+
     private static class FilterChangesToOutputsChangesHandler implements FileWatcherRegistry.ChangeHandler {
         private final FileWatchingFilter locationsWrittenByCurrentBuild;
         private final FileWatcherRegistry.ChangeHandler delegate;
@@ -514,6 +745,10 @@ private boolean hasDroppedStateBecauseOfErrorsReceivedWhileWatching(FileWatcherR
     public void close() {
         LOGGER.debug("Closing VFS, dropping state");
         updateRootUnderLock(currentRoot -> {
+            if (watchRegistry != null) {
+                // Only keep state which has been maintained by watching
+                persistentState.save(currentRoot.rootSnapshots());
+            }
             closeUnderLock();
             return currentRoot.empty();
         });
@@ -21,6 +21,8 @@ import org.gradle.internal.file.FileMetadata.AccessType
 import org.gradle.internal.snapshot.MissingFileSnapshot
 import org.gradle.internal.watch.registry.FileWatcherUpdater
 
+import java.util.stream.Stream
+
 import static org.gradle.internal.watch.registry.impl.HierarchicalFileWatcherUpdater.FileSystemLocationToWatchValidator.NO_VALIDATION
 
 class HierarchicalFileWatcherUpdaterTest extends AbstractFileWatcherUpdaterTest {
@@ -368,6 +370,51 @@ class HierarchicalFileWatcherUpdaterTest extends AbstractFileWatcherUpdaterTest
         0 * _
     }
 
+    def "uses the probe directory of a watched hierarchy as event barrier"() {
+        def watchableHierarchy = file("watchable").createDir()
+        def fileInWatchableHierarchy = watchableHierarchy.file("some/dir/file.txt").createFile()
+        def notWatchedHierarchy = file("notWatched").createDir()
+        _ * probeRegistry.getProbeDirectory(_) >> { File hierarchy -> new File(hierarchy, ".gradle") }
+        _ * probeRegistry.unprovenHierarchies() >> { Stream.empty() }
+
+        when:
+        registerWatchableHierarchies([watchableHierarchy, notWatchedHierarchy])
+        addSnapshot(snapshotRegularFile(fileInWatchableHierarchy))
+        then:
+        1 * watcher.startWatching({ equalIgnoringOrder(it, [watchableHierarchy]) })
+        0 * _
+
+        updater.findEventBarrierDirectory(fileInWatchableHierarchy.absolutePath) == Optional.of(watchableHierarchy.file(".gradle"))
+        updater.findEventBarrierDirectory(watchableHierarchy.file("some/new/file.txt").absolutePath) == Optional.of(watchableHierarchy.file(".gradle"))
+        updater.findEventBarrierDirectory(watchableHierarchy.absolutePath) == Optional.of(watchableHierarchy.file(".gradle"))
+        !updater.findEventBarrierDirectory(notWatchedHierarchy.file("file.txt").absolutePath).present
+        !updater.findEventBarrierDirectory(file("outside/file.txt").absolutePath).present
+    }
+
+    def "does not use the probe directory of a hierarchy which has not received events as event barrier"() {
+        def outerHierarchy = file("outer").createDir()
+        def innerHierarchy = outerHierarchy.file("inner").createDir()
+        def fileInInnerHierarchy = innerHierarchy.file("some/file.txt").createFile()
+        def unprovenHierarchies = [innerHierarchy]
+        _ * probeRegistry.getProbeDirectory(_) >> { File hierarchy -> new File(hierarchy, ".gradle") }
+        _ * probeRegistry.unprovenHierarchies() >> { unprovenHierarchies.stream() }
+
+        when:
+        registerWatchableHierarchies([outerHierarchy, innerHierarchy])
+        addSnapshot(snapshotRegularFile(fileInInnerHierarchy))
+        then:
+        1 * watcher.startWatching({ equalIgnoringOrder(it, [outerHierarchy]) })
+        0 * _
+
+        // Changes in the inner hierarchy are reported in order with the ones in the outer hierarchy
+        updater.findEventBarrierDirectory(fileInInnerHierarchy.absolutePath) == Optional.of(outerHierarchy.file(".gradle"))
+
+        when:
+        unprovenHierarchies = [outerHierarchy, innerHierarchy]
+        then:
+        !updater.findEventBarrierDirectory(fileInInnerHierarchy.absolutePath).present
+    }
+
     private static MissingFileSnapshot missingFileSnapshot(File location) {
         new MissingFileSnapshot(location.getAbsolutePath(), AccessType.DIRECT)
     }
@@ -120,4 +120,18 @@ class NonHierarchicalFileWatcherUpdaterTest extends AbstractFileWatcherUpdaterTe
         1 * watcher.stopWatching({ equalIgnoringOrder(it, [unwatchableContent.parentFile]) })
         0 * _
     }
+
+    def "does not provide event barriers"() {
+        def watchableHierarchy = file("watchable").createDir()
+        def fileInWatchableHierarchy = watchableHierarchy.file("some/dir/file.txt").createFile()
+
+        when:
+        registerWatchableHierarchies([watchableHierarchy])
+        addSnapshot(snapshotRegularFile(fileInWatchableHierarchy))
+        then:
+        vfsHasSnapshotsAt(fileInWatchableHierarchy)
+        // Changes in directories which are not watched yet are not reported
+        !updater.findEventBarrierDirectory(fileInWatchableHierarchy.absolutePath).present
+        !updater.findEventBarrierDirectory(watchableHierarchy.file("some/new/file.txt").absolutePath).present
+    }
 }
@@ -17,20 +17,34 @@
 package org.gradle.internal.watch.vfs.impl
 
 import net.rubygrapefruit.platform.NativeException
+import org.gradle.internal.file.FileMetadata.AccessType
 import org.gradle.internal.operations.TestBuildOperationRunner
 import org.gradle.internal.snapshot.CaseSensitivity
+import org.gradle.internal.snapshot.MissingFileSnapshot
 import org.gradle.internal.snapshot.SnapshotHierarchy
+import org.gradle.internal.snapshot.TestSnapshotFixture
+import org.gradle.internal.vfs.FileSystemChangeRecorder
 import org.gradle.internal.vfs.impl.DefaultSnapshotHierarchy
 import org.gradle.internal.watch.registry.FileWatcherRegistry
 import org.gradle.internal.watch.registry.FileWatcherRegistryFactory
 import org.gradle.internal.watch.registry.WatchMode
 import org.gradle.internal.watch.registry.impl.FileSystemWatchingDocumentationIndex
 import org.gradle.internal.watch.vfs.FileChangeListeners
+import org.gradle.internal.watch.vfs.PersistentVirtualFileSystemState
 import org.gradle.internal.watch.vfs.VfsLogging
 import org.gradle.internal.watch.vfs.WatchableFileSystemDetector
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
 import spock.lang.Specification
 
-class WatchingVirtualFileSystemTest extends Specification {
+import java.util.function.Consumer
+import java.util.stream.Collectors
+import java.util.stream.Stream
+
+class WatchingVirtualFileSystemTest extends Specification implements TestSnapshotFixture {
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
     def watcherRegistryFactory = Mock(FileWatcherRegistryFactory)
     def watcherRegistry = Mock(FileWatcherRegistry)
     def emptySnapshotHierarchy = DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE)
@@ -48,7 +62,8 @@ class WatchingVirtualFileSystemTest extends Specification {
         documentationIndex,
         locationsUpdatedByCurrentBuild,
         watchableFileSystemDetector,
-        fileChangeListeners
+        fileChangeListeners,
+        PersistentVirtualFileSystemState.NONE
     )
 
     def "invalidates the virtual file system before and after the build when watching is disabled"() {
@@ -179,6 +194,74 @@ class WatchingVirtualFileSystemTest extends Specification {
         1 * watcherRegistry.registerWatchableHierarchy(newWatchableHierarchy, _)
     }
 
+    def "restores the persistent state of hierarchies once they are watched and saves the state when closing"() {
+        def persistentState = Mock(PersistentVirtualFileSystemState)
+        def watchingVirtualFileSystem = new WatchingVirtualFileSystem(
+            watcherRegistryFactory,
+            emptySnapshotHierarchy,
+            documentationIndex,
+            locationsUpdatedByCurrentBuild,
+            watchableFileSystemDetector,
+            fileChangeListeners,
+            persistentState
+        )
+        def watchableHierarchy = new File("watchable").absoluteFile
+        def anotherWatchableHierarchy = new File("anotherWatchable").absoluteFile
+        def restoredSnapshot = new MissingFileSnapshot(new File(anotherWatchableHierarchy, "missing").absolutePath, AccessType.DIRECT)
+
+        when:
+        watchingVirtualFileSystem.registerWatchableHierarchy(watchableHierarchy)
+        then:
+        0 * _
+
+        when:
+        watchingVirtualFileSystem.afterBuildStarted(WatchMode.ENABLED, VfsLogging.NORMAL, buildOperationRunner)
+        then:
+        1 * watcherRegistryFactory.createFileWatcherRegistry(_) >> watcherRegistry
+        1 * watcherRegistry.updateVfsOnBuildStarted(_, _, _) >> { SnapshotHierarchy root, watchMode, unsupportedFileSystems -> root }
+        1 * watcherRegistry.registerWatchableHierarchy(watchableHierarchy, _)
+        then:
+        1 * persistentState.loadValidSnapshots(watchableHierarchy, _)
+        0 * _
+
+        when:
+        watchingVirtualFileSystem.registerWatchableHierarchy(anotherWatchableHierarchy)
+        then:
+        1 * watcherRegistry.registerWatchableHierarchy(anotherWatchableHierarchy, _)
+        then:
+        1 * persistentState.loadValidSnapshots(anotherWatchableHierarchy, _) >> { File hierarchy, Consumer<MissingFileSnapshot> consumer -> consumer.accept(restoredSnapshot) }
+        1 * watcherRegistry.virtualFileSystemContentsChanged(_, _, _)
+        0 * _
+        watchingVirtualFileSystem.findSnapshot(restoredSnapshot.absolutePath).get() == restoredSnapshot
+
+        when:
+        watchingVirtualFileSystem.close()
+        then:
+        1 * persistentState.save(_) >> { Stream<MissingFileSnapshot> rootSnapshots -> assert rootSnapshots.collect(Collectors.toList()) == [restoredSnapshot] }
+        1 * watcherRegistry.close()
+        0 * _
+    }
+
+    def "does not restore the persistent state when not watching"() {
+        def persistentState = Mock(PersistentVirtualFileSystemState)
+        def watchingVirtualFileSystem = new WatchingVirtualFileSystem(
+            watcherRegistryFactory,
+            emptySnapshotHierarchy,
+            documentationIndex,
+            locationsUpdatedByCurrentBuild,
+            watchableFileSystemDetector,
+            fileChangeListeners,
+            persistentState
+        )
+
+        when:
+        watchingVirtualFileSystem.registerWatchableHierarchy(new File("watchable").absoluteFile)
+        watchingVirtualFileSystem.afterBuildStarted(WatchMode.DISABLED, VfsLogging.NORMAL, buildOperationRunner)
+        watchingVirtualFileSystem.close()
+        then:
+        0 * _
+    }
+
     def "detects unsupported file systems on default watch mode"() {
         def unsupportedFileSystems = [new File("unsupported")]
 
@@ -252,4 +335,135 @@ class WatchingVirtualFileSystemTest extends Specification {
         1 * watcherRegistry.close()
         0 * _
     }
+
+    def "does not record changes when not watching"() {
+        expect:
+        watchingVirtualFileSystem.startRecording([regularFile("/output/file")]) == FileSystemChangeRecorder.Recording.NOT_RECORDED
+    }
+
+    def "does not record changes when changes are not reported in order"() {
+        def vfs = startWatchingWithChangeHandler()
+        def knownSnapshot = regularFile(new File(temporaryFolder.testDirectory, "output/file").absolutePath)
+        vfs.store(knownSnapshot.absolutePath) { knownSnapshot }
+
+        when:
+        def recording = vfs.startRecording([knownSnapshot])
+        then:
+        1 * watcherRegistry.findEventBarrierDirectory(knownSnapshot.absolutePath) >> Optional.empty()
+        recording == FileSystemChangeRecorder.Recording.NOT_RECORDED
+    }
+
+    def "does not record changes when the known snapshots are not stored in the virtual file system"() {
+        def vfs = startWatchingWithChangeHandler()
+        def knownSnapshot = regularFile(new File(temporaryFolder.testDirectory, "output/file").absolutePath)
+
+        when:
+        def recording = vfs.startRecording([knownSnapshot])
+        then:
+        1 * watcherRegistry.findEventBarrierDirectory(knownSnapshot.absolutePath) >> Optional.of(temporaryFolder.testDirectory)
+        recording == FileSystemChangeRecorder.Recording.NOT_RECORDED
+    }
+
+    def "restores the known snapshots without the locations changed before the event barrier"() {
+        def vfs = startWatchingWithChangeHandler()
+        def barrierDirectory = temporaryFolder.createDir("probe")
+        def outputDir = temporaryFolder.file("output").absolutePath
+        def knownSnapshot = directory(outputDir, [
+            regularFile("${outputDir}/unchanged"),
+            regularFile("${outputDir}/changed")
+        ])
+        _ * watcherRegistry.findEventBarrierDirectory(_) >> Optional.of(barrierDirectory)
+        vfs.store(outputDir) { knownSnapshot }
+
+        when:
+        def recording = vfs.startRecording([knownSnapshot])
+        // The work invalidates its outputs before executing
+        vfs.invalidate([outputDir])
+        changeHandler.handleChange(FileWatcherRegistry.Type.MODIFIED, new File("${outputDir}/changed").toPath())
+        changeHandler.handleChange(FileWatcherRegistry.Type.MODIFIED, temporaryFolder.file("unrelated").toPath())
+        def restored = stopWhenBarrierIsReported(recording, barrierDirectory)
+
+        then:
+        restored
+        vfs.findSnapshot("${outputDir}/unchanged").present
+        !vfs.findSnapshot("${outputDir}/changed").present
+        vfs.changeRecordings.empty
+        barrierDirectory.list().length == 0
+    }
+
+    def "does not restore the known snapshots when watching fails while recording"() {
+        def vfs = startWatchingWithChangeHandler()
+        def barrierDirectory = temporaryFolder.createDir("probe")
+        def knownSnapshot = regularFile(temporaryFolder.file("output/file").absolutePath)
+        _ * watcherRegistry.findEventBarrierDirectory(_) >> Optional.of(barrierDirectory)
+        vfs.store(knownSnapshot.absolutePath) { knownSnapshot }
+
+        when:
+        def recording = vfs.startRecording([knownSnapshot])
+        vfs.invalidate([knownSnapshot.absolutePath])
+        changeHandler.stopWatchingAfterError()
+        then:
+        !recording.stopAndRestoreUnchanged()
+        !vfs.findSnapshot(knownSnapshot.absolutePath).present
+        vfs.changeRecordings.empty
+        barrierDirectory.list().length == 0
+    }
+
+    def "stops recording changes when the recording is discarded"() {
+        def vfs = startWatchingWithChangeHandler()
+        def knownSnapshot = regularFile(temporaryFolder.file("output/file").absolutePath)
+        _ * watcherRegistry.findEventBarrierDirectory(_) >> Optional.of(temporaryFolder.testDirectory)
+        vfs.store(knownSnapshot.absolutePath) { knownSnapshot }
+
+        when:
+        def recording = vfs.startRecording([knownSnapshot])
+        then:
+        recording != FileSystemChangeRecorder.Recording.NOT_RECORDED
+        vfs.changeRecordings == [recording]
+
+        when:
+        recording.discard()
+        then:
+        vfs.changeRecordings.empty
+    }
+
+    private FileWatcherRegistry.ChangeHandler changeHandler
+
+    private WatchingVirtualFileSystem startWatchingWithChangeHandler() {
+        def vfs = new WatchingVirtualFileSystem(
+            watcherRegistryFactory,
+            emptySnapshotHierarchy,
+            documentationIndex,
+            locationsUpdatedByCurrentBuild,
+            watchableFileSystemDetector,
+            fileChangeListeners,
+            PersistentVirtualFileSystemState.NONE
+        )
+        watcherRegistryFactory.createFileWatcherRegistry(_) >> { FileWatcherRegistry.ChangeHandler handler ->
+            changeHandler = handler
+            watcherRegistry
+        }
+        watcherRegistry.updateVfsOnBuildStarted(_, _, _) >> { SnapshotHierarchy root, watchMode, unsupportedFileSystems -> root }
+        locationsUpdatedByCurrentBuild.shouldWatchLocation(_) >> true
+        assert vfs.afterBuildStarted(WatchMode.ENABLED, VfsLogging.NORMAL, buildOperationRunner)
+        return vfs
+    }
+
+    /**
+     * Stops the recording, reporting the change for the barrier file once it has been created, like the file watcher would.
+     */
+    private boolean stopWhenBarrierIsReported(FileSystemChangeRecorder.Recording recording, File barrierDirectory) {
+        def watcher = Thread.start {
+            File[] barrierFiles
+            while (!(barrierFiles = barrierDirectory.listFiles())) {
+                Thread.sleep(10)
+            }
+            changeHandler.handleChange(FileWatcherRegistry.Type.CREATED, barrierFiles[0].toPath())
+        }
+        try {
+            return recording.stopAndRestoreUnchanged()
+        } finally {
+            watcher.join()
+        }
+    }
 }
@@ -18,6 +18,7 @@
 
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
+import org.jspecify.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
@@ -47,8 +48,21 @@ private Hashing() {
 
     private static final HashFunction SHA512 = MessageDigestHashFunction.of("SHA-512");
 
+    private static final HashFunction MURMUR3_128 = new GuavaHashFunction("MURMUR3-128", com.google.common.hash.Hashing.murmur3_128());
+
     private static final HashFunction DEFAULT = MD5;
 
+    /**
+     * System property to select the hash function used for file contents, see {@link #fileContentFunction()}.
+     *
+     * <p>File hashes are kept in memory and on disk for the lifetime of the daemon, so the function cannot change between builds.
+     * The property is read once from the JVM's system properties. It is an immutable daemon JVM property,
+     * so builds requesting a different function use a different daemon, and it is passed on to worker processes.</p>
+     */
+    public static final String FILE_CONTENT_HASH_FUNCTION_PROPERTY = "org.gradle.internal.hash.file-content";
+
+    private static final HashFunction FILE_CONTENT = fileContentFunctionFor(System.getProperty(FILE_CONTENT_HASH_FUNCTION_PROPERTY));
+
     /**
      * Returns a new {@link Hasher} based on the default hashing implementation.
      */
@@ -124,6 +138,27 @@ public static HashFunction defaultFunction() {
         return DEFAULT;
     }
 
+    /**
+     * The hashing function used for hashing the contents of files.
+     *
+     * This is the {@linkplain #defaultFunction() default function} unless a different one is selected
+     * via the {@value #FILE_CONTENT_HASH_FUNCTION_PROPERTY} system property.
+     * Persistent stores of file hashes need to be kept separate for each function.
+     */
+    public static HashFunction fileContentFunction() {
+        return FILE_CONTENT;
+    }
+
+    static HashFunction fileContentFunctionFor(@Nullable String name) {
+        if (name == null || name.isEmpty() || name.equalsIgnoreCase("md5")) {
+            return DEFAULT;
+        }
+        if (name.equalsIgnoreCase("murmur3")) {
+            return MURMUR3_128;
+        }
+        throw new IllegalArgumentException("Unknown file content hash function '" + name + "', supported values are 'md5' and 'murmur3'.");
+    }
+
     /**
      * MD5 hashing function.
      */
@@ -131,6 +166,15 @@ public static HashFunction md5() {
         return MD5;
     }
 
+    /**
+     * 128-bit MurmurHash3 hashing function.
+     *
+     * Much faster than the cryptographic functions, but not resistant to deliberate collisions.
+     */
+    public static HashFunction murmur3_128() {
+        return MURMUR3_128;
+    }
+
     /**
      * SHA1 hashing function.
      */
@@ -152,35 +196,13 @@ public static HashFunction sha512() {
         return SHA512;
     }
 
-    private static abstract class MessageDigestHashFunction implements HashFunction {
+    private static abstract class AbstractHashFunction implements HashFunction {
         private final int hexDigits;
 
-        public MessageDigestHashFunction(int hashBits) {
+        public AbstractHashFunction(int hashBits) {
             this.hexDigits = hashBits / 4;
         }
 
-        public static MessageDigestHashFunction of(String algorithm) {
-            MessageDigest prototype;
-            try {
-                prototype = MessageDigest.getInstance(algorithm);
-            } catch (NoSuchAlgorithmException e) {
-                throw new IllegalArgumentException("Cannot instantiate digest algorithm: " + algorithm);
-            }
-            int hashBits = prototype.getDigestLength() * 8;
-            try {
-                Object ignored = prototype.clone();
-                return new CloningMessageDigestHashFunction(prototype, hashBits);
-            } catch (CloneNotSupportedException e) {
-                return new RegularMessageDigestHashFunction(algorithm, hashBits);
-            }
-        }
-
-        @Override
-        public PrimitiveHasher newPrimitiveHasher() {
-            MessageDigest digest = createDigest();
-            return new MessageDigestHasher(digest);
-        }
-
         @Override
         public Hasher newHasher() {
             return new DefaultHasher(newPrimitiveHasher());
@@ -218,8 +240,6 @@ private HashingOutputStream primitiveStreamHasher() {
             return new HashingOutputStream(this, ByteStreams.nullOutputStream());
         }
 
-        protected abstract MessageDigest createDigest();
-
         @Override
         public int getHexDigits() {
             return hexDigits;
@@ -231,6 +251,37 @@ public String toString() {
         }
     }
 
+    private static abstract class MessageDigestHashFunction extends AbstractHashFunction {
+
+        public MessageDigestHashFunction(int hashBits) {
+            super(hashBits);
+        }
+
+        public static MessageDigestHashFunction of(String algorithm) {
+            MessageDigest prototype;
+            try {
+                prototype = MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException("Cannot instantiate digest algorithm: " + algorithm);
+            }
+            int hashBits = prototype.getDigestLength() * 8;
+            try {
+                Object ignored = prototype.clone();
+                return new CloningMessageDigestHashFunction(prototype, hashBits);
+            } catch (CloneNotSupportedException e) {
+                return new RegularMessageDigestHashFunction(algorithm, hashBits);
+            }
+        }
+
+        @Override
+        public PrimitiveHasher newPrimitiveHasher() {
+            MessageDigest digest = createDigest();
+            return new MessageDigestHasher(digest);
+        }
+
+        protected abstract MessageDigest createDigest();
+    }
+
     private static class CloningMessageDigestHashFunction extends MessageDigestHashFunction {
         private final MessageDigest prototype;
 
@@ -277,6 +328,94 @@ protected MessageDigest createDigest() {
         }
     }
 
+    private static class GuavaHashFunction extends AbstractHashFunction {
+        private final String algorithm;
+        private final com.google.common.hash.HashFunction delegate;
+
+        public GuavaHashFunction(String algorithm, com.google.common.hash.HashFunction delegate) {
+            super(delegate.bits());
+            this.algorithm = algorithm;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        @Override
+        public PrimitiveHasher newPrimitiveHasher() {
+            return new GuavaHasher(delegate.newHasher());
+        }
+    }
+
+    private static class GuavaHasher implements PrimitiveHasher {
+        private com.google.common.hash.Hasher hasher;
+
+        public GuavaHasher(com.google.common.hash.Hasher hasher) {
+            this.hasher = hasher;
+        }
+
+        private com.google.common.hash.Hasher getHasher() {
+            if (hasher == null) {
+                throw new IllegalStateException("Cannot reuse hasher!");
+            }
+            return hasher;
+        }
+
+        @Override
+        public void putByte(byte b) {
+            getHasher().putByte(b);
+        }
+
+        @Override
+        public void putBytes(byte[] bytes) {
+            getHasher().putBytes(bytes);
+        }
+
+        @Override
+        public void putBytes(byte[] bytes, int off, int len) {
+            getHasher().putBytes(bytes, off, len);
+        }
+
+        @Override
+        public void putInt(int value) {
+            getHasher().putInt(value);
+        }
+
+        @Override
+        public void putLong(long value) {
+            getHasher().putLong(value);
+        }
+
+        @Override
+        public void putDouble(double value) {
+            getHasher().putDouble(value);
+        }
+
+        @Override
+        public void putBoolean(boolean value) {
+            getHasher().putBoolean(value);
+        }
+
+        @Override
+        public void putString(CharSequence value) {
+            getHasher().putString(value, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void putHash(HashCode hashCode) {
+            hashCode.appendToHasher(this);
+        }
+
+        @Override
+        public HashCode hash() {
+            byte[] bytes = getHasher().hash().asBytes();
+            hasher = null;
+            return HashCode.fromBytes(bytes, SAFE_TO_REUSE_BYTES);
+        }
+    }
+
     private static class MessageDigestHasher implements PrimitiveHasher {
         private final ByteBuffer buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
         private MessageDigest digest;
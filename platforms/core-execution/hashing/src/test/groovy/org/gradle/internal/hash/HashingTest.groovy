@@ -109,6 +109,50 @@ class HashingTest extends Specification {
         hashStrings(["abc", "de"]) != hashStrings(["ab", "cde"])
     }
 
+    def 'murmur3 produces 128-bit hashes distinct from the default function'() {
+        when:
+        def hash = Hashing.murmur3_128().hashString("hello")
+
+        then:
+        hash.toString() == "029bbd41b3a7d8cb191dae486a901e5b"
+        hash.toString().length() == Hashing.murmur3_128().hexDigits
+        hash != Hashing.hashString("hello")
+    }
+
+    def 'murmur3 hasher cannot be reused'() {
+        given:
+        def hasher = Hashing.murmur3_128().newHasher()
+        hasher.putInt(1)
+        hasher.hash()
+
+        when:
+        hasher.hash()
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def 'file content function is selected by name'() {
+        expect:
+        Hashing.fileContentFunctionFor(name) == expected
+
+        where:
+        name      | expected
+        null      | Hashing.defaultFunction()
+        ""        | Hashing.defaultFunction()
+        "md5"     | Hashing.md5()
+        "MURMUR3" | Hashing.murmur3_128()
+    }
+
+    def 'fails for unknown file content function'() {
+        when:
+        Hashing.fileContentFunctionFor("crc32")
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Unknown file content hash function 'crc32', supported values are 'md5' and 'murmur3'."
+    }
+
     def hashStrings(List<String> strings) {
         def hasher = Hashing.newHasher()
         strings.each { hasher.putString(it) }
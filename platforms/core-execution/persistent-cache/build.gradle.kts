@@ -1,6 +1,7 @@
 plugins {
     id("gradlebuild.distribution.api-java")
     id("gradlebuild.publish-public-libraries")
+    id("gradlebuild.jmh")
 }
 
 description = """Persistent caches on disk and cross process locking.
@@ -38,6 +39,9 @@ dependencies {
     integTestImplementation(projects.messaging)
 
     integTestDistributionRuntimeOnly(projects.distributionsCore)
+
+    jmhImplementation(platform(projects.distributionsDependencies))
+    jmhImplementation(libs.commonsIo)
 }
 tasks.isolatedProjectsIntegTest {
     enabled = false
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.cache.IndexedCacheStorage;
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.cache.internal.logstructured.LogStructuredPersistentIndexedCache;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the storage formats of indexed caches with payloads shaped like the execution history of tasks.
+ *
+ * <p>Each entry holds the input and output files of a task, as a normalized path and a 16 byte hash per file.
+ * Every operation looks up the history of a task, and then replaces it, like an executed task does.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class IndexedCacheStorageBenchmark {
+
+    @Param({"BTREE", "LOG_STRUCTURED"})
+    IndexedCacheStorage storage;
+
+    @Param({"10", "200", "2000"})
+    int filesPerTask;
+
+    @Param({"5000"})
+    int taskCount;
+
+    private File cacheDir;
+    private PersistentIndexedCacheStore<String, TaskHistory> cache;
+    private List<String> keys;
+    private List<TaskHistory> histories;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        cacheDir = Files.createTempDirectory("indexed-cache-benchmark").toFile();
+        cache = createCache();
+        Random random = new Random(1234);
+        keys = new ArrayList<>(taskCount);
+        histories = new ArrayList<>(taskCount);
+        for (int task = 0; task < taskCount; task++) {
+            String key = ":project" + (task / 20) + ":task" + task;
+            TaskHistory history = TaskHistory.random(random, task, filesPerTask);
+            keys.add(key);
+            histories.add(history);
+            cache.put(key, history);
+        }
+        // Start measuring from a cache that has been opened and closed, as it is between builds
+        cache.close();
+        cache = createCache();
+        next = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        cache.close();
+        FileUtils.deleteDirectory(cacheDir);
+    }
+
+    @Benchmark
+    public void loadAndStoreHistory(Blackhole blackhole) {
+        int task = next++ % taskCount;
+        String key = keys.get(task);
+        blackhole.consume(cache.get(key));
+        cache.put(key, histories.get(task).nextExecution());
+    }
+
+    @Benchmark
+    public void loadHistory(Blackhole blackhole) {
+        blackhole.consume(cache.get(keys.get(next++ % taskCount)));
+    }
+
+    private PersistentIndexedCacheStore<String, TaskHistory> createCache() {
+        switch (storage) {
+            case BTREE:
+                return new BTreePersistentIndexedCache<>(new File(cacheDir, "executionHistory.bin"), BaseSerializerFactory.STRING_SERIALIZER, new TaskHistory.Serializer());
+            case LOG_STRUCTURED:
+                return new LogStructuredPersistentIndexedCache<>(cacheDir, "executionHistory", BaseSerializerFactory.STRING_SERIALIZER, new TaskHistory.Serializer());
+            default:
+                throw new IllegalArgumentException(storage.name());
+        }
+    }
+
+    private static class TaskHistory {
+        private final String implementation;
+        private final long executionTime;
+        private final String[] paths;
+        private final byte[][] hashes;
+
+        private TaskHistory(String implementation, long executionTime, String[] paths, byte[][] hashes) {
+            this.implementation = implementation;
+            this.executionTime = executionTime;
+            this.paths = paths;
+            this.hashes = hashes;
+        }
+
+        static TaskHistory random(Random random, int task, int fileCount) {
+            String[] paths = new String[fileCount];
+            byte[][] hashes = new byte[fileCount][];
+            for (int file = 0; file < fileCount; file++) {
+                paths[file] = "src/main/java/org/gradle/sample/module" + (task % 50) + "/package" + (file % 17) + "/SampleClass" + file + ".java";
+                hashes[file] = new byte[16];
+                random.nextBytes(hashes[file]);
+            }
+            return new TaskHistory("org.gradle.sample.SampleTask_Decorated@" + Integer.toHexString(task), System.currentTimeMillis(), paths, hashes);
+        }
+
+        TaskHistory nextExecution() {
+            // A changed file gives a new hash, which keeps the serialized size stable
+            byte[][] newHashes = hashes.clone();
+            byte[] changed = newHashes[0].clone();
+            changed[0]++;
+            newHashes[0] = changed;
+            return new TaskHistory(implementation, executionTime + 1, paths, newHashes);
+        }
+
+        static class Serializer extends AbstractSerializer<TaskHistory> {
+            @Override
+            public TaskHistory read(Decoder decoder) throws Exception {
+                String implementation = decoder.readString();
+                long executionTime = decoder.readLong();
+                int fileCount = decoder.readSmallInt();
+                String[] paths = new String[fileCount];
+                byte[][] hashes = new byte[fileCount][];
+                for (int file = 0; file < fileCount; file++) {
+                    paths[file] = decoder.readString();
+                    hashes[file] = new byte[16];
+                    decoder.readBytes(hashes[file]);
+                }
+                return new TaskHistory(implementation, executionTime, paths, hashes);
+            }
+
+            @Override
+            public void write(Encoder encoder, TaskHistory value) throws Exception {
+                encoder.writeString(value.implementation);
+                encoder.writeLong(value.executionTime);
+                encoder.writeSmallInt(value.paths.length);
+                for (int file = 0; file < value.paths.length; file++) {
+                    encoder.writeString(value.paths[file]);
+                    encoder.writeBytes(value.hashes[file]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache;
+
+/**
+ * The on-disk format used to persist an {@link IndexedCache}.
+ */
+public enum IndexedCacheStorage {
+    /**
+     * Entries are kept in a B-tree of blocks in a single file, updated in place.
+     */
+    BTREE,
+
+    /**
+     * Entries are appended to a log of segment files and located through a memory-mapped hash index.
+     * Superseded entries are reclaimed by compacting the log.
+     * Better suited to caches where most operations replace existing entries.
+     */
+    LOG_STRUCTURED
+}
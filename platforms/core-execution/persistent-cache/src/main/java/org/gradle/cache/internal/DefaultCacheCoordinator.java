@@ -26,12 +26,14 @@
 import org.gradle.cache.FileLock;
 import org.gradle.cache.FileLockManager;
 import org.gradle.cache.IndexedCacheParameters;
+import org.gradle.cache.IndexedCacheStorage;
 import org.gradle.cache.InsufficientLockModeException;
 import org.gradle.cache.LockOptions;
 import org.gradle.cache.LockTimeoutException;
 import org.gradle.cache.MultiProcessSafeIndexedCache;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.cache.internal.cacheops.CacheAccessOperationsStack;
+import org.gradle.cache.internal.logstructured.LogStructuredPersistentIndexedCache;
 import org.gradle.internal.Cast;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.ExecutorFactory;
@@ -311,7 +313,9 @@ public <K, V> MultiProcessSafeIndexedCache<K, V> newCache(final IndexedCachePara
             if (entry == null) {
                 File cacheFile = findCacheFile(parameters);
                 LOG.debug("Creating new cache for {}, path {}, access {}", parameters.getCacheName(), cacheFile, this);
-                Supplier<BTreePersistentIndexedCache<K, V>> indexedCacheFactory = () -> doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+                Supplier<PersistentIndexedCacheStore<K, V>> indexedCacheFactory = parameters.getStorage() == IndexedCacheStorage.LOG_STRUCTURED
+                    ? () -> doCreateLogStructuredCache(parameters.getCacheName(), parameters.getKeySerializer(), parameters.getValueSerializer())
+                    : () -> doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
 
                 MultiProcessSafeIndexedCache<K, V> indexedCache = new DefaultMultiProcessSafeIndexedCache<>(indexedCacheFactory, fileAccess);
                 CacheDecorator decorator = parameters.getCacheDecorator();
@@ -343,6 +347,9 @@ private <K, V> File findCacheFile(IndexedCacheParameters<K, V> parameters) {
 
     @Override
     public <K, V> boolean cacheExists(IndexedCacheParameters<K, V> parameters) {
+        if (parameters.getStorage() == IndexedCacheStorage.LOG_STRUCTURED) {
+            return LogStructuredPersistentIndexedCache.exists(baseDir, parameters.getCacheName());
+        }
         return findCacheFile(parameters).exists();
     }
 
@@ -350,6 +357,10 @@ <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serialize
         return new BTreePersistentIndexedCache<>(cacheFile, keySerializer, valueSerializer);
     }
 
+    <K, V> LogStructuredPersistentIndexedCache<K, V> doCreateLogStructuredCache(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        return new LogStructuredPersistentIndexedCache<>(baseDir, cacheName, keySerializer, valueSerializer);
+    }
+
     /**
      * Called just after the file lock has been acquired.
      */
@@ -504,6 +515,7 @@ void assertCompatibleCacheParameters(IndexedCacheParameters<K, V> parameters) {
             checkCompatibleKeySerializer(faultMessages, parameters.getKeySerializer());
             checkCompatibleValueSerializer(faultMessages, parameters.getValueSerializer());
             checkCompatibleCacheDecorator(faultMessages, parameters.getCacheDecorator());
+            checkCompatibleStorage(faultMessages, parameters.getStorage());
 
             if (!faultMessages.isEmpty()) {
                 String lineSeparator = System.lineSeparator();
@@ -546,6 +558,14 @@ private void checkCompatibleCacheDecorator(Collection<String> faultMessages, Cac
                         cacheDecorator, parameters.getCacheDecorator()));
             }
         }
+
+        private void checkCompatibleStorage(Collection<String> faultMessages, IndexedCacheStorage storage) {
+            if (storage != parameters.getStorage()) {
+                faultMessages.add(
+                    String.format(" * Requested cache storage (%s) doesn't match current cache storage (%s)",
+                        storage, parameters.getStorage()));
+            }
+        }
     }
 
     @VisibleForTesting
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.cache.CleanableStore;
+import org.gradle.cache.CleanupAction;
+import org.gradle.cache.CleanupProgressMonitor;
+import org.gradle.internal.file.FileAccessTimeJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Deletes the least recently used cache entries until the cache is no larger than the specified size.
+ *
+ * <p>The size of the cache is the total length of the eligible files. Entries are expected to be regular files.</p>
+ */
+public class SizeBoundedLeastRecentlyUsedCacheCleanup implements CleanupAction {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SizeBoundedLeastRecentlyUsedCacheCleanup.class);
+
+    private final FilesFinder eligibleFilesFinder;
+    private final FileAccessTimeJournal journal;
+    private final Supplier<Long> maxSizeInBytes;
+
+    public SizeBoundedLeastRecentlyUsedCacheCleanup(FilesFinder eligibleFilesFinder, FileAccessTimeJournal journal, Supplier<Long> maxSizeInBytes) {
+        this.eligibleFilesFinder = eligibleFilesFinder;
+        this.journal = journal;
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    @Override
+    public void clean(CleanableStore cleanableStore, CleanupProgressMonitor progressMonitor) {
+        long maxSize = maxSizeInBytes.get();
+        List<Entry> entries = findEntries(cleanableStore.getBaseDir(), new NonReservedFileFilter(cleanableStore.getReservedCacheFiles()));
+        long size = totalSize(entries);
+        LOGGER.info("{} contains {} bytes, removing least recently used files to keep at most {} bytes.", cleanableStore.getDisplayName(), size, maxSize);
+        long deletedSize = deleteLeastRecentlyUsed(entries, size - maxSize, progressMonitor);
+        LOGGER.info("{} cleanup deleted {} bytes.", cleanableStore.getDisplayName(), deletedSize);
+    }
+
+    /**
+     * Finds the eligible entries of the cache in the given directory, with their size and last access time.
+     */
+    public List<Entry> findEntries(File baseDir, FileFilter filter) {
+        List<Entry> entries = new ArrayList<>();
+        for (File file : eligibleFilesFinder.find(baseDir, filter)) {
+            if (file.isFile()) {
+                entries.add(new Entry(file, file.length(), journal.getLastAccessTime(file)));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Deletes the least recently used of the given entries until at least the given number of bytes have been deleted.
+     *
+     * @return the number of bytes deleted.
+     */
+    public long deleteLeastRecentlyUsed(List<Entry> entries, long bytesToDelete, CleanupProgressMonitor progressMonitor) {
+        if (bytesToDelete <= 0) {
+            progressMonitor.incrementSkipped(entries.size());
+            return 0;
+        }
+        List<Entry> sortedEntries = new ArrayList<>(entries);
+        sortedEntries.sort(Comparator.comparingLong(Entry::getLastAccessTime));
+        long deletedSize = 0;
+        int index = 0;
+        for (; index < sortedEntries.size() && deletedSize < bytesToDelete; index++) {
+            Entry entry = sortedEntries.get(index);
+            progressMonitor.incrementDeleted();
+            if (FileUtils.deleteQuietly(entry.getFile())) {
+                journal.deleteLastAccessTime(entry.getFile());
+                deletedSize += entry.getSize();
+            }
+        }
+        progressMonitor.incrementSkipped(sortedEntries.size() - index);
+        return deletedSize;
+    }
+
+    public static long totalSize(List<Entry> entries) {
+        long size = 0;
+        for (Entry entry : entries) {
+            size += entry.getSize();
+        }
+        return size;
+    }
+
+    /**
+     * A cache entry eligible for deletion.
+     */
+    public static class Entry {
+        private final File file;
+        private final long size;
+        private final long lastAccessTime;
+
+        public Entry(File file, long size, long lastAccessTime) {
+            this.file = file;
+            this.size = size;
+            this.lastAccessTime = lastAccessTime;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastAccessTime() {
+            return lastAccessTime;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.logstructured;
+
+import org.jspecify.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An open-addressing hash table from key hash to the location of a record in the segment log, kept in a memory-mapped file.
+ *
+ * <p>The table uses linear probing, and backward-shift deletion so that no tombstones are needed.
+ * The header also records the state of the log the index was built from.
+ * It is only trusted on open when it was marked clean on the last close.</p>
+ */
+class HashIndex {
+    private static final int MAGIC = 0x47494458;
+    private static final int VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 12;
+    private static final int CLEAN_OFFSET = 16;
+    private static final int FIRST_SEGMENT_OFFSET = 20;
+    private static final int ACTIVE_SEGMENT_OFFSET = 24;
+    private static final int ACTIVE_SEGMENT_LENGTH_OFFSET = 32;
+    private static final int LIVE_BYTES_OFFSET = 40;
+    private static final int TOTAL_BYTES_OFFSET = 48;
+    private static final int HEADER_SIZE = 64;
+
+    // Key hash, record location, record length and 4 unused bytes
+    private static final int SLOT_SIZE = 24;
+    private static final int LOCATION_OFFSET = 8;
+    private static final int LENGTH_OFFSET = 16;
+
+    private final File file;
+    private final int capacity;
+    private final int mask;
+    private final MappedByteBuffer buffer;
+
+    private HashIndex(File file, MappedByteBuffer buffer, int capacity) {
+        this.file = file;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Creates a new, empty and dirty index with the given capacity, which must be a power of two.
+     */
+    static HashIndex create(File file, int capacity) throws IOException {
+        MappedByteBuffer buffer;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(0);
+            randomAccessFile.setLength(fileLength(capacity));
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileLength(capacity));
+        }
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        return new HashIndex(file, buffer, capacity);
+    }
+
+    /**
+     * Maps an existing index, or returns {@code null} when the file is not a valid index.
+     */
+    @Nullable
+    static HashIndex open(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            long length = randomAccessFile.length();
+            if (length < HEADER_SIZE) {
+                return null;
+            }
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            int capacity = buffer.getInt(CAPACITY_OFFSET);
+            if (buffer.getInt(MAGIC_OFFSET) != MAGIC
+                || buffer.getInt(VERSION_OFFSET) != VERSION
+                || capacity <= 0
+                || Integer.bitCount(capacity) != 1
+                || length != fileLength(capacity)) {
+                return null;
+            }
+            return new HashIndex(file, buffer, capacity);
+        }
+    }
+
+    private static long fileLength(int capacity) {
+        return HEADER_SIZE + (long) capacity * SLOT_SIZE;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int getSize() {
+        return buffer.getInt(SIZE_OFFSET);
+    }
+
+    boolean isClean() {
+        return buffer.get(CLEAN_OFFSET) == 1;
+    }
+
+    void setClean(boolean clean) {
+        buffer.put(CLEAN_OFFSET, (byte) (clean ? 1 : 0));
+    }
+
+    int getFirstSegment() {
+        return buffer.getInt(FIRST_SEGMENT_OFFSET);
+    }
+
+    void setFirstSegment(int segment) {
+        buffer.putInt(FIRST_SEGMENT_OFFSET, segment);
+    }
+
+    int getActiveSegment() {
+        return buffer.getInt(ACTIVE_SEGMENT_OFFSET);
+    }
+
+    long getActiveSegmentLength() {
+        return buffer.getLong(ACTIVE_SEGMENT_LENGTH_OFFSET);
+    }
+
+    void setActiveSegment(int segment, long length) {
+        buffer.putInt(ACTIVE_SEGMENT_OFFSET, segment);
+        buffer.putLong(ACTIVE_SEGMENT_LENGTH_OFFSET, length);
+    }
+
+    long getLiveBytes() {
+        return buffer.getLong(LIVE_BYTES_OFFSET);
+    }
+
+    long getTotalBytes() {
+        return buffer.getLong(TOTAL_BYTES_OFFSET);
+    }
+
+    void setBytes(long liveBytes, long totalBytes) {
+        buffer.putLong(LIVE_BYTES_OFFSET, liveBytes);
+        buffer.putLong(TOTAL_BYTES_OFFSET, totalBytes);
+    }
+
+    /**
+     * Returns the slot holding the given key hash, or -1 when the key is not in the index.
+     */
+    int find(long keyHash) {
+        int slot = home(keyHash);
+        while (true) {
+            if (isEmpty(slot)) {
+                return -1;
+            }
+            if (getKeyHash(slot) == keyHash) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Associates the key hash with the given record, and returns the length of the record it replaces, or -1.
+     * The caller needs to make sure there is room in the index first.
+     */
+    int put(long keyHash, long location, int length) {
+        int slot = home(keyHash);
+        while (!isEmpty(slot)) {
+            if (getKeyHash(slot) == keyHash) {
+                int previousLength = getRecordLength(slot);
+                setSlot(slot, keyHash, location, length);
+                return previousLength;
+            }
+            slot = (slot + 1) & mask;
+        }
+        setSlot(slot, keyHash, location, length);
+        buffer.putInt(SIZE_OFFSET, getSize() + 1);
+        return -1;
+    }
+
+    /**
+     * Removes the key hash from the index, and returns the length of the record it pointed to, or -1.
+     */
+    int remove(long keyHash) {
+        int hole = find(keyHash);
+        if (hole < 0) {
+            return -1;
+        }
+        int removedLength = getRecordLength(hole);
+        int next = (hole + 1) & mask;
+        while (!isEmpty(next)) {
+            long nextKeyHash = getKeyHash(next);
+            int home = home(nextKeyHash);
+            // The entry can move back into the hole unless its home lies cyclically after the hole
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                setSlot(hole, nextKeyHash, getLocation(next), getRecordLength(next));
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        setSlot(hole, 0, 0, 0);
+        buffer.putInt(SIZE_OFFSET, getSize() - 1);
+        return removedLength;
+    }
+
+    boolean isEmpty(int slot) {
+        return getLocation(slot) == 0;
+    }
+
+    long getKeyHash(int slot) {
+        return buffer.getLong(slotOffset(slot));
+    }
+
+    long getLocation(int slot) {
+        return buffer.getLong(slotOffset(slot) + LOCATION_OFFSET);
+    }
+
+    int getRecordLength(int slot) {
+        return buffer.getInt(slotOffset(slot) + LENGTH_OFFSET);
+    }
+
+    void setLocation(int slot, long location) {
+        buffer.putLong(slotOffset(slot) + LOCATION_OFFSET, location);
+    }
+
+    private void setSlot(int slot, long keyHash, long location, int length) {
+        int offset = slotOffset(slot);
+        buffer.putLong(offset, keyHash);
+        buffer.putLong(offset + LOCATION_OFFSET, location);
+        buffer.putInt(offset + LENGTH_OFFSET, length);
+    }
+
+    private int home(long keyHash) {
+        // Key hashes are already uniformly distributed
+        return (int) (keyHash ^ (keyHash >>> 32)) & mask;
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    /**
+     * Writes changes through to the file. The mapping itself is released once this index is garbage collected.
+     */
+    void force() {
+        buffer.force();
+    }
+}
@@ -0,0 +1,696 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.logstructured;
+
+import org.gradle.cache.internal.PersistentIndexedCacheStore;
+import org.gradle.cache.internal.btree.KeyHasher;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * An indexed cache that appends entries to a log of segment files, and finds them through a memory-mapped {@link HashIndex}.
+ *
+ * <p>Each record in a segment is laid out as:</p>
+ * <pre>
+ * int   length of the record body
+ * int   CRC-32 of the record body
+ * body: byte   type, either put or remove
+ *       long   hash of the key
+ *       byte[] serialized value, for puts
+ * </pre>
+ *
+ * <p>Updates never touch existing data, they append a new record and point the index at it.
+ * When less than half of the log is live, the live records are copied into a new segment on close.
+ * A compacted segment is marked as the start of a new generation, and makes all segments before it obsolete.</p>
+ *
+ * <p>The index is trusted on open only when it was closed cleanly and still matches the log.
+ * Otherwise it is rebuilt by replaying the log of the current generation.
+ * A torn record at the end of the log is truncated.
+ * Corruption anywhere else discards the whole cache, as replaying around it could resurrect removed entries.</p>
+ *
+ * <p>Like the B-tree cache, keys are identified by a 64-bit hash of their serialized form only.</p>
+ */
+public class LogStructuredPersistentIndexedCache<K, V> implements PersistentIndexedCacheStore<K, V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStructuredPersistentIndexedCache.class);
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int SEGMENT_MAGIC = 0x47534547;
+    private static final int SEGMENT_VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 12;
+    private static final int FLAG_GENERATION_START = 1;
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int RECORD_BODY_HEADER_SIZE = 9;
+    private static final int MAX_RECORD_SIZE = Integer.MAX_VALUE - 64;
+
+    private static final int SEGMENT_BITS = 24;
+    private static final int OFFSET_BITS = 64 - SEGMENT_BITS;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+    private static final int MAX_INDEX_CAPACITY = 1 << 26;
+
+    public static final long DEFAULT_MAX_SEGMENT_SIZE = 64L * 1024 * 1024;
+    public static final long DEFAULT_MIN_COMPACTION_SIZE = 4L * 1024 * 1024;
+
+    private final File directory;
+    private final String name;
+    private final KeyHasher<K> keyHasher;
+    private final Serializer<V> serializer;
+    private final long maxSegmentSize;
+    private final long minCompactionSize;
+
+    private final RecordBuffer recordBuffer = new RecordBuffer();
+    private final CRC32 crc = new CRC32();
+
+    private final NavigableMap<Integer, FileChannel> segments = new TreeMap<>();
+    private HashIndex index;
+    private int indexGeneration;
+    private int activeSegment;
+    private long activeSegmentLength;
+    private long liveBytes;
+    private long totalBytes;
+    private boolean open;
+
+    public LogStructuredPersistentIndexedCache(File directory, String name, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(directory, name, keySerializer, valueSerializer, DEFAULT_MAX_SEGMENT_SIZE, DEFAULT_MIN_COMPACTION_SIZE);
+    }
+
+    public LogStructuredPersistentIndexedCache(File directory, String name, Serializer<K> keySerializer, Serializer<V> valueSerializer, long maxSegmentSize, long minCompactionSize) {
+        this.directory = directory;
+        this.name = name;
+        this.keyHasher = new KeyHasher<>(keySerializer);
+        this.serializer = valueSerializer;
+        this.maxSegmentSize = maxSegmentSize;
+        this.minCompactionSize = minCompactionSize;
+        try {
+            open();
+        } catch (Exception e) {
+            closeQuietly();
+            throw UncheckedException.throwAsUncheckedException(new IOException(String.format("Could not open %s.", this), e), true);
+        }
+    }
+
+    /**
+     * Returns whether a cache with the given name has been created in the directory.
+     */
+    public static boolean exists(File directory, String name) {
+        return !listFiles(directory, name, SEGMENT_SUFFIX).isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "cache " + name + " (" + directory + ")";
+    }
+
+    @Nullable
+    @Override
+    public V get(K key) {
+        try {
+            long keyHash = keyHasher.getHashCode(key);
+            int slot = index.find(keyHash);
+            if (slot < 0) {
+                return null;
+            }
+            byte[] record = readRecord(index.getLocation(slot), index.getRecordLength(slot), keyHash);
+            if (record == null) {
+                LOGGER.debug("Dropping corrupted entry '{}' from {}.", key, this);
+                remove(keyHash);
+                return null;
+            }
+            int valueOffset = RECORD_HEADER_SIZE + RECORD_BODY_HEADER_SIZE;
+            return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(record, valueOffset, record.length - valueOffset)));
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(new IOException(String.format("Could not read entry '%s' from %s.", key, this), e), true);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        try {
+            long keyHash = keyHasher.getHashCode(key);
+            recordBuffer.startRecord(PUT, keyHash);
+            KryoBackedEncoder encoder = new KryoBackedEncoder(recordBuffer);
+            serializer.write(encoder, value);
+            encoder.flush();
+            int length = recordBuffer.finishRecord(crc);
+            long location = append(recordBuffer.getBuffer(), length);
+            ensureIndexCapacity();
+            int previousLength = index.put(keyHash, location, length);
+            liveBytes += length - Math.max(previousLength, 0);
+            totalBytes += length;
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(new IOException(String.format("Could not add entry '%s' to %s.", key, this), e), true);
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        try {
+            remove(keyHasher.getHashCode(key));
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(new IOException(String.format("Could not remove entry '%s' from %s.", key, this), e), true);
+        }
+    }
+
+    private void remove(long keyHash) throws IOException {
+        if (index.find(keyHash) < 0) {
+            return;
+        }
+        // Record the removal in the log, so that replaying the log does not bring the entry back
+        recordBuffer.startRecord(REMOVE, keyHash);
+        int length = recordBuffer.finishRecord(crc);
+        append(recordBuffer.getBuffer(), length);
+        liveBytes -= index.remove(keyHash);
+        totalBytes += length;
+    }
+
+    @Override
+    public void close() {
+        LOGGER.debug("Closing {}", this);
+        if (!open) {
+            return;
+        }
+        try {
+            if (totalBytes >= minCompactionSize && liveBytes * 2 < totalBytes) {
+                compact();
+            }
+            segments.get(activeSegment).force(false);
+            index.setActiveSegment(activeSegment, activeSegmentLength);
+            index.setBytes(liveBytes, totalBytes);
+            index.force();
+            index.setClean(true);
+            index.force();
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            closeQuietly();
+        }
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    private void open() throws IOException {
+        LOGGER.debug("Opening {}", this);
+        for (File file : listFiles(directory, name, TEMP_SUFFIX).values()) {
+            deleteQuietly(file);
+        }
+
+        NavigableMap<Integer, File> segmentFiles = listFiles(directory, name, SEGMENT_SUFFIX);
+        int firstSegment = 0;
+        for (Map.Entry<Integer, File> entry : segmentFiles.descendingMap().entrySet()) {
+            int flags = readSegmentFlags(entry.getValue());
+            if (flags > 0 && (flags & FLAG_GENERATION_START) != 0) {
+                firstSegment = entry.getKey();
+                break;
+            }
+        }
+        NavigableMap<Integer, File> indexFiles = listFiles(directory, name, INDEX_SUFFIX);
+        indexGeneration = indexFiles.isEmpty() ? 0 : indexFiles.lastKey();
+
+        if (firstSegment == 0) {
+            // Nothing usable yet, start a new generation after whatever is left over
+            deleteAll(segmentFiles, indexFiles);
+            startNewLog(segmentFiles.isEmpty() ? 1 : segmentFiles.lastKey() + 1);
+            return;
+        }
+        deleteObsoleteSegments(segmentFiles.headMap(firstSegment, false));
+        NavigableMap<Integer, File> liveSegments = segmentFiles.tailMap(firstSegment, true);
+        for (Map.Entry<Integer, File> entry : liveSegments.entrySet()) {
+            segments.put(entry.getKey(), FileChannel.open(entry.getValue().toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE));
+        }
+        activeSegment = liveSegments.lastKey();
+        open = true;
+        for (Map.Entry<Integer, File> entry : liveSegments.entrySet()) {
+            if (readSegmentFlags(entry.getValue()) >= 0) {
+                continue;
+            }
+            if (entry.getKey() != activeSegment) {
+                LOGGER.warn("Discarding {} as its segment {} is corrupted.", this, entry.getValue());
+                discardAll();
+                return;
+            }
+            // Interrupted while starting a new segment
+            FileChannel channel = segments.get(activeSegment);
+            channel.truncate(0);
+            writeSegmentHeader(channel, 0);
+        }
+        activeSegmentLength = segments.get(activeSegment).size();
+
+        HashIndex existingIndex = indexFiles.isEmpty() ? null : HashIndex.open(indexFiles.lastEntry().getValue());
+        for (File obsoleteIndex : indexFiles.headMap(indexGeneration, false).values()) {
+            deleteQuietly(obsoleteIndex);
+        }
+        if (existingIndex != null
+            && existingIndex.isClean()
+            && existingIndex.getFirstSegment() == firstSegment
+            && existingIndex.getActiveSegment() == activeSegment
+            && existingIndex.getActiveSegmentLength() == activeSegmentLength) {
+            index = existingIndex;
+            liveBytes = index.getLiveBytes();
+            totalBytes = index.getTotalBytes();
+        } else {
+            LOGGER.debug("Rebuilding index of {}.", this);
+            rebuildIndex(firstSegment, liveSegments);
+        }
+    }
+
+    private void startNewLog(int segment) throws IOException {
+        File segmentFile = segmentFile(segment);
+        try (FileChannel channel = FileChannel.open(segmentFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeSegmentHeader(channel, FLAG_GENERATION_START);
+        }
+        segments.put(segment, FileChannel.open(segmentFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE));
+        activeSegment = segment;
+        activeSegmentLength = SEGMENT_HEADER_SIZE;
+        liveBytes = 0;
+        totalBytes = 0;
+        open = true;
+        index = HashIndex.create(indexFile(++indexGeneration), INITIAL_INDEX_CAPACITY);
+        index.setFirstSegment(segment);
+    }
+
+    private void rebuildIndex(int firstSegment, NavigableMap<Integer, File> liveSegments) throws IOException {
+        index = HashIndex.create(indexFile(++indexGeneration), INITIAL_INDEX_CAPACITY);
+        index.setFirstSegment(firstSegment);
+        liveBytes = 0;
+        totalBytes = 0;
+        for (Map.Entry<Integer, File> entry : liveSegments.entrySet()) {
+            int segment = entry.getKey();
+            long validLength = replaySegment(segment);
+            FileChannel channel = segments.get(segment);
+            if (validLength < channel.size()) {
+                if (segment != activeSegment) {
+                    LOGGER.warn("Discarding {} as its segment {} is corrupted.", this, entry.getValue());
+                    discardAll();
+                    return;
+                }
+                LOGGER.debug("Truncating incomplete record at the end of {}.", entry.getValue());
+                channel.truncate(validLength);
+                activeSegmentLength = validLength;
+            }
+        }
+    }
+
+    /**
+     * Applies the valid records of a segment to the index, and returns the length of the valid part of the segment.
+     */
+    private long replaySegment(int segment) throws IOException {
+        FileChannel channel = segments.get(segment);
+        long position = SEGMENT_HEADER_SIZE;
+        InputStream inputStream = new BufferedInputStream(Channels.newInputStream(channel.position(position)), 64 * 1024);
+        DataInputStream input = new DataInputStream(inputStream);
+        byte[] body = new byte[256];
+        while (true) {
+            int bodyLength;
+            int checksum;
+            try {
+                bodyLength = input.readInt();
+                checksum = input.readInt();
+                if (bodyLength < RECORD_BODY_HEADER_SIZE || bodyLength > MAX_RECORD_SIZE || position + RECORD_HEADER_SIZE + bodyLength > channel.size()) {
+                    return position;
+                }
+                if (body.length < bodyLength) {
+                    body = new byte[Math.max(bodyLength, body.length * 2)];
+                }
+                input.readFully(body, 0, bodyLength);
+            } catch (EOFException e) {
+                return position;
+            }
+            crc.reset();
+            crc.update(body, 0, bodyLength);
+            if ((int) crc.getValue() != checksum) {
+                return position;
+            }
+            ByteBuffer bodyBuffer = ByteBuffer.wrap(body, 0, bodyLength);
+            byte type = bodyBuffer.get();
+            long keyHash = bodyBuffer.getLong();
+            int length = RECORD_HEADER_SIZE + bodyLength;
+            if (type == PUT) {
+                ensureIndexCapacity();
+                int previousLength = index.put(keyHash, location(segment, position), length);
+                liveBytes += length - Math.max(previousLength, 0);
+            } else if (type == REMOVE) {
+                int previousLength = index.remove(keyHash);
+                liveBytes -= Math.max(previousLength, 0);
+            } else {
+                return position;
+            }
+            totalBytes += length;
+            position += length;
+        }
+    }
+
+    private void discardAll() throws IOException {
+        int nextSegment = activeSegment + 1;
+        for (FileChannel channel : segments.values()) {
+            channel.close();
+        }
+        segments.clear();
+        deleteAll(listFiles(directory, name, SEGMENT_SUFFIX), listFiles(directory, name, INDEX_SUFFIX));
+        startNewLog(nextSegment);
+    }
+
+    private long append(byte[] record, int length) throws IOException {
+        index.setClean(false);
+        if (activeSegmentLength + length > maxSegmentSize && activeSegmentLength > SEGMENT_HEADER_SIZE) {
+            rollSegment();
+        }
+        FileChannel channel = segments.get(activeSegment);
+        long location = location(activeSegment, activeSegmentLength);
+        writeFully(channel, ByteBuffer.wrap(record, 0, length), activeSegmentLength);
+        activeSegmentLength += length;
+        return location;
+    }
+
+    private void rollSegment() throws IOException {
+        int segment = activeSegment + 1;
+        FileChannel channel = FileChannel.open(segmentFile(segment).toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        writeSegmentHeader(channel, 0);
+        segments.put(segment, channel);
+        activeSegment = segment;
+        activeSegmentLength = SEGMENT_HEADER_SIZE;
+    }
+
+    /**
+     * Copies all live records into a new segment that starts a new generation, and deletes the old segments.
+     */
+    private void compact() throws IOException {
+        LOGGER.debug("Compacting {}, {} of {} bytes are live.", this, liveBytes, totalBytes);
+        int targetSegment = activeSegment + 1;
+        File targetFile = segmentFile(targetSegment);
+        File tempFile = new File(targetFile.getPath() + TEMP_SUFFIX);
+        long[] newLocations = new long[index.getCapacity()];
+        List<Long> corruptedKeyHashes = new ArrayList<>();
+        long position = SEGMENT_HEADER_SIZE;
+        try (FileChannel target = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeSegmentHeader(target, FLAG_GENERATION_START);
+            for (int slot = 0; slot < index.getCapacity(); slot++) {
+                if (index.isEmpty(slot)) {
+                    continue;
+                }
+                long keyHash = index.getKeyHash(slot);
+                byte[] record = readRecord(index.getLocation(slot), index.getRecordLength(slot), keyHash);
+                if (record == null) {
+                    corruptedKeyHashes.add(keyHash);
+                    continue;
+                }
+                writeFully(target, ByteBuffer.wrap(record), position);
+                newLocations[slot] = location(targetSegment, position);
+                position += record.length;
+            }
+            target.force(true);
+        }
+        Files.move(tempFile.toPath(), targetFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+        Map<Integer, FileChannel> obsoleteSegments = new TreeMap<>(segments);
+        segments.clear();
+        for (FileChannel channel : obsoleteSegments.values()) {
+            channel.close();
+        }
+        segments.put(targetSegment, FileChannel.open(targetFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE));
+        for (int slot = 0; slot < newLocations.length; slot++) {
+            if (newLocations[slot] != 0) {
+                index.setLocation(slot, newLocations[slot]);
+            }
+        }
+        for (long keyHash : corruptedKeyHashes) {
+            index.remove(keyHash);
+        }
+        index.setFirstSegment(targetSegment);
+        activeSegment = targetSegment;
+        activeSegmentLength = position;
+        liveBytes = position - SEGMENT_HEADER_SIZE;
+        totalBytes = liveBytes;
+
+        NavigableMap<Integer, File> obsoleteFiles = new TreeMap<>();
+        for (Integer segment : obsoleteSegments.keySet()) {
+            obsoleteFiles.put(segment, segmentFile(segment));
+        }
+        deleteObsoleteSegments(obsoleteFiles);
+    }
+
+    /**
+     * Reads and verifies a record, returning {@code null} when it does not hold a value for the given key hash.
+     */
+    @Nullable
+    private byte[] readRecord(long location, int length, long keyHash) throws IOException {
+        FileChannel channel = segments.get(segmentOf(location));
+        if (channel == null || length < RECORD_HEADER_SIZE + RECORD_BODY_HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        long position = offsetOf(location);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return null;
+            }
+        }
+        byte[] record = buffer.array();
+        buffer.flip();
+        int bodyLength = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (bodyLength != length - RECORD_HEADER_SIZE) {
+            return null;
+        }
+        crc.reset();
+        crc.update(record, RECORD_HEADER_SIZE, bodyLength);
+        if ((int) crc.getValue() != checksum || buffer.get() != PUT || buffer.getLong() != keyHash) {
+            return null;
+        }
+        return record;
+    }
+
+    private void ensureIndexCapacity() throws IOException {
+        int capacity = index.getCapacity();
+        if ((long) (index.getSize() + 1) * 10 <= (long) capacity * 7 || capacity >= MAX_INDEX_CAPACITY) {
+            return;
+        }
+        HashIndex previous = index;
+        HashIndex grown = HashIndex.create(indexFile(++indexGeneration), capacity * 2);
+        grown.setFirstSegment(previous.getFirstSegment());
+        for (int slot = 0; slot < capacity; slot++) {
+            if (!previous.isEmpty(slot)) {
+                grown.put(previous.getKeyHash(slot), previous.getLocation(slot), previous.getRecordLength(slot));
+            }
+        }
+        index = grown;
+        // May fail while the old mapping is still alive on Windows, the file is cleaned up on next open then
+        deleteQuietly(previous.getFile());
+    }
+
+    private void closeQuietly() {
+        open = false;
+        for (FileChannel channel : segments.values()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close segment of {}.", this, e);
+            }
+        }
+        segments.clear();
+    }
+
+    private static void writeSegmentHeader(FileChannel channel, int flags) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+        header.putInt(SEGMENT_MAGIC).putInt(SEGMENT_VERSION).putInt(flags).flip();
+        writeFully(channel, header, 0);
+    }
+
+    /**
+     * Returns the flags of the segment, or -1 when the segment header is not valid.
+     */
+    private static int readSegmentFlags(File segmentFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    return -1;
+                }
+            }
+            header.flip();
+            if (header.getInt() != SEGMENT_MAGIC || header.getInt() != SEGMENT_VERSION) {
+                return -1;
+            }
+            return header.getInt();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    private static long location(int segment, long offset) {
+        return ((long) segment << OFFSET_BITS) | offset;
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> OFFSET_BITS);
+    }
+
+    private static long offsetOf(long location) {
+        return location & OFFSET_MASK;
+    }
+
+    private File segmentFile(int segment) {
+        return new File(directory, name + "-" + segment + SEGMENT_SUFFIX);
+    }
+
+    private File indexFile(int generation) {
+        return new File(directory, name + "-" + generation + INDEX_SUFFIX);
+    }
+
+    /**
+     * Deletes segments made obsolete by a newer generation, oldest first.
+     * Stops at the first segment that cannot be deleted, so that no newer segment is removed while an older one remains.
+     */
+    private void deleteObsoleteSegments(NavigableMap<Integer, File> obsoleteSegments) {
+        for (File segmentFile : obsoleteSegments.values()) {
+            if (!segmentFile.delete() && segmentFile.exists()) {
+                LOGGER.debug("Could not delete obsolete segment {} of {}.", segmentFile, this);
+                return;
+            }
+        }
+    }
+
+    private void deleteAll(NavigableMap<Integer, File> segmentFiles, NavigableMap<Integer, File> indexFiles) {
+        deleteObsoleteSegments(segmentFiles);
+        for (File indexFile : indexFiles.values()) {
+            deleteQuietly(indexFile);
+        }
+    }
+
+    private void deleteQuietly(File file) {
+        if (!file.delete() && file.exists()) {
+            LOGGER.debug("Could not delete {} of {}.", file, this);
+        }
+    }
+
+    /**
+     * Lists the files of the cache with the given suffix, by their sequence number.
+     */
+    private static NavigableMap<Integer, File> listFiles(File directory, String name, String suffix) {
+        NavigableMap<Integer, File> files = new TreeMap<>();
+        File[] candidates = directory.listFiles();
+        if (candidates == null) {
+            return files;
+        }
+        String prefix = name + "-";
+        for (File candidate : candidates) {
+            String fileName = candidate.getName();
+            if (!fileName.startsWith(prefix) || !fileName.endsWith(suffix)) {
+                continue;
+            }
+            String sequence = fileName.substring(prefix.length(), fileName.length() - suffix.length());
+            if (suffix.equals(TEMP_SUFFIX)) {
+                // Temporary files are named after the file they replace, and are keyed by their position in the listing
+                if (sequence.endsWith(SEGMENT_SUFFIX) && parseSequence(sequence.substring(0, sequence.length() - SEGMENT_SUFFIX.length())) > 0) {
+                    files.put(files.size(), candidate);
+                }
+                continue;
+            }
+            int number = parseSequence(sequence);
+            if (number > 0) {
+                files.put(number, candidate);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Parses the sequence number of a file of this cache, returning 0 when the file belongs to another cache in the same directory.
+     */
+    private static int parseSequence(String sequence) {
+        try {
+            return Integer.parseInt(sequence);
+        } catch (NumberFormatException e) {
+            // Not a file of this cache
+            return 0;
+        }
+    }
+
+    /**
+     * Collects a record in memory, leaving room for its header until the body is complete.
+     */
+    private static class RecordBuffer extends ByteArrayOutputStream {
+        RecordBuffer() {
+            super(4096);
+        }
+
+        void startRecord(byte type, long keyHash) {
+            reset();
+            for (int i = 0; i < RECORD_HEADER_SIZE; i++) {
+                write(0);
+            }
+            write(type);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (keyHash >>> shift));
+            }
+        }
+
+        /**
+         * Fills in the header of the record, and returns the length of the whole record.
+         */
+        int finishRecord(CRC32 crc) {
+            int bodyLength = count - RECORD_HEADER_SIZE;
+            crc.reset();
+            crc.update(buf, RECORD_HEADER_SIZE, bodyLength);
+            ByteBuffer.wrap(buf, 0, RECORD_HEADER_SIZE).putInt(bodyLength).putInt((int) crc.getValue());
+            return count;
+        }
+
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+}
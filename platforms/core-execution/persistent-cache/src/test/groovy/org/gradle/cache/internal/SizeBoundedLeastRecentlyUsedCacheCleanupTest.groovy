@@ -0,0 +1,131 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.cache.CleanableStore
+import org.gradle.cache.CleanupProgressMonitor
+import org.gradle.internal.file.nio.ModificationTimeFileAccessTimeJournal
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.TimeUnit
+
+class SizeBoundedLeastRecentlyUsedCacheCleanupTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+    def cacheDir = temporaryFolder.file("cache-dir").createDir()
+    def reservedFile = cacheDir.file("cache.properties")
+    def cleanableStore = Stub(CleanableStore) {
+        getBaseDir() >> cacheDir
+        getReservedCacheFiles() >> [reservedFile]
+    }
+    def fileAccessTimeJournal = Spy(ModificationTimeFileAccessTimeJournal)
+    def progressMonitor = Stub(CleanupProgressMonitor)
+    def maxSize = 3 * 1024L
+    @Subject def cleanupAction = new SizeBoundedLeastRecentlyUsedCacheCleanup(
+        new SingleDepthFilesFinder(1), fileAccessTimeJournal, { maxSize })
+
+    def "deletes least recently used files when cache is too large"() {
+        given:
+        long now = System.currentTimeMillis()
+        def cacheEntries = [
+            createCacheEntry(now),
+            createCacheEntry(now - TimeUnit.DAYS.toMillis(3)),
+            createCacheEntry(now - TimeUnit.HOURS.toMillis(1)),
+            createCacheEntry(now - TimeUnit.DAYS.toMillis(2)),
+            createCacheEntry(now - TimeUnit.MINUTES.toMillis(5)),
+        ]
+
+        when:
+        cleanupAction.clean(cleanableStore, progressMonitor)
+
+        then:
+        cacheEntries[0].assertExists()
+        cacheEntries[1].assertDoesNotExist()
+        cacheEntries[2].assertExists()
+        cacheEntries[3].assertDoesNotExist()
+        cacheEntries[4].assertExists()
+        1 * fileAccessTimeJournal.deleteLastAccessTime(cacheEntries[1])
+        1 * fileAccessTimeJournal.deleteLastAccessTime(cacheEntries[3])
+    }
+
+    def "deletes no files when cache is small enough"() {
+        given:
+        long now = System.currentTimeMillis()
+        def cacheEntries = [
+            createCacheEntry(now),
+            createCacheEntry(now - TimeUnit.DAYS.toMillis(30)),
+            createCacheEntry(now - TimeUnit.DAYS.toMillis(60)),
+        ]
+
+        when:
+        cleanupAction.clean(cleanableStore, progressMonitor)
+
+        then:
+        cacheEntries.each { it.assertExists() }
+        0 * fileAccessTimeJournal.deleteLastAccessTime(_)
+    }
+
+    def "does not count or delete reserved files"() {
+        given:
+        long now = System.currentTimeMillis()
+        reservedFile.bytes = new byte[8 * 1024]
+        reservedFile.lastModified = now - TimeUnit.DAYS.toMillis(100)
+        def cacheEntries = [
+            createCacheEntry(now),
+            createCacheEntry(now - TimeUnit.DAYS.toMillis(1)),
+        ]
+
+        when:
+        cleanupAction.clean(cleanableStore, progressMonitor)
+
+        then:
+        reservedFile.assertExists()
+        cacheEntries.each { it.assertExists() }
+    }
+
+    def "deletes only enough files to free the requested number of bytes"() {
+        given:
+        long now = System.currentTimeMillis()
+        def cacheEntries = [
+            createCacheEntry(now - TimeUnit.DAYS.toMillis(1)),
+            createCacheEntry(now - TimeUnit.DAYS.toMillis(2)),
+            createCacheEntry(now - TimeUnit.DAYS.toMillis(3)),
+        ]
+        def entries = cleanupAction.findEntries(cacheDir, { true })
+
+        when:
+        def deleted = cleanupAction.deleteLeastRecentlyUsed(entries, 1500, progressMonitor)
+
+        then:
+        deleted == 2 * 1024
+        cacheEntries[0].assertExists()
+        cacheEntries[1].assertDoesNotExist()
+        cacheEntries[2].assertDoesNotExist()
+    }
+
+    private Random r = new Random()
+    def createCacheEntry(long timestamp) {
+        def cacheEntry = cacheDir.file(String.format("%032x", r.nextInt()))
+        def data = new byte[1024]
+        r.nextBytes(data)
+        cacheEntry.bytes = data
+        cacheEntry.lastModified = timestamp
+        return cacheEntry
+    }
+}
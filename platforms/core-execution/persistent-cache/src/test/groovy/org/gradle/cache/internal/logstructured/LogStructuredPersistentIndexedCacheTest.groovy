@@ -0,0 +1,282 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.logstructured
+
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class LogStructuredPersistentIndexedCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+    def cacheDir = temporaryFolder.file("cache-dir").createDir()
+    LogStructuredPersistentIndexedCache<String, String> cache
+
+    def cleanup() {
+        cache?.close()
+    }
+
+    def "stores, replaces and removes entries"() {
+        given:
+        cache = createCache()
+
+        when:
+        cache.put("a", "value a")
+        cache.put("b", "value b")
+        cache.put("a", "new value a")
+        cache.remove("b")
+
+        then:
+        cache.get("a") == "new value a"
+        cache.get("b") == null
+        cache.get("c") == null
+    }
+
+    def "entries survive reopening"() {
+        given:
+        cache = createCache()
+        cache.put("a", "value a")
+        cache.put("b", "value b")
+        cache.remove("b")
+        cache.close()
+
+        when:
+        cache = createCache()
+
+        then:
+        cache.get("a") == "value a"
+        cache.get("b") == null
+        LogStructuredPersistentIndexedCache.exists(cacheDir, "cache")
+        !LogStructuredPersistentIndexedCache.exists(cacheDir, "other")
+    }
+
+    def "rebuilds index when cache was not closed"() {
+        given:
+        def crashed = createCache()
+        crashed.put("a", "value a")
+        crashed.put("b", "value b")
+        crashed.remove("a")
+
+        when:
+        cache = createCache()
+
+        then:
+        cache.get("a") == null
+        cache.get("b") == "value b"
+    }
+
+    def "rebuilds index when index files are missing"() {
+        given:
+        cache = createCache()
+        cache.put("a", "value a")
+        cache.put("b", "value b")
+        cache.remove("a")
+        cache.close()
+        indexFiles()*.delete()
+
+        when:
+        cache = createCache()
+
+        then:
+        cache.get("a") == null
+        cache.get("b") == "value b"
+    }
+
+    def "truncates incomplete record at the end of the log"() {
+        given:
+        cache = createCache()
+        cache.put("a", "value a")
+        cache.close()
+        def segment = segmentFiles().last()
+        def lengthBefore = segment.length()
+        segment << ([0, 0, 0, 42, 1, 2, 3] as byte[])
+
+        when:
+        cache = createCache()
+
+        then:
+        cache.get("a") == "value a"
+        segment.length() == lengthBefore
+
+        when:
+        cache.put("b", "value b")
+        cache.close()
+        cache = createCache()
+
+        then:
+        cache.get("a") == "value a"
+        cache.get("b") == "value b"
+    }
+
+    def "discards cache when a record before the end of the log is corrupted"() {
+        given:
+        cache = createCache(64)
+        cache.put("a", "value a")
+        cache.put("b", "value b")
+        cache.put("c", "value c")
+        cache.close()
+        def segments = segmentFiles()
+        assert segments.size() > 1
+        corruptLastByte(segments.first())
+        indexFiles()*.delete()
+
+        when:
+        cache = createCache(64)
+
+        then:
+        cache.get("a") == null
+        cache.get("b") == null
+        cache.get("c") == null
+
+        when:
+        cache.put("a", "new value a")
+        cache.close()
+        cache = createCache(64)
+
+        then:
+        cache.get("a") == "new value a"
+    }
+
+    def "drops entry whose record is corrupted"() {
+        given:
+        cache = createCache()
+        cache.put("a", "value a")
+        cache.close()
+        corruptLastByte(segmentFiles().last())
+        def indexBefore = indexFiles()
+
+        when:
+        cache = createCache()
+
+        then:
+        indexFiles() == indexBefore
+        cache.get("a") == null
+    }
+
+    def "rolls over to new segments"() {
+        given:
+        cache = createCache(64)
+
+        when:
+        (1..10).each { cache.put("key $it", "value $it") }
+
+        then:
+        segmentFiles().size() > 1
+        (1..10).every { cache.get("key $it") == "value $it" }
+    }
+
+    def "grows index when many entries are added"() {
+        given:
+        cache = createCache()
+
+        when:
+        (1..5000).each { cache.put("key $it", "value $it") }
+        cache.close()
+        cache = createCache()
+
+        then:
+        (1..5000).every { cache.get("key $it") == "value $it" }
+        indexFiles().size() == 1
+    }
+
+    def "compacts log on close when most of it is superseded"() {
+        given:
+        cache = createCache(1024, 1024)
+        (1..100).each { cache.put("key ${it % 10}", "value $it") }
+        cache.put("removed", "value")
+        cache.remove("removed")
+        def sizeBefore = segmentFiles().sum { it.length() }
+
+        when:
+        cache.close()
+
+        then:
+        segmentFiles().size() == 1
+        segmentFiles().first().length() < sizeBefore
+
+        when:
+        cache = createCache(1024, 1024)
+
+        then:
+        (91..100).every { cache.get("key ${it % 10}") == "value $it" }
+        cache.get("removed") == null
+
+        when:
+        cache.close()
+        indexFiles()*.delete()
+        cache = createCache(1024, 1024)
+
+        then:
+        (91..100).every { cache.get("key ${it % 10}") == "value $it" }
+        cache.get("removed") == null
+    }
+
+    def "ignores segments made obsolete by a compaction"() {
+        given:
+        cache = createCache(1024, 1024)
+        cache.put("removed", "value")
+        (1..100).each { cache.put("key ${it % 10}", "value $it") }
+        def obsoleteSegments = segmentFiles().collectEntries { [it, it.bytes] }
+        cache.remove("removed")
+        cache.close()
+
+        and: "old segments could not be deleted"
+        obsoleteSegments.each { file, bytes -> file.bytes = bytes }
+        indexFiles()*.delete()
+
+        when:
+        cache = createCache(1024, 1024)
+
+        then:
+        cache.get("removed") == null
+        (91..100).every { cache.get("key ${it % 10}") == "value $it" }
+    }
+
+    def "deletes only its own leftover temporary files when opening"() {
+        given:
+        def ownTempFile = cacheDir.file("cache-2.log.tmp").createFile()
+        def otherCacheTempFile = cacheDir.file("cache-other-2.log.tmp").createFile()
+        def otherCacheSegment = cacheDir.file("cache-other-1.log").createFile()
+
+        when:
+        cache = createCache()
+
+        then:
+        !ownTempFile.exists()
+        otherCacheTempFile.exists()
+        otherCacheSegment.exists()
+    }
+
+    private LogStructuredPersistentIndexedCache<String, String> createCache(long maxSegmentSize = LogStructuredPersistentIndexedCache.DEFAULT_MAX_SEGMENT_SIZE, long minCompactionSize = LogStructuredPersistentIndexedCache.DEFAULT_MIN_COMPACTION_SIZE) {
+        new LogStructuredPersistentIndexedCache<String, String>(cacheDir, "cache", BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, maxSegmentSize, minCompactionSize)
+    }
+
+    private List<TestFile> segmentFiles() {
+        cacheDir.listFiles().findAll { it.name.endsWith(".log") }.sort { it.name.find(/\d+/) as int }.collect { new TestFile(it) }
+    }
+
+    private List<TestFile> indexFiles() {
+        cacheDir.listFiles().findAll { it.name.endsWith(".idx") }.collect { new TestFile(it) }
+    }
+
+    private static void corruptLastByte(File file) {
+        def bytes = file.bytes
+        bytes[bytes.length - 1] = (byte) (bytes[bytes.length - 1] ^ 0xff)
+        file.bytes = bytes
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.vfs.impl;
+
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.snapshot.CaseSensitivity;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.MetadataSnapshot;
+import org.gradle.internal.snapshot.PathUtil;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.SnapshotHierarchy;
+import org.gradle.internal.snapshot.SnapshotVisitResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures looking up, storing and invalidating single locations in a virtual file system holding the source trees of a multi-project build.
+ *
+ * <p>Use the {@code gc} profiler to see the allocations per operation.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class SnapshotHierarchyBenchmark {
+    private static final String ROOT_PATH = "/home/user/projects/monorepo";
+    private static final int FILES_PER_DIRECTORY = 20;
+    private static final int SUBDIRECTORIES_PER_DIRECTORY = 5;
+    private static final int DIRECTORIES_PER_PROJECT = 50;
+    private static final Comparator<String> NAME_COMPARATOR = PathUtil.getPathComparator(CaseSensitivity.CASE_SENSITIVE);
+
+    @Param({"false", "true"})
+    boolean compact;
+
+    @Param({"50"})
+    int projectCount;
+
+    private SnapshotHierarchy hierarchy;
+    private final List<String> filePaths = new ArrayList<>();
+    private final List<String> missingPaths = new ArrayList<>();
+    private final List<RegularFileSnapshot> changedFiles = new ArrayList<>();
+    private int index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1234);
+        SnapshotHierarchy empty = DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE);
+        SnapshotHierarchy current = compact ? CompactingSnapshotHierarchy.of(empty) : empty;
+        // Store the source directories of each project separately, like the build does when fingerprinting task inputs
+        for (int project = 0; project < projectCount; project++) {
+            String sourcePath = ROOT_PATH + "/project" + project + "/src/main/java";
+            current = current.store(sourcePath, createDirectory(sourcePath, "java", 0, random), SnapshotHierarchy.NodeDiffListener.NOOP);
+        }
+        hierarchy = current;
+
+        List<String> allFilePaths = new ArrayList<>();
+        hierarchy.rootSnapshots().forEach(root -> root.accept(snapshot -> {
+            if (snapshot instanceof RegularFileSnapshot) {
+                allFilePaths.add(snapshot.getAbsolutePath());
+            }
+            return SnapshotVisitResult.CONTINUE;
+        }));
+        // Visit the locations in random order so the lookups don't benefit from caches more than in a real build
+        for (int count = 0; count < 1024; count++) {
+            String filePath = allFilePaths.get(random.nextInt(allFilePaths.size()));
+            filePaths.add(filePath);
+            missingPaths.add(filePath.substring(0, filePath.lastIndexOf('/')) + "/Missing" + count + ".java");
+            changedFiles.add(regularFile(filePath, random));
+        }
+    }
+
+    @Benchmark
+    public Optional<MetadataSnapshot> findExistingFile() {
+        return hierarchy.findMetadata(filePaths.get(nextIndex()));
+    }
+
+    @Benchmark
+    public Optional<MetadataSnapshot> findMissingFile() {
+        return hierarchy.findMetadata(missingPaths.get(nextIndex()));
+    }
+
+    @Benchmark
+    public boolean hasDescendantsUnder() {
+        return hierarchy.hasDescendantsUnder(filePaths.get(nextIndex()));
+    }
+
+    @Benchmark
+    public SnapshotHierarchy storeFile() {
+        RegularFileSnapshot changedFile = changedFiles.get(nextIndex());
+        return hierarchy.store(changedFile.getAbsolutePath(), changedFile, SnapshotHierarchy.NodeDiffListener.NOOP);
+    }
+
+    @Benchmark
+    public SnapshotHierarchy invalidateFile() {
+        return hierarchy.invalidate(filePaths.get(nextIndex()), SnapshotHierarchy.NodeDiffListener.NOOP);
+    }
+
+    private int nextIndex() {
+        index = (index + 1) & 1023;
+        return index;
+    }
+
+    private static DirectorySnapshot createDirectory(String absolutePath, String name, int directoryIndex, Random random) {
+        List<FileSystemLocationSnapshot> children = new ArrayList<>();
+        for (int index = 0; index < FILES_PER_DIRECTORY; index++) {
+            children.add(regularFile(absolutePath + "/Source" + index + ".java", random));
+        }
+        for (int index = 0; index < SUBDIRECTORIES_PER_DIRECTORY; index++) {
+            int childIndex = directoryIndex * SUBDIRECTORIES_PER_DIRECTORY + index + 1;
+            if (childIndex < DIRECTORIES_PER_PROJECT) {
+                String directoryName = "package" + index;
+                children.add(createDirectory(absolutePath + "/" + directoryName, directoryName, childIndex, random));
+            }
+        }
+        children.sort(Comparator.comparing(FileSystemLocationSnapshot::getName, NAME_COMPARATOR));
+        return new DirectorySnapshot(absolutePath, name, AccessType.DIRECT, Hashing.hashString(absolutePath), children);
+    }
+
+    private static RegularFileSnapshot regularFile(String absolutePath, Random random) {
+        byte[] hash = new byte[16];
+        random.nextBytes(hash);
+        String name = absolutePath.substring(absolutePath.lastIndexOf('/') + 1);
+        return new RegularFileSnapshot(absolutePath, name, HashCode.fromBytes(hash), DefaultFileMetadata.file(random.nextLong(), random.nextInt(100_000), AccessType.DIRECT));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.vfs.impl;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.snapshot.CaseSensitivity;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.PathUtil;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.SnapshotHierarchy;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the heap retained per file by the virtual file system, with and without compacting the stored directory snapshots.
+ *
+ * <p>Each invocation stores a generated source tree in an empty hierarchy, and reports the retained heap per regular file
+ * in the {@code retainedBytesPerFile} counter. The time of an invocation is dominated by the garbage collections needed
+ * to measure the heap, so only the counter is meaningful.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@State(Scope.Benchmark)
+public class SnapshotHierarchyMemoryBenchmark {
+    private static final String ROOT_PATH = "/home/user/projects/monorepo/module/src/main/java";
+    private static final int FILES_PER_DIRECTORY = 20;
+    private static final int SUBDIRECTORIES_PER_DIRECTORY = 5;
+    private static final Comparator<String> NAME_COMPARATOR = PathUtil.getPathComparator(CaseSensitivity.CASE_SENSITIVE);
+
+    @Param({"false", "true"})
+    boolean compact;
+
+    @Param({"100000"})
+    int fileCount;
+
+    private final Interner<String> interner = Interners.newStrongInterner();
+    private int directoryCount;
+    private Random random;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class MemoryCounters {
+        public long retainedBytesPerFile;
+    }
+
+    @Setup
+    public void setup() {
+        directoryCount = fileCount / FILES_PER_DIRECTORY;
+        // Like the directory snapshotter, share file names between directories, and don't count them as retained by the hierarchy
+        for (int index = 0; index < FILES_PER_DIRECTORY; index++) {
+            interner.intern(fileName(index));
+        }
+        for (int index = 0; index < SUBDIRECTORIES_PER_DIRECTORY; index++) {
+            interner.intern(directoryName(index));
+        }
+    }
+
+    @Benchmark
+    public SnapshotHierarchy storeSourceTree(MemoryCounters counters) {
+        random = new Random(1234);
+        SnapshotHierarchy empty = DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE);
+        long usedHeapBefore = usedHeap();
+        SnapshotHierarchy hierarchy = (compact ? CompactingSnapshotHierarchy.of(empty) : empty)
+            .store(ROOT_PATH, createDirectory(ROOT_PATH, "java", 0), SnapshotHierarchy.NodeDiffListener.NOOP);
+        counters.retainedBytesPerFile = (usedHeap() - usedHeapBefore) / fileCount;
+        return hierarchy;
+    }
+
+    private DirectorySnapshot createDirectory(String absolutePath, String name, int directoryIndex) {
+        List<FileSystemLocationSnapshot> children = new ArrayList<>();
+        for (int index = 0; index < FILES_PER_DIRECTORY; index++) {
+            String fileName = interner.intern(fileName(index));
+            byte[] hash = new byte[16];
+            random.nextBytes(hash);
+            children.add(new RegularFileSnapshot(absolutePath + "/" + fileName, fileName, HashCode.fromBytes(hash), DefaultFileMetadata.file(random.nextLong(), random.nextInt(100_000), AccessType.DIRECT)));
+        }
+        for (int index = 0; index < SUBDIRECTORIES_PER_DIRECTORY; index++) {
+            int childIndex = directoryIndex * SUBDIRECTORIES_PER_DIRECTORY + index + 1;
+            if (childIndex < directoryCount) {
+                String directoryName = interner.intern(directoryName(index));
+                children.add(createDirectory(absolutePath + "/" + directoryName, directoryName, childIndex));
+            }
+        }
+        children.sort(Comparator.comparing(FileSystemLocationSnapshot::getName, NAME_COMPARATOR));
+        return new DirectorySnapshot(absolutePath, name, AccessType.DIRECT, Hashing.hashString(absolutePath), children);
+    }
+
+    private static String fileName(int index) {
+        return "Source" + index + ".java";
+    }
+
+    private static String directoryName(int index) {
+        return "package" + index;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -119,7 +119,7 @@ private boolean isRegularFileOrDirectory(MetadataSnapshot metadataSnapshot) {
 
     @Override
     public Optional<MetadataSnapshot> getSnapshot(VfsRelativePath targetPath, CaseSensitivity caseSensitivity) {
-        return SnapshotUtil.getMetadataFromChildren(children, targetPath, caseSensitivity, Optional::empty);
+        return SnapshotUtil.getMetadataFromChildren(children, targetPath, caseSensitivity);
     }
 
     /**
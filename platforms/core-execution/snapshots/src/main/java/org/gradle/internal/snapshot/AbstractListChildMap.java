@@ -43,10 +43,7 @@ public Stream<Entry<T>> stream() {
     }
 
     protected int findChildIndexWithCommonPrefix(VfsRelativePath targetPath, CaseSensitivity caseSensitivity) {
-        return SearchUtil.binarySearch(
-            entries,
-            candidate -> targetPath.compareToFirstSegment(candidate.getPath(), caseSensitivity)
-        );
+        return SearchUtil.binarySearch(entries, Entry::getPath, targetPath, caseSensitivity);
     }
 
     @Override
@@ -65,21 +65,33 @@ public Entry(String path, T value) {
         }
 
         public <RESULT> RESULT withNode(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, NodeHandler<T, RESULT> handler) {
-            return handleAncestorDescendantOrExactMatch(targetPath, caseSensitivity, handler)
-                .orElseGet(handler::handleUnrelatedToAnyChild);
+            return withNode(path, value, targetPath, caseSensitivity, handler);
         }
 
-        public <RESULT> Optional<RESULT> handleAncestorDescendantOrExactMatch(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, NodeHandler<T, RESULT> handler) {
+        /**
+         * Same as {@link #withNode(VfsRelativePath, CaseSensitivity, NodeHandler)}, for child maps which do not keep {@link Entry} instances around.
+         */
+        static <T, RESULT> RESULT withNode(String path, T value, VfsRelativePath targetPath, CaseSensitivity caseSensitivity, NodeHandler<T, RESULT> handler) {
             if (targetPath.hasPrefix(path, caseSensitivity)) {
-                if (targetPath.length() == path.length()) {
-                    return Optional.of(handler.handleExactMatchWithChild(value));
-                } else {
-                    return Optional.of(handler.handleAsDescendantOfChild(targetPath.pathFromChild(path), value));
-                }
-            } else if (targetPath.length() < path.length() && targetPath.isPrefixOf(path, caseSensitivity)) {
-                return Optional.of(handler.handleAsAncestorOfChild(path, value));
+                return targetPath.length() == path.length()
+                    ? handler.handleExactMatchWithChild(value)
+                    : handler.handleAsDescendantOfChild(targetPath.pathFromChild(path), value);
+            }
+            if (isAncestorOf(path, targetPath, caseSensitivity)) {
+                return handler.handleAsAncestorOfChild(path, value);
             }
-            return Optional.empty();
+            return handler.handleUnrelatedToAnyChild();
+        }
+
+        /**
+         * Whether the target path is this entry's path, a descendant of it or an ancestor of it.
+         */
+        public boolean isAncestorDescendantOrExactMatch(VfsRelativePath targetPath, CaseSensitivity caseSensitivity) {
+            return targetPath.hasPrefix(path, caseSensitivity) || isAncestorOf(path, targetPath, caseSensitivity);
+        }
+
+        private static boolean isAncestorOf(String path, VfsRelativePath targetPath, CaseSensitivity caseSensitivity) {
+            return targetPath.length() < path.length() && targetPath.isPrefixOf(path, caseSensitivity);
         }
 
         public <RESULT> RESULT handlePath(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, PathRelationshipHandler<RESULT, T> handler) {
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot;
+
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.HashCode;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.gradle.internal.snapshot.ChildMapFactory.childMapFromSorted;
+
+/**
+ * Children of a {@link DirectorySnapshot} which keeps the regular files in primitive arrays.
+ *
+ * A regular file is stored as its name, its content hash and its metadata, instead of a {@link RegularFileSnapshot}
+ * with its own absolute path, metadata and hash objects. The snapshot of such a file is re-created whenever it is accessed.
+ * Other children are kept as they are.
+ *
+ * The map is meant for long-lived snapshots, e.g. in the virtual file system. Changes to it produce one of the regular child maps.
+ */
+class CompactChildMap implements ChildMap<FileSystemLocationSnapshot> {
+    private final String parentAbsolutePath;
+    private final String[] names;
+    /**
+     * The children which are not kept compactly, {@code null} for compacted regular files.
+     */
+    private final FileSystemLocationSnapshot[] snapshots;
+    private final int hashLength;
+    private final byte[] hashes;
+    private final long[] lastModified;
+    private final long[] length;
+
+    private CompactChildMap(String parentAbsolutePath, String[] names, FileSystemLocationSnapshot[] snapshots, int hashLength, byte[] hashes, long[] lastModified, long[] length) {
+        this.parentAbsolutePath = parentAbsolutePath;
+        this.names = names;
+        this.snapshots = snapshots;
+        this.hashLength = hashLength;
+        this.hashes = hashes;
+        this.lastModified = lastModified;
+        this.length = length;
+    }
+
+    /**
+     * Creates a compact map for the given children of the directory at {@code parentAbsolutePath}.
+     *
+     * Falls back to a regular child map when none of the children can be kept compactly.
+     */
+    public static ChildMap<FileSystemLocationSnapshot> of(String parentAbsolutePath, List<Entry<FileSystemLocationSnapshot>> sortedEntries) {
+        int size = sortedEntries.size();
+        int hashLength = -1;
+        for (Entry<FileSystemLocationSnapshot> entry : sortedEntries) {
+            if (isCompactable(parentAbsolutePath, entry, hashLength)) {
+                hashLength = entry.getValue().getHash().length();
+            }
+        }
+        if (hashLength == -1) {
+            return childMapFromSorted(sortedEntries);
+        }
+        String[] names = new String[size];
+        FileSystemLocationSnapshot[] snapshots = new FileSystemLocationSnapshot[size];
+        byte[] hashes = new byte[size * hashLength];
+        long[] lastModified = new long[size];
+        long[] length = new long[size];
+        for (int index = 0; index < size; index++) {
+            Entry<FileSystemLocationSnapshot> entry = sortedEntries.get(index);
+            names[index] = entry.getPath();
+            if (isCompactable(parentAbsolutePath, entry, hashLength)) {
+                FileMetadata metadata = ((RegularFileSnapshot) entry.getValue()).getMetadata();
+                byte[] hash = entry.getValue().getHash().toByteArray();
+                System.arraycopy(hash, 0, hashes, index * hashLength, hashLength);
+                lastModified[index] = metadata.getLastModified();
+                length[index] = metadata.getLength();
+            } else {
+                snapshots[index] = entry.getValue();
+            }
+        }
+        return new CompactChildMap(parentAbsolutePath, names, snapshots, hashLength, hashes, lastModified, length);
+    }
+
+    private static boolean isCompactable(String parentAbsolutePath, Entry<FileSystemLocationSnapshot> entry, int hashLength) {
+        FileSystemLocationSnapshot snapshot = entry.getValue();
+        if (!(snapshot instanceof RegularFileSnapshot)) {
+            return false;
+        }
+        RegularFileSnapshot fileSnapshot = (RegularFileSnapshot) snapshot;
+        // Only keep what can be re-created exactly
+        return fileSnapshot.getAccessType() == AccessType.DIRECT
+            && fileSnapshot.getMetadata().getClass() == DefaultFileMetadata.class
+            && (hashLength == -1 || fileSnapshot.getHash().length() == hashLength)
+            && fileSnapshot.getName().equals(entry.getPath())
+            && fileSnapshot.getAbsolutePath().equals(childAbsolutePath(parentAbsolutePath, entry.getPath()));
+    }
+
+    private static String childAbsolutePath(String parentAbsolutePath, String name) {
+        return parentAbsolutePath.isEmpty() || parentAbsolutePath.charAt(parentAbsolutePath.length() - 1) == File.separatorChar
+            ? parentAbsolutePath + name
+            : parentAbsolutePath + File.separatorChar + name;
+    }
+
+    private FileSystemLocationSnapshot getChild(int index) {
+        FileSystemLocationSnapshot snapshot = snapshots[index];
+        if (snapshot != null) {
+            return snapshot;
+        }
+        String name = names[index];
+        HashCode hash = HashCode.fromBytes(Arrays.copyOfRange(hashes, index * hashLength, (index + 1) * hashLength));
+        return new RegularFileSnapshot(childAbsolutePath(parentAbsolutePath, name), name, hash, DefaultFileMetadata.file(lastModified[index], length[index], AccessType.DIRECT));
+    }
+
+    private Entry<FileSystemLocationSnapshot> getEntry(int index) {
+        return new Entry<>(names[index], getChild(index));
+    }
+
+    private ChildMap<FileSystemLocationSnapshot> expand() {
+        return childMapFromSorted(stream().collect(Collectors.toList()));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return names.length == 0;
+    }
+
+    @Override
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public Stream<Entry<FileSystemLocationSnapshot>> stream() {
+        return IntStream.range(0, names.length)
+            .mapToObj(this::getEntry);
+    }
+
+    @Override
+    public <RESULT> RESULT withNode(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, NodeHandler<FileSystemLocationSnapshot, RESULT> handler) {
+        int childIndex = SearchUtil.binarySearch(names, targetPath, caseSensitivity);
+        if (childIndex >= 0) {
+            return Entry.withNode(names[childIndex], getChild(childIndex), targetPath, caseSensitivity, handler);
+        }
+        return handler.handleUnrelatedToAnyChild();
+    }
+
+    @Override
+    public <RESULT> ChildMap<RESULT> invalidate(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, InvalidationHandler<FileSystemLocationSnapshot, RESULT> handler) {
+        return expand().invalidate(targetPath, caseSensitivity, handler);
+    }
+
+    @Override
+    public ChildMap<FileSystemLocationSnapshot> store(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, StoreHandler<FileSystemLocationSnapshot> storeHandler) {
+        return expand().store(targetPath, caseSensitivity, storeHandler);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        CompactChildMap that = (CompactChildMap) o;
+
+        return parentAbsolutePath.equals(that.parentAbsolutePath)
+            && Arrays.equals(names, that.names)
+            && Arrays.equals(snapshots, that.snapshots)
+            && Arrays.equals(hashes, that.hashes)
+            && Arrays.equals(lastModified, that.lastModified)
+            && Arrays.equals(length, that.length);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = parentAbsolutePath.hashCode();
+        result = 31 * result + Arrays.hashCode(names);
+        result = 31 * result + Arrays.hashCode(hashes);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return stream().collect(Collectors.toList()).toString();
+    }
+}
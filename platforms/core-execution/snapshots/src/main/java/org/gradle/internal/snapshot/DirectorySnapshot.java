@@ -150,6 +150,24 @@ public <T> T accept(FileSystemLocationSnapshotTransformer<T> transformer) {
         return transformer.visitDirectory(this);
     }
 
+    /**
+     * Returns an equivalent snapshot which keeps the regular files in its hierarchy in a compact form.
+     *
+     * The snapshots of the compacted files are re-created whenever they are accessed,
+     * so this trades some time when visiting the hierarchy for less retained memory.
+     */
+    public DirectorySnapshot compact() {
+        if (children instanceof CompactChildMap) {
+            return this;
+        }
+        List<ChildMap.Entry<FileSystemLocationSnapshot>> compactedChildren = children.stream()
+            .map(child -> child.getValue() instanceof DirectorySnapshot
+                ? new ChildMap.Entry<FileSystemLocationSnapshot>(child.getPath(), ((DirectorySnapshot) child.getValue()).compact())
+                : child)
+            .collect(Collectors.toList());
+        return new DirectorySnapshot(getAbsolutePath(), getName(), getAccessType(), contentHash, CompactChildMap.of(getAbsolutePath(), compactedChildren));
+    }
+
     @VisibleForTesting
     public ImmutableList<FileSystemLocationSnapshot> getChildren() {
         return children.stream()
@@ -159,17 +177,18 @@ public ImmutableList<FileSystemLocationSnapshot> getChildren() {
 
     @Override
     protected Optional<MetadataSnapshot> getChildSnapshot(VfsRelativePath targetPath, CaseSensitivity caseSensitivity) {
-        return Optional.of(
-            SnapshotUtil.getMetadataFromChildren(children, targetPath, caseSensitivity, Optional::empty)
-                .orElseGet(() -> missingSnapshotForAbsolutePath(targetPath.getAbsolutePath()))
-        );
+        Optional<MetadataSnapshot> childSnapshot = SnapshotUtil.getMetadataFromChildren(children, targetPath, caseSensitivity);
+        return childSnapshot.isPresent()
+            ? childSnapshot
+            : Optional.of(missingSnapshotForAbsolutePath(targetPath.getAbsolutePath()));
     }
 
     @Override
     protected FileSystemNode getChildNode(VfsRelativePath targetPath, CaseSensitivity caseSensitivity) {
         Optional<FileSystemNode> childNode = SnapshotUtil.getChild(children, targetPath, caseSensitivity);
-        return childNode
-            .orElseGet(() -> missingSnapshotForAbsolutePath(targetPath.getAbsolutePath()));
+        return childNode.isPresent()
+            ? childNode.get()
+            : missingSnapshotForAbsolutePath(targetPath.getAbsolutePath());
     }
 
     @Override
@@ -191,7 +210,7 @@ public void nodeAdded(FileSystemNode node) {
                 });
                 children.stream()
                     .map(ChildMap.Entry::getValue)
-                    .filter(existingChild -> existingChild != child)
+                    .filter(existingChild -> !existingChild.getName().equals(child.getName()))
                     .forEach(diffListener::nodeAdded);
                 return invalidated;
             }
@@ -206,7 +225,7 @@ public void handleExactMatchWithChild(FileSystemLocationSnapshot child) {
                 diffListener.nodeRemoved(DirectorySnapshot.this);
                 children.stream()
                     .map(ChildMap.Entry::getValue)
-                    .filter(existingChild -> existingChild != child)
+                    .filter(existingChild -> !existingChild.getName().equals(child.getName()))
                     .forEach(diffListener::nodeAdded);
             }
 
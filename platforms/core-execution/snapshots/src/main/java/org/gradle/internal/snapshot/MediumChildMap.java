@@ -17,7 +17,6 @@
 package org.gradle.internal.snapshot;
 
 import java.util.List;
-import java.util.Optional;
 
 public class MediumChildMap<T> extends AbstractListChildMap<T> {
     protected MediumChildMap(List<Entry<T>> children) {
@@ -27,9 +26,8 @@ protected MediumChildMap(List<Entry<T>> children) {
     @Override
     public <RESULT> RESULT withNode(VfsRelativePath targetPath, CaseSensitivity caseSensitivity, NodeHandler<T, RESULT> handler) {
         for (Entry<T> entry : entries) {
-            Optional<RESULT> ancestorDescendantOrExactMatchResult = entry.handleAncestorDescendantOrExactMatch(targetPath, caseSensitivity, handler);
-            if (ancestorDescendantOrExactMatchResult.isPresent()) {
-                return ancestorDescendantOrExactMatchResult.get();
+            if (entry.isAncestorDescendantOrExactMatch(targetPath, caseSensitivity)) {
+                return entry.withNode(targetPath, caseSensitivity, handler);
             }
         }
         return handler.handleUnrelatedToAnyChild();
@@ -18,6 +18,7 @@
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.Function;
 
 public abstract class SearchUtil {
 
@@ -69,4 +70,54 @@ public static <T> int binarySearch(List<T> sortedElements, Comparable<T> key) {
                 return -(low + 1);  // key not found
         }
     }
+
+    /**
+     * Does a binary search for the element sharing the first segment with the target path.
+     *
+     * Same as {@link #binarySearch(List, Comparable)} with {@link VfsRelativePath#compareToFirstSegment(String, CaseSensitivity)},
+     * without allocating a comparable for each search.
+     *
+     * @param sortedElements {@link java.util.RandomAccess} list, sorted by the first segment of the paths of the elements.
+     * @param pathOfElement returns the path of an element. Use a non-capturing function to avoid allocations.
+     */
+    public static <T> int binarySearch(List<T> sortedElements, Function<? super T, String> pathOfElement, VfsRelativePath targetPath, CaseSensitivity caseSensitivity) {
+        int low = 0;
+        int high = sortedElements.size() - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = targetPath.compareToFirstSegment(pathOfElement.apply(sortedElements.get(mid)), caseSensitivity);
+
+            if (cmp > 0) {
+                low = mid + 1;
+            } else if (cmp < 0) {
+                high = mid - 1;
+            } else {
+                return mid; // key found
+            }
+        }
+        return -(low + 1);  // key not found
+    }
+
+    /**
+     * Same as {@link #binarySearch(List, Function, VfsRelativePath, CaseSensitivity)} for an array of paths.
+     */
+    public static int binarySearch(String[] sortedPaths, VfsRelativePath targetPath, CaseSensitivity caseSensitivity) {
+        int low = 0;
+        int high = sortedPaths.length - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = targetPath.compareToFirstSegment(sortedPaths[mid], caseSensitivity);
+
+            if (cmp > 0) {
+                low = mid + 1;
+            } else if (cmp < 0) {
+                high = mid - 1;
+            } else {
+                return mid; // key found
+            }
+        }
+        return -(low + 1);  // key not found
+    }
 }
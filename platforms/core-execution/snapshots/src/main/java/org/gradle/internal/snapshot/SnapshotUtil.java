@@ -22,7 +22,6 @@
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Supplier;
 
 public class SnapshotUtil {
 
@@ -53,52 +52,15 @@ public static Map<String, FileSystemLocationSnapshot> rootIndex(FileSystemSnapsh
         return index;
     }
 
-    public static <T extends FileSystemNode> Optional<MetadataSnapshot> getMetadataFromChildren(ChildMap<T> children, VfsRelativePath targetPath, CaseSensitivity caseSensitivity, Supplier<Optional<MetadataSnapshot>> noChildFoundResult) {
-        return children.withNode(targetPath, caseSensitivity, new ChildMap.NodeHandler<T, Optional<MetadataSnapshot>>() {
-            @Override
-            public Optional<MetadataSnapshot> handleAsDescendantOfChild(VfsRelativePath pathInChild, T child) {
-                return child.getSnapshot(pathInChild, caseSensitivity);
-            }
-
-            @Override
-            public Optional<MetadataSnapshot> handleAsAncestorOfChild(String childPath, T child) {
-                return noChildFoundResult.get();
-            }
-
-            @Override
-            public Optional<MetadataSnapshot> handleExactMatchWithChild(T child) {
-                return child.getSnapshot();
-            }
-
-            @Override
-            public Optional<MetadataSnapshot> handleUnrelatedToAnyChild() {
-                return noChildFoundResult.get();
-            }
-        });
+    /**
+     * Returns the metadata of the target path from the children, or {@link Optional#empty()} when no child contains it.
+     */
+    public static <T extends FileSystemNode> Optional<MetadataSnapshot> getMetadataFromChildren(ChildMap<T> children, VfsRelativePath targetPath, CaseSensitivity caseSensitivity) {
+        return children.withNode(targetPath, caseSensitivity, MetadataFromChildHandler.of(caseSensitivity));
     }
 
     public static <T extends FileSystemNode> Optional<FileSystemNode> getChild(ChildMap<T> children, VfsRelativePath targetPath, CaseSensitivity caseSensitivity) {
-        return children.withNode(targetPath, caseSensitivity, new ChildMap.NodeHandler<T, Optional<FileSystemNode>>() {
-            @Override
-            public Optional<FileSystemNode> handleAsDescendantOfChild(VfsRelativePath pathInChild, T child) {
-                return child.getNode(pathInChild, caseSensitivity);
-            }
-
-            @Override
-            public Optional<FileSystemNode> handleAsAncestorOfChild(String childPath, T child) {
-                return Optional.of(child);
-            }
-
-            @Override
-            public Optional<FileSystemNode> handleExactMatchWithChild(T child) {
-                return Optional.of(child);
-            }
-
-            @Override
-            public Optional<FileSystemNode> handleUnrelatedToAnyChild() {
-                return Optional.empty();
-            }
-        });
+        return children.withNode(targetPath, caseSensitivity, ChildNodeHandler.of(caseSensitivity));
     }
 
     public static ImmutableListMultimap<String, HashCode> getRootHashes(FileSystemSnapshot roots) {
@@ -134,4 +96,85 @@ public Long visitMissing(MissingFileSnapshot missingSnapshot) {
             }
         });
     }
+
+    /**
+     * Handler for looking up metadata in children.
+     *
+     * The handlers are stateless apart from the case sensitivity, so we use one instance per case sensitivity
+     * instead of allocating a new one for each level of a lookup.
+     */
+    private static class MetadataFromChildHandler<T extends FileSystemNode> implements ChildMap.NodeHandler<T, Optional<MetadataSnapshot>> {
+        private static final MetadataFromChildHandler<?> CASE_SENSITIVE = new MetadataFromChildHandler<>(CaseSensitivity.CASE_SENSITIVE);
+        private static final MetadataFromChildHandler<?> CASE_INSENSITIVE = new MetadataFromChildHandler<>(CaseSensitivity.CASE_INSENSITIVE);
+
+        private final CaseSensitivity caseSensitivity;
+
+        private MetadataFromChildHandler(CaseSensitivity caseSensitivity) {
+            this.caseSensitivity = caseSensitivity;
+        }
+
+        @SuppressWarnings("unchecked")
+        public static <T extends FileSystemNode> MetadataFromChildHandler<T> of(CaseSensitivity caseSensitivity) {
+            return (MetadataFromChildHandler<T>) (caseSensitivity == CaseSensitivity.CASE_SENSITIVE ? CASE_SENSITIVE : CASE_INSENSITIVE);
+        }
+
+        @Override
+        public Optional<MetadataSnapshot> handleAsDescendantOfChild(VfsRelativePath pathInChild, T child) {
+            return child.getSnapshot(pathInChild, caseSensitivity);
+        }
+
+        @Override
+        public Optional<MetadataSnapshot> handleAsAncestorOfChild(String childPath, T child) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<MetadataSnapshot> handleExactMatchWithChild(T child) {
+            return child.getSnapshot();
+        }
+
+        @Override
+        public Optional<MetadataSnapshot> handleUnrelatedToAnyChild() {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Handler for looking up nodes in children, one instance per case sensitivity like {@link MetadataFromChildHandler}.
+     */
+    private static class ChildNodeHandler<T extends FileSystemNode> implements ChildMap.NodeHandler<T, Optional<FileSystemNode>> {
+        private static final ChildNodeHandler<?> CASE_SENSITIVE = new ChildNodeHandler<>(CaseSensitivity.CASE_SENSITIVE);
+        private static final ChildNodeHandler<?> CASE_INSENSITIVE = new ChildNodeHandler<>(CaseSensitivity.CASE_INSENSITIVE);
+
+        private final CaseSensitivity caseSensitivity;
+
+        private ChildNodeHandler(CaseSensitivity caseSensitivity) {
+            this.caseSensitivity = caseSensitivity;
+        }
+
+        @SuppressWarnings("unchecked")
+        public static <T extends FileSystemNode> ChildNodeHandler<T> of(CaseSensitivity caseSensitivity) {
+            return (ChildNodeHandler<T>) (caseSensitivity == CaseSensitivity.CASE_SENSITIVE ? CASE_SENSITIVE : CASE_INSENSITIVE);
+        }
+
+        @Override
+        public Optional<FileSystemNode> handleAsDescendantOfChild(VfsRelativePath pathInChild, T child) {
+            return child.getNode(pathInChild, caseSensitivity);
+        }
+
+        @Override
+        public Optional<FileSystemNode> handleAsAncestorOfChild(String childPath, T child) {
+            return Optional.of(child);
+        }
+
+        @Override
+        public Optional<FileSystemNode> handleExactMatchWithChild(T child) {
+            return Optional.of(child);
+        }
+
+        @Override
+        public Optional<FileSystemNode> handleUnrelatedToAnyChild() {
+            return Optional.empty();
+        }
+    }
 }
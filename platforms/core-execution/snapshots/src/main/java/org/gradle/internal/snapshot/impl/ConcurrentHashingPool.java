@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl;
+
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.jspecify.annotations.Nullable;
+
+import java.io.Closeable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * The fork-join pool shared by the build session for hashing files concurrently,
+ * such as when {@link DirectorySnapshotter} walks a directory hierarchy.
+ *
+ * <p>The pool is shut down when the build session ends.</p>
+ */
+@ServiceScope(Scope.BuildSession.class)
+public class ConcurrentHashingPool implements Closeable {
+
+    /**
+     * Hashes on the calling thread.
+     */
+    public static final ConcurrentHashingPool SEQUENTIAL = new ConcurrentHashingPool(null);
+
+    @Nullable
+    private final ForkJoinPool forkJoinPool;
+
+    private ConcurrentHashingPool(@Nullable ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * Creates a pool with the given number of threads.
+     * A parallelism of 1 or less hashes sequentially.
+     */
+    public static ConcurrentHashingPool create(int parallelism) {
+        if (parallelism <= 1) {
+            return SEQUENTIAL;
+        }
+        return new ConcurrentHashingPool(new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Concurrent hashing " + thread.getPoolIndex());
+            return thread;
+        }, null, false));
+    }
+
+    /**
+     * The pool to fork hashing tasks on, or {@code null} when hashing sequentially.
+     */
+    @Nullable
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    @Override
+    public void close() {
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdownNow();
+        }
+    }
+}
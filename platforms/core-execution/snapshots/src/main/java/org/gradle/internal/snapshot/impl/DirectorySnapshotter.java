@@ -16,7 +16,6 @@
 
 package org.gradle.internal.snapshot.impl;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Interner;
@@ -57,6 +56,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -90,12 +90,28 @@ public Iterable<String> getRemappedSegments(Iterable<String> segments) {
     private final Interner<String> stringInterner;
     private final DefaultExcludes defaultExcludes;
     private final DirectorySnapshotterStatistics.Collector collector;
+    @Nullable
+    private final ParallelDirectorySnapshotter parallelSnapshotter;
 
     public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector) {
+        this(hasher, stringInterner, defaultExcludes, collector, ConcurrentHashingPool.SEQUENTIAL);
+    }
+
+    public DirectorySnapshotter(
+        FileHasher hasher,
+        Interner<String> stringInterner,
+        Collection<String> defaultExcludes,
+        DirectorySnapshotterStatistics.Collector collector,
+        ConcurrentHashingPool hashingPool
+    ) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
         this.collector = collector;
+        ForkJoinPool forkJoinPool = hashingPool.getForkJoinPool();
+        this.parallelSnapshotter = forkJoinPool == null
+            ? null
+            : new ParallelDirectorySnapshotter(forkJoinPool, hasher, stringInterner, this.defaultExcludes, collector);
     }
 
     /**
@@ -104,6 +120,9 @@ public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner,
      * Follows symlinks and includes them in the returned snapshot.
      * Snapshots of followed symlinks are marked with {@link AccessType#VIA_SYMLINK}.
      *
+     * When created with a parallel {@link ConcurrentHashingPool}, unfiltered hierarchies without symlinks are walked and hashed concurrently.
+     * The resulting snapshot is the same as the one produced sequentially.
+     *
      * @param absolutePath The absolute path of the directory to snapshot.
      * @param predicate A predicate that determines which files to include in the snapshot.
      *                  {@code null} means to include everything.
@@ -120,9 +139,16 @@ public FileSystemLocationSnapshot snapshot(
         Map<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots,
         Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder
     ) {
+        Path rootPath = Paths.get(absolutePath);
+        if (parallelSnapshotter != null && predicate == null) {
+            DirectorySnapshot result = parallelSnapshotter.snapshot(rootPath, previouslyKnownSnapshots);
+            if (result != null) {
+                unfilteredSnapshotRecorder.accept(result);
+                return result;
+            }
+        }
         try {
             AtomicBoolean hasBeenFiltered = new AtomicBoolean();
-            Path rootPath = Paths.get(absolutePath);
             PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, previouslyKnownSnapshots, unfilteredSnapshotRecorder);
             Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
             FileSystemLocationSnapshot result = visitor.getResult();
@@ -181,8 +207,7 @@ public Iterable<String> getRemappedSegments(Iterable<String> segments) {
         }
     }
 
-    @VisibleForTesting
-    static class DefaultExcludes {
+    public static class DefaultExcludes {
         private final ImmutableSet<String> excludeFileNames;
         private final ImmutableSet<String> excludedDirNames;
         private final Predicate<String> excludedFileNameSpec;
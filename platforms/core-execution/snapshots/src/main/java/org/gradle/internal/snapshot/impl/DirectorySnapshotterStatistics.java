@@ -48,12 +48,25 @@ public interface DirectorySnapshotterStatistics {
      */
     long getFailedFiles();
 
+    /**
+     * The number of directory trees visited in parallel.
+     */
+    long getParallelVisitedHierarchyCount();
+
+    /**
+     * The average number of threads busy while visiting directory trees in parallel.
+     */
+    double getParallelism();
+
     @ServiceScope(Scope.Global.class)
     class Collector {
         private final AtomicLong hierarchyCount = new AtomicLong();
         private final AtomicLong directoryCount = new AtomicLong();
         private final AtomicLong fileCount = new AtomicLong();
         private final AtomicLong failedFileCount = new AtomicLong();
+        private final AtomicLong parallelHierarchyCount = new AtomicLong();
+        private final AtomicLong parallelBusyNanos = new AtomicLong();
+        private final AtomicLong parallelWallNanos = new AtomicLong();
 
         public void recordVisitHierarchy() {
             hierarchyCount.incrementAndGet();
@@ -71,11 +84,30 @@ public void recordVisitFileFailed() {
             failedFileCount.incrementAndGet();
         }
 
+        /**
+         * Records a directory tree that has been visited in parallel.
+         *
+         * @param busyNanos the time spent by all threads on visiting the tree
+         * @param wallNanos the time elapsed while visiting the tree
+         */
+        public void recordParallelVisitHierarchy(long directoryCount, long fileCount, long busyNanos, long wallNanos) {
+            hierarchyCount.incrementAndGet();
+            this.directoryCount.addAndGet(directoryCount);
+            this.fileCount.addAndGet(fileCount);
+            parallelHierarchyCount.incrementAndGet();
+            parallelBusyNanos.addAndGet(busyNanos);
+            parallelWallNanos.addAndGet(wallNanos);
+        }
+
         public DirectorySnapshotterStatistics collect() {
             long hierarchyCount = this.hierarchyCount.getAndSet(0);
             long directoryCount = this.directoryCount.getAndSet(0);
             long fileCount = this.fileCount.getAndSet(0);
             long failedFileCount = this.failedFileCount.getAndSet(0);
+            long parallelHierarchyCount = this.parallelHierarchyCount.getAndSet(0);
+            long parallelBusyNanos = this.parallelBusyNanos.getAndSet(0);
+            long parallelWallNanos = this.parallelWallNanos.getAndSet(0);
+            double parallelism = parallelWallNanos == 0 ? 0 : (double) parallelBusyNanos / parallelWallNanos;
 
             return new DirectorySnapshotterStatistics() {
                 @Override
@@ -98,10 +130,25 @@ public long getFailedFiles() {
                     return failedFileCount;
                 }
 
+                @Override
+                public long getParallelVisitedHierarchyCount() {
+                    return parallelHierarchyCount;
+                }
+
+                @Override
+                public double getParallelism() {
+                    return parallelism;
+                }
+
                 @Override
                 public String toString() {
-                    return MessageFormat.format("Snapshot {0,number,integer} directory hierarchies (visited {1,number,integer} directories, {2,number,integer} files and {3,number,integer} failed files)",
+                    String summary = MessageFormat.format("Snapshot {0,number,integer} directory hierarchies (visited {1,number,integer} directories, {2,number,integer} files and {3,number,integer} failed files)",
                         hierarchyCount, directoryCount, fileCount, failedFileCount);
+                    if (parallelHierarchyCount == 0) {
+                        return summary;
+                    }
+                    return summary + MessageFormat.format(", {0,number,integer} of them in parallel with an average parallelism of {1,number,#.#}",
+                        parallelHierarchyCount, parallelism);
                 }
             };
         }
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl;
+
+import com.google.common.collect.Interner;
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.DirectorySnapshotBuilder;
+import org.gradle.internal.snapshot.FileSystemLeafSnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.MerkleDirectorySnapshotBuilder;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.gradle.internal.snapshot.DirectorySnapshotBuilder.EmptyDirectoryHandlingStrategy.INCLUDE_EMPTY_DIRS;
+
+/**
+ * Snapshots a directory hierarchy on a fork-join pool.
+ *
+ * Each directory is listed by its own task, which forks the tasks for its subdirectories and splits hashing its files into batches.
+ * The snapshot of a directory is built from its children sorted by name, so the result is the same as the one of the sequential walk.
+ *
+ * Only hierarchies without symbolic links and other special files are handled here.
+ * For anything else, including failures, {@link #snapshot(Path, Map)} returns {@code null},
+ * and the caller falls back to the sequential walk to produce the snapshot or the failure.
+ */
+class ParallelDirectorySnapshotter {
+    private static final int FILES_PER_BATCH = 32;
+    private static final LinkOption[] DONT_FOLLOW_SYMLINKS = {LinkOption.NOFOLLOW_LINKS};
+
+    private final ForkJoinPool forkJoinPool;
+    private final FileHasher hasher;
+    private final Interner<String> stringInterner;
+    private final DirectorySnapshotter.DefaultExcludes defaultExcludes;
+    private final DirectorySnapshotterStatistics.Collector collector;
+
+    public ParallelDirectorySnapshotter(
+        ForkJoinPool forkJoinPool,
+        FileHasher hasher,
+        Interner<String> stringInterner,
+        DirectorySnapshotter.DefaultExcludes defaultExcludes,
+        DirectorySnapshotterStatistics.Collector collector
+    ) {
+        this.forkJoinPool = forkJoinPool;
+        this.hasher = hasher;
+        this.stringInterner = stringInterner;
+        this.defaultExcludes = defaultExcludes;
+        this.collector = collector;
+    }
+
+    /**
+     * Snapshots the directory at the given root, or returns {@code null} if the sequential walk needs to take over.
+     */
+    @Nullable
+    public DirectorySnapshot snapshot(Path root, Map<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots) {
+        long startTime = System.nanoTime();
+        try {
+            if (!Files.readAttributes(root, BasicFileAttributes.class, DONT_FOLLOW_SYMLINKS).isDirectory()) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        Walk walk = new Walk(previouslyKnownSnapshots);
+        DirectorySnapshot result;
+        try {
+            Path rootName = root.getFileName();
+            result = walk.snapshotDirectory(root, intern(root.toString()), rootName == null ? "" : intern(rootName.toString()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+        collector.recordParallelVisitHierarchy(walk.directoryCount.sum(), walk.fileCount.sum(), walk.busyNanos.sum(), System.nanoTime() - startTime);
+        return result;
+    }
+
+    private String intern(String string) {
+        return stringInterner.intern(string);
+    }
+
+    /**
+     * Thrown to abandon the parallel walk.
+     */
+    private static class FallbackToSequentialWalk extends RuntimeException {
+        public FallbackToSequentialWalk() {
+            super(null, null, false, false);
+        }
+    }
+
+    private class Walk {
+        private final Map<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots;
+        private final LongAdder directoryCount = new LongAdder();
+        private final LongAdder fileCount = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private volatile boolean aborted;
+
+        public Walk(Map<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots) {
+            this.previouslyKnownSnapshots = previouslyKnownSnapshots;
+        }
+
+        public DirectorySnapshot snapshotDirectory(Path root, String absolutePath, String name) {
+            directoryCount.increment();
+            FileSystemLocationSnapshot previouslyKnownSnapshot = previouslyKnownSnapshots.get(absolutePath);
+            if (previouslyKnownSnapshot instanceof DirectorySnapshot) {
+                return (DirectorySnapshot) previouslyKnownSnapshot;
+            } else if (previouslyKnownSnapshot != null) {
+                throw new FallbackToSequentialWalk();
+            }
+            return forkJoinPool.invoke(new DirectoryTask(this, root, absolutePath, name));
+        }
+
+        public RuntimeException abort() {
+            aborted = true;
+            return new FallbackToSequentialWalk();
+        }
+
+        public void checkNotAborted() {
+            if (aborted) {
+                throw new FallbackToSequentialWalk();
+            }
+        }
+    }
+
+    private class DirectoryTask extends RecursiveTask<DirectorySnapshot> {
+        private final Walk walk;
+        private final Path directory;
+        private final String absolutePath;
+        private final String name;
+
+        public DirectoryTask(Walk walk, Path directory, String absolutePath, String name) {
+            this.walk = walk;
+            this.directory = directory;
+            this.absolutePath = absolutePath;
+            this.name = name;
+        }
+
+        @Override
+        protected DirectorySnapshot compute() {
+            walk.checkNotAborted();
+            long startTime = System.nanoTime();
+            List<FileSystemLocationSnapshot> children = new ArrayList<>();
+            List<DirectoryTask> subdirectoryTasks = new ArrayList<>();
+            List<PendingFile> pendingFiles = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class, DONT_FOLLOW_SYMLINKS);
+                    String entryName = intern(entry.getFileName().toString());
+                    if (attributes.isDirectory()) {
+                        walk.directoryCount.increment();
+                        if (!defaultExcludes.excludeDir(entryName)) {
+                            String entryPath = intern(entry.toString());
+                            FileSystemLocationSnapshot previouslyKnownSnapshot = walk.previouslyKnownSnapshots.get(entryPath);
+                            if (previouslyKnownSnapshot instanceof DirectorySnapshot) {
+                                children.add(previouslyKnownSnapshot);
+                            } else if (previouslyKnownSnapshot != null) {
+                                throw walk.abort();
+                            } else {
+                                DirectoryTask subdirectoryTask = new DirectoryTask(walk, entry, entryPath, entryName);
+                                subdirectoryTask.fork();
+                                subdirectoryTasks.add(subdirectoryTask);
+                            }
+                        }
+                    } else if (attributes.isRegularFile()) {
+                        walk.fileCount.increment();
+                        if (!defaultExcludes.excludeFile(entryName)) {
+                            String entryPath = intern(entry.toString());
+                            FileSystemLocationSnapshot previouslyKnownSnapshot = walk.previouslyKnownSnapshots.get(entryPath);
+                            if (previouslyKnownSnapshot instanceof FileSystemLeafSnapshot) {
+                                children.add(previouslyKnownSnapshot);
+                            } else if (previouslyKnownSnapshot != null) {
+                                throw walk.abort();
+                            } else {
+                                pendingFiles.add(new PendingFile(entry, entryPath, entryName, attributes));
+                            }
+                        }
+                    } else {
+                        // Symbolic links and special files are handled by the sequential walk
+                        throw walk.abort();
+                    }
+                }
+            } catch (IOException e) {
+                throw walk.abort();
+            }
+            walk.busyNanos.add(System.nanoTime() - startTime);
+
+            RegularFileSnapshot[] fileSnapshots = new RegularFileSnapshot[pendingFiles.size()];
+            try {
+                new FileBatchTask(walk, pendingFiles, fileSnapshots, 0, fileSnapshots.length).invoke();
+                for (DirectoryTask subdirectoryTask : subdirectoryTasks) {
+                    children.add(subdirectoryTask.join());
+                }
+            } catch (RuntimeException e) {
+                throw walk.abort();
+            }
+
+            startTime = System.nanoTime();
+            DirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.sortingRequired();
+            builder.enterDirectory(AccessType.DIRECT, absolutePath, name, INCLUDE_EMPTY_DIRS);
+            for (RegularFileSnapshot fileSnapshot : fileSnapshots) {
+                builder.visitLeafElement(fileSnapshot);
+            }
+            for (FileSystemLocationSnapshot child : children) {
+                if (child instanceof DirectorySnapshot) {
+                    builder.visitDirectory((DirectorySnapshot) child);
+                } else {
+                    builder.visitLeafElement((FileSystemLeafSnapshot) child);
+                }
+            }
+            DirectorySnapshot result = (DirectorySnapshot) builder.leaveDirectory();
+            walk.busyNanos.add(System.nanoTime() - startTime);
+            return result;
+        }
+    }
+
+    private class FileBatchTask extends RecursiveAction {
+        private final Walk walk;
+        private final List<PendingFile> files;
+        private final RegularFileSnapshot[] snapshots;
+        private final int from;
+        private final int to;
+
+        public FileBatchTask(Walk walk, List<PendingFile> files, RegularFileSnapshot[] snapshots, int from, int to) {
+            this.walk = walk;
+            this.files = files;
+            this.snapshots = snapshots;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > FILES_PER_BATCH) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                    new FileBatchTask(walk, files, snapshots, from, middle),
+                    new FileBatchTask(walk, files, snapshots, middle, to)
+                );
+                return;
+            }
+            long startTime = System.nanoTime();
+            for (int i = from; i < to; i++) {
+                walk.checkNotAborted();
+                snapshots[i] = files.get(i).snapshot();
+            }
+            walk.busyNanos.add(System.nanoTime() - startTime);
+        }
+    }
+
+    private class PendingFile {
+        private final Path path;
+        private final String absolutePath;
+        private final String name;
+        private final BasicFileAttributes attributes;
+
+        public PendingFile(Path path, String absolutePath, String name, BasicFileAttributes attributes) {
+            this.path = path;
+            this.absolutePath = absolutePath;
+            this.name = name;
+            this.attributes = attributes;
+        }
+
+        public RegularFileSnapshot snapshot() {
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            long fileLength = attributes.size();
+            FileMetadata metadata = DefaultFileMetadata.file(lastModified, fileLength, AccessType.DIRECT);
+            HashCode hash = hasher.hash(path.toFile(), fileLength, lastModified);
+            return new RegularFileSnapshot(absolutePath, name, hash, metadata);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.vfs;
+
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+
+import java.util.Collection;
+
+/**
+ * Records the locations reported as changed by the file system while some work is running,
+ * so snapshots taken before the work can be reused for everything the work didn't touch.
+ */
+@ServiceScope(Scope.UserHome.class)
+public interface FileSystemChangeRecorder {
+    FileSystemChangeRecorder NOT_RECORDING = knownSnapshots -> Recording.NOT_RECORDED;
+
+    /**
+     * Starts recording changes to the given snapshots.
+     *
+     * The snapshots are expected to be the ones currently stored in the virtual file system.
+     * If they are not, or if changes to them cannot be reliably reported, then nothing is recorded.
+     */
+    Recording startRecording(Collection<FileSystemLocationSnapshot> knownSnapshots);
+
+    interface Recording {
+        Recording NOT_RECORDED = new Recording() {
+            @Override
+            public boolean stopAndRestoreUnchanged() {
+                return false;
+            }
+
+            @Override
+            public void discard() {
+            }
+        };
+
+        /**
+         * Stops recording and stores the known snapshots in the virtual file system,
+         * without the locations that have been reported as changed in the meantime.
+         *
+         * Snapshotting the known locations afterwards only needs to look at the changed locations.
+         *
+         * @return whether the unchanged snapshots have been restored.
+         */
+        boolean stopAndRestoreUnchanged();
+
+        /**
+         * Stops recording without updating the virtual file system.
+         */
+        void discard();
+    }
+}
@@ -24,6 +24,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -132,6 +133,28 @@ public void invalidate(Iterable<String> locations) {
         });
     }
 
+    /**
+     * Stores the snapshots and then invalidates the given locations in a single update,
+     * so nobody can observe the stored snapshots without the invalidations.
+     *
+     * Needs to be called while holding the update lock.
+     */
+    protected SnapshotHierarchy storeAndInvalidate(SnapshotHierarchy currentRoot, Collection<FileSystemLocationSnapshot> snapshots, Collection<String> invalidatedLocations) {
+        SnapshotHierarchy result = currentRoot;
+        for (FileSystemLocationSnapshot snapshot : snapshots) {
+            SnapshotHierarchy previousResult = result;
+            result = updateNotifyingListeners(diffListener -> previousResult.store(snapshot.getAbsolutePath(), snapshot, diffListener));
+        }
+        VersionHierarchyRoot newVersionHierarchyRoot = versionHierarchyRoot;
+        for (String location : invalidatedLocations) {
+            SnapshotHierarchy previousResult = result;
+            result = updateNotifyingListeners(diffListener -> previousResult.invalidate(location, diffListener));
+            newVersionHierarchyRoot = newVersionHierarchyRoot.updateVersion(location);
+        }
+        versionHierarchyRoot = newVersionHierarchyRoot;
+        return result;
+    }
+
     @Override
     public void invalidateAll() {
         LOGGER.debug("Invalidating the whole VFS");
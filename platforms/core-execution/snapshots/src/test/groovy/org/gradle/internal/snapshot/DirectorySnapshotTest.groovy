@@ -93,4 +93,38 @@ class DirectorySnapshotTest extends AbstractFileSystemLocationSnapshotTest {
         then:
         !relocated.present
     }
+
+    def "compacted snapshot has the same hierarchy"() {
+        def testDirectory = temporaryFolder.createDir("test")
+        def sourceDir = testDirectory.createDir("source-directory")
+        def childDir = sourceDir.createDir("child")
+        def childFile = childDir.createFile("child.txt")
+        def linkFile = sourceDir.createFile("link.txt")
+        def missingFile = sourceDir.file("missing.txt")
+        def parentFile = sourceDir.createFile("parent.txt")
+
+        def directorySnapshot = new DirectorySnapshot(sourceDir.absolutePath, sourceDir.name, FileMetadata.AccessType.DIRECT, TestHashCodes.hashCodeFrom(1234), [
+            new DirectorySnapshot(childDir.absolutePath, childDir.name, FileMetadata.AccessType.DIRECT, TestHashCodes.hashCodeFrom(2345), [
+                new RegularFileSnapshot(childFile.absolutePath, childFile.name, TestHashCodes.hashCodeFrom(9876), DefaultFileMetadata.file(123, 456, FileMetadata.AccessType.DIRECT))
+            ]),
+            new RegularFileSnapshot(linkFile.absolutePath, linkFile.name, TestHashCodes.hashCodeFrom(7654), DefaultFileMetadata.file(234, 567, FileMetadata.AccessType.VIA_SYMLINK)),
+            new MissingFileSnapshot(missingFile.absolutePath, missingFile.name, FileMetadata.AccessType.VIA_SYMLINK),
+            new RegularFileSnapshot(parentFile.absolutePath, parentFile.name, TestHashCodes.hashCodeFrom(8765), DefaultFileMetadata.file(123, 456, FileMetadata.AccessType.DIRECT))
+        ])
+
+        when:
+        def compacted = directorySnapshot.compact()
+
+        then:
+        compacted == directorySnapshot
+        compacted.compact().is(compacted)
+        SnapshotUtil.indexByAbsolutePath(compacted) == SnapshotUtil.indexByAbsolutePath(directorySnapshot)
+
+        when:
+        def compactedFile = compacted.getSnapshot(VfsRelativePath.of(parentFile.absolutePath, sourceDir.absolutePath.length() + 1), CaseSensitivity.CASE_SENSITIVE).get()
+
+        then:
+        compactedFile == directorySnapshot.children[3]
+        compactedFile.metadata == DefaultFileMetadata.file(123, 456, FileMetadata.AccessType.DIRECT)
+    }
 }
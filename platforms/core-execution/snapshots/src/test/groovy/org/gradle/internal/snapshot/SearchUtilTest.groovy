@@ -36,4 +36,23 @@ class SearchUtilTest extends Specification {
         sortedChildren = children.toSorted()
         expectedResult = Collections.binarySearch(sortedChildren, searchedChild)
     }
+
+    def "search by first segment of #targetPath in #children finds same index as searching with a comparable"() {
+        def relativePath = VfsRelativePath.of(targetPath)
+        def expectedResult = SearchUtil.binarySearch(children) { child -> relativePath.compareToFirstSegment(child, caseSensitivity) }
+
+        expect:
+        SearchUtil.binarySearch(children, { it }, relativePath, caseSensitivity) == expectedResult
+        SearchUtil.binarySearch(children as String[], relativePath, caseSensitivity) == expectedResult
+
+        where:
+        children                       | targetPath     | caseSensitivity
+        ["a", "b", "ba", "bb", "cc"]   | "/b"           | CaseSensitivity.CASE_SENSITIVE
+        ["a", "b", "ba", "bb", "cc"]   | "/ba/some/dir" | CaseSensitivity.CASE_SENSITIVE
+        ["a", "b", "ba", "bb", "cc"]   | "/bab"         | CaseSensitivity.CASE_SENSITIVE
+        ["a", "B", "ba", "Bb", "cc"]   | "/bb/file"     | CaseSensitivity.CASE_INSENSITIVE
+        []                             | "/a"           | CaseSensitivity.CASE_SENSITIVE
+        ["b"]                          | "/a"           | CaseSensitivity.CASE_SENSITIVE
+        ["a"]                          | "/b"           | CaseSensitivity.CASE_SENSITIVE
+    }
 }
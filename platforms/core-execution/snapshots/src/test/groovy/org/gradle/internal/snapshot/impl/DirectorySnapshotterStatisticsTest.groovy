@@ -167,6 +167,25 @@ class DirectorySnapshotterStatisticsTest extends Specification {
         "file" | "java.io.FileNotFoundException: %s (Permission denied)"
     }
 
+    def "records parallel visit of directory hierarchy"() {
+        given:
+        def root = tmpDir.createDir("root")
+        root.createDir("sub-dir-1").createFile("file.txt")
+        root.createDir("sub-dir-2").createFile("file.txt")
+        def snapshottingPool = ConcurrentHashingPool.create(2)
+        def parallelSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), [], statisticsCollector, snapshottingPool)
+
+        when:
+        parallelSnapshotter.snapshot(root.absolutePath, null, [:], {})
+
+        then:
+        1 * statisticsCollector.recordParallelVisitHierarchy(3, 2, _, _)
+        0 * _
+
+        cleanup:
+        snapshottingPool?.close()
+    }
+
     private snapshot(File root) {
         directorySnapshotter.snapshot(root.absolutePath, null, [:]) {}
     }
@@ -530,6 +530,54 @@ class DirectorySnapshotterTest extends Specification {
         pipe.delete()
     }
 
+    def "parallel snapshot is the same as the sequential one"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        (1..5).each { dir ->
+            (1..50).each { file ->
+                rootDir.file("dir$dir/sub/file${file}.txt").text = "content $dir $file"
+            }
+        }
+        rootDir.createDir("empty")
+        rootDir.file(".git/config").createFile()
+        def snapshottingPool = ConcurrentHashingPool.create(4)
+        def parallelSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), DirectoryScanner.getDefaultExcludes() as List, statisticsCollector, snapshottingPool)
+        def sequentialSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), DirectoryScanner.getDefaultExcludes() as List, statisticsCollector)
+
+        when:
+        def parallelSnapshot = parallelSnapshotter.snapshot(rootDir.absolutePath, null, [:], unfilteredSubSnapshotsCollector)
+        def sequentialSnapshot = sequentialSnapshotter.snapshot(rootDir.absolutePath, null, [:], {})
+
+        then:
+        unfilteredSubsnapshots == [parallelSnapshot]
+        parallelSnapshot.hash == sequentialSnapshot.hash
+        SnapshotVisitorUtil.getAbsolutePaths(parallelSnapshot, true) == SnapshotVisitorUtil.getAbsolutePaths(sequentialSnapshot, true)
+        !SnapshotVisitorUtil.getRelativePaths(parallelSnapshot, true).contains(".git")
+
+        cleanup:
+        snapshottingPool?.close()
+    }
+
+    @Requires(UnitTestPreconditions.Symlinks)
+    def "parallel snapshot falls back to sequential walk for symlinks"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.file("target/file.txt").createFile()
+        rootDir.file("link").createLink(rootDir.file("target"))
+        def snapshottingPool = ConcurrentHashingPool.create(4)
+        def parallelSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), [], statisticsCollector, snapshottingPool)
+
+        when:
+        def snapshot = parallelSnapshotter.snapshot(rootDir.absolutePath, null, [:], unfilteredSubSnapshotsCollector)
+
+        then:
+        snapshot.hash == directorySnapshotter.snapshot(rootDir.absolutePath, null, [:], {}).hash
+        SnapshotVisitorUtil.getRelativePaths(snapshot, true) as Set == ['', 'link', 'link/file.txt', 'target', 'target/file.txt'] as Set
+
+        cleanup:
+        snapshottingPool?.close()
+    }
+
     def "default excludes are correctly parsed"() {
         def defaultExcludes = new DirectorySnapshotter.DefaultExcludes(DirectoryScanner.getDefaultExcludes() as List)
 
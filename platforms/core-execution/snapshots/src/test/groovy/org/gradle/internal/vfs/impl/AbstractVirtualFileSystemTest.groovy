@@ -117,4 +117,32 @@ class AbstractVirtualFileSystemTest extends ConcurrentSpec implements TestSnapsh
         then:
         vfs.findSnapshot(location).present
     }
+
+    def "stores snapshots and invalidates changed locations in a single update"() {
+        def location = '/my/location'
+        def knownSnapshot = directory(location, [
+            regularFile("${location}/unchanged"),
+            regularFile("${location}/changed")
+        ])
+
+        when:
+        vfs.updateRootUnderLock { root -> vfs.storeAndInvalidate(root, [knownSnapshot], ["${location}/changed".toString()]) }
+        then:
+        vfs.findSnapshot("${location}/unchanged").present
+        !vfs.findSnapshot("${location}/changed").present
+        !vfs.findSnapshot(location).present
+    }
+
+    def "does not store snapshot taken before its location has been invalidated by store and invalidate"() {
+        def location = '/my/location'
+        def changedLocation = "${location}/changed".toString()
+
+        when:
+        vfs.store(changedLocation) { ->
+            vfs.updateRootUnderLock { root -> vfs.storeAndInvalidate(root, [], [changedLocation]) }
+            return regularFile(changedLocation)
+        }
+        then:
+        !vfs.findSnapshot(changedLocation).present
+    }
 }
@@ -26,6 +26,7 @@ dependencies {
     api(libs.inject)
     api(libs.jspecify)
 
+    implementation(projects.buildOption)
     implementation(projects.hashing)
     implementation(projects.requestHandlerWorker)
     implementation(projects.serialization)
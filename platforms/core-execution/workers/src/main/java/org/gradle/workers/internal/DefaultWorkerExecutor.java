@@ -60,6 +60,7 @@
 
 public class DefaultWorkerExecutor implements WorkerExecutor {
     private final ConditionalExecutionQueue<DefaultWorkResult> executionQueue;
+    private final ConditionalExecutionQueue<DefaultWorkResult> noIsolationExecutionQueue;
     private final WorkerFactory daemonWorkerFactory;
     private final WorkerFactory isolatedClassloaderWorkerFactory;
     private final WorkerFactory noIsolationWorkerFactory;
@@ -80,6 +81,7 @@ public DefaultWorkerExecutor(
         WorkerFactory daemonWorkerFactory, WorkerFactory isolatedClassloaderWorkerFactory, WorkerFactory noIsolationWorkerFactory,
         JavaForkOptionsFactory forkOptionsFactory, WorkerThreadRegistry workerThreadRegistry, BuildOperationRunner buildOperationRunner,
         AsyncWorkTracker asyncWorkTracker, WorkerDirectoryProvider workerDirectoryProvider, WorkerExecutionQueueFactory workerExecutionQueueFactory,
+        ConditionalExecutionQueue<DefaultWorkResult> noIsolationExecutionQueue,
         ClassLoaderStructureProvider classLoaderStructureProvider, ActionExecutionSpecFactory actionExecutionSpecFactory, Instantiator instantiator,
         CachedClasspathTransformer classpathTransformer,
         File baseDir,
@@ -90,6 +92,7 @@ public DefaultWorkerExecutor(
         this.noIsolationWorkerFactory = noIsolationWorkerFactory;
         this.forkOptionsFactory = forkOptionsFactory;
         this.executionQueue = workerExecutionQueueFactory.create();
+        this.noIsolationExecutionQueue = noIsolationExecutionQueue;
         this.workerThreadRegistry = workerThreadRegistry;
         this.buildOperationRunner = buildOperationRunner;
         this.asyncWorkTracker = asyncWorkTracker;
@@ -164,10 +167,10 @@ private <T extends WorkParameters> AsyncWorkCompletion submitWork(Class<? extend
             throw new WorkExecutionException(description, t);
         }
 
-        return submitWork(spec, workerFactory, workerRequirement);
+        return submitWork(spec, workerFactory, workerRequirement, queueFor(workActionClass, workerFactory));
     }
 
-    private AsyncWorkCompletion submitWork(IsolatedParametersActionExecutionSpec<?> spec, WorkerFactory workerFactory, WorkerRequirement workerRequirement) {
+    private AsyncWorkCompletion submitWork(IsolatedParametersActionExecutionSpec<?> spec, WorkerFactory workerFactory, WorkerRequirement workerRequirement, ConditionalExecutionQueue<DefaultWorkResult> queue) {
         checkIsManagedThread();
         final BuildOperationRef currentBuildOperation = buildOperationRunner.getCurrentOperation();
         WorkItemExecution execution = new WorkItemExecution(spec.getDisplayName(), () -> {
@@ -178,11 +181,25 @@ private AsyncWorkCompletion submitWork(IsolatedParametersActionExecutionSpec<?>
                 throw new WorkExecutionException(spec.getDisplayName(), t);
             }
         });
-        executionQueue.submit(execution);
+        queue.submit(execution);
         asyncWorkTracker.registerWork(currentBuildOperation, execution);
         return execution;
     }
 
+    /**
+     * Work that is not marked as I/O-bound always runs on the queue that holds a worker lease for each item.
+     */
+    private ConditionalExecutionQueue<DefaultWorkResult> queueFor(Class<?> workActionClass, WorkerFactory workerFactory) {
+        return workerFactory == noIsolationWorkerFactory && IoBoundWorkAction.class.isAssignableFrom(workActionClass) ? noIsolationExecutionQueue : executionQueue;
+    }
+
+    private void expandQueues() {
+        executionQueue.expand();
+        if (noIsolationExecutionQueue != executionQueue) {
+            noIsolationExecutionQueue.expand();
+        }
+    }
+
     private void checkIsManagedThread() {
         if (!workerThreadRegistry.isWorkerThread()) {
             throw new IllegalStateException("An attempt was made to submit work from a thread not managed by Gradle.  Work may only be submitted from a Gradle-managed thread.");
@@ -200,7 +217,7 @@ public void await() throws WorkerExecutionException {
         BuildOperationRef currentOperation = buildOperationRunner.getCurrentOperation();
         try {
             if (asyncWorkTracker.hasUncompletedWork(currentOperation)) {
-                executionQueue.expand();
+                expandQueues();
             }
             asyncWorkTracker.waitForCompletion(currentOperation, RETAIN_PROJECT_LOCKS);
         } catch (DefaultMultiCauseException e) {
@@ -212,7 +229,7 @@ private void await(List<AsyncWorkCompletion> workItems) throws WorkExecutionExce
         BuildOperationRef currentOperation = buildOperationRunner.getCurrentOperation();
         try {
             if (CollectionUtils.any(workItems, workItem -> !workItem.isComplete())) {
-                executionQueue.expand();
+                expandQueues();
             }
             asyncWorkTracker.waitForCompletion(currentOperation, workItems, RETAIN_PROJECT_LOCKS);
         } catch (DefaultMultiCauseException e) {
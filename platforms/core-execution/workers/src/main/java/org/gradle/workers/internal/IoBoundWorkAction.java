@@ -0,0 +1,26 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+/**
+ * Marks a {@link org.gradle.workers.WorkAction} that spends most of its time blocked, for example waiting for network I/O or an external process.
+ *
+ * When running virtual threads for work with no isolation is enabled, such actions run without holding a worker lease.
+ * All other work actions hold a worker lease while they run.
+ */
+public interface IoBoundWorkAction {
+}
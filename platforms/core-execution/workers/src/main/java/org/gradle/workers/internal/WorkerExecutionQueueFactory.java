@@ -22,6 +22,8 @@
 import org.gradle.internal.service.scopes.ServiceScope;
 import org.gradle.internal.work.ConditionalExecutionQueue;
 import org.gradle.internal.work.ConditionalExecutionQueueFactory;
+import org.gradle.internal.work.VirtualThreadConditionalExecutionQueue;
+import org.gradle.internal.work.WorkerThreadRegistry;
 import org.jspecify.annotations.Nullable;
 
 import javax.annotation.concurrent.ThreadSafe;
@@ -30,11 +32,15 @@
 @ServiceScope(Scope.BuildSession.class)
 public class WorkerExecutionQueueFactory implements Factory<ConditionalExecutionQueue<DefaultWorkResult>>, Stoppable {
     public static final String QUEUE_DISPLAY_NAME = "WorkerExecutor Queue";
+    public static final String VIRTUAL_THREAD_QUEUE_DISPLAY_NAME = "WorkerExecutor Virtual Thread Queue";
     private final ConditionalExecutionQueueFactory conditionalExecutionQueueFactory;
+    private final WorkerThreadRegistry workerThreadRegistry;
     private ConditionalExecutionQueue<DefaultWorkResult> queue;
+    private ConditionalExecutionQueue<DefaultWorkResult> virtualThreadQueue;
 
-    public WorkerExecutionQueueFactory(ConditionalExecutionQueueFactory conditionalExecutionQueueFactory) {
+    public WorkerExecutionQueueFactory(ConditionalExecutionQueueFactory conditionalExecutionQueueFactory, WorkerThreadRegistry workerThreadRegistry) {
         this.conditionalExecutionQueueFactory = conditionalExecutionQueueFactory;
+        this.workerThreadRegistry = workerThreadRegistry;
     }
 
     @Nullable
@@ -46,8 +52,25 @@ public synchronized ConditionalExecutionQueue<DefaultWorkResult> create() {
         return queue;
     }
 
+    /**
+     * Returns a queue that runs each work item on a virtual thread, or the shared queue when virtual threads are not supported by the current JVM.
+     * The queue is shared by the whole build session, so the concurrency limit of the first caller applies.
+     */
+    public synchronized ConditionalExecutionQueue<DefaultWorkResult> createVirtualThreadQueue(int maxConcurrency) {
+        if (!VirtualThreadConditionalExecutionQueue.isSupported()) {
+            return create();
+        }
+        if (virtualThreadQueue == null) {
+            virtualThreadQueue = new VirtualThreadConditionalExecutionQueue<>(VIRTUAL_THREAD_QUEUE_DISPLAY_NAME, maxConcurrency, workerThreadRegistry);
+        }
+        return virtualThreadQueue;
+    }
+
     @Override
     public synchronized void stop() {
+        if (virtualThreadQueue != null) {
+            virtualThreadQueue.stop();
+        }
         if (queue != null) {
             queue.stop();
         }
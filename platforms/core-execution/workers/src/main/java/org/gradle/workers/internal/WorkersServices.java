@@ -22,6 +22,9 @@
 import org.gradle.initialization.ClassLoaderRegistry;
 import org.gradle.initialization.GradleUserHomeDirProvider;
 import org.gradle.initialization.layout.ProjectCacheDir;
+import org.gradle.internal.buildoption.IntegerInternalOption;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.classpath.CachedClasspathTransformer;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
@@ -38,6 +41,7 @@
 import org.gradle.internal.snapshot.impl.IsolatableSerializerRegistry;
 import org.gradle.internal.state.ManagedFactoryRegistry;
 import org.gradle.internal.work.AsyncWorkTracker;
+import org.gradle.internal.work.ConditionalExecutionQueue;
 import org.gradle.internal.work.ConditionalExecutionQueueFactory;
 import org.gradle.internal.work.DefaultConditionalExecutionQueueFactory;
 import org.gradle.internal.work.WorkerLeaseRegistry;
@@ -53,6 +57,16 @@
 
 @SuppressWarnings("UnusedMethod")
 public class WorkersServices extends AbstractGradleModuleServices {
+    /**
+     * Runs work items submitted with no isolation whose action implements {@link IoBoundWorkAction} on virtual threads, when supported by the JVM running the build.
+     */
+    public static final InternalFlag NO_ISOLATION_VIRTUAL_THREADS = new InternalFlag("org.gradle.internal.workers.no-isolation.virtual-threads");
+
+    /**
+     * The maximum number of work items with no isolation that run at the same time on virtual threads.
+     */
+    public static final IntegerInternalOption NO_ISOLATION_VIRTUAL_THREADS_MAX_CONCURRENCY = new IntegerInternalOption("org.gradle.internal.workers.no-isolation.virtual-threads.max-concurrency", 256);
+
     @Override
     public void registerGradleUserHomeServices(ServiceRegistration registration) {
         registration.addProvider(new GradleUserHomeServices());
@@ -81,8 +95,8 @@ ConditionalExecutionQueueFactory createConditionalExecutionQueueFactory(Executor
         }
 
         @Provides
-        WorkerExecutionQueueFactory createWorkerExecutionQueueFactory(ConditionalExecutionQueueFactory conditionalExecutionQueueFactory) {
-            return new WorkerExecutionQueueFactory(conditionalExecutionQueueFactory);
+        WorkerExecutionQueueFactory createWorkerExecutionQueueFactory(ConditionalExecutionQueueFactory conditionalExecutionQueueFactory, WorkerLeaseService workerLeaseService) {
+            return new WorkerExecutionQueueFactory(conditionalExecutionQueueFactory, workerLeaseService);
         }
 
         @Provides
@@ -135,8 +149,12 @@ WorkerExecutor createWorkerExecutor(InstantiatorFactory instantiatorFactory,
                                             ActionExecutionSpecFactory actionExecutionSpecFactory,
                                             CachedClasspathTransformer classpathTransformer,
                                             ProjectLayout projectLayout,
-                                            ProjectCacheDir projectCacheDir
+                                            ProjectCacheDir projectCacheDir,
+                                            InternalOptions internalOptions
                                             ) {
+            ConditionalExecutionQueue<DefaultWorkResult> noIsolationExecutionQueue = internalOptions.getOption(NO_ISOLATION_VIRTUAL_THREADS).get()
+                ? workerExecutionQueueFactory.createVirtualThreadQueue(internalOptions.getOption(NO_ISOLATION_VIRTUAL_THREADS_MAX_CONCURRENCY).get())
+                : workerExecutionQueueFactory.create();
             NoIsolationWorkerFactory noIsolationWorkerFactory = new NoIsolationWorkerFactory(buildOperationRunner, instantiatorFactory, actionExecutionSpecFactory, projectServices);
 
             DefaultWorkerExecutor workerExecutor = instantiatorFactory.decorateLenient().newInstance(
@@ -150,6 +168,7 @@ WorkerExecutor createWorkerExecutor(InstantiatorFactory instantiatorFactory,
                 asyncWorkTracker,
                 workerDirectoryProvider,
                 workerExecutionQueueFactory,
+                noIsolationExecutionQueue,
                 classLoaderStructureProvider,
                 actionExecutionSpecFactory,
                 instantiatorFactory.decorateLenient(projectServices),
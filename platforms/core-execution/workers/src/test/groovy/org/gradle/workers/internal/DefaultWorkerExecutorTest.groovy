@@ -78,7 +78,7 @@ class DefaultWorkerExecutorTest extends Specification {
         _ * instantiator.newInstance(DefaultWorkerExecutor.DefaultWorkQueue, _, _, _) >> { args -> new DefaultWorkerExecutor.DefaultWorkQueue(args[1][0], args[1][1], args[1][2]) }
         _ * classpathTransformer.copyingTransform(_) >> { args -> args[0] }
         _ * projectCacheDir.getDir() >> temporaryFolder.testDirectory
-        workerExecutor = new DefaultWorkerExecutor(workerDaemonFactory, inProcessWorkerFactory, noIsolationWorkerFactory, forkOptionsFactory, workerThreadRegistry, buildOperationRunner, asyncWorkTracker, workerDirectoryProvider, executionQueueFactory, classLoaderStructureProvider, actionExecutionSpecFactory, instantiator, classpathTransformer, temporaryFolder.testDirectory, projectCacheDir)
+        workerExecutor = new DefaultWorkerExecutor(workerDaemonFactory, inProcessWorkerFactory, noIsolationWorkerFactory, forkOptionsFactory, workerThreadRegistry, buildOperationRunner, asyncWorkTracker, workerDirectoryProvider, executionQueueFactory, executionQueue, classLoaderStructureProvider, actionExecutionSpecFactory, instantiator, classpathTransformer, temporaryFolder.testDirectory, projectCacheDir)
         _ * actionExecutionSpecFactory.newIsolatedSpec(_, _, _, _, _) >> Mock(IsolatedParametersActionExecutionSpec)
     }
 
@@ -180,10 +180,42 @@ class DefaultWorkerExecutorTest extends Specification {
         }
     }
 
+    def "only I/O-bound work with no isolation runs on the no isolation queue"() {
+        def noIsolationExecutionQueue = Mock(ConditionalExecutionQueue)
+        workerExecutor = new DefaultWorkerExecutor(workerDaemonFactory, inProcessWorkerFactory, noIsolationWorkerFactory, forkOptionsFactory, workerThreadRegistry, buildOperationRunner, asyncWorkTracker, workerDirectoryProvider, executionQueueFactory, noIsolationExecutionQueue, classLoaderStructureProvider, actionExecutionSpecFactory, instantiator, classpathTransformer, temporaryFolder.testDirectory, projectCacheDir)
+
+        when:
+        workerExecutor.noIsolation().submit(TestExecutable.class, Actions.doNothing())
+
+        then:
+        1 * workerThreadRegistry.workerThread >> true
+        1 * executionQueue.submit(_)
+        0 * noIsolationExecutionQueue.submit(_)
+
+        when:
+        workerExecutor.noIsolation().submit(IoBoundTestExecutable.class, Actions.doNothing())
+
+        then:
+        1 * workerThreadRegistry.workerThread >> true
+        0 * executionQueue.submit(_)
+        1 * noIsolationExecutionQueue.submit(_)
+
+        when:
+        workerExecutor.classLoaderIsolation().submit(IoBoundTestExecutable.class, Actions.doNothing())
+
+        then:
+        1 * workerThreadRegistry.workerThread >> true
+        1 * executionQueue.submit(_)
+        0 * noIsolationExecutionQueue.submit(_)
+    }
+
     abstract static class TestExecutable implements WorkAction<WorkParameters.None> {
         @Override
         void execute() {
             println "executing"
         }
     }
+
+    abstract static class IoBoundTestExecutable extends TestExecutable implements IoBoundWorkAction {
+    }
 }
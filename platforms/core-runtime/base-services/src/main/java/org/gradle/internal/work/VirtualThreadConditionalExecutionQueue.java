@@ -0,0 +1,150 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.work;
+
+import org.gradle.internal.UncheckedException;
+import org.jspecify.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A queue that runs each execution on its own virtual thread, with at most a fixed number of executions running at the same time.
+ *
+ * This is intended for work that spends most of its time blocked, for example waiting for I/O or external processes.
+ * The executions do not take a lease from the worker leases shared with CPU-bound work. Instead, each execution runs
+ * as an unmanaged worker, so it can still acquire resource locks and submit further work.
+ *
+ * Virtual threads are only available on Java 21 and later, see {@link #isSupported()}.
+ */
+public class VirtualThreadConditionalExecutionQueue<T> implements ConditionalExecutionQueue<T> {
+    @Nullable
+    private static final Method OF_VIRTUAL = findOfVirtual();
+
+    private final ThreadFactory threadFactory;
+    private final WorkerThreadRegistry workerThreadRegistry;
+    private final Semaphore permits;
+    private final Set<Thread> runningThreads = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<Boolean> holdsPermit = new ThreadLocal<>();
+    private volatile boolean stopped;
+
+    public VirtualThreadConditionalExecutionQueue(String displayName, int maxConcurrency, WorkerThreadRegistry workerThreadRegistry) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be positive, but was " + maxConcurrency);
+        }
+        this.threadFactory = createVirtualThreadFactory(displayName);
+        this.workerThreadRegistry = workerThreadRegistry;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Returns whether virtual threads are available in the current JVM.
+     */
+    public static boolean isSupported() {
+        if (OF_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            // Virtual threads are a preview feature before Java 21, and not enabled by default
+            OF_VIRTUAL.invoke(null);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void submit(ConditionalExecution<T> execution) {
+        if (stopped) {
+            throw new IllegalStateException("VirtualThreadConditionalExecutionQueue cannot be reused once it has been stopped.");
+        }
+        Thread thread = threadFactory.newThread(() -> {
+            try {
+                run(execution);
+            } finally {
+                runningThreads.remove(Thread.currentThread());
+            }
+        });
+        runningThreads.add(thread);
+        thread.start();
+    }
+
+    private void run(ConditionalExecution<T> execution) {
+        permits.acquireUninterruptibly();
+        holdsPermit.set(Boolean.TRUE);
+        try {
+            workerThreadRegistry.runAsUnmanagedWorkerThread(execution.getExecution());
+        } finally {
+            if (Boolean.TRUE.equals(holdsPermit.get())) {
+                permits.release();
+            }
+            holdsPermit.remove();
+            execution.complete();
+        }
+    }
+
+    /**
+     * Gives up the permit held by the current execution, if any, so that work it waits for can start.
+     * The permit is not returned when the execution finishes, so the number of concurrent executions
+     * only exceeds the limit while executions wait for other work.
+     */
+    @Override
+    public void expand() {
+        if (Boolean.TRUE.equals(holdsPermit.get())) {
+            holdsPermit.set(Boolean.FALSE);
+            permits.release();
+        }
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        for (Thread thread : runningThreads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+
+    @Nullable
+    private static Method findOfVirtual() {
+        try {
+            return Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory createVirtualThreadFactory(String displayName) {
+        if (OF_VIRTUAL == null) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by the current JVM.");
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, displayName + " Thread ", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (Exception e) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by the current JVM.", e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.work
+
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.test.precondition.Requires
+import org.gradle.test.preconditions.UnitTestPreconditions
+
+import java.util.concurrent.Callable
+import java.util.concurrent.atomic.AtomicInteger
+
+@Requires(UnitTestPreconditions.Jdk21OrLater)
+class VirtualThreadConditionalExecutionQueueTest extends ConcurrentSpec {
+    private static final DISPLAY_NAME = "Test Execution Queue"
+    def coordinationService = new DefaultResourceLockCoordinationService()
+    def workerLeaseService = new DefaultWorkerLeaseService(coordinationService, new DefaultWorkerLimits(1))
+    def queue = new VirtualThreadConditionalExecutionQueue(DISPLAY_NAME, 2, workerLeaseService)
+
+    def cleanup() {
+        queue.stop()
+    }
+
+    def "is supported"() {
+        expect:
+        VirtualThreadConditionalExecutionQueue.isSupported()
+    }
+
+    def "runs executions on virtual threads as workers"() {
+        def execution = testExecution({
+            assert Thread.currentThread().virtual
+            assert workerLeaseService.workerThread
+            return "foo"
+        })
+
+        when:
+        queue.submit(execution)
+
+        then:
+        execution.await() == "foo"
+    }
+
+    def "runs more executions concurrently than there are worker leases"() {
+        def execution1 = testExecution({
+            instant.execution1Started
+            thread.blockUntil.execution2Started
+        })
+        def execution2 = testExecution({
+            instant.execution2Started
+            thread.blockUntil.execution1Started
+        })
+
+        expect:
+        async {
+            queue.submit(execution1)
+            queue.submit(execution2)
+            execution1.await()
+            execution2.await()
+        }
+    }
+
+    def "does not run more executions concurrently than max concurrency"() {
+        def running = new AtomicInteger()
+        def maxRunning = new AtomicInteger()
+        def executions = (1..20).collect {
+            testExecution({
+                int current = running.incrementAndGet()
+                maxRunning.accumulateAndGet(current, { a, b -> Math.max(a, b) })
+                Thread.sleep(5)
+                running.decrementAndGet()
+            })
+        }
+
+        when:
+        executions.each { queue.submit(it) }
+        executions.each { it.await() }
+
+        then:
+        maxRunning.get() <= 2
+    }
+
+    def "execution waiting for other work gives up its permit"() {
+        def children = (1..2).collect {
+            testExecution({ "child" })
+        }
+        def parents = (1..2).collect { index ->
+            testExecution({
+                queue.submit(children[index - 1])
+                queue.expand()
+                children[index - 1].await()
+            })
+        }
+
+        when:
+        parents.each { queue.submit(it) }
+
+        then:
+        parents*.await() == ["child", "child"]
+    }
+
+    TestExecution testExecution(Callable<String> callable) {
+        return new TestExecution(callable)
+    }
+
+    class TestExecution extends AbstractConditionalExecution {
+        TestExecution(Callable callable) {
+            super(callable)
+        }
+    }
+}
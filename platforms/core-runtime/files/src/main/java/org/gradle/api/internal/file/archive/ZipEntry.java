@@ -66,6 +66,13 @@ enum ZipCompressionMethod {
      */
     int size();
 
+    /**
+     * The CRC-32 checksum of the uncompressed content as recorded in the archive, or -1 if not known without reading the content.
+     */
+    default long getCrc() {
+        return -1;
+    }
+
     /**
      * Whether or not the zip entry can safely be read again if any bytes
      * have already been read from it.
@@ -74,6 +74,13 @@ private FileZipInput(File file) {
         this.entries = this.file.entries();
     }
 
+    /**
+     * The number of entries in the zip file.
+     */
+    public int size() {
+        return file.size();
+    }
+
     @Override
     public Iterator<ZipEntry> iterator() {
         return new AbstractIterator<ZipEntry>() {
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.operations;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+/**
+ * Summarizes the loads from the local build cache during a build, per tier of the local build cache.
+ *
+ * Recently loaded entries are held in an in-memory tier, so that loading them again does not read them from disk.
+ * The in-memory tier is shared by all builds of the same daemon.
+ *
+ * @since 9.1
+ */
+public final class BuildCacheLocalInMemoryTierBuildOperationType implements BuildOperationType<BuildCacheLocalInMemoryTierBuildOperationType.Details, BuildCacheLocalInMemoryTierBuildOperationType.Result> {
+
+    public interface Details {
+
+        /**
+         * The maximum number of bytes held by the in-memory tier.
+         *
+         * @since 9.1
+         */
+        long getMaxSize();
+
+    }
+
+    public interface Result {
+
+        /**
+         * The number of loads served from the in-memory tier.
+         *
+         * @since 9.1
+         */
+        int getInMemoryHitCount();
+
+        /**
+         * The number of loads served from disk.
+         *
+         * @since 9.1
+         */
+        int getDiskHitCount();
+
+        /**
+         * The number of loads that were neither in memory nor on disk.
+         *
+         * @since 9.1
+         */
+        int getMissCount();
+
+        /**
+         * The number of entries evicted from the in-memory tier during the build.
+         *
+         * @since 9.1
+         */
+        long getEvictionCount();
+
+        /**
+         * The number of bytes held by the in-memory tier at the end of the build.
+         *
+         * @since 9.1
+         */
+        long getSize();
+
+    }
+
+    private BuildCacheLocalInMemoryTierBuildOperationType() {
+    }
+}
@@ -57,6 +57,14 @@ public interface Result {
          */
         long getArchiveSize();
 
+        /**
+         * Whether the load has been a hit in the in-memory tier of the local build cache,
+         * so that the cache artifact was not read from disk.
+         *
+         * @since 9.1
+         */
+        boolean isInMemoryHit();
+
     }
 
     private BuildCacheLocalLoadBuildOperationType() {
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.operations;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+/**
+ * Summarizes the entries speculatively downloaded from the remote build cache during a build.
+ *
+ * Entries are prefetched into the local build cache before the work that uses them executes.
+ * A prefetched entry is a hit when it is later loaded from the local build cache, and is wasted otherwise.
+ *
+ * @since 9.1
+ */
+public final class BuildCacheRemotePrefetchBuildOperationType implements BuildOperationType<BuildCacheRemotePrefetchBuildOperationType.Details, BuildCacheRemotePrefetchBuildOperationType.Result> {
+
+    public interface Details {
+
+        /**
+         * The maximum number of bytes that were allowed to be prefetched.
+         *
+         * @since 9.1
+         */
+        long getByteBudget();
+
+    }
+
+    public interface Result {
+
+        /**
+         * The number of entries downloaded from the remote build cache.
+         *
+         * @since 9.1
+         */
+        int getPrefetchedCount();
+
+        /**
+         * The number of bytes downloaded from the remote build cache.
+         *
+         * @since 9.1
+         */
+        long getPrefetchedSize();
+
+        /**
+         * The number of prefetched entries that were later loaded by work in the build.
+         *
+         * @since 9.1
+         */
+        int getHitCount();
+
+        /**
+         * The number of bytes of the prefetched entries that were later loaded by work in the build.
+         *
+         * @since 9.1
+         */
+        long getHitSize();
+
+        /**
+         * The number of prefetched entries that were not loaded by any work in the build.
+         *
+         * @since 9.1
+         */
+        int getWastedCount();
+
+        /**
+         * The number of bytes of the prefetched entries that were not loaded by any work in the build.
+         *
+         * @since 9.1
+         */
+        long getWastedSize();
+
+    }
+
+    private BuildCacheRemotePrefetchBuildOperationType() {
+    }
+}
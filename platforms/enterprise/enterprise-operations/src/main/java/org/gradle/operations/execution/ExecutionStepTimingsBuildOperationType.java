@@ -0,0 +1,88 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.operations.execution;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+import java.util.List;
+
+/**
+ * Summarizes the time spent in the steps of the execution engine pipeline during a build.
+ * <p>
+ * Only emitted when timing the execution steps has been enabled.
+ *
+ * @since 9.1
+ */
+public final class ExecutionStepTimingsBuildOperationType implements BuildOperationType<ExecutionStepTimingsBuildOperationType.Details, ExecutionStepTimingsBuildOperationType.Result> {
+
+    public interface Details {
+    }
+
+    public interface Result {
+
+        /**
+         * The timings for each kind of work and step, ordered by work type and step name.
+         */
+        List<StepTiming> getStepTimings();
+    }
+
+    public interface StepTiming {
+
+        /**
+         * The kind of work executed, for example the implementation type of the unit of work.
+         */
+        String getWorkType();
+
+        /**
+         * The name of the execution step.
+         */
+        String getStep();
+
+        /**
+         * How many times the step has been executed.
+         */
+        long getCount();
+
+        /**
+         * The total time spent in the step itself, excluding the steps it delegates to.
+         */
+        long getTotalNanos();
+
+        /**
+         * An upper bound of the median time spent in the step itself.
+         */
+        long getP50Nanos();
+
+        /**
+         * An upper bound of the 90th percentile of the time spent in the step itself.
+         */
+        long getP90Nanos();
+
+        /**
+         * An upper bound of the 99th percentile of the time spent in the step itself.
+         */
+        long getP99Nanos();
+
+        /**
+         * The longest time spent in the step itself.
+         */
+        long getMaxNanos();
+    }
+
+    private ExecutionStepTimingsBuildOperationType() {
+    }
+}
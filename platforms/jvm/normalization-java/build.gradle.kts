@@ -3,6 +3,7 @@ import org.gradle.api.publish.internal.component.ConfigurationVariantDetailsInte
 plugins {
     id("gradlebuild.distribution.api-java")
     id("gradlebuild.publish-public-libraries")
+    id("gradlebuild.jmh")
 }
 
 description = "API extraction for Java"
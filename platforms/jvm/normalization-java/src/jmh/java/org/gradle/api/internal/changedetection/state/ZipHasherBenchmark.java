@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.fingerprint.hashing.RegularFileSnapshotContext;
+import org.gradle.internal.fingerprint.hashing.ResourceHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Compares hashing the content of every entry of a jar with fingerprinting the entries from the central directory.
+ *
+ * @see CentralDirectoryClasspathResourceHasher
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ZipHasherBenchmark {
+
+    @Param({"RuntimeClasspathResourceHasher", "CentralDirectoryClasspathResourceHasher"})
+    String resourceHasher;
+
+    @Param({"1000", "20000"})
+    int entries;
+
+    @Param({"4096"})
+    int entrySize;
+
+    private File jarFile;
+    private ZipHasher zipHasher;
+    private RegularFileSnapshotContext snapshotContext;
+
+    @Setup
+    public void setup() throws IOException {
+        jarFile = Files.createTempFile("zip-hasher", ".jar").toFile();
+        Random random = new Random(1234L);
+        byte[] content = new byte[entrySize];
+        try (ZipOutputStream output = new ZipOutputStream(new FileOutputStream(jarFile))) {
+            for (int i = 0; i < entries; i++) {
+                random.nextBytes(content);
+                output.putNextEntry(new ZipEntry("org/gradle/package" + i % 100 + "/Class" + i + ".class"));
+                output.write(content);
+                output.closeEntry();
+            }
+        }
+        RuntimeClasspathResourceHasher runtimeClasspathResourceHasher = resourceHasher.equals("CentralDirectoryClasspathResourceHasher")
+            ? new CentralDirectoryClasspathResourceHasher()
+            : new RuntimeClasspathResourceHasher();
+        ResourceHasher hasher = new PropertiesFileAwareClasspathResourceHasher(runtimeClasspathResourceHasher, Collections.emptyMap());
+        zipHasher = new ZipHasher(new MetaInfAwareClasspathResourceHasher(hasher, ResourceEntryFilter.FILTER_NOTHING));
+        snapshotContext = new DefaultRegularFileSnapshotContext(
+            () -> new String[0],
+            new RegularFileSnapshot(jarFile.getAbsolutePath(), jarFile.getName(), Hashing.signature(ZipHasherBenchmark.class), DefaultFileMetadata.file(0, 0, AccessType.DIRECT))
+        );
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(jarFile.toPath());
+    }
+
+    @Benchmark
+    public HashCode hashJar() {
+        return zipHasher.hash(snapshotContext);
+    }
+}
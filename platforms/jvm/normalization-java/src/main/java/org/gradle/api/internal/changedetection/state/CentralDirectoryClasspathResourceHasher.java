@@ -0,0 +1,56 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.file.archive.ZipEntry;
+import org.gradle.internal.fingerprint.hashing.ZipEntryContext;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+
+import java.io.IOException;
+
+/**
+ * Hashes {@link ZipEntry}s in runtime classpath entries by the uncompressed size and CRC-32 recorded in the archive, without inflating them.
+ *
+ * <p>
+ * This makes fingerprinting a jar proportional to the size of its central directory instead of the size of its content.
+ * The trade-off is that CRC-32 is not collision resistant: a change to an entry which keeps both its size and its checksum goes unnoticed.
+ * </p>
+ *
+ * <p>
+ * Entries that are normalized based on their content, like manifests or properties files with ignore rules, are handled by the wrapping
+ * {@link MetaInfAwareClasspathResourceHasher} and {@link PropertiesFileAwareClasspathResourceHasher}, and only reach this hasher when they cannot be parsed.
+ * Entries without a known checksum, e.g. entries of nested archives using data descriptors, are hashed by their content.
+ * </p>
+ */
+public class CentralDirectoryClasspathResourceHasher extends RuntimeClasspathResourceHasher {
+
+    @Override
+    public HashCode hash(ZipEntryContext zipEntryContext) throws IOException {
+        ZipEntry entry = zipEntryContext.getEntry();
+        long crc = entry.getCrc();
+        int size = entry.size();
+        if (crc == -1 || size < 0) {
+            return super.hash(zipEntryContext);
+        }
+        Hasher hasher = Hashing.newHasher();
+        hasher.putInt(size);
+        hasher.putLong(crc);
+        return hasher.hash();
+    }
+}
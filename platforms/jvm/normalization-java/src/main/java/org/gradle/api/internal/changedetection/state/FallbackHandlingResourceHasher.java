@@ -154,6 +154,11 @@ public int size() {
             return delegate.size();
         }
 
+        @Override
+        public long getCrc() {
+            return delegate.getCrc();
+        }
+
         @Override
         public boolean canReopen() {
             return true;
@@ -22,6 +22,7 @@
 import org.gradle.api.internal.file.archive.ZipInput;
 import org.gradle.api.internal.file.archive.impl.FileZipInput;
 import org.gradle.api.internal.file.archive.impl.StreamZipInput;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.fingerprint.FileSystemLocationFingerprint;
 import org.gradle.internal.fingerprint.FingerprintHashingStrategy;
@@ -35,6 +36,7 @@
 import org.gradle.internal.hash.Hasher;
 import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.impl.ConcurrentHashingPool;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,12 +47,17 @@
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class ZipHasher implements RegularFileSnapshotContextHasher, ConfigurableNormalizer {
 
     private static final Set<String> KNOWN_ZIP_EXTENSIONS = ImmutableSet.of("zip", "jar", "war", "rar", "ear", "apk", "aar", "klib");
     private static final Logger LOGGER = LoggerFactory.getLogger(ZipHasher.class);
     private static final HashCode EMPTY_HASH_MARKER = Hashing.signature(ZipHasher.class);
+    private static final int MIN_ENTRIES_FOR_CONCURRENT_HASHING = 1000;
+    private static final int ENTRIES_PER_TASK = 256;
 
     public static boolean isZipFile(final String name) {
         return KNOWN_ZIP_EXTENSIONS.contains(FilenameUtils.getExtension(name).toLowerCase(Locale.ROOT));
@@ -59,19 +66,33 @@ public static boolean isZipFile(final String name) {
     private final ResourceHasher resourceHasher;
     private final ZipHasher fallbackZipHasher;
     private final HashingExceptionReporter hashingExceptionReporter;
+    private final ConcurrentHashingPool hashingPool;
 
     public ZipHasher(ResourceHasher resourceHasher) {
+        this(resourceHasher, ConcurrentHashingPool.SEQUENTIAL);
+    }
+
+    public ZipHasher(ResourceHasher resourceHasher, ConcurrentHashingPool hashingPool) {
         this(
             resourceHasher,
             null,
-            (s, e) -> LOGGER.debug("Malformed archive '{}'. Falling back to full content hash instead of entry hashing.", s.getName(), e)
+            (s, e) -> LOGGER.debug("Malformed archive '{}'. Falling back to full content hash instead of entry hashing.", s.getName(), e),
+            hashingPool
         );
     }
 
     public ZipHasher(ResourceHasher resourceHasher, @Nullable ZipHasher fallbackZipHasher, HashingExceptionReporter hashingExceptionReporter) {
+        this(resourceHasher, fallbackZipHasher, hashingExceptionReporter, ConcurrentHashingPool.SEQUENTIAL);
+    }
+
+    /**
+     * Creates a hasher which hashes the entries of archives with many entries concurrently on the given pool.
+     */
+    public ZipHasher(ResourceHasher resourceHasher, @Nullable ZipHasher fallbackZipHasher, HashingExceptionReporter hashingExceptionReporter, ConcurrentHashingPool hashingPool) {
         this.resourceHasher = resourceHasher;
         this.fallbackZipHasher = fallbackZipHasher;
         this.hashingExceptionReporter = hashingExceptionReporter;
+        this.hashingPool = hashingPool;
     }
 
     @Nullable
@@ -108,7 +129,12 @@ private HashCode hashZipContents(RegularFileSnapshot zipFileSnapshot) {
     private List<FileSystemLocationFingerprint> fingerprintZipEntries(String zipFile) throws IOException {
         try (ZipInput input = FileZipInput.create(new File(zipFile))) {
             List<FileSystemLocationFingerprint> fingerprints = new ArrayList<>();
-            fingerprintZipEntries("", zipFile, fingerprints, input);
+            ForkJoinPool forkJoinPool = hashingPool.getForkJoinPool();
+            if (forkJoinPool != null && input instanceof FileZipInput && ((FileZipInput) input).size() >= MIN_ENTRIES_FOR_CONCURRENT_HASHING) {
+                fingerprintZipEntriesConcurrently(zipFile, fingerprints, input, forkJoinPool);
+            } else {
+                fingerprintZipEntries("", zipFile, fingerprints, input);
+            }
             return fingerprints;
         }
     }
@@ -119,16 +145,61 @@ private void fingerprintZipEntries(String parentName, String rootParentName, Lis
             if (zipEntry.isDirectory()) {
                 continue;
             }
-            String fullName = parentName.isEmpty() ? zipEntry.getName() : parentName + "/" + zipEntry.getName();
-            ZipEntryContext zipEntryContext = new DefaultZipEntryContext(zipEntry, fullName, rootParentName);
-            if (isZipFile(zipEntry.getName())) {
-                zipEntryContext.getEntry().withInputStream(inputStream -> {
-                    fingerprintZipEntries(fullName, rootParentName, fingerprints, new StreamZipInput(inputStream));
-                    return null;
-                });
-            } else {
-                fingerprintZipEntry(zipEntryContext, fingerprints);
+            visitZipEntry(parentName, rootParentName, zipEntry, fingerprints);
+        }
+    }
+
+    /**
+     * Hashes batches of entries on the given pool.
+     * Entries of a {@link FileZipInput} are read by random access to the archive, so they can be read from several threads.
+     * The fingerprints are collected in the order of the entries in the archive, the same as when hashing sequentially.
+     */
+    private void fingerprintZipEntriesConcurrently(String rootParentName, List<FileSystemLocationFingerprint> fingerprints, ZipInput input, ForkJoinPool forkJoinPool) throws IOException {
+        fingerprints.add(newZipMarker(""));
+        List<ZipEntry> entries = new ArrayList<>();
+        for (ZipEntry zipEntry : input) {
+            if (!zipEntry.isDirectory()) {
+                entries.add(zipEntry);
+            }
+        }
+        List<ForkJoinTask<List<FileSystemLocationFingerprint>>> batches = new ArrayList<>();
+        for (int start = 0; start < entries.size(); start += ENTRIES_PER_TASK) {
+            List<ZipEntry> batch = entries.subList(start, Math.min(start + ENTRIES_PER_TASK, entries.size()));
+            batches.add(forkJoinPool.submit(() -> {
+                List<FileSystemLocationFingerprint> batchFingerprints = new ArrayList<>();
+                for (ZipEntry zipEntry : batch) {
+                    visitZipEntry("", rootParentName, zipEntry, batchFingerprints);
+                }
+                return batchFingerprints;
+            }));
+        }
+        try {
+            for (ForkJoinTask<List<FileSystemLocationFingerprint>> batch : batches) {
+                fingerprints.addAll(batch.get());
             }
+        } catch (ExecutionException e) {
+            batches.forEach(batch -> batch.cancel(false));
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw UncheckedException.throwAsUncheckedException(cause);
+        } catch (InterruptedException e) {
+            batches.forEach(batch -> batch.cancel(false));
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private void visitZipEntry(String parentName, String rootParentName, ZipEntry zipEntry, List<FileSystemLocationFingerprint> fingerprints) throws IOException {
+        String fullName = parentName.isEmpty() ? zipEntry.getName() : parentName + "/" + zipEntry.getName();
+        ZipEntryContext zipEntryContext = new DefaultZipEntryContext(zipEntry, fullName, rootParentName);
+        if (isZipFile(zipEntry.getName())) {
+            zipEntryContext.getEntry().withInputStream(inputStream -> {
+                fingerprintZipEntries(fullName, rootParentName, fingerprints, new StreamZipInput(inputStream));
+                return null;
+            });
+        } else {
+            fingerprintZipEntry(zipEntryContext, fingerprints);
         }
     }
 
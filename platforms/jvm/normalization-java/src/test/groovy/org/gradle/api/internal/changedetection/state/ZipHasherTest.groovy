@@ -23,6 +23,7 @@ import org.gradle.internal.fingerprint.hashing.RegularFileSnapshotContext
 import org.gradle.internal.fingerprint.hashing.ResourceHasher
 import org.gradle.internal.hash.TestHashCodes
 import org.gradle.internal.snapshot.RegularFileSnapshot
+import org.gradle.internal.snapshot.impl.ConcurrentHashingPool
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
@@ -42,9 +43,9 @@ class ZipHasherTest extends Specification {
     ResourceEntryFilter propertyResourceFilter = new IgnoringResourceEntryFilter(ImmutableSet.copyOf("created-by", "पशुपतिरपि"))
     ZipHasher zipHasher = new ZipHasher(resourceHasher(ResourceEntryFilter.FILTER_NOTHING, ResourceEntryFilter.FILTER_NOTHING))
     ZipHasher ignoringZipHasher = new ZipHasher(resourceHasher(manifestResourceFilter, propertyResourceFilter))
+    ZipHasher centralDirectoryZipHasher = new ZipHasher(resourceHasher(manifestResourceFilter, propertyResourceFilter, new CentralDirectoryClasspathResourceHasher()))
 
-    static ResourceHasher resourceHasher(ResourceEntryFilter manifestResourceFilter, ResourceEntryFilter propertyResourceFilter) {
-        ResourceHasher hasher = new RuntimeClasspathResourceHasher()
+    static ResourceHasher resourceHasher(ResourceEntryFilter manifestResourceFilter, ResourceEntryFilter propertyResourceFilter, ResourceHasher hasher = new RuntimeClasspathResourceHasher()) {
         ResourceHasher propertiesFileHasher = new PropertiesFileAwareClasspathResourceHasher(hasher, ['**/*.properties': propertyResourceFilter])
         return new MetaInfAwareClasspathResourceHasher(propertiesFileHasher, manifestResourceFilter)
     }
@@ -148,6 +149,63 @@ class ZipHasherTest extends Specification {
         hash1 == hash2
     }
 
+    def "central directory fingerprints detect changed entries"() {
+        given:
+        def content = tmpDir.createDir("content")
+        content.file("foo.txt") << "Foo"
+        content.file("bar.txt") << "Bar"
+        def jarfile = tmpDir.file("test.jar")
+        content.zipTo(jarfile)
+        def sameContentJarfile = tmpDir.file("same.jar")
+        content.zipTo(sameContentJarfile)
+
+        content.file("foo.txt").text = "Baz"
+        def changedJarfile = tmpDir.file("changed.jar")
+        content.zipTo(changedJarfile)
+
+        def hash = centralDirectoryZipHasher.hash(snapshotContext(jarfile))
+
+        expect:
+        hash == centralDirectoryZipHasher.hash(snapshotContext(sameContentJarfile))
+        hash != centralDirectoryZipHasher.hash(snapshotContext(changedJarfile))
+        hash != ignoringZipHasher.hash(snapshotContext(jarfile))
+    }
+
+    def "central directory fingerprints still normalize manifest properties"() {
+        given:
+        def jarfile = tmpDir.file("test.jar")
+        createJarWithBuildInfo(jarfile, ["created-by": "1.8.0_232-b18 (Azul Systems, Inc.)", "foo": "true"])
+
+        def jarfile2 = tmpDir.file("test2.jar")
+        createJarWithBuildInfo(jarfile2, ["created-by": "1.8.0_232-b15 (Azul Systems, Inc.)", "foo": "true"])
+
+        expect:
+        centralDirectoryZipHasher.hash(snapshotContext(jarfile)) == centralDirectoryZipHasher.hash(snapshotContext(jarfile2))
+    }
+
+    def "hashing entries of a large archive concurrently gives the same hash"() {
+        given:
+        def content = tmpDir.createDir("content")
+        1500.times { content.file("dir${it % 10}/file${it}.txt") << "content ${it}" }
+        content.file("nested/inner.jar").with { innerJar ->
+            def innerContent = tmpDir.createDir("inner")
+            innerContent.file("foo") << "Foo"
+            innerContent.zipTo(innerJar)
+        }
+        def jarfile = tmpDir.file("large.jar")
+        content.zipTo(jarfile)
+        def pool = ConcurrentHashingPool.create(4)
+
+        when:
+        def concurrentHash = new ZipHasher(resourceHasher(manifestResourceFilter, propertyResourceFilter), pool).hash(snapshotContext(jarfile))
+
+        then:
+        concurrentHash == ignoringZipHasher.hash(snapshotContext(jarfile))
+
+        cleanup:
+        pool?.close()
+    }
+
     def createJarWithAttributes(TestFile jarfile, Map<String, String> attributes) {
         def manifest = new Manifest()
         def mainAttributes = manifest.getMainAttributes()
@@ -157,6 +157,7 @@ val core = platform("core") {
         subproject("build-cache-http")
         subproject("build-cache-local")
         subproject("build-cache-packaging")
+        subproject("build-cache-server")
         subproject("build-cache-spi")
         subproject("daemon-server-worker")
         subproject("execution")
@@ -39,6 +39,7 @@ public class CachingFileHasher implements FileHasher {
     private final StringInterner stringInterner;
     private final FileTimeStampInspector timestampInspector;
     private final FileHasherStatistics.Collector statisticsCollector;
+    private final InodeFileHashStore inodeStore;
 
     public CachingFileHasher(
         FileHasher delegate,
@@ -49,6 +50,23 @@ public CachingFileHasher(
         FileSystem fileSystem,
         int inMemorySize,
         FileHasherStatistics.Collector statisticsCollector
+    ) {
+        this(delegate, store, stringInterner, timestampInspector, cacheName, fileSystem, inMemorySize, statisticsCollector, InodeFileHashStore.disabled());
+    }
+
+    /**
+     * Creates a hasher which also looks up hashes not cached by path in the given inode-keyed store.
+     */
+    public CachingFileHasher(
+        FileHasher delegate,
+        CrossBuildFileHashCache store,
+        StringInterner stringInterner,
+        FileTimeStampInspector timestampInspector,
+        String cacheName,
+        FileSystem fileSystem,
+        int inMemorySize,
+        FileHasherStatistics.Collector statisticsCollector,
+        InodeFileHashStore inodeStore
     ) {
         this.delegate = delegate;
         this.fileSystem = fileSystem;
@@ -59,6 +77,7 @@ public CachingFileHasher(
         this.stringInterner = stringInterner;
         this.timestampInspector = timestampInspector;
         this.statisticsCollector = statisticsCollector;
+        this.inodeStore = inodeStore;
     }
 
     @Override
@@ -83,23 +102,40 @@ private FileInfo snapshot(File file) {
 
     private FileInfo snapshot(File file, long length, long timestamp) {
         String absolutePath = file.getAbsolutePath();
-        if (timestampInspector.timestampCanBeUsedToDetectFileChange(absolutePath, timestamp)) {
+        boolean timestampCanBeUsedToDetectFileChange = timestampInspector.timestampCanBeUsedToDetectFileChange(absolutePath, timestamp);
+        if (timestampCanBeUsedToDetectFileChange) {
             FileInfo info = cache.getIfPresent(absolutePath);
 
             if (info != null && length == info.length && timestamp == info.timestamp) {
                 return info;
             }
+
+            if (inodeStore.isEnabled()) {
+                HashCode storedHash = inodeStore.get(file, length, timestamp);
+                if (storedHash != null) {
+                    statisticsCollector.reportInodeStoreHit();
+                    FileInfo storedInfo = new FileInfo(storedHash, length, timestamp);
+                    cache.put(stringInterner.intern(absolutePath), storedInfo);
+                    return storedInfo;
+                }
+                statisticsCollector.reportInodeStoreMiss();
+            }
         }
 
         HashCode hash = delegate.hash(file);
         FileInfo info = new FileInfo(hash, length, timestamp);
         cache.put(stringInterner.intern(absolutePath), info);
+        if (timestampCanBeUsedToDetectFileChange) {
+            // The inode store is shared between builds, so only keep hashes that later builds can trust
+            inodeStore.put(file, length, timestamp, hash);
+        }
         statisticsCollector.reportFileHashed(length);
         return info;
     }
 
     public void discard(String path) {
         cache.remove(path);
+        inodeStore.remove(new File(path));
     }
 
     @VisibleForTesting
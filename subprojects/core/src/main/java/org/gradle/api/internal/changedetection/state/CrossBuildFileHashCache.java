@@ -22,10 +22,13 @@
 import org.gradle.cache.PersistentCache;
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
 import org.gradle.cache.scopes.ScopedCacheBuilderFactory;
+import org.gradle.internal.hash.HashFunction;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.service.scopes.Scope;
 import org.gradle.internal.service.scopes.ServiceScope;
 
 import java.io.Closeable;
+import java.util.Locale;
 
 @ServiceScope({Scope.UserHome.class, Scope.BuildSession.class})
 public class CrossBuildFileHashCache implements Closeable {
@@ -53,7 +56,7 @@ public void close() {
     }
 
     public enum Kind {
-        FILE_HASHES("fileHashes", "file hash cache"),
+        FILE_HASHES(fileHashesCacheId(), "file hash cache"),
         CHECKSUMS("checksums", "checksums cache");
         private final String cacheId;
         private final String description;
@@ -70,5 +73,15 @@ public String getCacheId() {
         public String getDescription() {
             return description;
         }
+
+        /**
+         * File hashes created with different hash functions must not end up in the same store.
+         */
+        private static String fileHashesCacheId() {
+            HashFunction fileContentFunction = Hashing.fileContentFunction();
+            return fileContentFunction == Hashing.defaultFunction()
+                ? "fileHashes"
+                : "fileHashes-" + fileContentFunction.getAlgorithm().toLowerCase(Locale.ROOT);
+        }
     }
 }
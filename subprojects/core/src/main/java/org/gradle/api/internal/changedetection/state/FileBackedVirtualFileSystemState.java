@@ -0,0 +1,262 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.collect.Interner;
+import org.apache.tools.ant.DirectoryScanner;
+import org.gradle.internal.execution.history.impl.FileSystemSnapshotSerializer;
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.FileMetadataAccessor;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.snapshot.CaseSensitivity;
+import org.gradle.internal.snapshot.CompositeFileSystemSnapshot;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+import org.gradle.internal.snapshot.MissingFileSnapshot;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.SnapshotHierarchy;
+import org.gradle.internal.snapshot.SnapshotVisitResult;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotter;
+import org.gradle.internal.vfs.impl.DefaultSnapshotHierarchy;
+import org.gradle.internal.watch.vfs.PersistentVirtualFileSystemState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Keeps the contents of the virtual file system in a file, so a new daemon can start with the snapshots of the previous one.
+ * The file is read once, and the snapshots in a watchable hierarchy are handed out when the hierarchy is registered.
+ *
+ * Since the file system may have changed while no daemon was watching it, every loaded snapshot is checked against
+ * the file system before it is used. Regular files need to have the same type, length and modification time, and
+ * directories need to contain exactly the children of their snapshot, apart from the ones excluded by default.
+ * When a directory doesn't match, its matching descendants are still used.
+ *
+ * A regular file modified in the same instant as the state was saved could be modified again without changing its modification time.
+ * So only the snapshots of regular files last modified strictly before the state was saved are restored.
+ */
+public class FileBackedVirtualFileSystemState implements PersistentVirtualFileSystemState {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileBackedVirtualFileSystemState.class);
+    private static final int FORMAT_VERSION = 2;
+
+    private final File stateFile;
+    private final FileMetadataAccessor stat;
+    private final FileSystemSnapshotSerializer serializer;
+    private final CaseSensitivity caseSensitivity;
+
+    /**
+     * The snapshots read from the state file which haven't been handed out yet, or {@code null} before the file has been read.
+     */
+    private SnapshotHierarchy storedSnapshots;
+
+    public FileBackedVirtualFileSystemState(File stateFile, FileMetadataAccessor stat, Interner<String> stringInterner, CaseSensitivity caseSensitivity) {
+        this.stateFile = stateFile;
+        this.stat = stat;
+        this.serializer = new FileSystemSnapshotSerializer(stringInterner);
+        this.caseSensitivity = caseSensitivity;
+    }
+
+    @Override
+    public void loadValidSnapshots(File watchableHierarchy, Consumer<FileSystemLocationSnapshot> validSnapshotConsumer) {
+        String hierarchyPath = watchableHierarchy.getAbsolutePath();
+        List<FileSystemLocationSnapshot> validSnapshots = new ArrayList<>();
+        synchronized (this) {
+            SnapshotHierarchy snapshots = readStoredSnapshots();
+            // Excluded names depend on the build, so check them at the time the hierarchy is used
+            DirectorySnapshotter.DefaultExcludes defaultExcludes = new DirectorySnapshotter.DefaultExcludes(Arrays.asList(DirectoryScanner.getDefaultExcludes()));
+            snapshots.rootSnapshotsUnder(hierarchyPath).forEach(root -> {
+                if (collectValidSnapshots(root, defaultExcludes, validSnapshots)) {
+                    validSnapshots.add(root);
+                }
+            });
+            // Every snapshot is only handed out once
+            storedSnapshots = snapshots.invalidate(hierarchyPath, SnapshotHierarchy.NodeDiffListener.NOOP);
+        }
+        if (!validSnapshots.isEmpty()) {
+            LOGGER.debug("Restored {} snapshots of the virtual file system in {} from {}", validSnapshots.size(), watchableHierarchy, stateFile);
+        }
+        validSnapshots.forEach(validSnapshotConsumer);
+    }
+
+    private SnapshotHierarchy readStoredSnapshots() {
+        if (storedSnapshots == null) {
+            storedSnapshots = DefaultSnapshotHierarchy.empty(caseSensitivity);
+            List<String> modifiedWhenSaved = new ArrayList<>();
+            readStateFile((savedAt, snapshots) -> snapshots.roots().forEach(root -> {
+                storedSnapshots = storedSnapshots.store(root.getAbsolutePath(), root, SnapshotHierarchy.NodeDiffListener.NOOP);
+                root.accept(snapshot -> {
+                    if (snapshot instanceof RegularFileSnapshot && ((RegularFileSnapshot) snapshot).getMetadata().getLastModified() >= savedAt) {
+                        modifiedWhenSaved.add(snapshot.getAbsolutePath());
+                    }
+                    return SnapshotVisitResult.CONTINUE;
+                });
+            }));
+            for (String path : modifiedWhenSaved) {
+                storedSnapshots = storedSnapshots.invalidate(path, SnapshotHierarchy.NodeDiffListener.NOOP);
+            }
+        }
+        return storedSnapshots;
+    }
+
+    private void readStateFile(BiConsumer<Long, FileSystemSnapshot> savedSnapshotsConsumer) {
+        if (!stateFile.isFile()) {
+            return;
+        }
+        try (KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(stateFile))) {
+            if (decoder.readSmallInt() != FORMAT_VERSION || !decoder.readString().equals(contentHashAlgorithm())) {
+                LOGGER.debug("Ignoring virtual file system state in {} written in a different format", stateFile);
+                return;
+            }
+            long savedAt = decoder.readLong();
+            savedSnapshotsConsumer.accept(savedAt, serializer.read(decoder));
+        } catch (Exception e) {
+            LOGGER.debug("Could not read virtual file system state from {}", stateFile, e);
+        }
+    }
+
+    /**
+     * Returns whether the snapshot still matches the file system.
+     *
+     * When it doesn't, the snapshots of its descendants which still match are added to {@code validDescendants}.
+     */
+    private boolean collectValidSnapshots(FileSystemLocationSnapshot snapshot, DirectorySnapshotter.DefaultExcludes defaultExcludes, List<FileSystemLocationSnapshot> validDescendants) {
+        FileMetadata metadata = stat.stat(new File(snapshot.getAbsolutePath()));
+        if (metadata.getAccessType() != snapshot.getAccessType()) {
+            return false;
+        }
+        return snapshot.accept(new FileSystemLocationSnapshot.FileSystemLocationSnapshotTransformer<Boolean>() {
+            @Override
+            public Boolean visitDirectory(DirectorySnapshot directorySnapshot) {
+                if (metadata.getType() != FileType.Directory) {
+                    return false;
+                }
+                List<FileSystemLocationSnapshot> validChildren = new ArrayList<>();
+                boolean allChildrenValid = true;
+                for (FileSystemLocationSnapshot child : directorySnapshot.getChildren()) {
+                    if (collectValidSnapshots(child, defaultExcludes, validChildren)) {
+                        validChildren.add(child);
+                    } else {
+                        allChildrenValid = false;
+                    }
+                }
+                if (allChildrenValid && hasSameChildren(directorySnapshot, defaultExcludes)) {
+                    return true;
+                }
+                validDescendants.addAll(validChildren);
+                return false;
+            }
+
+            @Override
+            public Boolean visitRegularFile(RegularFileSnapshot fileSnapshot) {
+                FileMetadata snapshotMetadata = fileSnapshot.getMetadata();
+                return metadata.getType() == FileType.RegularFile
+                    && metadata.getLength() == snapshotMetadata.getLength()
+                    && metadata.getLastModified() == snapshotMetadata.getLastModified();
+            }
+
+            @Override
+            public Boolean visitMissing(MissingFileSnapshot missingSnapshot) {
+                return metadata.getType() == FileType.Missing;
+            }
+        });
+    }
+
+    private static boolean hasSameChildren(DirectorySnapshot directorySnapshot, DirectorySnapshotter.DefaultExcludes defaultExcludes) {
+        File[] actualChildren = new File(directorySnapshot.getAbsolutePath()).listFiles();
+        if (actualChildren == null) {
+            return false;
+        }
+        // The snapshot doesn't contain the children excluded by default, see DirectorySnapshotter
+        Set<String> actualNames = new HashSet<>();
+        for (File actualChild : actualChildren) {
+            String name = actualChild.getName();
+            boolean excluded = actualChild.isDirectory()
+                ? defaultExcludes.excludeDir(name)
+                : defaultExcludes.excludeFile(name);
+            if (!excluded) {
+                actualNames.add(name);
+            }
+        }
+        if (actualNames.size() != directorySnapshot.getChildren().size()) {
+            return false;
+        }
+        for (FileSystemLocationSnapshot child : directorySnapshot.getChildren()) {
+            if (!actualNames.contains(child.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void save(Stream<FileSystemLocationSnapshot> rootSnapshots) {
+        // Keep the snapshots of hierarchies which haven't been registered by this daemon
+        readStoredSnapshots();
+        long savedAt = System.currentTimeMillis();
+        rootSnapshots.forEach(root ->
+            storedSnapshots = storedSnapshots.store(root.getAbsolutePath(), root, SnapshotHierarchy.NodeDiffListener.NOOP));
+        List<FileSystemLocationSnapshot> roots = storedSnapshots.rootSnapshots().collect(Collectors.toList());
+        try {
+            if (roots.isEmpty()) {
+                Files.deleteIfExists(stateFile.toPath());
+                return;
+            }
+            File stateDir = stateFile.getParentFile();
+            Files.createDirectories(stateDir.toPath());
+            // Write to a separate file first, so concurrently stopping daemons never leave a partially written state behind
+            File tempFile = File.createTempFile(stateFile.getName(), ".tmp", stateDir);
+            try {
+                try (KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(tempFile))) {
+                    encoder.writeSmallInt(FORMAT_VERSION);
+                    encoder.writeString(contentHashAlgorithm());
+                    encoder.writeLong(savedAt);
+                    serializer.write(encoder, CompositeFileSystemSnapshot.of(roots));
+                }
+                Files.move(tempFile.toPath(), stateFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+            LOGGER.debug("Stored {} snapshots of the virtual file system in {}", roots.size(), stateFile);
+        } catch (Exception e) {
+            LOGGER.debug("Could not store virtual file system state in {}", stateFile, e);
+        }
+    }
+
+    private static String contentHashAlgorithm() {
+        return Hashing.fileContentFunction().getAlgorithm();
+    }
+}
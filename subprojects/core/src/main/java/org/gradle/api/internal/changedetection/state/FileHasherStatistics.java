@@ -33,19 +33,41 @@ public interface FileHasherStatistics {
      */
     long getHashedContentLength();
 
+    /**
+     * Number of hashes found in the inode-keyed file hash store for files which were not cached by path.
+     */
+    long getInodeStoreHitCount();
+
+    /**
+     * Number of files not cached by path which were not found in the inode-keyed file hash store either.
+     */
+    long getInodeStoreMissCount();
+
     @ServiceScope(Scope.Global.class)
     class Collector {
         private final AtomicLong hashedFileCount = new AtomicLong();
         private final AtomicLong hashedContentLength = new AtomicLong();
+        private final AtomicLong inodeStoreHitCount = new AtomicLong();
+        private final AtomicLong inodeStoreMissCount = new AtomicLong();
 
         public void reportFileHashed(long length) {
             hashedFileCount.incrementAndGet();
             hashedContentLength.addAndGet(length);
         }
 
+        public void reportInodeStoreHit() {
+            inodeStoreHitCount.incrementAndGet();
+        }
+
+        public void reportInodeStoreMiss() {
+            inodeStoreMissCount.incrementAndGet();
+        }
+
         public FileHasherStatistics collect() {
             long hashedFileCount = this.hashedFileCount.getAndSet(0);
             long hashedContentLength = this.hashedContentLength.getAndSet(0);
+            long inodeStoreHitCount = this.inodeStoreHitCount.getAndSet(0);
+            long inodeStoreMissCount = this.inodeStoreMissCount.getAndSet(0);
             return new FileHasherStatistics() {
                 @Override
                 public long getHashedFileCount() {
@@ -57,11 +79,28 @@ public long getHashedContentLength() {
                     return hashedContentLength;
                 }
 
+                @Override
+                public long getInodeStoreHitCount() {
+                    return inodeStoreHitCount;
+                }
+
+                @Override
+                public long getInodeStoreMissCount() {
+                    return inodeStoreMissCount;
+                }
+
                 @Override
                 public String toString() {
-                    return MessageFormat.format("Hashed {0,number,integer} files ({1,number,integer} bytes)",
+                    String hashed = MessageFormat.format("Hashed {0,number,integer} files ({1,number,integer} bytes)",
                         hashedFileCount, hashedContentLength
                     );
+                    long inodeStoreLookups = inodeStoreHitCount + inodeStoreMissCount;
+                    if (inodeStoreLookups == 0) {
+                        return hashed;
+                    }
+                    return hashed + MessageFormat.format(", inode hash store hit rate {0,number,percent} ({1,number,integer} of {2,number,integer})",
+                        (double) inodeStoreHitCount / inodeStoreLookups, inodeStoreHitCount, inodeStoreLookups
+                    );
                 }
             };
         }
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.internal.hash.HashCode;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.util.Map;
+
+/**
+ * Keeps file content hashes in a memory-mapped hash table keyed by the device and inode of the file, together with its length and modification time.
+ *
+ * <p>Since the key does not contain the path of the file, hashes survive moving or renaming a directory, e.g. a checkout.
+ * The table has a fixed number of slots. It uses linear probing over a bounded number of slots, and overwrites the home slot of a key when all of them are taken.</p>
+ *
+ * <p>The file may be shared by several daemons. Reads take no lock: each slot carries a checksum over its contents,
+ * so a slot which is being written concurrently reads as a miss. Writes within a process are serialized.</p>
+ *
+ * <p>The store is only available on file systems which expose the device and inode of files. Elsewhere it never returns a hash.</p>
+ */
+public class InodeFileHashStore implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InodeFileHashStore.class);
+
+    private static final int MAGIC = 0x47464853;
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int HEADER_SIZE = 64;
+
+    // Device, inode, length, last modified, 16 bytes of content hash, checksum and 8 unused bytes
+    private static final int SLOT_SIZE = 64;
+    private static final int INODE_OFFSET = 8;
+    private static final int LENGTH_OFFSET = 16;
+    private static final int LAST_MODIFIED_OFFSET = 24;
+    private static final int HASH_OFFSET = 32;
+    private static final int CHECKSUM_OFFSET = 48;
+
+    // Marks a removed slot. Unlike an empty slot, it does not end the probe sequence of other keys.
+    private static final long REMOVED = -1;
+
+    private static final int HASH_LENGTH = 16;
+    private static final int MAX_PROBES = 8;
+    private static final int DEFAULT_CAPACITY = 1 << 18;
+
+    private static final InodeFileHashStore DISABLED = new InodeFileHashStore(null, 0);
+
+    @Nullable
+    private volatile MappedByteBuffer buffer;
+    private final int mask;
+
+    private InodeFileHashStore(@Nullable MappedByteBuffer buffer, int capacity) {
+        this.buffer = buffer;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * A store which never returns a hash.
+     */
+    public static InodeFileHashStore disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Maps the store in the given file, creating it when necessary.
+     *
+     * Returns a disabled store when the file system does not expose inodes or the file cannot be mapped.
+     */
+    public static InodeFileHashStore open(File file) {
+        return open(file, DEFAULT_CAPACITY);
+    }
+
+    static InodeFileHashStore open(File file, int capacity) {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("unix")) {
+            return DISABLED;
+        }
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            MappedByteBuffer buffer;
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+                 FileLock ignored = randomAccessFile.getChannel().lock()) {
+                // Other daemons may have mapped the file already, so it is only resized when it has the wrong size
+                long fileLength = HEADER_SIZE + (long) capacity * SLOT_SIZE;
+                if (randomAccessFile.length() != fileLength) {
+                    randomAccessFile.setLength(0);
+                    randomAccessFile.setLength(fileLength);
+                }
+                buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileLength);
+                if (buffer.getInt(MAGIC_OFFSET) != MAGIC
+                    || buffer.getInt(VERSION_OFFSET) != VERSION
+                    || buffer.getInt(CAPACITY_OFFSET) != capacity) {
+                    for (int slot = 0; slot < capacity; slot++) {
+                        buffer.putLong(slotOffset(slot) + CHECKSUM_OFFSET, 0);
+                    }
+                    buffer.putInt(CAPACITY_OFFSET, capacity);
+                    buffer.putInt(VERSION_OFFSET, VERSION);
+                    buffer.putInt(MAGIC_OFFSET, MAGIC);
+                }
+            }
+            return new InodeFileHashStore(buffer, capacity);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Could not open file hash store {}", file, e);
+            return DISABLED;
+        }
+    }
+
+    public boolean isEnabled() {
+        return buffer != null;
+    }
+
+    /**
+     * Returns the hash recorded for the file, if the file still has the given length and modification time.
+     */
+    @Nullable
+    public HashCode get(File file, long length, long lastModified) {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer == null) {
+            return null;
+        }
+        FileKey key = FileKey.of(file);
+        if (key == null) {
+            return null;
+        }
+        int home = home(key);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int offset = slotOffset((home + probe) & mask);
+            long checksum = buffer.getLong(offset + CHECKSUM_OFFSET);
+            if (checksum == 0) {
+                return null;
+            }
+            long device = buffer.getLong(offset);
+            long inode = buffer.getLong(offset + INODE_OFFSET);
+            if (device != key.device || inode != key.inode) {
+                continue;
+            }
+            long slotLength = buffer.getLong(offset + LENGTH_OFFSET);
+            long slotLastModified = buffer.getLong(offset + LAST_MODIFIED_OFFSET);
+            long hashBits1 = buffer.getLong(offset + HASH_OFFSET);
+            long hashBits2 = buffer.getLong(offset + HASH_OFFSET + 8);
+            if (slotLength != length
+                || slotLastModified != lastModified
+                || checksum != checksum(device, inode, slotLength, slotLastModified, hashBits1, hashBits2)) {
+                return null;
+            }
+            // Use the hash which was verified by the checksum, the slot may have been overwritten since
+            byte[] hash = new byte[HASH_LENGTH];
+            putBits(hash, 0, hashBits1);
+            putBits(hash, 8, hashBits2);
+            return HashCode.fromBytes(hash);
+        }
+        return null;
+    }
+
+    /**
+     * Records the hash of the file with the given length and modification time.
+     */
+    public void put(File file, long length, long lastModified, HashCode hash) {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer == null || hash.length() != HASH_LENGTH) {
+            return;
+        }
+        FileKey key = FileKey.of(file);
+        if (key == null) {
+            return;
+        }
+        byte[] hashBytes = hash.toByteArray();
+        long hashBits1 = getBits(hashBytes, 0);
+        long hashBits2 = getBits(hashBytes, 8);
+        synchronized (this) {
+            int home = home(key);
+            int slot = home;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int candidate = (home + probe) & mask;
+                int offset = slotOffset(candidate);
+                if (buffer.getLong(offset + CHECKSUM_OFFSET) == 0
+                    || (buffer.getLong(offset) == key.device && buffer.getLong(offset + INODE_OFFSET) == key.inode)) {
+                    slot = candidate;
+                    break;
+                }
+            }
+            int offset = slotOffset(slot);
+            // Invalidate the slot first, so concurrent readers never see a mix of old and new contents as valid
+            buffer.putLong(offset + CHECKSUM_OFFSET, 0);
+            buffer.putLong(offset, key.device);
+            buffer.putLong(offset + INODE_OFFSET, key.inode);
+            buffer.putLong(offset + LENGTH_OFFSET, length);
+            buffer.putLong(offset + LAST_MODIFIED_OFFSET, lastModified);
+            buffer.putLong(offset + HASH_OFFSET, hashBits1);
+            buffer.putLong(offset + HASH_OFFSET + 8, hashBits2);
+            // Another daemon may be writing the same slot. The checksum is computed from our own values, not from the shared slot,
+            // so when the writes are interleaved the slot only validates if it holds exactly the values of the last writer.
+            buffer.putLong(offset + CHECKSUM_OFFSET, checksum(key.device, key.inode, length, lastModified, hashBits1, hashBits2));
+        }
+    }
+
+    /**
+     * Forgets the hash recorded for the file, e.g. because its timestamp turned out not to be reliable for detecting changes.
+     */
+    public void remove(File file) {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer == null) {
+            return;
+        }
+        FileKey key = FileKey.of(file);
+        if (key == null) {
+            return;
+        }
+        synchronized (this) {
+            int home = home(key);
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int offset = slotOffset((home + probe) & mask);
+                long checksum = buffer.getLong(offset + CHECKSUM_OFFSET);
+                if (checksum == 0) {
+                    return;
+                }
+                if (buffer.getLong(offset) == key.device && buffer.getLong(offset + INODE_OFFSET) == key.inode) {
+                    buffer.putLong(offset + CHECKSUM_OFFSET, REMOVED);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        // The mapping is released once the buffer is garbage collected
+        buffer = null;
+    }
+
+    private int home(FileKey key) {
+        return (int) mix(key.device * 31 + key.inode) & mask;
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static long checksum(long device, long inode, long length, long lastModified, long hashBits1, long hashBits2) {
+        long checksum = mix(device);
+        checksum = mix(checksum ^ inode);
+        checksum = mix(checksum ^ length);
+        checksum = mix(checksum ^ lastModified);
+        checksum = mix(checksum ^ hashBits1);
+        checksum = mix(checksum ^ hashBits2);
+        // Zero marks an empty slot and REMOVED a removed one
+        return checksum == 0 || checksum == REMOVED ? 1 : checksum;
+    }
+
+    /**
+     * Reads 8 bytes in big-endian order, the same as {@link MappedByteBuffer#getLong(int)}.
+     */
+    private static long getBits(byte[] bytes, int offset) {
+        long bits = 0;
+        for (int index = 0; index < 8; index++) {
+            bits = (bits << 8) | (bytes[offset + index] & 0xff);
+        }
+        return bits;
+    }
+
+    private static void putBits(byte[] bytes, int offset, long bits) {
+        for (int index = 7; index >= 0; index--) {
+            bytes[offset + index] = (byte) bits;
+            bits >>>= 8;
+        }
+    }
+
+    /**
+     * The finalization step of MurmurHash3.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static class FileKey {
+        private final long device;
+        private final long inode;
+
+        private FileKey(long device, long inode) {
+            this.device = device;
+            this.inode = inode;
+        }
+
+        @Nullable
+        static FileKey of(File file) {
+            try {
+                Map<String, Object> attributes = Files.readAttributes(file.toPath(), "unix:dev,ino");
+                Object device = attributes.get("dev");
+                Object inode = attributes.get("ino");
+                if (device instanceof Long && inode instanceof Long) {
+                    return new FileKey((Long) device, (Long) inode);
+                }
+                return null;
+            } catch (IOException | RuntimeException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -24,20 +24,28 @@
 import org.gradle.caching.configuration.internal.DefaultBuildCacheConfiguration;
 import org.gradle.caching.configuration.internal.DefaultBuildCacheServiceRegistration;
 import org.gradle.caching.internal.controller.impl.LifecycleAwareBuildCacheController;
+import org.gradle.caching.internal.controller.service.InMemoryBuildCacheTierProvider;
 import org.gradle.caching.internal.controller.impl.LifecycleAwareBuildCacheControllerFactory;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.BuildCacheEntryCompression;
+import org.gradle.caching.internal.packaging.impl.BuildCacheUnpackExecutor;
+import org.gradle.caching.internal.packaging.impl.CompressingBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.DefaultTarPackerFileSystemSupport;
 import org.gradle.caching.internal.packaging.impl.FilePermissionAccess;
-import org.gradle.caching.internal.packaging.impl.GZipBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.TarBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.TarPackerFileSystemSupport;
 import org.gradle.caching.internal.services.BuildCacheControllerFactory;
 import org.gradle.caching.internal.services.DefaultBuildCacheControllerFactory;
 import org.gradle.caching.local.DirectoryBuildCache;
+import org.gradle.caching.local.internal.DirectoryBuildCacheEvictionProvider;
 import org.gradle.caching.local.internal.DirectoryBuildCacheServiceFactory;
 import org.gradle.internal.build.BuildState;
 import org.gradle.internal.build.RootBuildState;
+import org.gradle.internal.buildoption.IntegerInternalOption;
+import org.gradle.internal.buildoption.InternalOptions;
+import org.gradle.internal.buildoption.StringInternalOption;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.file.BufferProvider;
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.file.FileException;
@@ -64,6 +72,21 @@
  * Build scoped services for build cache usage.
  */
 public final class BuildCacheServices extends AbstractGradleModuleServices {
+
+    /**
+     * The codec used to compress build cache entries when storing them.
+     * Entries are always loaded with the codec they were stored with.
+     *
+     * @see BuildCacheEntryCompression
+     */
+    public static final StringInternalOption COMPRESSION_OPTION = new StringInternalOption("org.gradle.internal.build-cache.compression", "gzip");
+
+    /**
+     * The maximum number of files written concurrently when unpacking a build cache entry.
+     * The default of 1 unpacks entries sequentially on the loading thread.
+     */
+    public static final IntegerInternalOption UNPACK_PARALLELISM_OPTION = new IntegerInternalOption("org.gradle.internal.build-cache.unpack-parallelism", 1);
+
     @Override
     public void registerGlobalServices(ServiceRegistration registration) {
         registration.addProvider(new ServiceRegistrationProvider() {
@@ -72,6 +95,16 @@ BufferProvider createBufferProvider() {
                 // TODO Make buffer size configurable
                 return new ThreadLocalBufferProvider(64 * 1024);
             }
+
+            @Provides
+            InMemoryBuildCacheTierProvider createInMemoryBuildCacheTierProvider() {
+                return new InMemoryBuildCacheTierProvider();
+            }
+
+            @Provides
+            DirectoryBuildCacheEvictionProvider createDirectoryBuildCacheEvictionProvider() {
+                return new DirectoryBuildCacheEvictionProvider();
+            }
         });
     }
 
@@ -80,6 +113,11 @@ public void registerBuildTreeServices(ServiceRegistration registration) {
         registration.addProvider(new ServiceRegistrationProvider() {
             private static final String GRADLE_VERSION_KEY = "gradleVersion";
 
+            @Provides
+            BuildCacheUnpackExecutor createUnpackExecutor(ExecutorFactory executorFactory, InternalOptions internalOptions) {
+                return new BuildCacheUnpackExecutor(executorFactory, Math.max(1, internalOptions.getOption(UNPACK_PARALLELISM_OPTION).get()));
+            }
+
             @Provides
             LifecycleAwareBuildCacheControllerFactory createRootBuildCacheControllerRef() {
                 return new LifecycleAwareBuildCacheControllerFactory();
@@ -123,16 +161,25 @@ TarPackerFileSystemSupport createPackerFileSystemSupport(Deleter deleter) {
                 return new DefaultTarPackerFileSystemSupport(deleter);
             }
 
+            @Provides
+            FilePermissionAccess createFilePermissionAccess(FileSystem fileSystem) {
+                return new FilePermissionsAccessAdapter(fileSystem);
+            }
+
             @Provides
             BuildCacheEntryPacker createResultPacker(
                 TarPackerFileSystemSupport fileSystemSupport,
-                FileSystem fileSystem,
+                FilePermissionAccess filePermissionAccess,
                 StreamHasher fileHasher,
                 StringInterner stringInterner,
-                BufferProvider bufferProvider
+                BufferProvider bufferProvider,
+                BuildCacheUnpackExecutor unpackExecutor,
+                InternalOptions internalOptions
             ) {
-                return new GZipBuildCacheEntryPacker(
-                    new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner, bufferProvider));
+                BuildCacheEntryCompression compression = BuildCacheEntryCompression.fromName(internalOptions.getOption(COMPRESSION_OPTION).get());
+                return new CompressingBuildCacheEntryPacker(compression,
+                    new TarBuildCacheEntryPacker(fileSystemSupport, filePermissionAccess, fileHasher, stringInterner, bufferProvider,
+                        unpackExecutor.getParallelism() > 1 ? unpackExecutor : null));
             }
 
             @Provides
@@ -159,7 +206,10 @@ BuildCacheControllerFactory createBuildCacheControllerFactory(
                 TemporaryFileProvider temporaryFileProvider,
                 BuildCacheEntryPacker packer,
                 OriginMetadataFactory originMetadataFactory,
-                StringInterner stringInterner
+                StringInterner stringInterner,
+                InMemoryBuildCacheTierProvider inMemoryTierProvider,
+                ExecutorFactory executorFactory,
+                InternalOptions internalOptions
             ) {
                 return new DefaultBuildCacheControllerFactory(
                     startParameter,
@@ -168,7 +218,10 @@ BuildCacheControllerFactory createBuildCacheControllerFactory(
                     originMetadataFactory,
                     stringInterner,
                     temporaryFileProvider,
-                    packer
+                    packer,
+                    inMemoryTierProvider,
+                    executorFactory,
+                    internalOptions
                 );
             }
         });
@@ -82,6 +82,11 @@ public void store(BuildCacheKey cacheKey, CacheableEntity entity, Map<String, Fi
             getDelegate().store(cacheKey, entity, snapshots, executionTime);
         }
 
+        @Override
+        public void prefetch(String workGraphIdentity) {
+            getDelegate().prefetch(workGraphIdentity);
+        }
+
         @Override
         public void close() {
             resetState();
@@ -25,10 +25,16 @@
 import org.gradle.caching.internal.controller.BuildCacheController;
 import org.gradle.caching.internal.controller.DefaultBuildCacheController;
 import org.gradle.caching.internal.controller.service.BuildCacheServicesConfiguration;
+import org.gradle.caching.internal.controller.service.InMemoryBuildCacheTier;
+import org.gradle.caching.internal.controller.service.InMemoryBuildCacheTierProvider;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
 import org.gradle.caching.local.DirectoryBuildCache;
 import org.gradle.caching.local.internal.DirectoryBuildCacheService;
+import org.gradle.internal.buildoption.IntegerInternalOption;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.buildoption.InternalOptions;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.util.Path;
@@ -36,9 +42,52 @@
 
 public class DefaultBuildCacheControllerFactory extends AbstractBuildCacheControllerFactory<DirectoryBuildCacheService> {
 
+    /**
+     * Stores entries in the remote build cache in the background, instead of on the thread that executed the work.
+     */
+    public static final InternalFlag REMOTE_WRITE_BEHIND_OPTION = new InternalFlag("org.gradle.internal.build-cache.remote.write-behind", false);
+
+    /**
+     * The maximum number of entries stored in the remote build cache concurrently when storing in the background.
+     */
+    public static final IntegerInternalOption REMOTE_WRITE_BEHIND_CONCURRENCY_OPTION = new IntegerInternalOption("org.gradle.internal.build-cache.remote.write-behind.concurrency", 4);
+
+    /**
+     * The maximum number of entries waiting to be stored in the remote build cache before storing more entries blocks.
+     */
+    public static final IntegerInternalOption REMOTE_WRITE_BEHIND_MAX_PENDING_OPTION = new IntegerInternalOption("org.gradle.internal.build-cache.remote.write-behind.max-pending", 64);
+
+    /**
+     * Downloads entries used by the previous execution of the same work graph from the remote build cache into the local build cache before the work executes.
+     */
+    public static final InternalFlag REMOTE_PREFETCH_OPTION = new InternalFlag("org.gradle.internal.build-cache.remote.prefetch", false);
+
+    /**
+     * The maximum number of entries downloaded from the remote build cache concurrently when prefetching.
+     */
+    public static final IntegerInternalOption REMOTE_PREFETCH_CONCURRENCY_OPTION = new IntegerInternalOption("org.gradle.internal.build-cache.remote.prefetch.concurrency", 4);
+
+    /**
+     * The maximum number of megabytes prefetched from the remote build cache per build.
+     */
+    public static final IntegerInternalOption REMOTE_PREFETCH_BUDGET_MB_OPTION = new IntegerInternalOption("org.gradle.internal.build-cache.remote.prefetch.budget-mb", 512);
+
+    /**
+     * The maximum number of megabytes of recently loaded local build cache entries held in memory, shared by all builds in the daemon.
+     * A value of 0 disables the in-memory tier.
+     */
+    public static final IntegerInternalOption LOCAL_IN_MEMORY_SIZE_MB_OPTION = new IntegerInternalOption("org.gradle.internal.build-cache.local.in-memory-size-mb", 0);
+
     private final TemporaryFileProvider temporaryFileProvider;
     private final BuildCacheEntryPacker packer;
     private final BuildOperationProgressEventEmitter buildOperationProgressEmitter;
+    private final ExecutorFactory executorFactory;
+    private final int maxConcurrentRemoteStores;
+    private final int maxPendingRemoteStores;
+    private final int maxConcurrentPrefetches;
+    private final long prefetchByteBudget;
+    private final InMemoryBuildCacheTierProvider inMemoryTierProvider;
+    private final long inMemoryTierSizeInBytes;
 
     public DefaultBuildCacheControllerFactory(
         StartParameter startParameter,
@@ -47,7 +96,10 @@ public DefaultBuildCacheControllerFactory(
         OriginMetadataFactory originMetadataFactory,
         StringInterner stringInterner,
         TemporaryFileProvider temporaryFileProvider,
-        BuildCacheEntryPacker packer
+        BuildCacheEntryPacker packer,
+        InMemoryBuildCacheTierProvider inMemoryTierProvider,
+        ExecutorFactory executorFactory,
+        InternalOptions internalOptions
     ) {
         super(
             startParameter,
@@ -58,6 +110,17 @@ public DefaultBuildCacheControllerFactory(
         this.temporaryFileProvider = temporaryFileProvider;
         this.packer = packer;
         this.buildOperationProgressEmitter = buildOperationProgressEmitter;
+        this.executorFactory = executorFactory;
+        this.maxConcurrentRemoteStores = internalOptions.getOption(REMOTE_WRITE_BEHIND_OPTION).get()
+            ? internalOptions.getOption(REMOTE_WRITE_BEHIND_CONCURRENCY_OPTION).get()
+            : 0;
+        this.maxPendingRemoteStores = internalOptions.getOption(REMOTE_WRITE_BEHIND_MAX_PENDING_OPTION).get();
+        this.maxConcurrentPrefetches = internalOptions.getOption(REMOTE_PREFETCH_OPTION).get()
+            ? internalOptions.getOption(REMOTE_PREFETCH_CONCURRENCY_OPTION).get()
+            : 0;
+        this.prefetchByteBudget = internalOptions.getOption(REMOTE_PREFETCH_BUDGET_MB_OPTION).get() * 1024L * 1024L;
+        this.inMemoryTierProvider = inMemoryTierProvider;
+        this.inMemoryTierSizeInBytes = internalOptions.getOption(LOCAL_IN_MEMORY_SIZE_MB_OPTION).get() * 1024L * 1024L;
     }
 
     @Override
@@ -83,10 +146,28 @@ protected BuildCacheController doCreateController(
             !Boolean.getBoolean(REMOTE_CONTINUE_ON_ERROR_PROPERTY),
             packer,
             originMetadataFactory,
-            stringInterner
+            stringInterner,
+            executorFactory,
+            maxConcurrentRemoteStores,
+            maxPendingRemoteStores,
+            maxConcurrentPrefetches,
+            prefetchByteBudget,
+            inMemoryTierFor(localDescribedService)
         );
     }
 
+    @Nullable
+    private InMemoryBuildCacheTier inMemoryTierFor(@Nullable DescribedBuildCacheService<DirectoryBuildCache, DirectoryBuildCacheService> local) {
+        if (inMemoryTierSizeInBytes <= 0) {
+            // Releases the tier kept from earlier builds
+            return inMemoryTierProvider.getTier(0, null);
+        }
+        if (local == null) {
+            return null;
+        }
+        return inMemoryTierProvider.getTier(inMemoryTierSizeInBytes, local.service.getBaseDir());
+    }
+
     private static BuildCacheServicesConfiguration toConfiguration(
         Path buildPath,
         @Nullable DescribedBuildCacheService<DirectoryBuildCache, DirectoryBuildCacheService> local,
@@ -31,9 +31,18 @@ public class DirectoryBuildCacheEntryRetention {
     private final Supplier<Long> entryRetentionTimestampSupplier;
     private final String retentionDescription;
     private final boolean cleanupDisabled;
+    private final long maxSizeInBytes;
 
     public DirectoryBuildCacheEntryRetention(CacheConfigurationsInternal cacheConfigurations) {
+        this(cacheConfigurations, 0);
+    }
+
+    /**
+     * @param maxSizeInBytes the size above which least recently used entries are removed, or 0 when the size of the cache is unbounded.
+     */
+    public DirectoryBuildCacheEntryRetention(CacheConfigurationsInternal cacheConfigurations, long maxSizeInBytes) {
         this.cleanupDisabled = cacheConfigurations.getCleanup().get() == Cleanup.DISABLED;
+        this.maxSizeInBytes = maxSizeInBytes;
         CacheResourceConfigurationInternal buildCacheConfig = cacheConfigurations.getBuildCache();
         this.entryRetentionTimestampSupplier = buildCacheConfig.getEntryRetentionTimestampSupplier();
         this.retentionDescription = describeEntryRetention(buildCacheConfig.getEntryRetention().get());
@@ -43,13 +52,32 @@ public Supplier<Long> getEntryRetentionTimestampSupplier() {
         return entryRetentionTimestampSupplier;
     }
 
+    public boolean isSizeBounded() {
+        return !cleanupDisabled && maxSizeInBytes > 0;
+    }
+
+    public long getMaxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
     public String getDescription() {
         if (cleanupDisabled) {
             return "disabled";
         }
+        if (isSizeBounded()) {
+            return retentionDescription + " or when larger than " + describeSize(maxSizeInBytes);
+        }
         return retentionDescription;
     }
 
+    private static String describeSize(long sizeInBytes) {
+        long sizeInMegabytes = sizeInBytes / (1024 * 1024);
+        if (sizeInMegabytes >= 1024 && sizeInMegabytes % 1024 == 0) {
+            return sizeInMegabytes / 1024 + " GiB";
+        }
+        return sizeInMegabytes + " MiB";
+    }
+
     private static String describeEntryRetention(CacheResourceConfigurationInternal.EntryRetention entryRetention) {
         long entryRetentionMillis = entryRetention.getTimeInMillis();
 
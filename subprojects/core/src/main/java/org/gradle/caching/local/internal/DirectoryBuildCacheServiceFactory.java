@@ -19,23 +19,35 @@
 import org.gradle.api.internal.cache.CacheConfigurationsInternal;
 import org.gradle.cache.CacheCleanupStrategy;
 import org.gradle.cache.CacheCleanupStrategyFactory;
+import org.gradle.cache.CleanupAction;
 import org.gradle.cache.PersistentCache;
 import org.gradle.cache.UnscopedCacheBuilderFactory;
+import org.gradle.cache.internal.CompositeCleanupAction;
 import org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup;
 import org.gradle.cache.internal.SingleDepthFilesFinder;
+import org.gradle.cache.internal.SizeBoundedLeastRecentlyUsedCacheCleanup;
 import org.gradle.cache.scopes.GlobalScopedCacheBuilderFactory;
+import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.caching.BuildCacheService;
 import org.gradle.caching.BuildCacheServiceFactory;
+import org.gradle.caching.internal.packaging.impl.FilePermissionAccess;
+import org.gradle.caching.internal.packaging.impl.TarPackerFileSystemSupport;
 import org.gradle.caching.local.DirectoryBuildCache;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.buildoption.IntegerInternalOption;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.file.FileAccessTimeJournal;
 import org.gradle.internal.file.FileAccessTracker;
 import org.gradle.internal.file.PathToFileResolver;
 import org.gradle.internal.file.impl.SingleDepthFileAccessTracker;
+import org.jspecify.annotations.Nullable;
 
 import javax.inject.Inject;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Supplier;
 
 import static org.gradle.cache.FileLockManager.LockMode.OnDemand;
@@ -43,6 +55,17 @@
 public class DirectoryBuildCacheServiceFactory implements BuildCacheServiceFactory<DirectoryBuildCache> {
     public static final String FAILED_READ_SUFFIX = ".failed";
 
+    /**
+     * Stores the outputs in the local build cache deduplicated by file content, instead of as one archive per entry.
+     */
+    public static final InternalFlag CONTENT_ADDRESSED_OPTION = new InternalFlag("org.gradle.internal.build-cache.local.content-addressed", false);
+
+    /**
+     * Removes the least recently used entries from the local build cache when it grows larger than the given number of megabytes.
+     * A value of 0 means that the size of the cache is not bounded, and entries are only removed once they have not been used for some time.
+     */
+    public static final IntegerInternalOption MAX_SIZE_MB_OPTION = new IntegerInternalOption("org.gradle.internal.build-cache.local.max-size-mb", 0);
+
     private static final String BUILD_CACHE_VERSION = "1";
     private static final String BUILD_CACHE_KEY = "build-cache-" + BUILD_CACHE_VERSION;
     private static final String DIRECTORY_BUILD_CACHE_TYPE = "directory";
@@ -54,6 +77,12 @@ public class DirectoryBuildCacheServiceFactory implements BuildCacheServiceFacto
     private final FileAccessTimeJournal fileAccessTimeJournal;
     private final CacheConfigurationsInternal cacheConfigurations;
     private final CacheCleanupStrategyFactory cacheCleanupStrategyFactory;
+    private final TarPackerFileSystemSupport fileSystemSupport;
+    private final FilePermissionAccess filePermissionAccess;
+    private final StringInterner stringInterner;
+    private final DirectoryBuildCacheEvictionProvider evictionProvider;
+    private final boolean contentAddressed;
+    private final long maxSizeInBytes;
 
     @Inject
     public DirectoryBuildCacheServiceFactory(
@@ -62,7 +91,12 @@ public DirectoryBuildCacheServiceFactory(
         PathToFileResolver resolver,
         FileAccessTimeJournal fileAccessTimeJournal,
         CacheConfigurationsInternal cacheConfigurations,
-        CacheCleanupStrategyFactory cacheCleanupStrategyFactory
+        CacheCleanupStrategyFactory cacheCleanupStrategyFactory,
+        TarPackerFileSystemSupport fileSystemSupport,
+        FilePermissionAccess filePermissionAccess,
+        StringInterner stringInterner,
+        DirectoryBuildCacheEvictionProvider evictionProvider,
+        InternalOptions internalOptions
     ) {
         this.unscopedCacheBuilderFactory = unscopedCacheBuilderFactory;
         this.cacheBuilderFactory = cacheBuilderFactory;
@@ -70,6 +104,12 @@ public DirectoryBuildCacheServiceFactory(
         this.fileAccessTimeJournal = fileAccessTimeJournal;
         this.cacheConfigurations = cacheConfigurations;
         this.cacheCleanupStrategyFactory = cacheCleanupStrategyFactory;
+        this.fileSystemSupport = fileSystemSupport;
+        this.filePermissionAccess = filePermissionAccess;
+        this.stringInterner = stringInterner;
+        this.evictionProvider = evictionProvider;
+        this.contentAddressed = internalOptions.getOption(CONTENT_ADDRESSED_OPTION).get();
+        this.maxSizeInBytes = Math.max(0, internalOptions.getOption(MAX_SIZE_MB_OPTION).get()) * 1024L * 1024L;
     }
 
     @Override
@@ -83,32 +123,51 @@ public BuildCacheService createBuildCacheService(DirectoryBuildCache buildCacheC
         }
         checkDirectory(target);
 
-        DirectoryBuildCacheEntryRetention entryExpiration = new DirectoryBuildCacheEntryRetention(cacheConfigurations);
+        DirectoryBuildCacheEntryRetention entryExpiration = new DirectoryBuildCacheEntryRetention(cacheConfigurations, maxSizeInBytes);
 
         describer.type(DIRECTORY_BUILD_CACHE_TYPE).
             config("location", target.getAbsolutePath()).
             config("remove unused entries", entryExpiration.getDescription());
 
+        SizeBoundedLeastRecentlyUsedCacheCleanup sizeBoundedCleanup = entryExpiration.isSizeBounded()
+            ? new SizeBoundedLeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP), fileAccessTimeJournal, entryExpiration::getMaxSizeInBytes)
+            : null;
+
         PersistentCache persistentCache = unscopedCacheBuilderFactory
             .cache(target)
-            .withCleanupStrategy(createCacheCleanupStrategy(entryExpiration.getEntryRetentionTimestampSupplier()))
+            .withCleanupStrategy(createCacheCleanupStrategy(entryExpiration.getEntryRetentionTimestampSupplier(), sizeBoundedCleanup))
             .withDisplayName("Build cache")
             .withInitialLockMode(OnDemand)
             .open();
         FileAccessTracker fileAccessTracker = new SingleDepthFileAccessTracker(fileAccessTimeJournal, target, FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
 
-        return new DirectoryBuildCacheService(persistentCache, fileAccessTracker, FAILED_READ_SUFFIX);
+        // Evict entries as they are stored, so the cache stays bounded between the periodic cleanups
+        DirectoryBuildCacheEviction eviction = sizeBoundedCleanup != null
+            ? evictionProvider.getEviction(persistentCache, sizeBoundedCleanup, fileAccessTimeJournal, entryExpiration.getMaxSizeInBytes())
+            : null;
+        ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        if (contentAddressed) {
+            return new ContentAddressedDirectoryBuildCacheService(persistentCache, fileAccessTracker, FAILED_READ_SUFFIX, fileSystemSupport, filePermissionAccess, stringInterner, lock, eviction);
+        }
+        return new DirectoryBuildCacheService(persistentCache, fileAccessTracker, FAILED_READ_SUFFIX, lock, eviction);
     }
 
-    private CacheCleanupStrategy createCacheCleanupStrategy(Supplier<Long> removeUnusedEntriesTimestamp) {
+    private CacheCleanupStrategy createCacheCleanupStrategy(Supplier<Long> removeUnusedEntriesTimestamp, @Nullable SizeBoundedLeastRecentlyUsedCacheCleanup sizeBoundedCleanup) {
         return cacheCleanupStrategyFactory.create(
-            createCleanupAction(removeUnusedEntriesTimestamp),
+            createCleanupAction(removeUnusedEntriesTimestamp, sizeBoundedCleanup),
             cacheConfigurations.getCleanupFrequency()::get
         );
     }
 
-    private LeastRecentlyUsedCacheCleanup createCleanupAction(Supplier<Long> removeUnusedEntriesTimestamp) {
-        return new LeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP), fileAccessTimeJournal, removeUnusedEntriesTimestamp);
+    private CleanupAction createCleanupAction(Supplier<Long> removeUnusedEntriesTimestamp, @Nullable SizeBoundedLeastRecentlyUsedCacheCleanup sizeBoundedCleanup) {
+        LeastRecentlyUsedCacheCleanup timeBasedCleanup = new LeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP), fileAccessTimeJournal, removeUnusedEntriesTimestamp);
+        if (sizeBoundedCleanup == null) {
+            return timeBasedCleanup;
+        }
+        return CompositeCleanupAction.builder()
+            .add(timeBasedCleanup, sizeBoundedCleanup)
+            .build();
     }
 
     private static void checkDirectory(File directory) {
@@ -21,6 +21,7 @@
 import org.gradle.api.internal.changedetection.TaskExecutionModeResolver;
 import org.gradle.api.internal.changedetection.changes.DefaultTaskExecutionModeResolver;
 import org.gradle.api.internal.changedetection.state.ResourceSnapshotterCacheService;
+import org.gradle.api.internal.changedetection.state.RuntimeClasspathResourceHasher;
 import org.gradle.api.internal.file.FileCollectionFactory;
 import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.project.ProjectInternal;
@@ -48,6 +49,8 @@
 import org.gradle.internal.execution.history.ExecutionHistoryStore;
 import org.gradle.internal.execution.impl.DefaultFileCollectionFingerprinterRegistry;
 import org.gradle.internal.execution.impl.DefaultInputFingerprinter;
+import org.gradle.internal.execution.impl.InputFingerprintingExecutor;
+import org.gradle.internal.execution.impl.UnchangedOutputSnapshots;
 import org.gradle.internal.file.DefaultReservedFileSystemLocationRegistry;
 import org.gradle.internal.file.RelativeFilePathResolver;
 import org.gradle.internal.file.ReservedFileSystemLocation;
@@ -60,6 +63,7 @@
 import org.gradle.internal.service.ServiceRegistrationProvider;
 import org.gradle.internal.service.ServiceRegistryBuilder;
 import org.gradle.internal.snapshot.ValueSnapshotter;
+import org.gradle.internal.snapshot.impl.ConcurrentHashingPool;
 import org.gradle.internal.work.AsyncWorkTracker;
 import org.gradle.normalization.internal.InputNormalizationHandlerInternal;
 
@@ -148,14 +152,18 @@ TaskExecuter createTaskExecuter(
     FileCollectionFingerprinterRegistrations createFileCollectionFingerprinterRegistrations(
         StringInterner stringInterner,
         ResourceSnapshotterCacheService resourceSnapshotterCacheService,
-        InputNormalizationHandlerInternal inputNormalizationHandler
+        InputNormalizationHandlerInternal inputNormalizationHandler,
+        RuntimeClasspathResourceHasher runtimeClasspathResourceHasher,
+        ConcurrentHashingPool hashingPool
     ) {
         return new FileCollectionFingerprinterRegistrations(
             stringInterner,
             resourceSnapshotterCacheService,
             inputNormalizationHandler.getRuntimeClasspath().getClasspathResourceFilter(),
             inputNormalizationHandler.getRuntimeClasspath().getManifestAttributeResourceEntryFilter(),
-            inputNormalizationHandler.getRuntimeClasspath().getPropertiesFileFilters()
+            inputNormalizationHandler.getRuntimeClasspath().getPropertiesFileFilters(),
+            runtimeClasspathResourceHasher,
+            hashingPool
         );
     }
 
@@ -168,9 +176,11 @@ FileCollectionFingerprinterRegistry createFileCollectionFingerprinterRegistry(Fi
     InputFingerprinter createInputFingerprinter(
         FileCollectionSnapshotter snapshotter,
         FileCollectionFingerprinterRegistry fingerprinterRegistry,
-        ValueSnapshotter valueSnapshotter
+        ValueSnapshotter valueSnapshotter,
+        InputFingerprintingExecutor inputFingerprintingExecutor,
+        UnchangedOutputSnapshots unchangedOutputs
     ) {
-        return new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter);
+        return new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter, inputFingerprintingExecutor, unchangedOutputs);
     }
 
     @Provides
@@ -17,6 +17,7 @@
 package org.gradle.internal.build;
 
 import org.gradle.api.internal.GradleInternal;
+import org.gradle.caching.internal.controller.BuildCacheController;
 import org.gradle.execution.plan.ExecutionPlan;
 import org.gradle.execution.plan.ExecutionPlanFactory;
 import org.gradle.execution.plan.FinalizedExecutionPlan;
@@ -53,6 +54,16 @@ public FinalizedExecutionPlan finalizeWorkGraph(GradleInternal gradle, Execution
         taskGraph.populate(finalizedExecutionPlan);
         BuildOutputCleanupRegistry buildOutputCleanupRegistry = gradle.getServices().get(BuildOutputCleanupRegistry.class);
         buildOutputCleanupRegistry.resolveOutputs();
+        if (finalizedExecutionPlan.getContents().size() > 0) {
+            gradle.getServices().get(BuildCacheController.class).prefetch(workGraphIdentity(gradle));
+        }
         return finalizedExecutionPlan;
     }
+
+    /**
+     * Identifies the work graph across builds of the same checkout, so that the build cache can prefetch entries used by its previous executions.
+     */
+    private static String workGraphIdentity(GradleInternal gradle) {
+        return gradle.getIdentityPath().getPath() + " " + gradle.getRootProject().getProjectDir().getAbsolutePath() + " " + String.join(" ", gradle.getStartParameter().getTaskNames());
+    }
 }
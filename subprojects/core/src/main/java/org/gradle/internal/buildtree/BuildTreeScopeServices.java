@@ -48,6 +48,7 @@
 import org.gradle.execution.selection.BuildTaskSelector;
 import org.gradle.execution.selection.DefaultBuildTaskSelector;
 import org.gradle.initialization.BuildOptionBuildOperationProgressEventsEmitter;
+import org.gradle.initialization.RootBuildLifecycleListener;
 import org.gradle.initialization.exception.DefaultExceptionAnalyser;
 import org.gradle.initialization.exception.ExceptionCollector;
 import org.gradle.initialization.exception.MultipleBuildFailuresExceptionAnalyser;
@@ -58,17 +59,20 @@
 import org.gradle.internal.buildoption.DefaultFeatureFlags;
 import org.gradle.internal.buildoption.DefaultInternalOptions;
 import org.gradle.internal.buildoption.FeatureFlags;
+import org.gradle.internal.buildoption.InternalFlag;
 import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.enterprise.core.GradleEnterprisePluginManager;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.event.ScopedListenerManager;
 import org.gradle.internal.exception.ExceptionAnalyser;
+import org.gradle.internal.execution.impl.ExecutionStepTimings;
 import org.gradle.internal.id.ConfigurationCacheableIdFactory;
 import org.gradle.internal.instantiation.InstantiatorFactory;
 import org.gradle.internal.instrumentation.reporting.DefaultMethodInterceptionReportCollector;
 import org.gradle.internal.instrumentation.reporting.ErrorReportingMethodInterceptionReportCollector;
 import org.gradle.internal.instrumentation.reporting.MethodInterceptionReportCollector;
 import org.gradle.internal.instrumentation.reporting.PropertyUpgradeReportConfig;
+import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.problems.DefaultProblemDiagnosticsFactory;
 import org.gradle.internal.scopeids.id.BuildInvocationScopeId;
 import org.gradle.internal.service.PrivateService;
@@ -86,6 +90,11 @@
  * Contains the singleton services for a single build tree which consists of one or more builds.
  */
 public class BuildTreeScopeServices implements ServiceRegistrationProvider {
+    /**
+     * Records per-step latency histograms for the execution engine, emitted as JFR events and as a summary build operation at the end of the build.
+     */
+    public static final InternalFlag EXECUTION_STEP_TIMINGS = new InternalFlag("org.gradle.internal.execution.step-timings");
+
     private final BuildInvocationScopeId buildInvocationScopeId;
     private final BuildTreeState buildTree;
     private final BuildTreeModelControllerServices.Supplier modelServices;
@@ -142,6 +151,25 @@ protected InternalOptions createInternalOptions(StartParameter startParameter) {
         return new DefaultInternalOptions(startParameter.getSystemPropertiesArgs());
     }
 
+    @Provides
+    protected ExecutionStepTimings createExecutionStepTimings(InternalOptions internalOptions, ListenerManager listenerManager, BuildOperationRunner buildOperationRunner) {
+        if (!internalOptions.getOption(EXECUTION_STEP_TIMINGS).get()) {
+            return ExecutionStepTimings.DISABLED;
+        }
+        ExecutionStepTimings stepTimings = ExecutionStepTimings.enabled();
+        listenerManager.addListener(new RootBuildLifecycleListener() {
+            @Override
+            public void afterStart() {
+            }
+
+            @Override
+            public void beforeComplete() {
+                stepTimings.emitSummary(buildOperationRunner);
+            }
+        });
+        return stepTimings;
+    }
+
     @Provides
     protected TaskSelector createTaskSelector(ObjectFactory objectFactory) {
         return objectFactory.newInstance(DefaultTaskSelector.class, new TaskNameResolver());
@@ -26,6 +26,7 @@
 import org.gradle.internal.fingerprint.LineEndingSensitivity;
 import org.gradle.internal.fingerprint.classpath.ClasspathFingerprinter;
 import org.gradle.internal.fingerprint.impl.AbstractFileCollectionFingerprinter;
+import org.gradle.internal.snapshot.impl.ConcurrentHashingPool;
 
 import java.util.Map;
 
@@ -37,16 +38,30 @@ public DefaultClasspathFingerprinter(
         Map<String, ResourceEntryFilter> propertiesFileFilters,
         StringInterner stringInterner,
         LineEndingSensitivity lineEndingSensitivity
+    ) {
+        this(cacheService, classpathResourceFilter, manifestAttributeResourceEntryFilter, propertiesFileFilters, new RuntimeClasspathResourceHasher(), ConcurrentHashingPool.SEQUENTIAL, stringInterner, lineEndingSensitivity);
+    }
+
+    public DefaultClasspathFingerprinter(
+        ResourceSnapshotterCacheService cacheService,
+        ResourceFilter classpathResourceFilter,
+        ResourceEntryFilter manifestAttributeResourceEntryFilter,
+        Map<String, ResourceEntryFilter> propertiesFileFilters,
+        RuntimeClasspathResourceHasher runtimeClasspathResourceHasher,
+        ConcurrentHashingPool hashingPool,
+        StringInterner stringInterner,
+        LineEndingSensitivity lineEndingSensitivity
     ) {
         super(
             ClasspathFingerprintingStrategy.runtimeClasspath(
                 classpathResourceFilter,
                 manifestAttributeResourceEntryFilter,
                 propertiesFileFilters,
-                new RuntimeClasspathResourceHasher(),
+                runtimeClasspathResourceHasher,
                 cacheService,
                 stringInterner,
-                lineEndingSensitivity
+                lineEndingSensitivity,
+                hashingPool
             )
         );
     }
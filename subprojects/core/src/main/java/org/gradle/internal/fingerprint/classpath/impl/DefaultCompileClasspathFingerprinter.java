@@ -24,13 +24,19 @@
 import org.gradle.internal.fingerprint.FileNormalizer;
 import org.gradle.internal.fingerprint.classpath.CompileClasspathFingerprinter;
 import org.gradle.internal.fingerprint.impl.AbstractFileCollectionFingerprinter;
+import org.gradle.internal.snapshot.impl.ConcurrentHashingPool;
 
 public class DefaultCompileClasspathFingerprinter extends AbstractFileCollectionFingerprinter implements CompileClasspathFingerprinter {
     public DefaultCompileClasspathFingerprinter(ResourceSnapshotterCacheService cacheService, StringInterner stringInterner) {
+        this(cacheService, stringInterner, ConcurrentHashingPool.SEQUENTIAL);
+    }
+
+    public DefaultCompileClasspathFingerprinter(ResourceSnapshotterCacheService cacheService, StringInterner stringInterner, ConcurrentHashingPool hashingPool) {
         super(ClasspathFingerprintingStrategy.compileClasspath(
             new CachingResourceHasher(AbiExtractingClasspathResourceHasher.DEFAULT, cacheService),
             cacheService,
-            stringInterner
+            stringInterner,
+            hashingPool
         ));
     }
 
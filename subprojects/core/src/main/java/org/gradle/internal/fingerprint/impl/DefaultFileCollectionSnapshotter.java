@@ -26,12 +26,15 @@
 import org.gradle.internal.execution.FileCollectionSnapshotter;
 import org.gradle.internal.file.Stat;
 import org.gradle.internal.snapshot.CompositeFileSystemSnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.gradle.internal.vfs.FileSystemAccess;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshotter {
     private final FileSystemAccess fileSystemAccess;
@@ -46,11 +49,26 @@ public DefaultFileCollectionSnapshotter(FileSystemAccess fileSystemAccess, Stat
     public FileSystemSnapshot snapshot(FileCollection fileCollection, FileCollectionStructureVisitor visitor) {
         SnapshottingVisitor snapshottingVisitor = new SnapshottingVisitor(visitor);
         ((FileCollectionInternal) fileCollection).visitStructure(snapshottingVisitor);
-        return CompositeFileSystemSnapshot.of(snapshottingVisitor.getRoots());
+        List<Supplier<FileSystemSnapshot>> roots = snapshottingVisitor.getRoots();
+        List<FileSystemSnapshot> snapshots = new ArrayList<>(roots.size());
+        for (Supplier<FileSystemSnapshot> root : roots) {
+            FileSystemSnapshot snapshot = root.get();
+            if (snapshot != FileSystemSnapshot.EMPTY) {
+                snapshots.add(snapshot);
+            }
+        }
+        return CompositeFileSystemSnapshot.of(snapshots);
+    }
+
+    @Override
+    public List<Supplier<FileSystemSnapshot>> snapshotRoots(FileCollection fileCollection, FileCollectionStructureVisitor visitor) {
+        SnapshottingVisitor snapshottingVisitor = new SnapshottingVisitor(visitor);
+        ((FileCollectionInternal) fileCollection).visitStructure(snapshottingVisitor);
+        return snapshottingVisitor.getRoots();
     }
 
     private class SnapshottingVisitor extends DelegatingFileCollectionStructureVisitor {
-        private final List<FileSystemSnapshot> roots = new ArrayList<>();
+        private final List<Supplier<FileSystemSnapshot>> roots = new ArrayList<>();
 
         private SnapshottingVisitor(FileCollectionStructureVisitor delegate) {
             super(delegate);
@@ -60,27 +78,37 @@ private SnapshottingVisitor(FileCollectionStructureVisitor delegate) {
         public void visitCollection(FileCollectionInternal.Source source, Iterable<File> contents) {
             super.visitCollection(source, contents);
             for (File file : contents) {
-                roots.add(fileSystemAccess.read(file.getAbsolutePath()));
+                String path = file.getAbsolutePath();
+                roots.add(() -> fileSystemAccess.read(path));
             }
         }
 
         @Override
         public void visitFileTree(File root, PatternSet patterns, FileTreeInternal fileTree) {
             super.visitFileTree(root, patterns, fileTree);
-            fileSystemAccess.read(
-                    root.getAbsolutePath(),
-                    new PatternSetSnapshottingFilter(patterns, stat)
-                )
-                .ifPresent(roots::add);
+            String path = root.getAbsolutePath();
+            PatternSetSnapshottingFilter filter = new PatternSetSnapshottingFilter(patterns, stat);
+            Supplier<FileSystemSnapshot> snapshotRoot = () -> {
+                Optional<FileSystemLocationSnapshot> snapshot = fileSystemAccess.read(path, filter);
+                return snapshot.isPresent() ? snapshot.get() : FileSystemSnapshot.EMPTY;
+            };
+            if (PatternSetSnapshottingFilter.hasCustomSpecs(patterns)) {
+                // Custom specs can be user code that is not thread-safe, so evaluate them on the visiting thread
+                FileSystemSnapshot snapshot = snapshotRoot.get();
+                roots.add(() -> snapshot);
+            } else {
+                roots.add(snapshotRoot);
+            }
         }
 
         @Override
         public void visitFileTreeBackedByFile(File file, FileTreeInternal fileTree, FileSystemMirroringFileTree sourceTree) {
             super.visitFileTreeBackedByFile(file, fileTree, sourceTree);
-            roots.add(fileSystemAccess.read(file.getAbsolutePath()));
+            String path = file.getAbsolutePath();
+            roots.add(() -> fileSystemAccess.read(path));
         }
 
-        public List<FileSystemSnapshot> getRoots() {
+        public List<Supplier<FileSystemSnapshot>> getRoots() {
             return roots;
         }
     }
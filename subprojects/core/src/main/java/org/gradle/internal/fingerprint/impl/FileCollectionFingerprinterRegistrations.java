@@ -23,6 +23,7 @@
 import org.gradle.api.internal.changedetection.state.ResourceEntryFilter;
 import org.gradle.api.internal.changedetection.state.ResourceFilter;
 import org.gradle.api.internal.changedetection.state.ResourceSnapshotterCacheService;
+import org.gradle.api.internal.changedetection.state.RuntimeClasspathResourceHasher;
 import org.gradle.internal.execution.FileCollectionFingerprinter;
 import org.gradle.internal.execution.impl.FingerprinterRegistration;
 import org.gradle.internal.fingerprint.DirectorySensitivity;
@@ -32,6 +33,7 @@
 import org.gradle.internal.fingerprint.hashing.FileSystemLocationSnapshotHasher;
 import org.gradle.internal.service.scopes.Scope;
 import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.internal.snapshot.impl.ConcurrentHashingPool;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -54,10 +56,12 @@ public FileCollectionFingerprinterRegistrations(
         ResourceSnapshotterCacheService resourceSnapshotterCacheService,
         ResourceFilter resourceFilter,
         ResourceEntryFilter metaInfFilter,
-        Map<String, ResourceEntryFilter> propertiesFileFilters
+        Map<String, ResourceEntryFilter> propertiesFileFilters,
+        RuntimeClasspathResourceHasher runtimeClasspathResourceHasher,
+        ConcurrentHashingPool hashingPool
         ) {
 
-        List<? extends FileCollectionFingerprinter> insensitiveFingerprinters = insensitiveFingerprinters(resourceSnapshotterCacheService, stringInterner);
+        List<? extends FileCollectionFingerprinter> insensitiveFingerprinters = insensitiveFingerprinters(resourceSnapshotterCacheService, hashingPool, stringInterner);
         this.registrants =
             withAllLineEndingSensitivities(lineEndingSensitivity -> {
                 FileSystemLocationSnapshotHasher normalizedContentHasher = normalizedContentHasher(lineEndingSensitivity, resourceSnapshotterCacheService);
@@ -69,6 +73,8 @@ public FileCollectionFingerprinterRegistrations(
                     resourceFilter,
                     metaInfFilter,
                     propertiesFileFilters,
+                    runtimeClasspathResourceHasher,
+                    hashingPool,
                     stringInterner
                 );
 
@@ -115,6 +121,8 @@ private static List<? extends FileCollectionFingerprinter> directoryInsensitiveF
         ResourceFilter resourceFilter,
         ResourceEntryFilter metaInfFilter,
         Map<String, ResourceEntryFilter> propertiesFileFilters,
+        RuntimeClasspathResourceHasher runtimeClasspathResourceHasher,
+        ConcurrentHashingPool hashingPool,
         StringInterner stringInterner
     ) {
         return ImmutableList.of(
@@ -124,6 +132,8 @@ private static List<? extends FileCollectionFingerprinter> directoryInsensitiveF
                 resourceFilter,
                 metaInfFilter,
                 propertiesFileFilters,
+                runtimeClasspathResourceHasher,
+                hashingPool,
                 stringInterner,
                 lineEndingSensitivity
             )
@@ -133,9 +143,13 @@ private static List<? extends FileCollectionFingerprinter> directoryInsensitiveF
     /**
      * These fingerprinters do not care about line ending or directory sensitivity at all
      */
-    private static List<? extends FileCollectionFingerprinter> insensitiveFingerprinters(ResourceSnapshotterCacheService resourceSnapshotterCacheService, StringInterner stringInterner) {
+    private static List<? extends FileCollectionFingerprinter> insensitiveFingerprinters(
+        ResourceSnapshotterCacheService resourceSnapshotterCacheService,
+        ConcurrentHashingPool hashingPool,
+        StringInterner stringInterner
+    ) {
         return Collections.singletonList(
-            new DefaultCompileClasspathFingerprinter(resourceSnapshotterCacheService, stringInterner)
+            new DefaultCompileClasspathFingerprinter(resourceSnapshotterCacheService, stringInterner, hashingPool)
         );
     }
 
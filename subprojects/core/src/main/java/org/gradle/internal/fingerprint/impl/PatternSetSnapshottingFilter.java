@@ -38,29 +38,42 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+/**
+ * Filters snapshots by a {@link PatternSet}.
+ *
+ * <p>The pattern set is resolved when the filter is created, so later changes to the pattern set don't affect the filter.
+ * The filter can be used from other threads as long as the pattern set has no {@link #hasCustomSpecs(PatternSet) custom specs}.</p>
+ */
 public class PatternSetSnapshottingFilter implements SnapshottingFilter {
-    private final PatternSet patternSet;
+    private final boolean empty;
+    private final Spec<FileTreeElement> spec;
     private final Stat stat;
 
     public PatternSetSnapshottingFilter(PatternSet patternSet, Stat stat) {
         this.stat = stat;
-        this.patternSet = patternSet;
+        this.empty = patternSet.isEmpty();
+        this.spec = patternSet.getAsSpec();
+    }
+
+    /**
+     * Whether the given pattern set uses specs other than include and exclude patterns, which may not be safe to evaluate from other threads.
+     */
+    public static boolean hasCustomSpecs(PatternSet patternSet) {
+        return !patternSet.getIncludeSpecsView().isEmpty() || !patternSet.getExcludeSpecsView().isEmpty();
     }
 
     @Override
     public boolean isEmpty() {
-        return patternSet.isEmpty();
+        return empty;
     }
 
     @Override
     public FileSystemSnapshotPredicate getAsSnapshotPredicate() {
-        Spec<FileTreeElement> spec = patternSet.getAsSpec();
         return (snapshot, relativePath) -> spec.isSatisfiedBy(new LogicalFileTreeElement(snapshot, relativePath, stat));
     }
 
     @Override
     public DirectoryWalkerPredicate getAsDirectoryWalkerPredicate() {
-        Spec<FileTreeElement> spec = patternSet.getAsSpec();
         return (Path path, String name, boolean isDirectory, Iterable<String> relativePath) ->
             spec.isSatisfiedBy(new PathBackedFileTreeElement(path, name, isDirectory, relativePath, stat));
     }
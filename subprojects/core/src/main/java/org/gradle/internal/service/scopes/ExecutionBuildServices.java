@@ -20,11 +20,14 @@
 import org.gradle.api.internal.changedetection.state.DefaultExecutionHistoryCacheAccess;
 import org.gradle.api.problems.internal.InternalProblems;
 import org.gradle.cache.FileLockManager;
+import org.gradle.cache.IndexedCacheStorage;
 import org.gradle.cache.PersistentCache;
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
 import org.gradle.cache.scopes.BuildScopedCacheBuilderFactory;
 import org.gradle.caching.internal.controller.BuildCacheController;
 import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.execution.BuildOutputCleanupRegistry;
 import org.gradle.internal.execution.ExecutionEngine;
@@ -43,6 +46,7 @@
 import org.gradle.internal.execution.history.impl.DefaultOutputFilesRepository;
 import org.gradle.internal.execution.impl.DefaultExecutionEngine;
 import org.gradle.internal.execution.impl.DefaultExecutionProblemHandler;
+import org.gradle.internal.execution.impl.ExecutionStepTimings;
 import org.gradle.internal.execution.steps.AssignImmutableWorkspaceStep;
 import org.gradle.internal.execution.steps.AssignMutableWorkspaceStep;
 import org.gradle.internal.execution.steps.BroadcastChangingOutputsStep;
@@ -90,6 +94,7 @@
 import org.gradle.internal.service.Provides;
 import org.gradle.internal.service.ServiceRegistrationProvider;
 import org.gradle.internal.vfs.FileSystemAccess;
+import org.gradle.internal.vfs.FileSystemChangeRecorder;
 import org.gradle.internal.vfs.VirtualFileSystem;
 import org.gradle.util.GradleVersion;
 
@@ -99,6 +104,16 @@
 import static org.gradle.internal.execution.steps.AfterExecutionOutputFilter.NO_FILTER;
 
 public class ExecutionBuildServices implements ServiceRegistrationProvider {
+    /**
+     * Stores execution history in a log-structured cache instead of a B-tree.
+     */
+    public static final InternalFlag LOG_STRUCTURED_EXECUTION_HISTORY = new InternalFlag("org.gradle.internal.execution-history.log-structured");
+
+    /**
+     * When file system watching is active, only snapshot outputs that have been reported as changed during execution.
+     */
+    public static final InternalFlag RECORD_OUTPUT_CHANGES = new InternalFlag("org.gradle.internal.execution.record-output-changes");
+
     @Provides
     ExecutionHistoryCacheAccess createCacheAccess(BuildScopedCacheBuilderFactory cacheBuilderFactory) {
         return new DefaultExecutionHistoryCacheAccess(cacheBuilderFactory);
@@ -109,13 +124,15 @@ ExecutionHistoryStore createExecutionHistoryStore(
         ExecutionHistoryCacheAccess executionHistoryCacheAccess,
         InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory,
         StringInterner stringInterner,
-        ClassLoaderHierarchyHasher classLoaderHasher
+        ClassLoaderHierarchyHasher classLoaderHasher,
+        InternalOptions internalOptions
     ) {
         return new DefaultExecutionHistoryStore(
             executionHistoryCacheAccess,
             inMemoryCacheDecoratorFactory,
             stringInterner,
-            classLoaderHasher
+            classLoaderHasher,
+            internalOptions.getOption(LOG_STRUCTURED_EXECUTION_HISTORY).get() ? IndexedCacheStorage.LOG_STRUCTURED : IndexedCacheStorage.BTREE
         );
     }
 
@@ -154,6 +171,7 @@ public ExecutionEngine createExecutionEngine(
         ExecutionProblemHandler problemHandler,
         ExecutionStateChangeDetector changeDetector,
         FileSystemAccess fileSystemAccess,
+        FileSystemChangeRecorder fileSystemChangeRecorder,
         ImmutableWorkspaceMetadataStore immutableWorkspaceMetadataStore,
         OutputChangeListener outputChangeListener,
         WorkInputListeners workInputListeners, OutputFilesRepository outputFilesRepository,
@@ -161,9 +179,14 @@ public ExecutionEngine createExecutionEngine(
         OverlappingOutputDetector overlappingOutputDetector,
         StartParameter startParameter,
         TimeoutHandler timeoutHandler,
-        InternalProblems problems
+        InternalProblems problems,
+        InternalOptions internalOptions,
+        ExecutionStepTimings stepTimings
     ) {
         UniqueId buildId = buildInvocationScopeId.getId();
+        FileSystemChangeRecorder outputChangeRecorder = internalOptions.getOption(RECORD_OUTPUT_CHANGES).get()
+            ? fileSystemChangeRecorder
+            : FileSystemChangeRecorder.NOT_RECORDING;
         Supplier<OutputsCleaner> skipEmptyWorkOutputsCleanerSupplier = () -> new OutputsCleaner(deleter, buildOutputCleanupRegistry::isOutputOwnedByBuild, buildOutputCleanupRegistry::isOutputOwnedByBuild);
         boolean emitBuildCacheDebugLogging = startParameter.isBuildCacheDebugLogging();
 
@@ -173,53 +196,53 @@ public ExecutionEngine createExecutionEngine(
             new PreCreateOutputParentsStep<>(
             new TimeoutStep<>(timeoutHandler, currentBuildOperationRef,
             new CancelExecutionStep<>(cancellationToken,
-            new ExecuteStep<>(buildOperationRunner
-        ))));
+            stepTimings.timed("execute", new ExecuteStep<>(buildOperationRunner
+        )))));
 
         Step<IdentityContext,WorkspaceResult> immutablePipeline =
-            new AssignImmutableWorkspaceStep<>(deleter, fileSystemAccess, immutableWorkspaceMetadataStore, outputSnapshotter,
+            stepTimings.timed("assign immutable workspace", new AssignImmutableWorkspaceStep<>(deleter, fileSystemAccess, immutableWorkspaceMetadataStore, outputSnapshotter,
             new MarkSnapshottingInputsStartedStep<>(
-            new CaptureNonIncrementalStateBeforeExecutionStep<>(buildOperationRunner, classLoaderHierarchyHasher,
+            stepTimings.timed("capture state before execution", new CaptureNonIncrementalStateBeforeExecutionStep<>(buildOperationRunner, classLoaderHierarchyHasher,
             new ValidateStep<>(problemHandler,
-            new ResolveNonIncrementalCachingStateStep<>(buildCacheController, emitBuildCacheDebugLogging,
+            stepTimings.timed("resolve caching state", new ResolveNonIncrementalCachingStateStep<>(buildCacheController, emitBuildCacheDebugLogging,
             new MarkSnapshottingInputsFinishedStep<>(
             new NeverUpToDateStep<>(
-            new BuildCacheStep<>(buildCacheController, deleter, fileSystemAccess, outputChangeListener,
-            new CaptureOutputsAfterExecutionStep<>(buildOperationRunner, buildId, outputSnapshotter, NO_FILTER,
+            stepTimings.timed("build cache", new BuildCacheStep<>(buildCacheController, deleter, fileSystemAccess, outputChangeListener,
+            stepTimings.timed("capture outputs after execution", new CaptureOutputsAfterExecutionStep<>(buildOperationRunner, buildId, outputSnapshotter, NO_FILTER,
             new NoInputChangesStep<>(
             new BroadcastChangingOutputsStep<>(outputChangeListener,
             sharedExecutionPipeline
-        )))))))))));
+        ))))))))))))))));
 
         Step<IdentityContext,WorkspaceResult> mutablePipeline =
             new AssignMutableWorkspaceStep<>(
             new HandleStaleOutputsStep<>(buildOperationRunner, buildOutputCleanupRegistry,  deleter, outputChangeListener, outputFilesRepository,
-            new LoadPreviousExecutionStateStep<>(
+            stepTimings.timed("load previous execution state", new LoadPreviousExecutionStateStep<>(
             new MarkSnapshottingInputsStartedStep<>(
             new SkipEmptyIncrementalWorkStep(problemHandler, outputChangeListener, workInputListeners, skipEmptyWorkOutputsCleanerSupplier,
-            new CaptureIncrementalStateBeforeExecutionStep<>(buildOperationRunner, classLoaderHierarchyHasher, outputSnapshotter, overlappingOutputDetector,
+            stepTimings.timed("capture state before execution", new CaptureIncrementalStateBeforeExecutionStep<>(buildOperationRunner, classLoaderHierarchyHasher, outputSnapshotter, overlappingOutputDetector,
             new ValidateStep<>(problemHandler,
-            new ResolveChangesStep<>(changeDetector,
-            new ResolveIncrementalCachingStateStep<>(buildCacheController, emitBuildCacheDebugLogging,
+            stepTimings.timed("resolve changes", new ResolveChangesStep<>(changeDetector,
+            stepTimings.timed("resolve caching state", new ResolveIncrementalCachingStateStep<>(buildCacheController, emitBuildCacheDebugLogging,
             new MarkSnapshottingInputsFinishedStep<>(
-            new SkipUpToDateStep<>(
-            new StoreExecutionStateStep<>(
-            new BuildCacheStep<>(buildCacheController, deleter, fileSystemAccess, outputChangeListener,
+            stepTimings.timed("skip up-to-date", new SkipUpToDateStep<>(
+            stepTimings.timed("store execution state", new StoreExecutionStateStep<>(
+            stepTimings.timed("build cache", new BuildCacheStep<>(buildCacheController, deleter, fileSystemAccess, outputChangeListener,
             new ResolveInputChangesStep<>(
-            new CaptureOutputsAfterExecutionStep<>(buildOperationRunner, buildId, outputSnapshotter, new OverlappingOutputsFilter(),
+            stepTimings.timed("capture outputs after execution", new CaptureOutputsAfterExecutionStep<>(buildOperationRunner, buildId, outputSnapshotter, outputChangeRecorder, outputChangeListener, new OverlappingOutputsFilter(),
             new BroadcastChangingOutputsStep<>(outputChangeListener,
             new RemovePreviousOutputsStep<>(deleter, outputChangeListener,
             sharedExecutionPipeline
-        )))))))))))))))));
+        )))))))))))))))))))))))));
 
         return new DefaultExecutionEngine(
-            new IdentifyStep<>(buildOperationRunner,
+            stepTimings.timedDeferred("identify", new IdentifyStep<>(buildOperationRunner,
             new IdentityCacheStep<>(buildOperationProgressEventEmitter,
-            new ExecuteWorkBuildOperationFiringStep<>(buildOperationRunner,
+            stepTimings.timed("execute work", new ExecuteWorkBuildOperationFiringStep<>(buildOperationRunner,
             new ChoosePipelineStep<>(
                 immutablePipeline,
                 mutablePipeline
-        )))), problems);
+        )))))), problems);
         // CHECKSTYLE:ON
         // @formatter:on
     }
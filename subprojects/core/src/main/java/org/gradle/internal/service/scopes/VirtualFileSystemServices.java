@@ -21,17 +21,22 @@
 import net.rubygrapefruit.platform.file.FileSystems;
 import org.apache.tools.ant.DirectoryScanner;
 import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.StartParameterInternal;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.BuildSessionScopeFileTimeStampInspector;
 import org.gradle.api.internal.changedetection.state.CachingFileHasher;
+import org.gradle.api.internal.changedetection.state.CentralDirectoryClasspathResourceHasher;
 import org.gradle.api.internal.changedetection.state.CrossBuildFileHashCache;
 import org.gradle.api.internal.changedetection.state.DefaultResourceSnapshotterCacheService;
+import org.gradle.api.internal.changedetection.state.FileBackedVirtualFileSystemState;
 import org.gradle.api.internal.changedetection.state.FileHasherStatistics;
 import org.gradle.api.internal.changedetection.state.GradleUserHomeScopeFileTimeStampInspector;
+import org.gradle.api.internal.changedetection.state.InodeFileHashStore;
 import org.gradle.api.internal.changedetection.state.PropertiesFileFilter;
 import org.gradle.api.internal.changedetection.state.ResourceEntryFilter;
 import org.gradle.api.internal.changedetection.state.ResourceFilter;
 import org.gradle.api.internal.changedetection.state.ResourceSnapshotterCacheService;
+import org.gradle.api.internal.changedetection.state.RuntimeClasspathResourceHasher;
 import org.gradle.api.internal.changedetection.state.SplitFileHasher;
 import org.gradle.api.internal.changedetection.state.SplitResourceSnapshotterCacheService;
 import org.gradle.api.internal.file.FileCollectionFactory;
@@ -44,10 +49,12 @@
 import org.gradle.cache.scopes.GlobalScopedCacheBuilderFactory;
 import org.gradle.initialization.RootBuildLifecycleListener;
 import org.gradle.internal.build.BuildAddedListener;
+import org.gradle.internal.buildoption.DefaultInternalOptions;
 import org.gradle.internal.buildoption.IntegerInternalOption;
 import org.gradle.internal.buildoption.InternalFlag;
 import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.classloader.ClasspathHasher;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.execution.FileCollectionFingerprinterRegistry;
 import org.gradle.internal.execution.FileCollectionSnapshotter;
@@ -57,6 +64,8 @@
 import org.gradle.internal.execution.impl.DefaultFileCollectionFingerprinterRegistry;
 import org.gradle.internal.execution.impl.DefaultInputFingerprinter;
 import org.gradle.internal.execution.impl.DefaultOutputSnapshotter;
+import org.gradle.internal.execution.impl.InputFingerprintingExecutor;
+import org.gradle.internal.execution.impl.UnchangedOutputSnapshots;
 import org.gradle.internal.file.DefaultFileSystemDefaultExcludesProvider;
 import org.gradle.internal.file.FileMetadataAccessor;
 import org.gradle.internal.file.FileSystemDefaultExcludesProvider;
@@ -80,11 +89,14 @@
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistrationProvider;
 import org.gradle.internal.snapshot.CaseSensitivity;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.SnapshotHierarchy;
 import org.gradle.internal.snapshot.ValueSnapshotter;
+import org.gradle.internal.snapshot.impl.ConcurrentHashingPool;
 import org.gradle.internal.snapshot.impl.DirectorySnapshotterStatistics;
 import org.gradle.internal.vfs.FileSystemAccess;
 import org.gradle.internal.vfs.VirtualFileSystem;
+import org.gradle.internal.vfs.impl.CompactingSnapshotHierarchy;
 import org.gradle.internal.vfs.impl.DefaultFileSystemAccess;
 import org.gradle.internal.vfs.impl.DefaultSnapshotHierarchy;
 import org.gradle.internal.watch.registry.FileWatcherRegistryFactory;
@@ -93,6 +105,7 @@
 import org.gradle.internal.watch.registry.impl.WindowsFileWatcherRegistryFactory;
 import org.gradle.internal.watch.vfs.BuildLifecycleAwareVirtualFileSystem;
 import org.gradle.internal.watch.vfs.FileChangeListeners;
+import org.gradle.internal.watch.vfs.PersistentVirtualFileSystemState;
 import org.gradle.internal.watch.vfs.WatchableFileSystemDetector;
 import org.gradle.internal.watch.vfs.impl.DefaultWatchableFileSystemDetector;
 import org.gradle.internal.watch.vfs.impl.FileWatchingFilter;
@@ -100,6 +113,7 @@
 import org.gradle.internal.watch.vfs.impl.WatchingVirtualFileSystem;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.Optional;
 import java.util.function.Predicate;
 
@@ -118,6 +132,44 @@ public class VirtualFileSystemServices extends AbstractGradleModuleServices {
     public static final IntegerInternalOption MAX_HIERARCHIES_TO_WATCH_PROPERTY = new IntegerInternalOption("org.gradle.vfs.watch.hierarchies.max", DEFAULT_MAX_HIERARCHIES_TO_WATCH);
     private static final int FILE_HASHER_MEMORY_CACHE_SIZE = 400000;
 
+    /**
+     * The number of threads, including the executing thread, used to fingerprint the inputs of a single unit of work.
+     * The default of 1 fingerprints the inputs sequentially.
+     */
+    public static final IntegerInternalOption INPUT_FINGERPRINTING_PARALLELISM_PROPERTY = new IntegerInternalOption("org.gradle.internal.input-fingerprinting.parallelism", 1);
+
+    /**
+     * The number of threads in the build session's {@link ConcurrentHashingPool}, used to walk directories and hash their files when snapshotting a directory hierarchy,
+     * and to hash the entries of archives with many entries on classpaths.
+     * A value of 1 hashes sequentially.
+     */
+    public static final IntegerInternalOption CONCURRENT_HASHING_PARALLELISM_PROPERTY = new IntegerInternalOption("org.gradle.internal.concurrent-hashing.parallelism", 1);
+
+    /**
+     * When enabled, the virtual file system keeps the directory snapshots it retains in a compact form, using less memory per file.
+     * Since the virtual file system lives as long as the daemon, this is read from the daemon's system properties.
+     */
+    public static final InternalFlag COMPACT_VFS_PROPERTY = new InternalFlag("org.gradle.internal.vfs.compact");
+
+    /**
+     * When enabled, the virtual file system is kept in a file when the daemon stops, and restored by the next daemon when file system watching is enabled.
+     * Since the virtual file system lives as long as the daemon, this is read from the daemon's system properties.
+     */
+    public static final InternalFlag PERSISTENT_VFS_PROPERTY = new InternalFlag("org.gradle.internal.vfs.persistent");
+
+    /**
+     * When enabled, file hashes are also kept in a memory-mapped store keyed by inode, so they survive moving a checkout.
+     * This is read from the daemon's system properties.
+     */
+    public static final InternalFlag INODE_FILE_HASH_STORE_PROPERTY = new InternalFlag("org.gradle.internal.file-hashes.inode-store");
+
+    /**
+     * When enabled, entries of jars on runtime classpaths are fingerprinted by the size and CRC-32 from the zip central directory instead of their content.
+     *
+     * @see CentralDirectoryClasspathResourceHasher
+     */
+    public static final InternalFlag CENTRAL_DIRECTORY_CLASSPATH_FINGERPRINTS_PROPERTY = new InternalFlag("org.gradle.internal.classpath.central-directory-fingerprints");
+
     public static boolean isDropVfs(InternalOptions options) {
         return options.getOption(VFS_DROP_PROPERTY).get();
     }
@@ -162,16 +214,26 @@ CrossBuildFileHashCache createCrossBuildFileHashCache(GlobalScopedCacheBuilderFa
             return new CrossBuildFileHashCache(cacheBuilderFactory, inMemoryCacheDecoratorFactory, CrossBuildFileHashCache.Kind.FILE_HASHES);
         }
 
+        @Provides
+        InodeFileHashStore createInodeFileHashStore(GlobalScopedCacheBuilderFactory cacheBuilderFactory) {
+            if (!new DefaultInternalOptions(Collections.emptyMap()).getOption(INODE_FILE_HASH_STORE_PROPERTY).get()) {
+                return InodeFileHashStore.disabled();
+            }
+            File fileHashesDir = cacheBuilderFactory.baseDirForCache(CrossBuildFileHashCache.Kind.FILE_HASHES.getCacheId());
+            return InodeFileHashStore.open(new File(fileHashesDir, "fileHashesByInode.bin"));
+        }
+
         @Provides
         FileHasher createCachingFileHasher(
             FileHasherStatistics.Collector statisticsCollector,
             CrossBuildFileHashCache fileStore,
+            InodeFileHashStore inodeStore,
             FileSystem fileSystem,
             GradleUserHomeScopeFileTimeStampInspector fileTimeStampInspector,
             StreamHasher streamHasher,
             StringInterner stringInterner
         ) {
-            CachingFileHasher fileHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), fileStore, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
+            CachingFileHasher fileHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), fileStore, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector, inodeStore);
             fileTimeStampInspector.attach(fileHasher);
             return fileHasher;
         }
@@ -209,10 +271,20 @@ BuildLifecycleAwareVirtualFileSystem createVirtualFileSystem(
             FileChangeListeners fileChangeListeners,
             NativeServices.FileEventFunctionsProvider fileEvents,
             FileSystem fileSystem,
-            WatchableFileSystemDetector watchableFileSystemDetector
+            WatchableFileSystemDetector watchableFileSystemDetector,
+            GlobalScopedCacheBuilderFactory cacheBuilderFactory,
+            FileMetadataAccessor stat,
+            StringInterner stringInterner
         ) {
             CaseSensitivity caseSensitivity = fileSystem.isCaseSensitive() ? CASE_SENSITIVE : CASE_INSENSITIVE;
-            SnapshotHierarchy root = DefaultSnapshotHierarchy.empty(caseSensitivity);
+            SnapshotHierarchy emptyRoot = DefaultSnapshotHierarchy.empty(caseSensitivity);
+            InternalOptions internalOptions = new DefaultInternalOptions(Collections.emptyMap());
+            SnapshotHierarchy root = internalOptions.getOption(COMPACT_VFS_PROPERTY).get()
+                ? CompactingSnapshotHierarchy.of(emptyRoot)
+                : emptyRoot;
+            PersistentVirtualFileSystemState persistentState = internalOptions.getOption(PERSISTENT_VFS_PROPERTY).get()
+                ? new FileBackedVirtualFileSystemState(new File(cacheBuilderFactory.baseDirForCache("vfs"), "state.bin"), stat, stringInterner, caseSensitivity)
+                : PersistentVirtualFileSystemState.NONE;
 
             BuildLifecycleAwareVirtualFileSystem virtualFileSystem = determineWatcherRegistryFactory(
                 OperatingSystem.current(),
@@ -225,7 +297,8 @@ BuildLifecycleAwareVirtualFileSystem createVirtualFileSystem(
                     sectionId -> documentationRegistry.getDocumentationRecommendationFor("details", "file_system_watching", sectionId),
                     fileWatchingFilter,
                     watchableFileSystemDetector,
-                    fileChangeListeners
+                    fileChangeListeners,
+                    persistentState
                 ))
                 .orElse(new WatchingNotSupportedVirtualFileSystem(root));
             listenerManager.addListener((BuildAddedListener) buildState -> {
@@ -253,6 +326,7 @@ FileSystemAccess createFileSystemAccess(
                 virtualFileSystem,
                 writeListener,
                 statisticsCollector,
+                ConcurrentHashingPool.SEQUENTIAL,
                 DirectoryScanner.getDefaultExcludes()
             );
             listenerManager.addListener(defaultFileSystemAccess);
@@ -335,9 +409,11 @@ FileHasher createFileHasher(
             FileSystem fileSystem,
             StreamHasher streamHasher,
             StringInterner stringInterner,
-            FileHasherStatistics.Collector statisticsCollector
+            FileHasherStatistics.Collector statisticsCollector,
+            InodeFileHashStore inodeStore
         ) {
-            CachingFileHasher localHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), cacheAccess, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
+            // Files of the build are hashed here, so this is where the inode store helps when a checkout is moved
+            CachingFileHasher localHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), cacheAccess, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector, inodeStore);
             return new SplitFileHasher(globalHasher, localHasher, globalCacheLocations);
         }
 
@@ -349,7 +425,8 @@ FileSystemAccess createFileSystemAccess(
             StringInterner stringInterner,
             VirtualFileSystem root,
             FileSystemAccess.WriteListener writeListener,
-            DirectorySnapshotterStatistics.Collector statisticsCollector
+            DirectorySnapshotterStatistics.Collector statisticsCollector,
+            ConcurrentHashingPool hashingPool
         ) {
             DefaultFileSystemAccess buildSessionsScopedVirtualFileSystem = new DefaultFileSystemAccess(
                 hasher,
@@ -358,6 +435,7 @@ FileSystemAccess createFileSystemAccess(
                 root,
                 writeListener,
                 statisticsCollector,
+                hashingPool,
                 DirectoryScanner.getDefaultExcludes()
             );
 
@@ -377,17 +455,29 @@ OutputSnapshotter createOutputSnapshotter(FileCollectionSnapshotter fileCollecti
             return new DefaultOutputSnapshotter(fileCollectionSnapshotter);
         }
 
+        @Provides
+        RuntimeClasspathResourceHasher createRuntimeClasspathResourceHasher(StartParameterInternal startParameter) {
+            InternalOptions options = new DefaultInternalOptions(startParameter.getSystemPropertiesArgs());
+            return options.getOption(CENTRAL_DIRECTORY_CLASSPATH_FINGERPRINTS_PROPERTY).get()
+                ? new CentralDirectoryClasspathResourceHasher()
+                : new RuntimeClasspathResourceHasher();
+        }
+
         @Provides
         FileCollectionFingerprinterRegistrations createFileCollectionFingerprinterRegistrations(
             StringInterner stringInterner,
-            ResourceSnapshotterCacheService resourceSnapshotterCacheService
+            ResourceSnapshotterCacheService resourceSnapshotterCacheService,
+            RuntimeClasspathResourceHasher runtimeClasspathResourceHasher,
+            ConcurrentHashingPool hashingPool
         ) {
             return new FileCollectionFingerprinterRegistrations(
                 stringInterner,
                 resourceSnapshotterCacheService,
                 ResourceFilter.FILTER_NOTHING,
                 ResourceEntryFilter.FILTER_NOTHING,
-                PropertiesFileFilter.FILTER_NOTHING
+                PropertiesFileFilter.FILTER_NOTHING,
+                runtimeClasspathResourceHasher,
+                hashingPool
             );
         }
 
@@ -396,13 +486,54 @@ FileCollectionFingerprinterRegistry createFileCollectionFingerprinterRegistry(Fi
             return new DefaultFileCollectionFingerprinterRegistry(fileCollectionFingerprinterRegistrations.getRegistrants());
         }
 
+        @Provides
+        ConcurrentHashingPool createConcurrentHashingPool(StartParameterInternal startParameter) {
+            InternalOptions options = new DefaultInternalOptions(startParameter.getSystemPropertiesArgs());
+            return ConcurrentHashingPool.create(options.getOption(CONCURRENT_HASHING_PARALLELISM_PROPERTY).get());
+        }
+
+        @Provides
+        InputFingerprintingExecutor createInputFingerprintingExecutor(ExecutorFactory executorFactory, StartParameterInternal startParameter) {
+            InternalOptions options = new DefaultInternalOptions(startParameter.getSystemPropertiesArgs());
+            return InputFingerprintingExecutor.create(executorFactory, options.getOption(INPUT_FINGERPRINTING_PARALLELISM_PROPERTY).get());
+        }
+
+        @Provides
+        UnchangedOutputSnapshots createUnchangedOutputSnapshots(ListenerManager listenerManager) {
+            UnchangedOutputSnapshots unchangedOutputs = new UnchangedOutputSnapshots();
+            listenerManager.addListener(new OutputChangeListener() {
+                @Override
+                public void invalidateCachesFor(Iterable<String> affectedOutputPaths) {
+                    unchangedOutputs.invalidate(affectedOutputPaths);
+                }
+
+                @Override
+                public void outputsUnchanged(Iterable<FileSystemLocationSnapshot> unchangedOutputSnapshots) {
+                    unchangedOutputs.outputsUnchanged(unchangedOutputSnapshots);
+                }
+            });
+            listenerManager.addListener(new RootBuildLifecycleListener() {
+                @Override
+                public void afterStart() {
+                }
+
+                @Override
+                public void beforeComplete() {
+                    unchangedOutputs.clear();
+                }
+            });
+            return unchangedOutputs;
+        }
+
         @Provides
         InputFingerprinter createInputFingerprinter(
             FileCollectionSnapshotter snapshotter,
             FileCollectionFingerprinterRegistry fingerprinterRegistry,
-            ValueSnapshotter valueSnapshotter
+            ValueSnapshotter valueSnapshotter,
+            InputFingerprintingExecutor inputFingerprintingExecutor,
+            UnchangedOutputSnapshots unchangedOutputs
         ) {
-            return new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter);
+            return new DefaultInputFingerprinter(snapshotter, fingerprinterRegistry, valueSnapshotter, inputFingerprintingExecutor, unchangedOutputs);
         }
 
         @Provides
@@ -47,6 +47,7 @@
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.file.impl.DefaultDeleter;
 import org.gradle.internal.hash.DefaultStreamHasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.installation.CurrentGradleInstallation;
 import org.gradle.internal.instantiation.InstantiatorFactory;
@@ -137,7 +138,7 @@ DefaultFilePropertyFactory createFilePropertyFactory(PropertyHost propertyHost,
 
     @Provides
     StreamHasher createStreamHasher() {
-        return new DefaultStreamHasher();
+        return new DefaultStreamHasher(Hashing.fileContentFunction());
     }
 
     @Provides
@@ -21,6 +21,7 @@
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.file.FileCollectionFactory;
 import org.gradle.cache.internal.HeapProportionalCacheSizer;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.process.JavaForkOptions;
 import org.gradle.process.internal.JvmDebugSpec.DefaultJvmDebugSpec;
 import org.gradle.process.internal.JvmDebugSpec.JavaDebugOptionsBackedSpec;
@@ -67,7 +68,7 @@ public class JvmOptions {
         FILE_ENCODING_KEY, USER_LANGUAGE_KEY, USER_COUNTRY_KEY, USER_VARIANT_KEY, JMX_REMOTE_KEY, JAVA_IO_TMPDIR_KEY, JDK_ENABLE_ADS_KEY,
         SSL_KEYSTORE_KEY, SSL_KEYSTOREPASSWORD_KEY, SSL_KEYSTORETYPE_KEY, SSL_TRUSTPASSWORD_KEY, SSL_TRUSTSTORE_KEY, SSL_TRUSTSTORETYPE_KEY,
         // Gradle specific
-        HeapProportionalCacheSizer.CACHE_RESERVED_SYSTEM_PROPERTY
+        HeapProportionalCacheSizer.CACHE_RESERVED_SYSTEM_PROPERTY, Hashing.FILE_CONTENT_HASH_FUNCTION_PROPERTY
     );
 
     // Store this because Locale.default is mutable and we want the unchanged default
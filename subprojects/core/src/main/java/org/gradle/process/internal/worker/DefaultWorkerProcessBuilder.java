@@ -18,6 +18,7 @@
 
 import org.gradle.api.Action;
 import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.jvm.JpmsConfiguration;
 import org.gradle.internal.jvm.Jvm;
@@ -254,6 +255,11 @@ public WorkerProcess build() {
         int javaVersionMajor = jvmVersionDetector.getJavaVersionMajor(javaCommand.getExecutable());
 
         boolean java9Compatible = javaVersionMajor >= 9;
+        String fileContentHashFunction = System.getProperty(Hashing.FILE_CONTENT_HASH_FUNCTION_PROPERTY);
+        if (fileContentHashFunction != null) {
+            // Workers hash file contents the same way as the daemon
+            javaCommand.systemProperty(Hashing.FILE_CONTENT_HASH_FUNCTION_PROPERTY, fileContentHashFunction);
+        }
         workerImplementationFactory.prepareJavaCommand(id, displayName, this, implementationClassPath, implementationModulePath, localAddress, javaCommand, shouldPublishJvmMemoryInfo, java9Compatible);
 
         if (addJpmsCompatibilityFlags) {
@@ -25,9 +25,13 @@ import org.gradle.internal.file.impl.DefaultFileMetadata
 import org.gradle.internal.hash.FileHasher
 import org.gradle.internal.hash.TestHashCodes
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.precondition.Requires
+import org.gradle.test.preconditions.UnitTestPreconditions
 import org.junit.Rule
 import spock.lang.Specification
 
+import java.nio.file.Files
+
 class CachingFileHasherTest extends Specification {
     @Rule
     TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
@@ -173,4 +177,88 @@ class CachingFileHasherTest extends Specification {
         1 * statisticsCollector.reportFileHashed(length)
         0 * _
     }
+
+    def "uses hash from inode store when not cached by path"() {
+        def inodeStore = Mock(InodeFileHashStore)
+        1 * cacheAccess.createIndexedCache({ it.cacheName == "fileHashes"  }, _, _) >> cache
+        hasher = new CachingFileHasher(target, cacheAccess, new StringInterner(), timeStampInspector, "fileHashes", fileSystem, 1000, statisticsCollector, inodeStore)
+        def stat = fileSystem.stat(file)
+
+        when:
+        def result = hasher.hash(file)
+
+        then:
+        result == hash
+
+        and:
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * cache.getIfPresent(file.absolutePath) >> null
+        1 * inodeStore.enabled >> true
+        1 * inodeStore.get(file, stat.length, stat.lastModified) >> hash
+        1 * statisticsCollector.reportInodeStoreHit()
+        1 * cache.put(file.absolutePath, _) >> { String key, FileInfo fileInfo ->
+            assert fileInfo.hash == hash
+        }
+        0 * _
+    }
+
+    @Requires(UnitTestPreconditions.NotWindows)
+    def "uses hash from inode store for files in a moved directory"() {
+        def inodeStore = InodeFileHashStore.open(tmpDir.file("fileHashesByInode.bin"))
+        1 * cacheAccess.createIndexedCache({ it.cacheName == "fileHashes"  }, _, _) >> cache
+        hasher = new CachingFileHasher(target, cacheAccess, new StringInterner(), timeStampInspector, "fileHashes", fileSystem, 1000, statisticsCollector, inodeStore)
+        _ * timeStampInspector.timestampCanBeUsedToDetectFileChange(_, _) >> true
+        def checkout = tmpDir.createDir("checkout")
+        def original = checkout.createFile("src/Main.java")
+        original.text = "class Main {}"
+        def moved = tmpDir.file("moved/src/Main.java")
+
+        when:
+        hasher.hash(original)
+        Files.move(checkout.toPath(), tmpDir.file("moved").toPath())
+        def result = hasher.hash(moved)
+
+        then:
+        result == hash
+        1 * target.hash(original) >> hash
+        0 * target.hash(moved)
+        1 * statisticsCollector.reportInodeStoreHit()
+
+        cleanup:
+        inodeStore.close()
+    }
+
+    def "does not record hash in inode store when timestamp cannot be used to detect changes"() {
+        def inodeStore = Mock(InodeFileHashStore)
+        1 * cacheAccess.createIndexedCache({ it.cacheName == "fileHashes"  }, _, _) >> cache
+        hasher = new CachingFileHasher(target, cacheAccess, new StringInterner(), timeStampInspector, "fileHashes", fileSystem, 1000, statisticsCollector, inodeStore)
+        def stat = fileSystem.stat(file)
+
+        when:
+        def result = hasher.hash(file)
+
+        then:
+        result == hash
+
+        and:
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> false
+        1 * target.hash(file) >> hash
+        1 * cache.put(file.absolutePath, _)
+        1 * statisticsCollector.reportFileHashed(file.length())
+        0 * _
+    }
+
+    def "discarding a file also removes it from the inode store"() {
+        def inodeStore = Mock(InodeFileHashStore)
+        1 * cacheAccess.createIndexedCache({ it.cacheName == "fileHashes"  }, _, _) >> cache
+        hasher = new CachingFileHasher(target, cacheAccess, new StringInterner(), timeStampInspector, "fileHashes", fileSystem, 1000, statisticsCollector, inodeStore)
+
+        when:
+        hasher.discard(file.absolutePath)
+
+        then:
+        1 * cache.remove(file.absolutePath)
+        1 * inodeStore.remove(file)
+        0 * _
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.internal.file.FileMetadata.AccessType
+import org.gradle.internal.file.nio.NioFileMetadataAccessor
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.snapshot.CaseSensitivity
+import org.gradle.internal.snapshot.DirectorySnapshot
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.snapshot.MissingFileSnapshot
+import org.gradle.internal.snapshot.RegularFileSnapshot
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.stream.Stream
+
+class FileBackedVirtualFileSystemStateTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def stat = new NioFileMetadataAccessor()
+    def state = newState()
+
+    def dir = tmpDir.createDir("dir")
+    def file = dir.createFile("file.txt")
+    def subDir = dir.createDir("sub")
+    def subFile = subDir.createFile("sub.txt")
+    def missing = tmpDir.file("missing")
+
+    def setup() {
+        // Files modified in the same instant as the state is saved are not restored
+        [file, subFile].each { it.lastModified = System.currentTimeMillis() - 10000 }
+    }
+
+    def "loads the saved snapshots when nothing changed"() {
+        state.save(Stream.of(snapshotOfDir(), missingSnapshot()))
+        state = newState()
+
+        expect:
+        loadValidSnapshots() == [dir, missing]
+    }
+
+    def "only loads the snapshots in the watchable hierarchy"() {
+        state.save(Stream.of(snapshotOfDir(), missingSnapshot()))
+        state = newState()
+
+        expect:
+        loadValidSnapshots(subDir) == [subDir]
+        loadValidSnapshots(missing) == [missing]
+    }
+
+    def "loads every snapshot only once"() {
+        state.save(Stream.of(snapshotOfDir()))
+        state = newState()
+
+        expect:
+        loadValidSnapshots(dir) == [dir]
+        loadValidSnapshots(dir) == []
+    }
+
+    def "keeps the snapshots of hierarchies which have not been loaded when saving"() {
+        state.save(Stream.of(snapshotOfDir(), missingSnapshot()))
+        state = newState()
+        loadValidSnapshots(dir)
+        state.save(Stream.empty())
+        state = newState()
+
+        expect:
+        loadValidSnapshots() == [missing]
+    }
+
+    def "ignores children excluded by default"() {
+        state.save(Stream.of(snapshotOfDir()))
+        dir.createFile(".DS_Store")
+        dir.createDir(".git")
+        state = newState()
+
+        expect:
+        loadValidSnapshots(dir) == [dir]
+    }
+
+    def "keeps the matching children of a changed directory"() {
+        state.save(Stream.of(snapshotOfDir()))
+        state = newState()
+        dir.createFile("new.txt")
+
+        expect:
+        loadValidSnapshots() == [file, subDir]
+    }
+
+    def "drops snapshots of changed files"() {
+        state.save(Stream.of(snapshotOfDir(), missingSnapshot()))
+        state = newState()
+        subFile << "changed"
+        missing.createFile()
+
+        expect:
+        loadValidSnapshots() == [file]
+    }
+
+    def "drops snapshots of files modified when the state was saved"() {
+        file.lastModified = System.currentTimeMillis() + 10000
+        state.save(Stream.of(snapshotOfDir()))
+        state = newState()
+
+        expect:
+        loadValidSnapshots() == [subDir]
+    }
+
+    def "loads nothing when no state has been saved"() {
+        when:
+        state.save(Stream.of(snapshotOfDir()))
+        loadValidSnapshots()
+        state.save(Stream.empty())
+
+        then:
+        loadValidSnapshots() == []
+        !tmpDir.file("state/vfs.bin").exists()
+    }
+
+    def "ignores unreadable state"() {
+        tmpDir.file("state/vfs.bin").text = "garbage"
+
+        expect:
+        loadValidSnapshots() == []
+    }
+
+    private FileBackedVirtualFileSystemState newState() {
+        new FileBackedVirtualFileSystemState(tmpDir.file("state/vfs.bin"), stat, new StringInterner(), CaseSensitivity.CASE_SENSITIVE)
+    }
+
+    private List<File> loadValidSnapshots(File watchableHierarchy = tmpDir.testDirectory) {
+        List<File> locations = []
+        state.loadValidSnapshots(watchableHierarchy) { FileSystemLocationSnapshot snapshot -> locations.add(new File(snapshot.absolutePath)) }
+        return locations
+    }
+
+    private DirectorySnapshot snapshotOfDir() {
+        def subDirSnapshot = new DirectorySnapshot(subDir.absolutePath, subDir.name, AccessType.DIRECT, TestHashCodes.hashCodeFrom(1), [regularFile(subFile)])
+        new DirectorySnapshot(dir.absolutePath, dir.name, AccessType.DIRECT, TestHashCodes.hashCodeFrom(2), [regularFile(file), subDirSnapshot])
+    }
+
+    private MissingFileSnapshot missingSnapshot() {
+        new MissingFileSnapshot(missing.absolutePath, AccessType.DIRECT)
+    }
+
+    private RegularFileSnapshot regularFile(TestFile file) {
+        new RegularFileSnapshot(file.absolutePath, file.name, TestHashCodes.hashCodeFrom(3), stat.stat(file))
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.precondition.Requires
+import org.gradle.test.preconditions.UnitTestPreconditions
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+@Requires(UnitTestPreconditions.NotWindows)
+class InodeFileHashStoreTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def storeFile = tmpDir.file("store.bin")
+    def hash = TestHashCodes.hashCodeFrom(0x0123)
+    def file = tmpDir.createFile("testfile")
+    InodeFileHashStore store = InodeFileHashStore.open(storeFile, 64)
+
+    def cleanup() {
+        store.close()
+    }
+
+    def "returns stored hash for unchanged file"() {
+        when:
+        store.put(file, 12, 34, hash)
+
+        then:
+        store.enabled
+        store.get(file, 12, 34) == hash
+    }
+
+    def "does not return stored hash when length or timestamp has changed"() {
+        when:
+        store.put(file, 12, 34, hash)
+
+        then:
+        store.get(file, 13, 34) == null
+        store.get(file, 12, 35) == null
+        store.get(tmpDir.createFile("other"), 12, 34) == null
+    }
+
+    def "stored hashes survive reopening the store"() {
+        when:
+        store.put(file, 12, 34, hash)
+        store.close()
+        store = InodeFileHashStore.open(storeFile, 64)
+
+        then:
+        store.get(file, 12, 34) == hash
+    }
+
+    def "finds hash of moved file"() {
+        def moved = tmpDir.file("moved/testfile")
+        moved.parentFile.mkdirs()
+
+        when:
+        store.put(file, 12, 34, hash)
+        Files.move(file.toPath(), moved.toPath())
+
+        then:
+        store.get(moved, 12, 34) == hash
+    }
+
+    def "does not return removed hash"() {
+        def other = tmpDir.createFile("other")
+
+        when:
+        store.put(file, 12, 34, hash)
+        store.put(other, 12, 34, hash)
+        store.remove(file)
+
+        then:
+        store.get(file, 12, 34) == null
+        store.get(other, 12, 34) == hash
+
+        when:
+        store.put(file, 12, 34, hash)
+
+        then:
+        store.get(file, 12, 34) == hash
+    }
+
+    def "ignores store with unknown header"() {
+        when:
+        store.put(file, 12, 34, hash)
+        store.close()
+        def raf = new RandomAccessFile(storeFile, "rw")
+        raf.writeInt(0)
+        raf.close()
+        store = InodeFileHashStore.open(storeFile, 64)
+
+        then:
+        store.get(file, 12, 34) == null
+    }
+
+    def "disabled store does not store anything"() {
+        def disabled = InodeFileHashStore.disabled()
+
+        when:
+        disabled.put(file, 12, 34, hash)
+
+        then:
+        !disabled.enabled
+        disabled.get(file, 12, 34) == null
+    }
+}
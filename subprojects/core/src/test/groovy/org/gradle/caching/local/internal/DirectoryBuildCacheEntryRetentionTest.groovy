@@ -102,6 +102,35 @@ class DirectoryBuildCacheEntryRetentionTest extends Specification {
         "init-script" | CacheConfigurationsInternal.DEFAULT_MAX_AGE_IN_DAYS_FOR_BUILD_CACHE_ENTRIES
     }
 
+    def "describes size limit when cache is bounded to #maxSizeInBytes bytes"() {
+        when:
+        cacheConfigurations.buildCache.removeUnusedEntriesAfterDays = 7
+
+        and:
+        0 * _
+
+        then:
+        def expiration = new DirectoryBuildCacheEntryRetention(cacheConfigurations, maxSizeInBytes)
+        expiration.sizeBounded == (maxSizeInBytes > 0)
+        expiration.description == description
+
+        where:
+        maxSizeInBytes           | description
+        0                        | "after 7 days"
+        512L * 1024 * 1024       | "after 7 days or when larger than 512 MiB"
+        2L * 1024 * 1024 * 1024  | "after 7 days or when larger than 2 GiB"
+    }
+
+    def "size limit is ignored when cleanup is disabled"() {
+        when:
+        cacheConfigurations.cleanup.set(Cleanup.DISABLED)
+
+        then:
+        def expiration = new DirectoryBuildCacheEntryRetention(cacheConfigurations, 1024 * 1024)
+        !expiration.sizeBounded
+        expiration.description == "disabled"
+    }
+
     // Since we are relying on System.currentTimeMillis(), we can't assert the exact value
     private static equalWithinOneSecond(long actualMillis, long expectedMillis) {
         return Math.abs(expectedMillis - actualMillis) < 1000
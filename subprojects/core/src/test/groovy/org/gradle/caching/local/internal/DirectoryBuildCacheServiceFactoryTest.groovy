@@ -19,6 +19,7 @@ package org.gradle.caching.local.internal
 import org.gradle.api.cache.Cleanup
 import org.gradle.api.internal.cache.CacheConfigurationsInternal
 import org.gradle.api.internal.cache.CacheResourceConfigurationInternal
+import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.file.FileResolver
 import org.gradle.api.provider.Property
 import org.gradle.api.provider.Provider
@@ -28,7 +29,10 @@ import org.gradle.cache.CacheCleanupStrategyFactory
 import org.gradle.cache.UnscopedCacheBuilderFactory
 import org.gradle.cache.scopes.GlobalScopedCacheBuilderFactory
 import org.gradle.caching.BuildCacheServiceFactory
+import org.gradle.caching.internal.packaging.impl.FilePermissionAccess
+import org.gradle.caching.internal.packaging.impl.TarPackerFileSystemSupport
 import org.gradle.caching.local.DirectoryBuildCache
+import org.gradle.internal.buildoption.DefaultInternalOptions
 import org.gradle.internal.file.FileAccessTimeJournal
 import org.gradle.test.fixtures.file.CleanupTestDirectory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -52,7 +56,7 @@ class DirectoryBuildCacheServiceFactoryTest extends Specification {
     }
     def cacheConfigurations = Mock(CacheConfigurationsInternal)
     def cacheCleanupStrategyFactory = Mock(CacheCleanupStrategyFactory)
-    def factory = new DirectoryBuildCacheServiceFactory(cacheRepository, globalScopedCache, resolver, fileAccessTimeJournal, cacheConfigurations, cacheCleanupStrategyFactory)
+    def factory = createFactory(false)
     def cacheBuilder = Stub(CacheBuilder)
     def config = Mock(DirectoryBuildCache)
     def buildCacheDescriber = new NoopBuildCacheDescriber()
@@ -106,6 +110,36 @@ class DirectoryBuildCacheServiceFactoryTest extends Specification {
         0 * _
     }
 
+    def "can create content addressed service"() {
+        def cacheDir = temporaryFolder.file("cache-dir")
+        def factory = createFactory(true)
+
+        when:
+        def service = factory.createBuildCacheService(config, buildCacheDescriber)
+        then:
+        service instanceof ContentAddressedDirectoryBuildCacheService
+        1 * config.getDirectory() >> cacheDir
+        1 * resolver.resolve(cacheDir) >> cacheDir
+        1 * cacheRepository.cache(cacheDir) >> cacheBuilder
+        1 * cacheConfigurations.getCleanup() >> cacheCleanup
+        1 * cacheConfigurations.getCleanupFrequency() >> Mock(Provider)
+        1 * cacheCleanupStrategyFactory.create(_, _) >> Mock(CacheCleanupStrategy)
+        1 * cacheConfigurations.getBuildCache() >> cacheResourceConfiguration
+        1 * cacheResourceConfiguration.getEntryRetentionTimestampSupplier() >> entryRetentionTimestampSupplier
+        1 * cacheResourceConfiguration.getEntryRetention() >> Mock(Property) {
+            get() >> entryRetention
+        }
+        1 * entryRetention.getTimeInMillis() >> 10L
+        1 * entryRetention.isRelative() >> true
+        0 * _
+    }
+
+    private DirectoryBuildCacheServiceFactory createFactory(boolean contentAddressed) {
+        def internalOptions = new DefaultInternalOptions([(DirectoryBuildCacheServiceFactory.CONTENT_ADDRESSED_OPTION.systemPropertyName): String.valueOf(contentAddressed)])
+        new DirectoryBuildCacheServiceFactory(cacheRepository, globalScopedCache, resolver, fileAccessTimeJournal, cacheConfigurations, cacheCleanupStrategyFactory,
+            Stub(TarPackerFileSystemSupport), Stub(FilePermissionAccess), new StringInterner(), new DirectoryBuildCacheEvictionProvider(), internalOptions)
+    }
+
     private class NoopBuildCacheDescriber implements BuildCacheServiceFactory.Describer {
 
         @Override
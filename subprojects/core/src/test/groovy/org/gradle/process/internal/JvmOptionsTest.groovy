@@ -18,6 +18,7 @@
 package org.gradle.process.internal
 
 import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.hash.Hashing
 import org.gradle.process.JavaDebugOptions
 import org.gradle.process.JavaForkOptions
 import org.gradle.util.TestUtil
@@ -185,6 +186,7 @@ class JvmOptionsTest extends Specification {
         "ssl truststore path"     | JvmOptions.SSL_TRUSTSTORE_KEY       | "-D${JvmOptions.SSL_TRUSTSTORE_KEY}=truststore/path"
         "ssl truststore password" | JvmOptions.SSL_TRUSTPASSWORD_KEY    | "-D${JvmOptions.SSL_TRUSTPASSWORD_KEY}=secret"
         "ssl truststore type"     | JvmOptions.SSL_TRUSTSTORETYPE_KEY   | "-D${JvmOptions.SSL_TRUSTSTORETYPE_KEY}=jks"
+        "file content hash"       | Hashing.FILE_CONTENT_HASH_FUNCTION_PROPERTY | "-D${Hashing.FILE_CONTENT_HASH_FUNCTION_PROPERTY}=murmur3"
     }
 
     def "#propDescr can be set as systemproperty"() {
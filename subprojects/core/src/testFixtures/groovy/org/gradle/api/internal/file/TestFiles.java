@@ -43,6 +43,7 @@
 import org.gradle.internal.resource.local.FileResourceRepository;
 import org.gradle.internal.service.scopes.Scope;
 import org.gradle.internal.snapshot.CaseSensitivity;
+import org.gradle.internal.snapshot.impl.ConcurrentHashingPool;
 import org.gradle.internal.snapshot.impl.DirectorySnapshotterStatistics;
 import org.gradle.internal.time.Time;
 import org.gradle.internal.vfs.FileSystemAccess;
@@ -218,7 +219,8 @@ public static FileSystemAccess fileSystemAccess(VirtualFileSystem virtualFileSys
             fileSystem()::stat,
             virtualFileSystem,
             locations -> {},
-            new DirectorySnapshotterStatistics.Collector()
+            new DirectorySnapshotterStatistics.Collector(),
+            ConcurrentHashingPool.SEQUENTIAL
         );
     }
 
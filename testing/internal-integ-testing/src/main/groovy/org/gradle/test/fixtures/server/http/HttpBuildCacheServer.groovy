@@ -19,6 +19,8 @@ package org.gradle.test.fixtures.server.http
 import com.google.common.base.Preconditions
 import org.eclipse.jetty.servlet.FilterHolder
 import org.eclipse.jetty.webapp.WebAppContext
+import org.gradle.caching.server.BuildCacheServerMetrics
+import org.gradle.caching.server.BuildCacheServerStorage
 import org.gradle.internal.hash.Hashing
 import org.gradle.test.fixtures.file.TestDirectoryProvider
 import org.gradle.test.fixtures.file.TestFile
@@ -33,6 +35,7 @@ import javax.servlet.ServletRequest
 import javax.servlet.ServletResponse
 import javax.servlet.http.HttpServletRequest
 import javax.servlet.http.HttpServletResponse
+import java.nio.channels.Channels
 
 class HttpBuildCacheServer extends ExternalResource implements HttpServerFixture {
     private final TestDirectoryProvider provider
@@ -40,6 +43,7 @@ class HttpBuildCacheServer extends ExternalResource implements HttpServerFixture
     private TestFile cacheDir
     private int blockIncomingConnectionsForSeconds = 0
     private final List<Responder> responders = []
+    private BuildCacheServerStorage referenceStorage
 
     HttpBuildCacheServer(TestDirectoryProvider provider) {
         this.provider = provider
@@ -59,6 +63,7 @@ class HttpBuildCacheServer extends ExternalResource implements HttpServerFixture
 
     void deleteCacheFiles() {
         listCacheFiles().each { it.delete() }
+        resetReferenceStorage()
     }
 
     @Override
@@ -109,6 +114,82 @@ class HttpBuildCacheServer extends ExternalResource implements HttpServerFixture
         this
     }
 
+    /**
+     * Serves the cache with the storage of the reference build cache server, instead of the default servlet of Jetty.
+     * This includes the optional extension of the HTTP build cache protocol for checking the existence of many entries in a single request.
+     *
+     * <p>The storage indexes the cache directory when it handles its first request, so entries can be seeded by writing files to the cache directory before that.</p>
+     */
+    HttpBuildCacheServer withReferenceStorage(long maxEntrySizeInBytes = Long.MAX_VALUE) {
+        addResponder { HttpServletRequest request, HttpServletResponse response ->
+            def storage = getReferenceStorage()
+            def key = request.requestURI.substring(request.requestURI.lastIndexOf('/') + 1)
+            if (request.method == "OPTIONS") {
+                response.setHeader("X-Gradle-Build-Cache-Capabilities", "contains")
+                response.status = HttpServletResponse.SC_OK
+                return false
+            }
+            if (request.method == "POST" && key == "contains") {
+                def existingKeys = request.inputStream.getText("UTF-8").readLines()*.trim().findAll { BuildCacheServerStorage.isValidKey(it) && storage.contains(it) }
+                response.contentType = "application/vnd.gradle.build-cache-keys.v1"
+                response.status = HttpServletResponse.SC_OK
+                response.outputStream.write(existingKeys.join("\n").getBytes("UTF-8"))
+                return false
+            }
+            if (!BuildCacheServerStorage.isValidKey(key)) {
+                return true
+            }
+            if (request.method == "GET" || request.method == "HEAD") {
+                def entry = storage.open(key)
+                if (entry == null) {
+                    response.status = HttpServletResponse.SC_NOT_FOUND
+                    return false
+                }
+                entry.withCloseable {
+                    long size = entry.size()
+                    response.contentType = "application/vnd.gradle.build-cache-artifact.v2"
+                    response.setContentLengthLong(size)
+                    response.status = HttpServletResponse.SC_OK
+                    if (request.method == "GET") {
+                        def target = Channels.newChannel(response.outputStream)
+                        long position = 0
+                        while (position < size) {
+                            position += entry.transferTo(position, size - position, target)
+                        }
+                    }
+                }
+                return false
+            }
+            if (request.method == "PUT") {
+                def storedSize = storage.store(key, request.inputStream, maxEntrySizeInBytes)
+                response.status = storedSize < 0 ? HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE : HttpServletResponse.SC_CREATED
+                return false
+            }
+            return true
+        }
+    }
+
+    private synchronized BuildCacheServerStorage getReferenceStorage() {
+        if (referenceStorage == null) {
+            referenceStorage = new BuildCacheServerStorage(getCacheDir().toPath(), Long.MAX_VALUE, new BuildCacheServerMetrics())
+        }
+        return referenceStorage
+    }
+
+    private synchronized void resetReferenceStorage() {
+        referenceStorage = null
+    }
+
+    /**
+     * Delays each request, to simulate a cache node far away from the build.
+     */
+    HttpBuildCacheServer withLatency(int millis) {
+        addResponder { HttpServletRequest request, HttpServletResponse response ->
+            Thread.sleep(millis)
+            return true
+        }
+    }
+
     @Override
     void start() {
         cacheDir = provider.testDirectory.createDir('http-cache-dir')